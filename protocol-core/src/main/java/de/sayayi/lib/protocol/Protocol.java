@@ -19,6 +19,7 @@ import de.sayayi.lib.protocol.Level.Shared;
 import de.sayayi.lib.protocol.ProtocolFactory.MessageProcessor;
 import de.sayayi.lib.protocol.ProtocolFormatter.ConfiguredProtocolFormatter;
 import de.sayayi.lib.protocol.ProtocolIterator.DepthEntry;
+import de.sayayi.lib.protocol.exception.ProtocolException;
 import de.sayayi.lib.protocol.formatter.TechnicalProtocolFormatter;
 import de.sayayi.lib.protocol.matcher.MessageMatcher;
 
@@ -27,6 +28,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.UnmodifiableView;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -285,7 +287,7 @@ public interface Protocol<M> extends ProtocolQueryable
    *
    * @see Shared#DEBUG DEBUG
    */
-  @Contract(pure = true, value = "-> new")
+  @Contract(pure = true)
   default @NotNull ProtocolMessageBuilder<M> debug() {
     return add(Shared.DEBUG);
   }
@@ -300,7 +302,7 @@ public interface Protocol<M> extends ProtocolQueryable
    *
    * @see Shared#INFO INFO
    */
-  @Contract(pure = true, value = "-> new")
+  @Contract(pure = true)
   default @NotNull ProtocolMessageBuilder<M> info() {
     return add(Shared.INFO);
   }
@@ -315,7 +317,7 @@ public interface Protocol<M> extends ProtocolQueryable
    *
    * @see Shared#WARN WARN
    */
-  @Contract(pure = true, value = "-> new")
+  @Contract(pure = true)
   default @NotNull ProtocolMessageBuilder<M> warn() {
     return add(Shared.WARN);
   }
@@ -330,7 +332,7 @@ public interface Protocol<M> extends ProtocolQueryable
    *
    * @see Shared#ERROR ERROR
    */
-  @Contract(pure = true, value = "-> new")
+  @Contract(pure = true)
   default @NotNull ProtocolMessageBuilder<M> error() {
     return add(Shared.ERROR);
   }
@@ -348,7 +350,7 @@ public interface Protocol<M> extends ProtocolQueryable
    *
    * @see Shared#ERROR ERROR
    */
-  @Contract(pure = true, value = "_ -> new")
+  @Contract(pure = true)
   default @NotNull ProtocolMessageBuilder<M> error(@NotNull Throwable throwable) {
     return add(Shared.ERROR).withThrowable(throwable);
   }
@@ -356,12 +358,17 @@ public interface Protocol<M> extends ProtocolQueryable
 
   /**
    * Prepares a new message with the given protocol {@code level}.
+   * <p>
+   * If {@code level} is below the {@linkplain #getAdmissionLevel() admission level}, a shared
+   * builder is returned which discards the message without processing it.
    *
    * @param level  protocol level, never {@code null}
    *
-   * @return  new message builder instance, never {@code null}
+   * @return  message builder instance, never {@code null}
+   *
+   * @see #setAdmissionLevel(Level)
    */
-  @Contract(pure = true, value = "_ -> new")
+  @Contract(pure = true)
   @NotNull ProtocolMessageBuilder<M> add(@NotNull Level level);
 
 
@@ -389,6 +396,186 @@ public interface Protocol<M> extends ProtocolQueryable
   }
 
 
+  /**
+   * Grafts root protocol {@code protocol} onto this protocol as a new protocol group.
+   * <p>
+   * The entries of {@code protocol} are moved into the new group as they are: messages are
+   * neither copied nor processed again and the parameters of {@code protocol} become the
+   * parameters of the group, inheriting the parameters of this protocol. The cost of grafting
+   * depends on the number of groups in {@code protocol}, not on the number of messages it
+   * contains.
+   * <p>
+   * The grafted protocol must not be used afterwards; any attempt to add messages or groups to it
+   * or to change its parameters results in a {@link ProtocolException}. Its tag propagations
+   * are applied to messages added to the new group, its listeners are not notified.
+   *
+   * @param protocol  root protocol created by the same factory as this protocol,
+   *                  not {@code null}
+   *
+   * @return  new protocol group containing the entries of {@code protocol}, never {@code null}
+   *
+   * @throws ProtocolException  if {@code protocol} is not a root protocol, has been created by a
+   *                            different factory, has already been grafted, has spilling enabled
+   *                            or is the root of this protocol, or if it contains a group with a
+   *                            name which is already used in this protocol
+   *
+   * @since 1.6.0
+   */
+  @Contract(value = "_ -> new", mutates = "this,param1")
+  @NotNull ProtocolGroup<M> graft(@NotNull Protocol<M> protocol);
+
+
+  /**
+   * Creates a read-only snapshot of the protocol structure this protocol belongs to, starting
+   * with the root protocol.
+   * <p>
+   * The snapshot contains the messages and groups added so far, together with the group names,
+   * visibilities, level limits, group messages and parameters as they are at the time of the
+   * snapshot. The snapshot shares its messages with this protocol until it is accessed, so the
+   * cost of taking a snapshot depends on the number of groups only. Message parameters changed
+   * after the snapshot has been taken do not show up in the snapshot.
+   * <p>
+   * A snapshot can be iterated, queried and formatted while messages, groups and parameters are
+   * added to this protocol by other threads. Any attempt to modify the snapshot results in a
+   * {@link ProtocolException}.
+   *
+   * @return  new protocol snapshot, never {@code null}
+   *
+   * @since 1.6.0
+   */
+  @Contract(value = "-> new", pure = true)
+  @NotNull Protocol<M> snapshot();
+
+
+  /**
+   * Sets a message budget for the protocol structure this protocol belongs to, starting with the
+   * root protocol.
+   * <p>
+   * When the number of messages or their estimated heap size exceeds the budget, messages are
+   * evicted until the protocol structure is within budget again. Messages with the lowest
+   * severity are evicted first, for instance {@code DEBUG} messages before {@code INFO}
+   * messages; messages with the same severity are evicted in the order they have been added.
+   * Groups are never evicted. Each protocol counts the messages evicted from it, so formatters
+   * can report them.
+   * <p>
+   * The budget can be changed at any time. Evicting a message takes amortized constant time.
+   * Changes to a protocol with a message budget cannot be exported as a delta, and a protocol
+   * with a message budget can neither be grafted nor spilled.
+   *
+   * @param maxMessages  maximum number of messages, {@code Integer.MAX_VALUE} for no limit
+   * @param heapBudget   estimated heap size in bytes the messages may occupy,
+   *                     {@code Long.MAX_VALUE} for no limit
+   *
+   * @return  this protocol instance
+   *
+   * @throws IllegalArgumentException  if {@code maxMessages} or {@code heapBudget} is negative
+   * @throws ProtocolException         if spilling has been enabled for the protocol, if its
+   *                                   changes are being exported, e.g. by a journal, or if the
+   *                                   protocol is a snapshot or has been grafted
+   *
+   * @see #getDroppedMessageCount()
+   *
+   * @since 1.6.0
+   */
+  @Contract(value = "_, _ -> this", mutates = "this")
+  @NotNull Protocol<M> setMessageBudget(int maxMessages, long heapBudget);
+
+
+  /**
+   * Returns the number of messages which have been evicted from this protocol, not including
+   * messages evicted from its descendant groups.
+   *
+   * @return  number of evicted messages
+   *
+   * @see #setMessageBudget(int, long)
+   *
+   * @since 1.6.0
+   */
+  @Contract(pure = true)
+  int getDroppedMessageCount();
+
+
+  /**
+   * Sets the admission level for this protocol and its descendant groups. Messages with a level
+   * below the admission level are discarded when they are added, before the message is processed
+   * and without allocating a message or builder instance. Descendant groups may set their own
+   * admission level.
+   * <p>
+   * The admission level can be changed at any time, e.g. to temporarily record debug messages for
+   * a single protocol. It affects messages added afterwards only.
+   *
+   * @param level  admission level or {@code null} to use the admission level of the parent
+   *               protocol or, for a root protocol, the admission level of the factory
+   *
+   * @return  this protocol instance
+   *
+   * @throws ProtocolException  if the protocol is a snapshot or has been grafted
+   *
+   * @see ProtocolFactory#getAdmissionLevel()
+   *
+   * @since 1.6.0
+   */
+  @Contract(value = "_ -> this", mutates = "this")
+  @NotNull Protocol<M> setAdmissionLevel(Level level);
+
+
+  /**
+   * Returns the effective admission level for this protocol. This is the admission level set for
+   * this protocol or the nearest parent protocol, or the admission level of the factory if none
+   * has been set.
+   *
+   * @return  effective admission level, never {@code null}
+   *
+   * @see #setAdmissionLevel(Level)
+   *
+   * @since 1.6.0
+   */
+  @Contract(pure = true)
+  @NotNull Level getAdmissionLevel();
+
+
+  /**
+   * Adds a listener which is notified about messages and groups added to this protocol and all
+   * of its descendant groups.
+   *
+   * @param listener  protocol listener, not {@code null}
+   *
+   * @return  this protocol instance
+   *
+   * @see #removeListener(ProtocolListener)
+   *
+   * @since 1.6.0
+   */
+  @Contract(value = "_ -> this", mutates = "this")
+  @NotNull Protocol<M> addListener(@NotNull ProtocolListener<M> listener);
+
+
+  /**
+   * Removes a listener previously added to this protocol.
+   *
+   * @param listener  protocol listener, not {@code null}
+   *
+   * @return  this protocol instance
+   *
+   * @see #addListener(ProtocolListener)
+   *
+   * @since 1.6.0
+   */
+  @Contract(value = "_ -> this", mutates = "this")
+  @NotNull Protocol<M> removeListener(@NotNull ProtocolListener<M> listener);
+
+
+  /**
+   * Visits all messages and groups of this protocol in the order they were added. For a protocol
+   * group, the group itself is not reported, only its content.
+   *
+   * @param visitor  protocol visitor, not {@code null}
+   *
+   * @since 1.6.0
+   */
+  void accept(@NotNull ProtocolVisitor<M> visitor);
+
+
   /**
    * Returns a group iterator for this protocol.
    * <p>
@@ -478,6 +665,23 @@ public interface Protocol<M> extends ProtocolQueryable
   @NotNull ProtocolIterator<M> iterator(@NotNull MessageMatcher matcher);
 
 
+  /**
+   * Creates a cursor for tailing this protocol while messages and groups are still being added.
+   * Each {@link ProtocolCursor#poll() poll} returns only the entries added since the previous
+   * poll.
+   *
+   * @param matcher  message matcher, not {@code null}
+   *
+   * @return  protocol cursor, never {@code null}
+   *
+   * @see ProtocolCursor
+   *
+   * @since 1.6.0
+   */
+  @Contract(value = "_ -> new", pure = true)
+  @NotNull ProtocolCursor<M> cursor(@NotNull MessageMatcher matcher);
+
+
   /**
    * Creates a {@code Spliterator} over the elements of this protocol matched by
    * {@code matcher}, with no initial size estimate.
@@ -501,6 +705,75 @@ public interface Protocol<M> extends ProtocolQueryable
   }
 
 
+  /**
+   * Counts the messages in this protocol and all descendant groups which are matched by
+   * {@code matcher}. Group level limits are honored, group visibility is not.
+   * <p>
+   * Tag, message id and level terms of the matcher are evaluated using a per-protocol index,
+   * which makes counting significantly faster than iterating over the protocol.
+   *
+   * @param matcher  message matcher, not {@code null}
+   *
+   * @return  number of matching messages
+   *
+   * @since 1.6.0
+   */
+  @Contract(pure = true)
+  int count(@NotNull MessageMatcher matcher);
+
+
+  /**
+   * Counts the messages in this protocol and all descendant groups which are matched by
+   * {@code matcherExpression}.
+   *
+   * @param matcherExpression  message matcher expression, not {@code null}
+   *
+   * @return  number of matching messages
+   *
+   * @see #count(MessageMatcher)
+   *
+   * @since 1.6.0
+   */
+  @Contract(pure = true)
+  default int count(@NotNull String matcherExpression) {
+    return count(getFactory().parseMessageMatcher(matcherExpression));
+  }
+
+
+  /**
+   * Returns the messages in this protocol and all descendant groups which are matched by
+   * {@code matcher}, in protocol order. Group level limits are honored, group visibility is not.
+   *
+   * @param matcher  message matcher, not {@code null}
+   *
+   * @return  list of matching messages, never {@code null}
+   *
+   * @see #count(MessageMatcher)
+   *
+   * @since 1.6.0
+   */
+  @Contract(value = "_ -> new", pure = true)
+  @NotNull List<ProtocolEntry.Message<M>> find(@NotNull MessageMatcher matcher);
+
+
+  /**
+   * Returns the messages in this protocol and all descendant groups which are matched by
+   * {@code matcherExpression}, in protocol order.
+   *
+   * @param matcherExpression  message matcher expression, not {@code null}
+   *
+   * @return  list of matching messages, never {@code null}
+   *
+   * @see #find(MessageMatcher)
+   *
+   * @since 1.6.0
+   */
+  @Contract(value = "_ -> new", pure = true)
+  default @NotNull List<ProtocolEntry.Message<M>> find(@NotNull String matcherExpression) {
+    return find(getFactory().parseMessageMatcher(matcherExpression));
+  }
+
+
   /**
    * Search for a group by name.
    * <p>
@@ -603,9 +876,9 @@ public interface Protocol<M> extends ProtocolQueryable
      * @param message  message text, resource key or any other message identifier, never
      *                 {@code null}
      *
-     * @return  parameter builder instance for the newly created message
+     * @return  parameter builder instance for the newly created message. If the message has been
+     *          discarded due to the admission level, the returned builder ignores all parameters
      */
-    @Contract("_ -> new")
     @NotNull MessageParameterBuilder<M> message(@NotNull String message);
 
 
@@ -623,7 +896,6 @@ public interface Protocol<M> extends ProtocolQueryable
      *
      * @since 0.4.0
      */
-    @Contract("_ -> new")
     @NotNull MessageParameterBuilder<M> withMessage(@NotNull M message);
   }
 
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol;
+
+import de.sayayi.lib.protocol.ProtocolIterator.DepthEntry;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+
+/**
+ * Resumable cursor over a protocol which is still being added to.
+ * <p>
+ * The cursor remembers its position in the entry list of the protocol and every group, so each
+ * {@link #poll()} only visits the parts of the protocol which have changed and returns the
+ * entries added since the previous poll. The entries are the same as those produced by a
+ * {@link ProtocolIterator}, with the following differences:
+ * <ul>
+ *   <li>
+ *     Entries are returned in the order they were added. A message added to a group after
+ *     messages have been added to its parent is returned after those messages.
+ *   </li>
+ *   <li>
+ *     Whether a message is the last entry at its depth is only known when the next entry at that
+ *     depth is added. The most recent message at each depth is therefore held back until either
+ *     a sibling is added or the cursor is {@linkplain #finish() finished}.
+ *   </li>
+ *   <li>
+ *     Group start entries are returned as soon as a group has visible content and are never
+ *     flagged as last entry. The header level and message count reflect the group at that time.
+ *     A group is ended as soon as an entry is added to its parent. If the group receives new
+ *     entries afterwards, it is started again.
+ *   </li>
+ *   <li>
+ *     A group with visibility {@link ProtocolGroup.Visibility#SHOW_HEADER_ALWAYS
+ *     SHOW_HEADER_ALWAYS} and no visible content is returned as group message entry, once the
+ *     next entry at the same depth is added. Content added later on starts the group like any
+ *     other group.
+ *   </li>
+ *   <li>
+ *     Groups with visibility {@link ProtocolGroup.Visibility#FLATTEN_ON_SINGLE_ENTRY
+ *     FLATTEN_ON_SINGLE_ENTRY} are shown with a header, as the number of entries is not known in
+ *     advance. Group visibility is evaluated once, when the group is first visited.
+ *   </li>
+ * </ul>
+ * <p>
+ * Polling a cursor locks the protocol, so the protocol can be modified by other threads while
+ * it is polled. Cursors are not thread safe themselves and must be polled by one thread at a
+ * time.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public interface ProtocolCursor<M>
+{
+  /**
+   * Returns the entries which have been added to the protocol since the previous poll. The
+   * first poll starts with a {@link ProtocolIterator.ProtocolStart} entry.
+   *
+   * @return  list of new entries, never {@code null}
+   */
+  @Contract(value = "-> new", mutates = "this")
+  @NotNull List<DepthEntry<M>> poll();
+
+
+  /**
+   * Finishes this cursor. Returns the entries which have been added to the protocol since the
+   * previous poll, followed by all entries which have been held back, the end entries for all
+   * open groups and a {@link ProtocolIterator.ProtocolEnd} entry.
+   * <p>
+   * Subsequent polls return an empty list.
+   *
+   * @return  list of remaining entries, never {@code null}
+   */
+  @Contract(value = "-> new", mutates = "this")
+  @NotNull List<DepthEntry<M>> finish();
+
+
+  /**
+   * Tells whether this cursor has been finished.
+   *
+   * @return  {@code true} if the cursor is finished, {@code false} otherwise
+   */
+  @Contract(pure = true)
+  boolean isFinished();
+}
@@ -22,8 +22,11 @@ import de.sayayi.lib.protocol.message.processor.StringMessageProcessor;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.List;
 import java.util.UUID;
 
+import static java.util.Collections.emptyList;
+
 
 /**
  *
@@ -74,6 +77,37 @@ public interface ProtocolFactory<M> extends ProtocolMessageMatcher
   @NotNull Protocol<M> createProtocol();
 
 
+  /**
+   * Returns the listeners which are notified about messages and groups added to any protocol
+   * created by this factory.
+   *
+   * @return  unmodifiable list of protocol listeners, never {@code null}
+   *
+   * @since 1.6.0
+   */
+  @Contract(pure = true)
+  default @NotNull List<ProtocolListener<M>> getListeners() {
+    return emptyList();
+  }
+
+
+  /**
+   * Returns the admission level for protocols created by this factory. Messages with a level
+   * below the admission level are discarded when they are added, unless a different admission
+   * level has been set for the protocol. The default implementation admits all messages.
+   *
+   * @return  admission level, never {@code null}
+   *
+   * @see Protocol#setAdmissionLevel(Level)
+   *
+   * @since 1.6.0
+   */
+  @Contract(pure = true)
+  default @NotNull Level getAdmissionLevel() {
+    return Level.Shared.LOWEST;
+  }
+
+
 
 
   /**
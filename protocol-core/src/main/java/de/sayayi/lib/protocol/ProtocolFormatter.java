@@ -164,4 +164,28 @@ public interface ProtocolFormatter<M,R>
       return protocol.format(this);
     }
   }
+
+
+
+
+  /**
+   * Formatter producing textual output, which can be taken in chunks while formatting is in
+   * progress. This allows a protocol to be rendered with bounded memory.
+   *
+   * @see de.sayayi.lib.protocol.util.ProtocolPublisher#formatted(Protocol, ChunkedProtocolFormatter, MessageMatcher)
+   *
+   * @since 1.6.0
+   */
+  interface ChunkedProtocolFormatter<M> extends ProtocolFormatter<M,String>
+  {
+    /**
+     * Returns the output produced since the last invocation of this method (or since the
+     * formatter was initialized) and removes it from the formatter. After taking chunks,
+     * {@link #getResult()} only returns the output which has not been taken yet.
+     *
+     * @return  formatted chunk, never {@code null} but may be empty
+     */
+    @Contract(mutates = "this")
+    @NotNull String takeChunk();
+  }
 }
@@ -183,42 +183,42 @@ public interface ProtocolGroup<M> extends Protocol<M>
 
 
   @Override
-  @Contract(pure = true, value = "-> new")
+  @Contract(pure = true)
   default @NotNull ProtocolMessageBuilder<M> debug() {
     return add(Shared.DEBUG);
   }
 
 
   @Override
-  @Contract(pure = true, value = "-> new")
+  @Contract(pure = true)
   default @NotNull ProtocolMessageBuilder<M> info() {
     return add(Shared.INFO);
   }
 
 
   @Override
-  @Contract(pure = true, value = "-> new")
+  @Contract(pure = true)
   default @NotNull ProtocolMessageBuilder<M> warn() {
     return add(Shared.WARN);
   }
 
 
   @Override
-  @Contract(pure = true, value = "-> new")
+  @Contract(pure = true)
   default @NotNull ProtocolMessageBuilder<M> error() {
     return add(Shared.ERROR);
   }
 
 
   @Override
-  @Contract(pure = true, value = "_ -> new")
+  @Contract(pure = true)
   default @NotNull ProtocolMessageBuilder<M> error(@NotNull Throwable throwable) {
     return add(Shared.ERROR).withThrowable(throwable);
   }
 
 
   @Override
-  @Contract(pure = true, value = "_ -> new")
+  @Contract(pure = true)
   @NotNull ProtocolMessageBuilder<M> add(@NotNull Level level);
 
 
@@ -350,6 +350,37 @@ public interface ProtocolGroup<M> extends Protocol<M>
   @NotNull ProtocolGroup<M> set(@NotNull String parameter, Object value);
 
 
+  /**
+   * Seals this group. A sealed group does not accept new messages or groups and the parameters
+   * of its messages can no longer be changed. The group header, name, visibility, level limit
+   * and parameters of the group remain modifiable, as do the groups already contained in it.
+   * <p>
+   * If spilling has been enabled for the protocol, the messages of sealed groups are written to
+   * secondary storage when the heap budget is exceeded.
+   *
+   * @return  this protocol group instance
+   *
+   * @see de.sayayi.lib.protocol.codec.ProtocolSpillFile
+   *
+   * @since 1.6.0
+   */
+  @Contract(value = "-> this", mutates = "this")
+  @NotNull ProtocolGroup<M> seal();
+
+
+  /**
+   * Tells whether this group has been sealed.
+   *
+   * @return  {@code true} if this group is sealed, {@code false} otherwise
+   *
+   * @see #seal()
+   *
+   * @since 1.6.0
+   */
+  @Contract(pure = true)
+  boolean isSealed();
+
+
   /**
    * Returns the protocol instance this protocol group belongs to.
    *
@@ -379,7 +410,6 @@ public interface ProtocolGroup<M> extends Protocol<M>
 
 
     @Override
-    @Contract("_ -> new")
     @NotNull MessageParameterBuilder<M> message(@NotNull String message);
   }
 
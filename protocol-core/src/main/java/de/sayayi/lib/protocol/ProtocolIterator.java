@@ -239,6 +239,22 @@ public interface ProtocolIterator<M> extends Iterator<DepthEntry<M>>
      */
     @Contract(pure = true)
     int getMessageCount();
+
+
+    /**
+     * <p>
+     *   Returns the number of messages which have been evicted from this group because the
+     *   protocol exceeded its message budget.
+     * </p>
+     *
+     * @return  number of evicted messages
+     *
+     * @see Protocol#setMessageBudget(int, long)
+     *
+     * @since 1.6.0
+     */
+    @Contract(pure = true)
+    int getDroppedMessageCount();
   }
 
 
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol;
+
+import org.jetbrains.annotations.NotNull;
+
+
+/**
+ * Listener receiving notifications about messages and groups added to a protocol.
+ * <p>
+ * Listeners can be registered with a protocol (or group), in which case they are notified about
+ * changes to that protocol and all of its descendant groups, or with a
+ * {@link de.sayayi.lib.protocol.factory.GenericProtocolFactory GenericProtocolFactory}, in which
+ * case they are notified about changes to all protocols created by that factory.
+ * <p>
+ * Listeners are invoked synchronously by the thread adding the message or group. As protocol
+ * groups may be used by different threads, listeners must be thread safe and should return
+ * quickly. Use {@link de.sayayi.lib.protocol.util.AsyncProtocolListener AsyncProtocolListener}
+ * to deliver events to slow consumers.
+ * <p>
+ * The listener is notified as soon as a message has been added. Parameters, which are usually
+ * set after the message, are not necessarily visible at that time.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public interface ProtocolListener<M>
+{
+  /**
+   * Invoked after {@code message} has been added to a protocol.
+   *
+   * @param message  added message, not {@code null}
+   */
+  default void messageAdded(@NotNull ProtocolEntry.Message<M> message) {
+  }
+
+
+  /**
+   * Invoked after {@code group} has been created.
+   *
+   * @param group  created group, not {@code null}
+   */
+  default void groupCreated(@NotNull ProtocolGroup<M> group) {
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol;
+
+import de.sayayi.lib.protocol.Protocol.GenericMessage;
+import de.sayayi.lib.protocol.Protocol.Message;
+import de.sayayi.lib.protocol.ProtocolGroup.Visibility;
+
+import org.jetbrains.annotations.NotNull;
+
+
+/**
+ * Visitor for the raw structure of a protocol.
+ * <p>
+ * Contrary to {@link ProtocolIterator}, a visitor receives all messages and groups in the order
+ * they were added, regardless of level limits, group visibility and message matchers. Groups are
+ * reported by a {@link #groupStart(String, Visibility, Level, GenericMessage) groupStart} and
+ * {@link #groupEnd() groupEnd} pair enclosing the group content.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ *
+ * @see Protocol#accept(ProtocolVisitor)
+ */
+public interface ProtocolVisitor<M>
+{
+  /**
+   * Invoked for each message.
+   *
+   * @param message  message, never {@code null}
+   */
+  void message(@NotNull Message<M> message);
+
+
+  /**
+   * Invoked when a group starts. Subsequent messages and groups belong to this group until the
+   * matching {@link #groupEnd()} is invoked.
+   *
+   * @param name          group name or {@code null}
+   * @param visibility    group visibility, never {@code null}
+   * @param levelLimit    group level limit, never {@code null}
+   * @param groupMessage  group header message or {@code null}
+   */
+  default void groupStart(String name, @NotNull Visibility visibility, @NotNull Level levelLimit,
+                          GenericMessage<M> groupMessage) {
+  }
+
+
+  /**
+   * Invoked when a group ends.
+   */
+  default void groupEnd() {
+  }
+}
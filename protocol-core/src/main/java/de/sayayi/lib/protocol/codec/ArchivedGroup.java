@@ -0,0 +1,340 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.codec;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.Protocol;
+import de.sayayi.lib.protocol.Protocol.GenericMessage;
+import de.sayayi.lib.protocol.ProtocolFactory;
+import de.sayayi.lib.protocol.ProtocolGroup.Visibility;
+import de.sayayi.lib.protocol.ProtocolVisitor;
+import de.sayayi.lib.protocol.internal.ProtocolRestorer;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_END;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_GROUP_START;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_MESSAGE;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Lazily decoded view on a group (or the root protocol) stored in a {@link ProtocolArchive}.
+ * <p>
+ * The group header is decoded on first access. Messages and child groups are decoded each time
+ * they are visited and are not retained by this view.
+ * <p>
+ * Malformed archive data is reported as an {@link UncheckedIOException}.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class ArchivedGroup<M>
+{
+  private final @NotNull ProtocolArchive<M> archive;
+  private final int index;
+  private final long offset;
+  private Header<M> header;
+
+
+  ArchivedGroup(@NotNull ProtocolArchive<M> archive, int index, long offset)
+  {
+    this.archive = archive;
+    this.index = index;
+    this.offset = offset;
+  }
+
+
+  /**
+   * Returns the index of this group within the archive.
+   *
+   * @return  group index, {@code 0} for the root protocol
+   *
+   * @see ProtocolArchive#getGroup(int)
+   */
+  @Contract(pure = true)
+  public int getIndex() {
+    return index;
+  }
+
+
+  /**
+   * Tells whether this view represents the root protocol.
+   *
+   * @return  {@code true} if this is the root protocol, {@code false} otherwise
+   */
+  @Contract(pure = true)
+  public boolean isRoot() {
+    return index == 0;
+  }
+
+
+  /**
+   * Returns the parent group of this group.
+   *
+   * @return  optional parent group, empty for the root protocol
+   */
+  @Contract(pure = true)
+  public @NotNull Optional<ArchivedGroup<M>> getParent()
+  {
+    final var parentIndex = getHeader().parentIndex;
+    return parentIndex < 0 ? Optional.empty() : Optional.of(archive.getGroup(parentIndex));
+  }
+
+
+  /**
+   * Returns the unique name of this group.
+   *
+   * @return  group name or {@code null} if the group has no name
+   */
+  @Contract(pure = true)
+  public String getName() {
+    return getHeader().name;
+  }
+
+
+  /**
+   * Returns the visibility of this group.
+   *
+   * @return  group visibility, never {@code null}
+   */
+  @Contract(pure = true)
+  public @NotNull Visibility getVisibility() {
+    return getHeader().visibility;
+  }
+
+
+  /**
+   * Returns the level limit of this group.
+   *
+   * @return  level limit, never {@code null}
+   */
+  @Contract(pure = true)
+  public @NotNull Level getLevelLimit() {
+    return getHeader().levelLimit;
+  }
+
+
+  /**
+   * Returns the group header message.
+   *
+   * @return  group header message or {@code null} if no group message has been set
+   */
+  @Contract(pure = true)
+  public GenericMessage<M> getGroupMessage() {
+    return getHeader().groupMessage;
+  }
+
+
+  /**
+   * Returns the direct child groups of this group.
+   *
+   * @return  list of child groups, never {@code null}
+   */
+  @Contract(value = "-> new", pure = true)
+  public @NotNull List<ArchivedGroup<M>> getGroups()
+  {
+    final var groups = new ArrayList<ArchivedGroup<M>>();
+
+    try {
+      final var decoder = archive.decoderAt(offset);
+      readHeader(decoder);
+
+      for(int recordType; (recordType = decoder.readByte()) != RECORD_END;)
+      {
+        if (recordType == RECORD_MESSAGE)
+          decoder.readMessage();
+        else if (recordType == RECORD_GROUP_START)
+          groups.add(archive.getGroup(decoder.readVarint()));
+        else
+          throw new IOException("invalid protocol archive: unknown record type " + recordType);
+      }
+    } catch(IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+
+    return groups;
+  }
+
+
+  /**
+   * Passes the messages and groups contained in this group, recursively, to {@code visitor}.
+   * The group itself is not reported.
+   *
+   * @param visitor  protocol visitor, not {@code null}
+   */
+  public void accept(@NotNull ProtocolVisitor<M> visitor)
+  {
+    requireNonNull(visitor, "visitor must not be null");
+
+    try {
+      final var decoder = archive.decoderAt(offset);
+
+      readHeader(decoder);
+      acceptContent(decoder, visitor);
+    } catch(IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+
+  private void acceptContent(@NotNull ProtocolBinaryDecoder<M> decoder,
+                             @NotNull ProtocolVisitor<M> visitor) throws IOException
+  {
+    for(int recordType; (recordType = decoder.readByte()) != RECORD_END;)
+    {
+      if (recordType == RECORD_MESSAGE)
+        visitor.message(decoder.readMessage());
+      else if (recordType == RECORD_GROUP_START)
+      {
+        final var childIndex = decoder.readVarint();
+        if (childIndex <= index)
+          throw new IOException("invalid protocol archive: bad group index " + childIndex);
+
+        final var child = archive.getGroup(childIndex);
+        final var childDecoder = archive.decoderAt(child.offset);
+        final var childHeader = child.readHeader(childDecoder);
+
+        visitor.groupStart(childHeader.name, childHeader.visibility, childHeader.levelLimit,
+            childHeader.groupMessage);
+        child.acceptContent(childDecoder, visitor);
+        visitor.groupEnd();
+      }
+      else
+        throw new IOException("invalid protocol archive: unknown record type " + recordType);
+    }
+  }
+
+
+  /**
+   * Restores this group into a new protocol created by {@code factory}. For the root protocol,
+   * the returned protocol contains all messages and groups from the archive. For other groups,
+   * the returned protocol contains a copy of this group, including its header and all of its
+   * messages and child groups.
+   * <p>
+   * Only the archive blocks belonging to this group and its child groups are decoded.
+   *
+   * @param factory  protocol factory, not {@code null}
+   *
+   * @return  new protocol, never {@code null}
+   */
+  @Contract(value = "_ -> new", mutates = "param1")
+  public @NotNull Protocol<M> toProtocol(@NotNull ProtocolFactory<M> factory)
+  {
+    final var protocol = requireNonNull(factory, "factory must not be null").createProtocol();
+    final var restorer = new ProtocolRestorer<>(protocol);
+
+    if (isRoot())
+      accept(restorer);
+    else
+    {
+      restorer.groupStart(getName(), getVisibility(), getLevelLimit(), getGroupMessage());
+      accept(restorer);
+      restorer.groupEnd();
+    }
+
+    return protocol;
+  }
+
+
+  private @NotNull Header<M> getHeader()
+  {
+    if (header == null)
+    {
+      try {
+        readHeader(archive.decoderAt(offset));
+      } catch(IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+    return header;
+  }
+
+
+  private @NotNull Header<M> readHeader(@NotNull ProtocolBinaryDecoder<M> decoder)
+      throws IOException
+  {
+    final var parentIndex = decoder.readVarint() - 1;
+    if (parentIndex >= index)
+      throw new IOException("invalid protocol archive: bad parent index " + parentIndex);
+
+    final var name = decoder.readString();
+    final var visibility = decoder.readVisibility();
+    final var levelLimit = decoder.readLevel();
+    final var groupMessage = decoder.readByte() == 0 ? null : decoder.readGenericMessage();
+
+    return header = new Header<>(parentIndex, name, visibility, levelLimit, groupMessage);
+  }
+
+
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o)
+      return true;
+    if (!(o instanceof ArchivedGroup))
+      return false;
+
+    final var that = (ArchivedGroup<?>)o;
+
+    return index == that.index && archive == that.archive;
+  }
+
+
+  @Override
+  public int hashCode() {
+    return index;
+  }
+
+
+  @Override
+  public String toString() {
+    return "ArchivedGroup[index=" + index + ",name=" + getName() + ']';
+  }
+
+
+
+
+  private static final class Header<M>
+  {
+    private final int parentIndex;
+    private final String name;
+    private final @NotNull Visibility visibility;
+    private final @NotNull Level levelLimit;
+    private final GenericMessage<M> groupMessage;
+
+
+    private Header(int parentIndex, String name, @NotNull Visibility visibility,
+                   @NotNull Level levelLimit, GenericMessage<M> groupMessage)
+    {
+      this.parentIndex = parentIndex;
+      this.name = name;
+      this.visibility = visibility;
+      this.levelLimit = levelLimit;
+      this.groupMessage = groupMessage;
+    }
+  }
+}
@@ -0,0 +1,452 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.codec;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.Protocol;
+import de.sayayi.lib.protocol.Protocol.GenericMessage;
+import de.sayayi.lib.protocol.Protocol.Message;
+import de.sayayi.lib.protocol.ProtocolGroup.Visibility;
+import de.sayayi.lib.protocol.ProtocolVisitor;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static de.sayayi.lib.protocol.Level.Shared.HIGHEST;
+import static de.sayayi.lib.protocol.ProtocolGroup.Visibility.SHOW_HEADER_IF_NOT_EMPTY;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.ARCHIVE_FOOTER_SIZE;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.ARCHIVE_MAGIC;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.ARCHIVE_VERSION;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_END;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_GROUP_START;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_MESSAGE;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Read-only protocol archive with random access to its groups.
+ * <p>
+ * An archive file is created by {@link #write(Path, Protocol, Function) write} and opened by
+ * {@link #open(Path, Function) open}, which memory-maps the file. Opening an archive only reads
+ * its footer; groups and messages are decoded lazily from the mapped region when they are
+ * accessed, using a per group offset index. Accessing a single group therefore only touches
+ * the pages containing the index entry, the group block and, when looking up a group by name,
+ * the name index.
+ * <p>
+ * Each group is encoded as a separate block, using the compact encoding of
+ * {@link ProtocolBinaryWriter}. Archives are limited to 2 GB.
+ * <p>
+ * An archive instance is immutable and thread safe.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class ProtocolArchive<M>
+{
+  private final @NotNull ByteBuffer buffer;
+  private final @NotNull Function<String,? extends M> messageDecoder;
+  private final int groupIndexOffset;
+  private final int groupCount;
+  private final int nameIndexOffset;
+  private final int nameCount;
+
+
+  private ProtocolArchive(@NotNull ByteBuffer buffer,
+                          @NotNull Function<String,? extends M> messageDecoder) throws IOException
+  {
+    this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+    this.messageDecoder = messageDecoder;
+
+    final var size = buffer.capacity();
+    if (size < ARCHIVE_MAGIC.length + 1 + ARCHIVE_FOOTER_SIZE)
+      throw new IOException("invalid protocol archive: file too small");
+
+    for(int n = 0; n < ARCHIVE_MAGIC.length; n++)
+      if (buffer.get(n) != ARCHIVE_MAGIC[n] ||
+          buffer.get(size - ARCHIVE_MAGIC.length + n) != ARCHIVE_MAGIC[n])
+        throw new IOException("invalid protocol archive: bad magic");
+
+    final var version = buffer.get(ARCHIVE_MAGIC.length);
+    if (version < 1 || version > ARCHIVE_VERSION)
+      throw new IOException("unsupported protocol archive version " + version);
+
+    final var footer = size - ARCHIVE_FOOTER_SIZE;
+    final var groupIndexOffset = buffer.getLong(footer);
+    final var nameIndexOffset = buffer.getLong(footer + 8);
+
+    nameCount = buffer.getInt(footer + 16);
+
+    if (groupIndexOffset < 0 || groupIndexOffset > nameIndexOffset ||
+        (nameIndexOffset - groupIndexOffset) % 8 != 0 || nameCount < 0 ||
+        nameIndexOffset + nameCount * 8L != footer)
+      throw new IOException("invalid protocol archive: bad footer");
+
+    this.groupIndexOffset = (int)groupIndexOffset;
+    this.nameIndexOffset = (int)nameIndexOffset;
+
+    groupCount = (int)((nameIndexOffset - groupIndexOffset) / 8);
+    if (groupCount == 0)
+      throw new IOException("invalid protocol archive: missing root protocol");
+  }
+
+
+  /**
+   * Returns the number of groups in this archive, including the root protocol.
+   *
+   * @return  number of groups
+   */
+  @Contract(pure = true)
+  public int getGroupCount() {
+    return groupCount;
+  }
+
+
+  /**
+   * Returns the root protocol.
+   *
+   * @return  root protocol, never {@code null}
+   */
+  @Contract(pure = true)
+  public @NotNull ArchivedGroup<M> getRoot() {
+    return getGroup(0);
+  }
+
+
+  /**
+   * Returns the group with the given {@code index}. Groups are numbered in the order they are
+   * visited by {@link Protocol#accept(ProtocolVisitor)}, starting with {@code 1}. Index
+   * {@code 0} denotes the root protocol.
+   *
+   * @param index  group index
+   *
+   * @return  group, never {@code null}
+   *
+   * @throws IndexOutOfBoundsException  if {@code index} is out of range
+   */
+  @Contract(pure = true)
+  public @NotNull ArchivedGroup<M> getGroup(int index)
+  {
+    if (index < 0 || index >= groupCount)
+      throw new IndexOutOfBoundsException("group index " + index + " out of range");
+
+    return new ArchivedGroup<>(this, index, buffer.getLong(groupIndexOffset + index * 8));
+  }
+
+
+  /**
+   * Returns the group with the given {@code name}.
+   *
+   * @param name  group name, not {@code null}
+   *
+   * @return  optional group, never {@code null}
+   */
+  @Contract(pure = true)
+  public @NotNull Optional<ArchivedGroup<M>> getGroupByName(@NotNull String name)
+  {
+    final var hash = requireNonNull(name, "name must not be null").hashCode();
+
+    // binary search for the first entry with a matching hash
+    int low = 0;
+    int high = nameCount;
+
+    while(low < high)
+    {
+      final var mid = (low + high) >>> 1;
+
+      if (buffer.getInt(nameIndexOffset + mid * 8) < hash)
+        low = mid + 1;
+      else
+        high = mid;
+    }
+
+    for(; low < nameCount && buffer.getInt(nameIndexOffset + low * 8) == hash; low++)
+    {
+      final var group = getGroup(buffer.getInt(nameIndexOffset + low * 8 + 4));
+      if (name.equals(group.getName()))
+        return Optional.of(group);
+    }
+
+    return Optional.empty();
+  }
+
+
+  @Contract(value = "_ -> new", pure = true)
+  @NotNull ProtocolBinaryDecoder<M> decoderAt(long offset) {
+    return new BufferDecoder<>(buffer.duplicate().position((int)offset), messageDecoder);
+  }
+
+
+  /**
+   * Opens a protocol archive by memory-mapping {@code file}.
+   *
+   * @param file            archive file, not {@code null}
+   * @param messageDecoder  function converting a string into a message, not {@code null}
+   *
+   * @param <M>  internal message object type
+   *
+   * @return  protocol archive, never {@code null}
+   *
+   * @throws IOException  if an I/O error occurs or the file is not a valid protocol archive
+   */
+  public static <M> @NotNull ProtocolArchive<M> open(
+      @NotNull Path file, @NotNull Function<String,? extends M> messageDecoder) throws IOException
+  {
+    requireNonNull(file, "file must not be null");
+    requireNonNull(messageDecoder, "messageDecoder must not be null");
+
+    try(var channel = FileChannel.open(file, READ)) {
+      final var size = channel.size();
+      if (size > Integer.MAX_VALUE)
+        throw new IOException("protocol archive exceeds 2 GB");
+
+      // the mapping remains valid after the channel has been closed
+      return new ProtocolArchive<>(channel.map(READ_ONLY, 0, size), messageDecoder);
+    }
+  }
+
+
+  /**
+   * Writes {@code protocol} to an archive {@code file}. An existing file is overwritten.
+   *
+   * @param file            archive file, not {@code null}
+   * @param protocol        protocol to write, not {@code null}
+   * @param messageEncoder  function converting a message into a string, not {@code null}
+   *
+   * @param <M>  internal message object type
+   *
+   * @throws IOException  if an I/O error occurs
+   */
+  public static <M> void write(@NotNull Path file, @NotNull Protocol<M> protocol,
+                               @NotNull Function<? super M,String> messageEncoder)
+      throws IOException
+  {
+    requireNonNull(file, "file must not be null");
+    requireNonNull(protocol, "protocol must not be null");
+    requireNonNull(messageEncoder, "messageEncoder must not be null");
+
+    try(var out = new BufferedOutputStream(Files.newOutputStream(file), 65536)) {
+      final var archiveWriter = new ArchiveWriter<M>(out, messageEncoder);
+
+      try {
+        protocol.accept(archiveWriter);
+      } catch(UncheckedIOException ex) {
+        throw ex.getCause();
+      }
+
+      archiveWriter.finish();
+    }
+  }
+
+
+
+
+  private static final class ArchiveWriter<M> implements ProtocolVisitor<M>
+  {
+    private final @NotNull ProtocolBinaryEncoder<M> out;
+    private final @NotNull Function<? super M,String> messageEncoder;
+    private final @NotNull Deque<Block<M>> blocks = new ArrayDeque<>();
+    private final @NotNull List<Long> blockOffsets = new ArrayList<>();
+    private final @NotNull List<long[]> names = new ArrayList<>();
+
+
+    private ArchiveWriter(@NotNull BufferedOutputStream out,
+                          @NotNull Function<? super M,String> messageEncoder) throws IOException
+    {
+      this.out = new ProtocolBinaryEncoder<>(out, messageEncoder);
+      this.messageEncoder = messageEncoder;
+
+      this.out.writeBytes(ARCHIVE_MAGIC, 0, ARCHIVE_MAGIC.length);
+      this.out.writeByte(ARCHIVE_VERSION);
+
+      blockOffsets.add(null);
+      blocks.push(new Block<>(0, -1, null, SHOW_HEADER_IF_NOT_EMPTY, HIGHEST, null,
+          messageEncoder));
+    }
+
+
+    @Override
+    public void message(@NotNull Message<M> message)
+    {
+      try {
+        final var block = requireNonNull(blocks.peek());
+
+        block.encoder.writeByte(RECORD_MESSAGE);
+        block.encoder.writeMessage(message);
+      } catch(IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+
+    @Override
+    public void groupStart(String name, @NotNull Visibility visibility, @NotNull Level levelLimit,
+                           GenericMessage<M> groupMessage)
+    {
+      try {
+        final var parent = requireNonNull(blocks.peek());
+        final var index = blockOffsets.size();
+
+        parent.encoder.writeByte(RECORD_GROUP_START);
+        parent.encoder.writeVarint(index);
+
+        blockOffsets.add(null);
+        blocks.push(new Block<>(index, parent.index, name, visibility, levelLimit, groupMessage,
+            messageEncoder));
+
+        if (name != null)
+          names.add(new long[] { name.hashCode(), index });
+      } catch(IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+
+    @Override
+    public void groupEnd()
+    {
+      try {
+        writeBlock(blocks.pop());
+      } catch(IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+
+    private void writeBlock(@NotNull Block<M> block) throws IOException
+    {
+      block.encoder.writeByte(RECORD_END);
+      block.encoder.flush();
+
+      blockOffsets.set(block.index, out.getPosition());
+
+      final var bytes = block.bytes.toByteArray();
+      out.writeBytes(bytes, 0, bytes.length);
+    }
+
+
+    private void finish() throws IOException
+    {
+      writeBlock(blocks.pop());
+
+      final var groupIndexOffset = out.getPosition();
+      for(var blockOffset: blockOffsets)
+        out.writeFixed(blockOffset, 8);
+
+      final var nameIndexOffset = out.getPosition();
+      names.sort((n1, n2) -> n1[0] != n2[0]
+          ? Integer.compare((int)n1[0], (int)n2[0]) : Long.compare(n1[1], n2[1]));
+      for(var name: names)
+      {
+        out.writeFixed(name[0], 4);
+        out.writeFixed(name[1], 4);
+      }
+
+      out.writeFixed(groupIndexOffset, 8);
+      out.writeFixed(nameIndexOffset, 8);
+      out.writeFixed(names.size(), 4);
+      out.writeBytes(ARCHIVE_MAGIC, 0, ARCHIVE_MAGIC.length);
+
+      if (out.getPosition() > Integer.MAX_VALUE)
+        throw new IOException("protocol archive exceeds 2 GB");
+
+      out.flush();
+    }
+  }
+
+
+
+
+  private static final class Block<M>
+  {
+    private final int index;
+    private final @NotNull ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final @NotNull ProtocolBinaryEncoder<M> encoder;
+
+
+    private Block(int index, int parentIndex, String name, @NotNull Visibility visibility,
+                  @NotNull Level levelLimit, GenericMessage<M> groupMessage,
+                  @NotNull Function<? super M,String> messageEncoder) throws IOException
+    {
+      this.index = index;
+
+      encoder = new ProtocolBinaryEncoder<>(bytes, messageEncoder);
+      encoder.writeVarint(parentIndex + 1);
+      encoder.writeGroupHeader(name, visibility, levelLimit, groupMessage);
+    }
+  }
+
+
+
+
+  static final class BufferDecoder<M> extends ProtocolBinaryDecoder<M>
+  {
+    private final @NotNull ByteBuffer buffer;
+
+
+    BufferDecoder(@NotNull ByteBuffer buffer,
+                          @NotNull Function<String,? extends M> messageDecoder)
+    {
+      super(messageDecoder);
+
+      this.buffer = buffer;
+    }
+
+
+    @Override
+    protected int readByte() throws IOException
+    {
+      if (!buffer.hasRemaining())
+        throw new EOFException("unexpected end of protocol archive");
+
+      return buffer.get() & 0xff;
+    }
+
+
+    @Override
+    protected @NotNull String readUtf8(int length) throws IOException
+    {
+      if (length > buffer.remaining())
+        throw new EOFException("unexpected end of protocol archive");
+
+      final var bytes = new byte[length];
+      buffer.get(bytes);
+
+      return new String(bytes, UTF_8);
+    }
+  }
+}
@@ -0,0 +1,497 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.codec;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.Protocol.GenericMessage;
+import de.sayayi.lib.protocol.Protocol.Message;
+import de.sayayi.lib.protocol.ProtocolGroup.Visibility;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.UnmodifiableView;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.MAX_STRING_TABLE_SIZE;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.MAX_THROWABLE_CAUSES;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.STRING_INTERNED;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.STRING_TABLE_OFFSET;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.VALUE_DOUBLE;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.VALUE_FALSE;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.VALUE_FLOAT;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.VALUE_INT;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.VALUE_LONG;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.VALUE_NULL;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.VALUE_STRING;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.VALUE_TRUE;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Collections.unmodifiableSet;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Decoder for the primitives and message bodies of the binary protocol format. Subclasses
+ * provide the bytes to decode.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ *
+ * @see ProtocolBinaryEncoder
+ */
+abstract class ProtocolBinaryDecoder<M>
+{
+  private static final Visibility[] VISIBILITIES = Visibility.values();
+
+  private final @NotNull Function<String,? extends M> messageDecoder;
+
+  private final List<String> tagNames = new ArrayList<>();
+  private final List<String> messageIds = new ArrayList<>();
+  private final List<String> parameterNames = new ArrayList<>();
+  private final List<String> classNames = new ArrayList<>();
+
+  private long lastTimeMillis;
+
+
+  protected ProtocolBinaryDecoder(@NotNull Function<String,? extends M> messageDecoder) {
+    this.messageDecoder = messageDecoder;
+  }
+
+
+  /**
+   * Reads the next byte.
+   *
+   * @return  byte value in range 0..255
+   *
+   * @throws IOException  if no more bytes are available
+   */
+  protected abstract int readByte() throws IOException;
+
+
+  /**
+   * Reads {@code length} bytes and decodes them as UTF-8 string.
+   *
+   * @param length  number of bytes to read
+   *
+   * @return  decoded string, never {@code null}
+   *
+   * @throws IOException  if not enough bytes are available
+   */
+  protected abstract @NotNull String readUtf8(int length) throws IOException;
+
+
+  /**
+   * Clears the string tables and the time reference.
+   *
+   * @see ProtocolBinaryEncoder#reset()
+   */
+  void reset()
+  {
+    tagNames.clear();
+    messageIds.clear();
+    parameterNames.clear();
+    classNames.clear();
+
+    lastTimeMillis = 0;
+  }
+
+
+  @NotNull Message<M> readMessage() throws IOException
+  {
+    final var level = readLevel();
+
+    final var tagCount = readVarint();
+    final var messageTagNames = new LinkedHashSet<String>();
+    for(int n = 0; n < tagCount; n++)
+      messageTagNames.add(readStringRef(tagNames));
+
+    final var messageId = readStringRef(messageIds);
+    final var timeMillis = readTimeMillis();
+    final var message = readMessageObject();
+    final var parameterValues = readParameterValues();
+
+    return new DecodedMessage<>(messageId, message, timeMillis, parameterValues, level,
+        unmodifiableSet(messageTagNames), readThrowable());
+  }
+
+
+  @NotNull GenericMessage<M> readGenericMessage() throws IOException
+  {
+    final var messageId = readStringRef(messageIds);
+    final var timeMillis = readTimeMillis();
+    final var message = readMessageObject();
+
+    return new DecodedGenericMessage<>(messageId, message, timeMillis, readParameterValues());
+  }
+
+
+  private long readTimeMillis() throws IOException {
+    return lastTimeMillis += unzigzag(readVarlong());
+  }
+
+
+  private @NotNull M readMessageObject() throws IOException
+  {
+    final var text = readString();
+    if (text == null)
+      throw new IOException("invalid protocol stream: missing message");
+
+    return requireNonNull(messageDecoder.apply(text), "messageDecoder must not return null");
+  }
+
+
+  @NotNull Map<String,Object> readParameterValues() throws IOException
+  {
+    final var count = readVarint();
+    if (count == 0)
+      return emptyMap();
+
+    final var parameterValues = new LinkedHashMap<String,Object>();
+
+    for(int n = 0; n < count; n++)
+    {
+      final var parameterName = readStringRef(parameterNames);
+      parameterValues.put(parameterName, readValue());
+    }
+
+    return unmodifiableMap(parameterValues);
+  }
+
+
+  private Object readValue() throws IOException
+  {
+    final var valueType = readByte();
+
+    switch(valueType)
+    {
+      case VALUE_NULL:
+        return null;
+
+      case VALUE_FALSE:
+        return Boolean.FALSE;
+
+      case VALUE_TRUE:
+        return Boolean.TRUE;
+
+      case VALUE_INT:
+        return unzigzag(readVarint());
+
+      case VALUE_LONG:
+        return unzigzag(readVarlong());
+
+      case VALUE_FLOAT:
+        return Float.intBitsToFloat((int)readFixed(4));
+
+      case VALUE_DOUBLE:
+        return Double.longBitsToDouble(readFixed(8));
+
+      case VALUE_STRING:
+        return readString();
+
+      default:
+        throw new IOException("invalid protocol stream: unknown value type " + valueType);
+    }
+  }
+
+
+  private SerializedThrowable readThrowable() throws IOException
+  {
+    final var count = readVarint();
+    if (count > MAX_THROWABLE_CAUSES)
+      throw new IOException("invalid protocol stream: too many throwable causes");
+
+    final var classNameArray = new String[count];
+    final var messages = new String[count];
+
+    for(int n = 0; n < count; n++)
+    {
+      classNameArray[n] = readStringRef(classNames);
+      messages[n] = readString();
+    }
+
+    SerializedThrowable throwable = null;
+
+    for(int n = count; n-- > 0;)
+      throwable = new SerializedThrowable(classNameArray[n], messages[n], throwable);
+
+    return throwable;
+  }
+
+
+  @NotNull Visibility readVisibility() throws IOException
+  {
+    final var ordinal = readVarint();
+    if (ordinal >= VISIBILITIES.length)
+      throw new IOException("invalid protocol stream: unknown visibility " + ordinal);
+
+    return VISIBILITIES[ordinal];
+  }
+
+
+  @NotNull Level readLevel() throws IOException
+  {
+    final var severity = unzigzag(readVarint());
+
+    for(var level: Level.Shared.values())
+      if (level.severity() == severity)
+        return level;
+
+    return new SeverityLevel(severity);
+  }
+
+
+  private @NotNull String readStringRef(@NotNull List<String> table) throws IOException
+  {
+    final var ref = readVarint();
+
+    if (ref >= STRING_TABLE_OFFSET)
+    {
+      final var index = ref - STRING_TABLE_OFFSET;
+      if (index >= table.size())
+        throw new IOException("invalid protocol stream: unknown string reference " + ref);
+
+      return table.get(index);
+    }
+
+    final var s = readString();
+    if (s == null)
+      throw new IOException("invalid protocol stream: missing string");
+
+    if (ref == STRING_INTERNED)
+    {
+      if (table.size() == MAX_STRING_TABLE_SIZE)
+        throw new IOException("invalid protocol stream: string table overflow");
+
+      table.add(s);
+    }
+
+    return s;
+  }
+
+
+  String readString() throws IOException
+  {
+    final var length = readVarint() - 1;
+    return length < 0 ? null : readUtf8(length);
+  }
+
+
+  int readVarint() throws IOException
+  {
+    int value = 0;
+
+    for(int shift = 0; shift < 32; shift += 7)
+    {
+      final var b = readByte();
+
+      value |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0)
+        return value;
+    }
+
+    throw new IOException("invalid protocol stream: malformed varint");
+  }
+
+
+  long readVarlong() throws IOException
+  {
+    long value = 0;
+
+    for(int shift = 0; shift < 64; shift += 7)
+    {
+      final var b = readByte();
+
+      value |= (long)(b & 0x7f) << shift;
+      if ((b & 0x80) == 0)
+        return value;
+    }
+
+    throw new IOException("invalid protocol stream: malformed varint");
+  }
+
+
+  private long readFixed(int bytes) throws IOException
+  {
+    long value = 0;
+
+    for(int shift = 0; shift < bytes * 8; shift += 8)
+      value |= (long)readByte() << shift;
+
+    return value;
+  }
+
+
+  private static int unzigzag(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+
+
+
+  private static class DecodedGenericMessage<M> implements GenericMessage<M>
+  {
+    private final @NotNull String messageId;
+    private final @NotNull M message;
+    private final long timeMillis;
+    private final @NotNull Map<String,Object> parameterValues;
+
+
+    private DecodedGenericMessage(@NotNull String messageId, @NotNull M message, long timeMillis,
+                                  @NotNull Map<String,Object> parameterValues)
+    {
+      this.messageId = messageId;
+      this.message = message;
+      this.timeMillis = timeMillis;
+      this.parameterValues = parameterValues;
+    }
+
+
+    @Override
+    public @NotNull String getMessageId() {
+      return messageId;
+    }
+
+
+    @Override
+    public @NotNull M getMessage() {
+      return message;
+    }
+
+
+    @Override
+    public long getTimeMillis() {
+      return timeMillis;
+    }
+
+
+    @Override
+    @UnmodifiableView
+    public @NotNull Map<String,Object> getParameterValues() {
+      return parameterValues;
+    }
+
+
+    @Override
+    public String toString()
+    {
+      return "GenericMessage(id=" + messageId + ",message=" + message + ",params=" +
+          parameterValues + ')';
+    }
+  }
+
+
+
+
+  private static final class DecodedMessage<M> extends DecodedGenericMessage<M>
+      implements Message<M>
+  {
+    private final @NotNull Level level;
+    private final @NotNull Set<String> tagNames;
+    private final SerializedThrowable throwable;
+
+
+    private DecodedMessage(@NotNull String messageId, @NotNull M message, long timeMillis,
+                           @NotNull Map<String,Object> parameterValues, @NotNull Level level,
+                           @NotNull Set<String> tagNames, SerializedThrowable throwable)
+    {
+      super(messageId, message, timeMillis, parameterValues);
+
+      this.level = level;
+      this.tagNames = tagNames;
+      this.throwable = throwable;
+    }
+
+
+    @Override
+    public @NotNull Level getLevel() {
+      return level;
+    }
+
+
+    @Override
+    public SerializedThrowable getThrowable() {
+      return throwable;
+    }
+
+
+    @Override
+    @UnmodifiableView
+    public @NotNull Set<String> getTagNames() {
+      return tagNames;
+    }
+
+
+    @Override
+    public String toString()
+    {
+      return "Message(level=" + level + ",tags={" + String.join(",", tagNames) + "},id=" +
+          getMessageId() + ",message=" + getMessage() + ",params=" + getParameterValues() + ')';
+    }
+  }
+
+
+
+
+  private static final class SeverityLevel implements Level
+  {
+    private final int severity;
+
+
+    private SeverityLevel(int severity) {
+      this.severity = severity;
+    }
+
+
+    @Override
+    @Contract(pure = true)
+    public int severity() {
+      return severity;
+    }
+
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof SeverityLevel && severity == ((SeverityLevel)o).severity;
+    }
+
+
+    @Override
+    public int hashCode() {
+      return severity;
+    }
+
+
+    @Override
+    public String toString() {
+      return "Level(" + severity + ')';
+    }
+  }
+}
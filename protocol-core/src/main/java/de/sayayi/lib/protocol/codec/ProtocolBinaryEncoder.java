@@ -0,0 +1,377 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.codec;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.Protocol.GenericMessage;
+import de.sayayi.lib.protocol.Protocol.Message;
+import de.sayayi.lib.protocol.ProtocolGroup.Visibility;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.MAX_STRING_TABLE_SIZE;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.MAX_THROWABLE_CAUSES;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.STRING_INTERNED;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.STRING_LITERAL;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.STRING_TABLE_OFFSET;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.VALUE_DOUBLE;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.VALUE_FALSE;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.VALUE_FLOAT;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.VALUE_INT;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.VALUE_LONG;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.VALUE_NULL;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.VALUE_STRING;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.VALUE_TRUE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+
+/**
+ * Buffered encoder for the primitives and message bodies of the binary protocol format.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ *
+ * @see ProtocolBinaryDecoder
+ */
+final class ProtocolBinaryEncoder<M>
+{
+  private final @NotNull OutputStream out;
+  private final @NotNull Function<? super M,String> messageEncoder;
+  private final byte[] buffer = new byte[8192];
+
+  private final StringTable tagNames = new StringTable();
+  private final StringTable messageIds = new StringTable();
+  private final StringTable parameterNames = new StringTable();
+  private final StringTable classNames = new StringTable();
+
+  private long flushedBytes;
+  private int position;
+  private long lastTimeMillis;
+
+
+  ProtocolBinaryEncoder(@NotNull OutputStream out,
+                        @NotNull Function<? super M,String> messageEncoder)
+  {
+    this.out = out;
+    this.messageEncoder = messageEncoder;
+  }
+
+
+  /**
+   * Returns the number of bytes written so far, including buffered bytes.
+   *
+   * @return  number of bytes written
+   */
+  @Contract(pure = true)
+  long getPosition() {
+    return flushedBytes + position;
+  }
+
+
+  /**
+   * Clears the string tables and the time reference, so the data written afterwards can be
+   * decoded without knowledge of the data written before.
+   */
+  void reset()
+  {
+    tagNames.clear();
+    messageIds.clear();
+    parameterNames.clear();
+    classNames.clear();
+
+    lastTimeMillis = 0;
+  }
+
+
+  void writeMessage(@NotNull Message<M> message) throws IOException
+  {
+    writeLevel(message.getLevel());
+
+    final var messageTagNames = message.getTagNames();
+    writeVarint(messageTagNames.size());
+    for(var tagName: messageTagNames)
+      writeStringRef(tagNames, tagName);
+
+    writeGenericMessage(message);
+    writeThrowable(message.getThrowable());
+  }
+
+
+  void writeGenericMessage(@NotNull GenericMessage<M> message) throws IOException
+  {
+    writeStringRef(messageIds, message.getMessageId());
+
+    final var timeMillis = message.getTimeMillis();
+    writeVarlong(zigzag(timeMillis - lastTimeMillis));
+    lastTimeMillis = timeMillis;
+
+    writeString(messageEncoder.apply(message.getMessage()));
+    writeParameterValues(message.getParameterValues());
+  }
+
+
+  void writeGroupHeader(String name, @NotNull Visibility visibility, @NotNull Level levelLimit,
+                        GenericMessage<M> groupMessage) throws IOException
+  {
+    writeString(name);
+    writeVarint(visibility.ordinal());
+    writeLevel(levelLimit);
+
+    if (groupMessage == null)
+      writeByte(0);
+    else
+    {
+      writeByte(1);
+      writeGenericMessage(groupMessage);
+    }
+  }
+
+
+  void writeParameterValues(@NotNull Map<String,Object> parameterValues) throws IOException
+  {
+    writeVarint(parameterValues.size());
+
+    for(var parameter: parameterValues.entrySet())
+    {
+      writeStringRef(parameterNames, parameter.getKey());
+      writeValue(parameter.getValue());
+    }
+  }
+
+
+  void writeValue(Object value) throws IOException
+  {
+    if (value == null)
+      writeByte(VALUE_NULL);
+    else if (value instanceof Boolean)
+      writeByte((Boolean)value ? VALUE_TRUE : VALUE_FALSE);
+    else if (value instanceof Integer || value instanceof Short || value instanceof Byte)
+    {
+      writeByte(VALUE_INT);
+      writeVarint(zigzag(((Number)value).intValue()));
+    }
+    else if (value instanceof Long)
+    {
+      writeByte(VALUE_LONG);
+      writeVarlong(zigzag((Long)value));
+    }
+    else if (value instanceof Float)
+    {
+      writeByte(VALUE_FLOAT);
+      writeFixed(Float.floatToIntBits((Float)value), 4);
+    }
+    else if (value instanceof Double)
+    {
+      writeByte(VALUE_DOUBLE);
+      writeFixed(Double.doubleToLongBits((Double)value), 8);
+    }
+    else
+    {
+      writeByte(VALUE_STRING);
+      writeString(value.toString());
+    }
+  }
+
+
+  private void writeThrowable(Throwable throwable) throws IOException
+  {
+    int count = 0;
+    for(var t = throwable; t != null && count < MAX_THROWABLE_CAUSES; t = t.getCause())
+      count++;
+
+    writeVarint(count);
+
+    for(var t = throwable; count-- > 0; t = t.getCause())
+    {
+      writeStringRef(classNames, t instanceof SerializedThrowable
+          ? ((SerializedThrowable)t).getClassName() : t.getClass().getName());
+      writeString(t.getMessage());
+    }
+  }
+
+
+  void writeLevel(@NotNull Level level) throws IOException {
+    writeVarint(zigzag(level.severity()));
+  }
+
+
+  private void writeStringRef(@NotNull StringTable table, @NotNull String s) throws IOException
+  {
+    final var index = table.indexOf(s);
+
+    if (index >= 0)
+      writeVarint(index + STRING_TABLE_OFFSET);
+    else
+    {
+      writeVarint(table.add(s) ? STRING_INTERNED : STRING_LITERAL);
+      writeString(s);
+    }
+  }
+
+
+  void writeString(String s) throws IOException
+  {
+    if (s == null)
+      writeByte(0);
+    else
+    {
+      final var bytes = s.getBytes(UTF_8);
+
+      writeVarint(bytes.length + 1);
+      writeBytes(bytes, 0, bytes.length);
+    }
+  }
+
+
+  void writeVarint(int value) throws IOException
+  {
+    ensureCapacity(5);
+
+    while((value & ~0x7f) != 0)
+    {
+      buffer[position++] = (byte)((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+
+    buffer[position++] = (byte)value;
+  }
+
+
+  void writeVarlong(long value) throws IOException
+  {
+    ensureCapacity(10);
+
+    while((value & ~0x7fL) != 0)
+    {
+      buffer[position++] = (byte)((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+
+    buffer[position++] = (byte)value;
+  }
+
+
+  void writeFixed(long value, int bytes) throws IOException
+  {
+    ensureCapacity(bytes);
+
+    while(bytes-- > 0)
+    {
+      buffer[position++] = (byte)value;
+      value >>>= 8;
+    }
+  }
+
+
+  void writeByte(int value) throws IOException
+  {
+    ensureCapacity(1);
+    buffer[position++] = (byte)value;
+  }
+
+
+  void writeBytes(byte[] bytes, int offset, int length) throws IOException
+  {
+    if (length > buffer.length - position)
+    {
+      flushBuffer();
+
+      if (length > buffer.length)
+      {
+        out.write(bytes, offset, length);
+        flushedBytes += length;
+        return;
+      }
+    }
+
+    System.arraycopy(bytes, offset, buffer, position, length);
+    position += length;
+  }
+
+
+  private void ensureCapacity(int length) throws IOException
+  {
+    if (buffer.length - position < length)
+      flushBuffer();
+  }
+
+
+  void flushBuffer() throws IOException
+  {
+    if (position > 0)
+    {
+      out.write(buffer, 0, position);
+      flushedBytes += position;
+      position = 0;
+    }
+  }
+
+
+  void flush() throws IOException
+  {
+    flushBuffer();
+    out.flush();
+  }
+
+
+  private static int zigzag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+
+
+
+  private static final class StringTable
+  {
+    private final Map<String,Integer> indexes = new HashMap<>();
+
+
+    int indexOf(@NotNull String s)
+    {
+      final var index = indexes.get(s);
+      return index == null ? -1 : index;
+    }
+
+
+    boolean add(@NotNull String s)
+    {
+      if (indexes.size() == MAX_STRING_TABLE_SIZE)
+        return false;
+
+      indexes.put(s, indexes.size());
+      return true;
+    }
+
+
+    void clear() {
+      indexes.clear();
+    }
+  }
+}
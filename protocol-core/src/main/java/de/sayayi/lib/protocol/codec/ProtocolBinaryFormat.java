@@ -0,0 +1,101 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.codec;
+
+
+/**
+ * Constants describing the binary protocol format.
+ * <p>
+ * A stream starts with the magic bytes {@code PRTB} followed by the format version as varint. It
+ * continues with a sequence of records, each introduced by a record type byte, and is terminated
+ * by an {@link #RECORD_END} record. Groups are represented by a {@link #RECORD_GROUP_START} and
+ * {@link #RECORD_GROUP_END} record enclosing the group content.
+ * <p>
+ * Integers are written as unsigned LEB128 varints; signed values (severities and time deltas)
+ * are zigzag encoded first. Strings are written as varint {@code length + 1} (with {@code 0}
+ * representing {@code null}) followed by the UTF-8 bytes.
+ * <p>
+ * Tag names, message ids, parameter names and throwable class names are written as references
+ * into separate string tables, which are built while writing and reading. A reference is either
+ * {@link #STRING_LITERAL} or {@link #STRING_INTERNED}, followed by a string, or the table index
+ * plus {@link #STRING_TABLE_OFFSET}. The size of each table is limited to
+ * {@link #MAX_STRING_TABLE_SIZE}; when full, strings are written as literals.
+ * <p>
+ * An archive starts with the magic bytes {@code PRTA} followed by the archive version byte. It
+ * contains one block per group, the root protocol being group {@code 0}. Each block is encoded
+ * with its own string tables and time reference and starts with the parent group index plus 1,
+ * followed by the group name, visibility, level limit and optional group message. The block
+ * content consists of message records and group start records, which contain the index of the
+ * child group instead of its content, terminated by an end record. The blocks are followed by
+ * the group index (block offset per group, 8 bytes each), the name index (name hash and group
+ * index, 4 bytes each, sorted by hash) and a fixed size footer containing the offsets of both
+ * indexes, the number of named groups and the archive magic bytes.
+ * <p>
+ * A delta frame starts with the magic bytes {@code PRTD}, the delta version and the checkpoint
+ * sequence the frame is based on. It is encoded with its own string tables and time reference.
+ * Message and group start records are preceded by the entry index within the enclosing
+ * protocol; parameter records contain the parameter values of the enclosing protocol. The
+ * records are terminated by an end record, followed by the append sequence covered by the
+ * frame.
+ * <p>
+ * A journal starts with the magic bytes {@code PRTJ} followed by the journal version byte. It
+ * contains a sequence of delta frames, each preceded by the frame length and the CRC-32 checksum
+ * of the frame (4 bytes each).
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+final class ProtocolBinaryFormat
+{
+  static final byte[] MAGIC = { 'P', 'R', 'T', 'B' };
+  static final int VERSION = 1;
+
+  static final byte[] ARCHIVE_MAGIC = { 'P', 'R', 'T', 'A' };
+  static final int ARCHIVE_VERSION = 1;
+  static final int ARCHIVE_FOOTER_SIZE = 24;
+
+  static final byte[] DELTA_MAGIC = { 'P', 'R', 'T', 'D' };
+  static final int DELTA_VERSION = 1;
+
+  static final byte[] JOURNAL_MAGIC = { 'P', 'R', 'T', 'J' };
+  static final int JOURNAL_VERSION = 1;
+
+  static final int RECORD_END = 0;
+  static final int RECORD_MESSAGE = 1;
+  static final int RECORD_GROUP_START = 2;
+  static final int RECORD_GROUP_END = 3;
+  static final int RECORD_PARAMETERS = 4;
+
+  static final int STRING_LITERAL = 0;
+  static final int STRING_INTERNED = 1;
+  static final int STRING_TABLE_OFFSET = 2;
+  static final int MAX_STRING_TABLE_SIZE = 0x10000;
+
+  static final int VALUE_NULL = 0;
+  static final int VALUE_FALSE = 1;
+  static final int VALUE_TRUE = 2;
+  static final int VALUE_INT = 3;
+  static final int VALUE_LONG = 4;
+  static final int VALUE_FLOAT = 5;
+  static final int VALUE_DOUBLE = 6;
+  static final int VALUE_STRING = 7;
+
+  static final int MAX_THROWABLE_CAUSES = 16;
+
+
+  private ProtocolBinaryFormat() {
+  }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.codec;
+
+import de.sayayi.lib.protocol.ProtocolVisitor;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Function;
+
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.MAGIC;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_END;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_GROUP_END;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_GROUP_START;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_MESSAGE;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.VERSION;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Streaming reader for the binary protocol format written by {@link ProtocolBinaryWriter}.
+ * <p>
+ * The reader decodes one record at a time and passes it to a {@link ProtocolVisitor}, so memory
+ * usage does not depend on the size of the protocol. Decoded messages are immutable; their
+ * throwable, if any, is a {@link SerializedThrowable}. Levels matching one of the
+ * {@link de.sayayi.lib.protocol.Level.Shared shared levels} are decoded as such, other levels
+ * are decoded as a level with the same severity.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ *
+ * @see ProtocolBinaryWriter
+ */
+public final class ProtocolBinaryReader<M>
+{
+  private final @NotNull StreamDecoder<M> decoder;
+
+
+  /**
+   * Creates a binary protocol reader.
+   *
+   * @param in              input stream, not {@code null}
+   * @param messageDecoder  function converting a string into a message, not {@code null}
+   */
+  public ProtocolBinaryReader(@NotNull InputStream in,
+                              @NotNull Function<String,? extends M> messageDecoder)
+  {
+    decoder = new StreamDecoder<>(requireNonNull(in, "in must not be null"),
+        requireNonNull(messageDecoder, "messageDecoder must not be null"));
+  }
+
+
+  /**
+   * Reads a complete protocol stream, passing all decoded messages and groups to
+   * {@code visitor}. The input stream is not closed.
+   *
+   * @param visitor  protocol visitor, not {@code null}
+   *
+   * @throws IOException  if an I/O error occurs or the stream is malformed
+   */
+  public void read(@NotNull ProtocolVisitor<M> visitor) throws IOException
+  {
+    requireNonNull(visitor, "visitor must not be null");
+
+    readHeader();
+
+    for(int depth = 0;;)
+    {
+      final var recordType = decoder.readByte();
+
+      switch(recordType)
+      {
+        case RECORD_END:
+          if (depth != 0)
+            throw new IOException("invalid protocol stream: unterminated group");
+          return;
+
+        case RECORD_MESSAGE:
+          visitor.message(decoder.readMessage());
+          break;
+
+        case RECORD_GROUP_START:
+          final var name = decoder.readString();
+          final var visibility = decoder.readVisibility();
+          final var levelLimit = decoder.readLevel();
+          final var groupMessage = decoder.readByte() == 0 ? null : decoder.readGenericMessage();
+
+          visitor.groupStart(name, visibility, levelLimit, groupMessage);
+          depth++;
+          break;
+
+        case RECORD_GROUP_END:
+          if (depth-- == 0)
+            throw new IOException("invalid protocol stream: unexpected group end");
+
+          visitor.groupEnd();
+          break;
+
+        default:
+          throw new IOException("invalid protocol stream: unknown record type " + recordType);
+      }
+    }
+  }
+
+
+  private void readHeader() throws IOException
+  {
+    for(var b: MAGIC)
+      if (decoder.readByte() != b)
+        throw new IOException("invalid protocol stream: bad magic");
+
+    final var version = decoder.readVarint();
+    if (version < 1 || version > VERSION)
+      throw new IOException("unsupported protocol stream version " + version);
+  }
+
+
+
+
+  static final class StreamDecoder<M> extends ProtocolBinaryDecoder<M>
+  {
+    private final @NotNull InputStream in;
+    private final byte[] buffer = new byte[8192];
+
+    private int position;
+    private int limit;
+
+
+    StreamDecoder(@NotNull InputStream in,
+                  @NotNull Function<String,? extends M> messageDecoder)
+    {
+      super(messageDecoder);
+
+      this.in = in;
+    }
+
+
+    @Override
+    protected int readByte() throws IOException
+    {
+      if (position == limit)
+        fill();
+
+      return buffer[position++] & 0xff;
+    }
+
+
+    @Override
+    protected @NotNull String readUtf8(int length) throws IOException
+    {
+      if (length <= limit - position)
+      {
+        final var s = new String(buffer, position, length, UTF_8);
+        position += length;
+
+        return s;
+      }
+
+      final var bytes = new byte[length];
+
+      for(int offset = 0; offset < length;)
+      {
+        if (position == limit)
+          fill();
+
+        final var n = Math.min(length - offset, limit - position);
+        System.arraycopy(buffer, position, bytes, offset, n);
+
+        position += n;
+        offset += n;
+      }
+
+      return new String(bytes, UTF_8);
+    }
+
+
+    private void fill() throws IOException
+    {
+      final var n = in.read(buffer);
+      if (n <= 0)
+        throw new EOFException("unexpected end of protocol stream");
+
+      position = 0;
+      limit = n;
+    }
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.codec;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.Protocol;
+import de.sayayi.lib.protocol.Protocol.GenericMessage;
+import de.sayayi.lib.protocol.Protocol.Message;
+import de.sayayi.lib.protocol.ProtocolGroup.Visibility;
+import de.sayayi.lib.protocol.ProtocolVisitor;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.MAGIC;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_END;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_GROUP_END;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_GROUP_START;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_MESSAGE;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.VERSION;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Streaming writer for the binary protocol format.
+ * <p>
+ * The writer is a {@link ProtocolVisitor}, so it encodes messages and groups as they are visited
+ * without building an intermediate representation. Output is buffered internally; the stream is
+ * completed by {@link #finish()}, which is invoked by {@link #write(Protocol)}.
+ * <p>
+ * Messages are written with their level, tags, id, creation time, parameter values and a
+ * summary of their throwable (class name and message of the throwable and its causes). The
+ * message itself is converted to a string by the message encoder given to the constructor.
+ * Parameter values of type {@code Boolean}, {@code Byte}, {@code Short}, {@code Integer},
+ * {@code Long}, {@code Float}, {@code Double} and {@code String} are written as such, other
+ * values are written as their string representation.
+ * <p>
+ * The visitor methods throw an {@link UncheckedIOException} if writing to the underlying stream
+ * fails.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ *
+ * @see ProtocolBinaryReader
+ */
+public final class ProtocolBinaryWriter<M> implements ProtocolVisitor<M>, Flushable
+{
+  private final @NotNull ProtocolBinaryEncoder<M> encoder;
+
+  private int depth;
+  private boolean headerWritten;
+  private boolean finished;
+
+
+  /**
+   * Creates a binary protocol writer.
+   *
+   * @param out             output stream, not {@code null}
+   * @param messageEncoder  function converting a message into a string, not {@code null}
+   */
+  public ProtocolBinaryWriter(@NotNull OutputStream out,
+                              @NotNull Function<? super M,String> messageEncoder)
+  {
+    encoder = new ProtocolBinaryEncoder<>(requireNonNull(out, "out must not be null"),
+        requireNonNull(messageEncoder, "messageEncoder must not be null"));
+  }
+
+
+  /**
+   * Writes all messages and groups of {@code protocol} and finishes the stream.
+   *
+   * @param protocol  protocol to write, not {@code null}
+   *
+   * @throws IOException  if an I/O error occurs
+   */
+  public void write(@NotNull Protocol<M> protocol) throws IOException
+  {
+    try {
+      requireNonNull(protocol, "protocol must not be null").accept(this);
+    } catch(UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+
+    finish();
+  }
+
+
+  @Override
+  public void message(@NotNull Message<M> message)
+  {
+    try {
+      writeRecordType(RECORD_MESSAGE);
+      encoder.writeMessage(message);
+    } catch(IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+
+  @Override
+  public void groupStart(String name, @NotNull Visibility visibility, @NotNull Level levelLimit,
+                         GenericMessage<M> groupMessage)
+  {
+    try {
+      writeRecordType(RECORD_GROUP_START);
+      encoder.writeGroupHeader(name, visibility, levelLimit, groupMessage);
+
+      depth++;
+    } catch(IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+
+  @Override
+  public void groupEnd()
+  {
+    if (depth == 0)
+      throw new IllegalStateException("no group to end");
+
+    try {
+      writeRecordType(RECORD_GROUP_END);
+      depth--;
+    } catch(IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+
+  /**
+   * Terminates the stream and flushes all buffered data to the underlying output stream. The
+   * output stream is not closed.
+   *
+   * @throws IOException  if an I/O error occurs
+   */
+  public void finish() throws IOException
+  {
+    if (depth != 0)
+      throw new IllegalStateException("unterminated group");
+
+    writeRecordType(RECORD_END);
+    finished = true;
+
+    flush();
+  }
+
+
+  @Override
+  public void flush() throws IOException {
+    encoder.flush();
+  }
+
+
+  private void writeRecordType(int recordType) throws IOException
+  {
+    if (finished)
+      throw new IllegalStateException("stream has been finished");
+
+    if (!headerWritten)
+    {
+      encoder.writeBytes(MAGIC, 0, MAGIC.length);
+      encoder.writeVarint(VERSION);
+      headerWritten = true;
+    }
+
+    encoder.writeByte(recordType);
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.codec;
+
+import de.sayayi.lib.protocol.Protocol;
+import de.sayayi.lib.protocol.codec.ProtocolBinaryReader.StreamDecoder;
+import de.sayayi.lib.protocol.internal.ProtocolDelta;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Function;
+
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.DELTA_MAGIC;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.DELTA_VERSION;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_END;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_GROUP_END;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_GROUP_START;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_MESSAGE;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_PARAMETERS;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Reader for incremental protocol updates written by {@link ProtocolDeltaWriter}.
+ * <p>
+ * Each invocation of {@link #applyTo(Protocol, long) applyTo} reads one delta frame and applies
+ * its changes to a copy of the source protocol. The copy must have received all frames up to
+ * the checkpoint the frame is based on; frames may overlap previously applied changes, as
+ * applying a change twice yields the same result.
+ * <p>
+ * Records are applied as they are decoded. If a frame turns out to be malformed, the changes
+ * applied so far are not reverted.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ *
+ * @see ProtocolDeltaWriter
+ */
+public final class ProtocolDeltaReader<M>
+{
+  private final @NotNull StreamDecoder<M> decoder;
+
+
+  /**
+   * Creates a protocol delta reader.
+   *
+   * @param in              input stream, not {@code null}
+   * @param messageDecoder  function converting a string into a message, not {@code null}
+   */
+  public ProtocolDeltaReader(@NotNull InputStream in,
+                             @NotNull Function<String,? extends M> messageDecoder)
+  {
+    decoder = new StreamDecoder<>(requireNonNull(in, "in must not be null"),
+        requireNonNull(messageDecoder, "messageDecoder must not be null"));
+  }
+
+
+  /**
+   * Reads the next delta frame and applies it to {@code protocol}.
+   *
+   * @param protocol    protocol copy to patch, not {@code null}
+   * @param checkpoint  checkpoint up to which all changes have been applied to {@code protocol},
+   *                    {@code 0} for an empty protocol
+   *
+   * @return  checkpoint up to which all changes have been applied after reading the frame
+   *
+   * @throws IOException            if an I/O error occurs, the stream is malformed or the frame
+   *                                is based on a checkpoint after {@code checkpoint}
+   * @throws IllegalStateException  if {@code protocol} has a message budget
+   */
+  public long applyTo(@NotNull Protocol<M> protocol, long checkpoint) throws IOException
+  {
+    final var applier = new ProtocolDelta.Applier<>(
+        requireNonNull(protocol, "protocol must not be null"));
+
+    decoder.reset();
+
+    for(var b: DELTA_MAGIC)
+      if (decoder.readByte() != b)
+        throw new IOException("invalid protocol delta: bad magic");
+
+    final var version = decoder.readVarint();
+    if (version < 1 || version > DELTA_VERSION)
+      throw new IOException("unsupported protocol delta version " + version);
+
+    final var frameCheckpoint = decoder.readVarlong();
+    if (frameCheckpoint > checkpoint)
+    {
+      throw new IOException("protocol delta is based on checkpoint " + frameCheckpoint +
+          ", changes up to " + checkpoint + " have been applied");
+    }
+
+    try {
+      readRecords(applier);
+    } catch(IllegalStateException ex) {
+      throw new IOException("invalid protocol delta: " + ex.getMessage(), ex);
+    }
+
+    return Math.max(checkpoint, decoder.readVarlong());
+  }
+
+
+  private void readRecords(@NotNull ProtocolDelta.Applier<M> applier) throws IOException
+  {
+    for(int depth = 0;;)
+    {
+      final var recordType = decoder.readByte();
+
+      switch(recordType)
+      {
+        case RECORD_END:
+          if (depth != 0)
+            throw new IOException("invalid protocol delta: unterminated group");
+          return;
+
+        case RECORD_PARAMETERS:
+          applier.parameters(decoder.readParameterValues());
+          break;
+
+        case RECORD_MESSAGE:
+          final var messageIndex = decoder.readVarint();
+          applier.message(messageIndex, decoder.readMessage());
+          break;
+
+        case RECORD_GROUP_START:
+          final var groupIndex = decoder.readVarint();
+          final var name = decoder.readString();
+          final var visibility = decoder.readVisibility();
+          final var levelLimit = decoder.readLevel();
+          final var groupMessage = decoder.readByte() == 0 ? null : decoder.readGenericMessage();
+
+          applier.groupStart(groupIndex, name, visibility, levelLimit, groupMessage);
+          depth++;
+          break;
+
+        case RECORD_GROUP_END:
+          if (depth-- == 0)
+            throw new IOException("invalid protocol delta: unexpected group end");
+
+          applier.groupEnd();
+          break;
+
+        default:
+          throw new IOException("invalid protocol delta: unknown record type " + recordType);
+      }
+    }
+  }
+}
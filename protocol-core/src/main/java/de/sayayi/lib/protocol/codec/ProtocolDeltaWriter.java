@@ -0,0 +1,191 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.codec;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.Protocol;
+import de.sayayi.lib.protocol.Protocol.GenericMessage;
+import de.sayayi.lib.protocol.Protocol.Message;
+import de.sayayi.lib.protocol.ProtocolGroup.Visibility;
+import de.sayayi.lib.protocol.internal.ProtocolDelta;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.function.Function;
+
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.DELTA_MAGIC;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.DELTA_VERSION;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_END;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_GROUP_END;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_GROUP_START;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_MESSAGE;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_PARAMETERS;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Writer for incremental protocol updates.
+ * <p>
+ * Each protocol tree maintains a monotonically increasing append sequence, which is incremented
+ * for every message added, group created, group header changed and parameter set. Method
+ * {@link #exportSince(Protocol, long) exportSince} writes a delta frame containing only the
+ * changes made after a given checkpoint and returns the checkpoint for the next export. Starting
+ * with checkpoint {@code 0}, the first frame contains the complete protocol.
+ * <p>
+ * Frames are applied to a remote copy of the protocol by {@link ProtocolDeltaReader}. They use
+ * the compact encoding of {@link ProtocolBinaryWriter}. Contrary to the binary protocol format,
+ * parameter values are written for the protocol, group or message they have been set on, so
+ * parameters inherited from a parent protocol are not duplicated for each message.
+ * <p>
+ * Exporting must not run concurrently with modifications of the protocol.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ *
+ * @see ProtocolDeltaReader
+ */
+public final class ProtocolDeltaWriter<M>
+{
+  private final @NotNull ProtocolBinaryEncoder<M> encoder;
+
+
+  /**
+   * Creates a protocol delta writer.
+   *
+   * @param out             output stream, not {@code null}
+   * @param messageEncoder  function converting a message into a string, not {@code null}
+   */
+  public ProtocolDeltaWriter(@NotNull OutputStream out,
+                             @NotNull Function<? super M,String> messageEncoder)
+  {
+    encoder = new ProtocolBinaryEncoder<>(requireNonNull(out, "out must not be null"),
+        requireNonNull(messageEncoder, "messageEncoder must not be null"));
+  }
+
+
+  /**
+   * Returns the current append sequence of the protocol tree {@code protocol} belongs to.
+   *
+   * @param protocol  protocol, not {@code null}
+   *
+   * @return  current append sequence
+   */
+  @Contract(pure = true)
+  public static long getSequence(@NotNull Protocol<?> protocol) {
+    return ProtocolDelta.getSequence(protocol);
+  }
+
+
+  /**
+   * Writes a delta frame containing all changes made to {@code protocol} after
+   * {@code checkpoint} and flushes the output stream.
+   *
+   * @param protocol    protocol, not {@code null}
+   * @param checkpoint  checkpoint returned by a previous export or {@code 0} to export the
+   *                    complete protocol
+   *
+   * @return  checkpoint for the next export
+   *
+   * @throws IOException               if an I/O error occurs
+   * @throws IllegalArgumentException  if {@code checkpoint} is invalid for {@code protocol}
+   * @throws IllegalStateException     if {@code protocol} has a message budget
+   */
+  public long exportSince(@NotNull Protocol<M> protocol, long checkpoint) throws IOException
+  {
+    requireNonNull(protocol, "protocol must not be null");
+
+    encoder.reset();
+    encoder.writeBytes(DELTA_MAGIC, 0, DELTA_MAGIC.length);
+    encoder.writeVarint(DELTA_VERSION);
+    encoder.writeVarlong(checkpoint);
+
+    final long sequence;
+
+    try {
+      sequence = ProtocolDelta.accept(protocol, checkpoint, new DeltaVisitor());
+    } catch(UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+
+    encoder.writeByte(RECORD_END);
+    encoder.writeVarlong(sequence);
+    encoder.flush();
+
+    return sequence;
+  }
+
+
+
+
+  private final class DeltaVisitor implements ProtocolDelta.Visitor<M>
+  {
+    @Override
+    public void parameters(@NotNull Map<String,Object> parameterValues)
+    {
+      try {
+        encoder.writeByte(RECORD_PARAMETERS);
+        encoder.writeParameterValues(parameterValues);
+      } catch(IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+
+    @Override
+    public void message(int index, @NotNull Message<M> message)
+    {
+      try {
+        encoder.writeByte(RECORD_MESSAGE);
+        encoder.writeVarint(index);
+        encoder.writeMessage(message);
+      } catch(IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+
+    @Override
+    public void groupStart(int index, String name, @NotNull Visibility visibility,
+                           @NotNull Level levelLimit, GenericMessage<M> groupMessage)
+    {
+      try {
+        encoder.writeByte(RECORD_GROUP_START);
+        encoder.writeVarint(index);
+        encoder.writeGroupHeader(name, visibility, levelLimit, groupMessage);
+      } catch(IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+
+    @Override
+    public void groupEnd()
+    {
+      try {
+        encoder.writeByte(RECORD_GROUP_END);
+      } catch(IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+  }
+}
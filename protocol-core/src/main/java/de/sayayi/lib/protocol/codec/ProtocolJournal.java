@@ -0,0 +1,538 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.codec;
+
+import de.sayayi.lib.protocol.Protocol;
+import de.sayayi.lib.protocol.ProtocolEntry;
+import de.sayayi.lib.protocol.ProtocolFactory;
+import de.sayayi.lib.protocol.ProtocolGroup;
+import de.sayayi.lib.protocol.ProtocolListener;
+import de.sayayi.lib.protocol.internal.ProtocolDelta;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.JOURNAL_MAGIC;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.JOURNAL_VERSION;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+
+/**
+ * Append-only journal recording the changes of a protocol, allowing the protocol to be recovered
+ * by {@link #recover(Path, ProtocolFactory, Function) recover} after a crash.
+ * <p>
+ * The journal registers itself as a listener with the protocol. Changes are collected and
+ * encoded as delta frames (see {@link ProtocolDeltaWriter}) by the thread modifying the
+ * protocol, once {@code commitSize} messages and groups have been added or
+ * {@code commitDelayMillis} have passed since the last commit. Changes which are not followed by
+ * another message or group are committed by the writer thread once the commit delay has passed.
+ * Encoding is done in memory;
+ * writing the frames to the journal file and forcing them to the storage device, as configured
+ * by the {@link SyncPolicy}, is done by a dedicated daemon thread. Frames queued while the
+ * previous write is in progress are written and synced together.
+ * <p>
+ * Parameters and group headers changed without adding a message or group are included in the
+ * next commit, at the latest after the commit delay. Methods {@link #flush()} and {@link #close()} commit all pending changes and wait
+ * until they have been written.
+ * <p>
+ * Commits lock the protocol while encoding its changes, so the protocol may be modified by
+ * multiple threads and the journal may be flushed or closed concurrently with modifications.
+ * A message budget cannot be set for a journaled protocol.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class ProtocolJournal<M> implements Flushable, AutoCloseable
+{
+  /** Default number of added messages and groups triggering a commit. */
+  public static final int DEFAULT_COMMIT_SIZE = 256;
+
+  /** Default maximum delay in milliseconds between a change and its commit. */
+  public static final long DEFAULT_COMMIT_DELAY_MILLIS = 50;
+
+  private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+  private static final Commit CLOSE = new Commit(null, null);
+
+  private final @NotNull Protocol<M> protocol;
+  private final @NotNull FileChannel channel;
+  private final int commitSize;
+  private final long commitDelayNanos;
+  private final @NotNull SyncPolicy syncPolicy;
+  private final @NotNull ByteArrayOutputStream frame = new ByteArrayOutputStream();
+  private final @NotNull ProtocolDeltaWriter<M> deltaWriter;
+  private final @NotNull BlockingQueue<Commit> commits = new LinkedBlockingQueue<>();
+  private final @NotNull JournalListener listener = new JournalListener();
+  private final @NotNull Thread writerThread;
+
+  private long checkpoint;
+  private int pendingChanges;
+  private long lastCommitNanos;
+  private volatile IOException failure;
+  private volatile boolean closed;
+
+
+  /**
+   * Creates a journal for {@code protocol} with default commit size and delay, which syncs the
+   * journal file after each commit.
+   *
+   * @param protocol        protocol to journal, not {@code null}
+   * @param file            journal file, not {@code null}
+   * @param messageEncoder  function converting a message into a string, not {@code null}
+   *
+   * @throws IOException  if the journal file cannot be created
+   */
+  public ProtocolJournal(@NotNull Protocol<M> protocol, @NotNull Path file,
+                         @NotNull Function<? super M,String> messageEncoder) throws IOException
+  {
+    this(protocol, file, messageEncoder, DEFAULT_COMMIT_SIZE, DEFAULT_COMMIT_DELAY_MILLIS,
+        SyncPolicy.COMMIT);
+  }
+
+
+  /**
+   * Creates a journal for {@code protocol}. An existing journal file is overwritten. Messages
+   * and groups already contained in the protocol are committed immediately.
+   *
+   * @param protocol           protocol to journal, not {@code null}
+   * @param file               journal file, not {@code null}
+   * @param messageEncoder     function converting a message into a string, not {@code null}
+   * @param commitSize         number of added messages and groups triggering a commit,
+   *                           at least 1
+   * @param commitDelayMillis  maximum delay in milliseconds between a change and its commit,
+   *                           provided the protocol is modified again
+   * @param syncPolicy         policy for forcing the journal to the storage device,
+   *                           not {@code null}
+   *
+   * @throws IOException            if the journal file cannot be created
+   * @throws IllegalStateException  if {@code protocol} has a message budget
+   */
+  public ProtocolJournal(@NotNull Protocol<M> protocol, @NotNull Path file,
+                         @NotNull Function<? super M,String> messageEncoder, int commitSize,
+                         long commitDelayMillis, @NotNull SyncPolicy syncPolicy)
+      throws IOException
+  {
+    if (commitSize < 1)
+      throw new IllegalArgumentException("commitSize must be at least 1");
+    if (commitDelayMillis < 0)
+      throw new IllegalArgumentException("commitDelayMillis must not be negative");
+
+    this.protocol = requireNonNull(protocol, "protocol must not be null");
+    this.commitSize = commitSize;
+    this.syncPolicy = requireNonNull(syncPolicy, "syncPolicy must not be null");
+
+    commitDelayNanos = MILLISECONDS.toNanos(commitDelayMillis);
+    deltaWriter = new ProtocolDeltaWriter<>(frame,
+        requireNonNull(messageEncoder, "messageEncoder must not be null"));
+
+    requireNonNull(file, "file must not be null");
+
+    // reject a protocol with a message budget before the journal file is truncated
+    ProtocolDelta.attachExporter(protocol);
+
+    try {
+      channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, WRITE);
+    } catch(IOException ex) {
+      ProtocolDelta.detachExporter(protocol);
+      throw ex;
+    }
+
+    try {
+      final var header = ByteBuffer.allocate(JOURNAL_MAGIC.length + 1)
+          .put(JOURNAL_MAGIC).put((byte)JOURNAL_VERSION).flip();
+
+      while(header.hasRemaining())
+        channel.write(header);
+    } catch(IOException ex) {
+      ProtocolDelta.detachExporter(protocol);
+      channel.close();
+      throw ex;
+    }
+
+    writerThread = new Thread(this::writeCommits,
+        "protocol-journal-" + THREAD_NUMBER.incrementAndGet());
+    writerThread.setDaemon(true);
+    writerThread.start();
+
+    protocol.addListener(listener);
+    commit();
+  }
+
+
+  /**
+   * Commits all pending changes and waits until they have been written to the journal file.
+   * Unless the sync policy is {@link SyncPolicy#NONE NONE}, the journal file is forced to the
+   * storage device.
+   *
+   * @throws IOException  if the journal has been closed or writing the journal failed
+   */
+  @Override
+  public void flush() throws IOException
+  {
+    if (closed)
+      throw new IOException("journal has been closed");
+
+    commit();
+    awaitFlush();
+  }
+
+
+  /**
+   * Returns whether this journal has been closed.
+   *
+   * @return  {@code true} if the journal has been closed, {@code false} otherwise
+   */
+  @Contract(pure = true)
+  public boolean isClosed() {
+    return closed;
+  }
+
+
+  /**
+   * Commits all pending changes, waits until they have been written and closes the journal
+   * file. Subsequent changes to the protocol are not recorded.
+   *
+   * @throws IOException  if writing the journal failed
+   */
+  @Override
+  public void close() throws IOException
+  {
+    if (closed)
+      return;
+
+    protocol.removeListener(listener);
+
+    try {
+      commit();
+      awaitFlush();
+    } finally {
+      closed = true;
+      commits.add(CLOSE);
+
+      var interrupted = false;
+
+      while(writerThread.isAlive())
+        try {
+          writerThread.join();
+        } catch(InterruptedException ex) {
+          interrupted = true;
+        }
+
+      channel.close();
+      ProtocolDelta.detachExporter(protocol);
+
+      if (interrupted)
+        Thread.currentThread().interrupt();
+    }
+  }
+
+
+  private synchronized void commitIfDue()
+  {
+    if (System.nanoTime() - lastCommitNanos >= commitDelayNanos)
+      commit();
+  }
+
+
+  private synchronized void commit()
+  {
+    pendingChanges = 0;
+    lastCommitNanos = System.nanoTime();
+
+    if (closed || failure != null || ProtocolDeltaWriter.getSequence(protocol) == checkpoint)
+      return;
+
+    try {
+      checkpoint = deltaWriter.exportSince(protocol, checkpoint);
+    } catch(IOException ex) {
+      // cannot happen when writing to a byte array output stream
+      throw new UncheckedIOException(ex);
+    }
+
+    final var crc = new CRC32();
+    final var bytes = frame.toByteArray();
+
+    frame.reset();
+    crc.update(bytes);
+
+    final var header = ByteBuffer.allocate(8).order(LITTLE_ENDIAN)
+        .putInt(bytes.length).putInt((int)crc.getValue()).flip();
+
+    commits.add(new Commit(new ByteBuffer[] { header, ByteBuffer.wrap(bytes) }, null));
+  }
+
+
+  private void awaitFlush() throws IOException
+  {
+    final var done = new CompletableFuture<Void>();
+    commits.add(new Commit(null, done));
+
+    try {
+      done.get();
+    } catch(ExecutionException ex) {
+      throw (IOException)ex.getCause();
+    } catch(InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while flushing journal");
+    }
+
+    if (failure != null)
+      throw failure;
+  }
+
+
+  private void writeCommits()
+  {
+    final List<Commit> batch = new ArrayList<>();
+
+    // changes not followed by another event are committed by this thread after the commit delay;
+    // a delay of 0 is checked every millisecond
+    final var pollNanos = Math.max(commitDelayNanos, MILLISECONDS.toNanos(1));
+
+    try {
+      for(var running = true; running;)
+      {
+        final var next = commits.poll(pollNanos, NANOSECONDS);
+        if (next == null)
+        {
+          commitIfDue();
+          continue;
+        }
+
+        batch.add(next);
+        commits.drainTo(batch);
+
+        var written = false;
+        var flushRequested = false;
+
+        for(var commit: batch)
+        {
+          if (commit == CLOSE)
+            running = false;
+          else if (commit.buffers != null)
+          {
+            for(var buffers = commit.buffers; buffers[buffers.length - 1].hasRemaining();)
+              channel.write(buffers);
+
+            written = true;
+          }
+          else
+            flushRequested = true;
+        }
+
+        if (written && syncPolicy == SyncPolicy.COMMIT ||
+            flushRequested && syncPolicy != SyncPolicy.NONE)
+          channel.force(false);
+
+        for(var commit: batch)
+          if (commit.done != null)
+            commit.done.complete(null);
+
+        batch.clear();
+        commitIfDue();
+      }
+    } catch(IOException ex) {
+      failure = ex;
+      fail(batch, ex);
+    } catch(InterruptedException ex) {
+      failure = new InterruptedIOException("journal writer interrupted");
+      fail(batch, failure);
+    }
+  }
+
+
+  private void fail(@NotNull List<Commit> batch, @NotNull IOException ex)
+  {
+    // fail pending and subsequent flush requests; the writer thread is gone
+    for(;;)
+    {
+      for(var commit: batch)
+        if (commit.done != null)
+          commit.done.completeExceptionally(ex);
+
+      batch.clear();
+
+      try {
+        batch.add(commits.take());
+      } catch(InterruptedException interrupted) {
+        return;
+      }
+
+      if (batch.get(0) == CLOSE)
+        return;
+    }
+  }
+
+
+  /**
+   * Recovers a protocol from a journal file. Frames which have not been written completely, for
+   * instance because the process terminated while writing, are ignored.
+   *
+   * @param file            journal file, not {@code null}
+   * @param factory         factory for creating the recovered protocol, not {@code null}
+   * @param messageDecoder  function converting a string into a message, not {@code null}
+   *
+   * @param <M>  internal message object type
+   *
+   * @return  recovered protocol, never {@code null}
+   *
+   * @throws IOException  if an I/O error occurs or the file is not a protocol journal
+   */
+  @Contract("_, _, _ -> new")
+  public static <M> @NotNull Protocol<M> recover(
+      @NotNull Path file, @NotNull ProtocolFactory<M> factory,
+      @NotNull Function<String,? extends M> messageDecoder) throws IOException
+  {
+    requireNonNull(messageDecoder, "messageDecoder must not be null");
+
+    final var protocol = requireNonNull(factory, "factory must not be null").createProtocol();
+    var remaining = Files.size(requireNonNull(file, "file must not be null"));
+
+    try(var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      final var header = new byte[JOURNAL_MAGIC.length + 1];
+      in.readFully(header);
+      remaining -= header.length;
+
+      for(int n = 0; n < JOURNAL_MAGIC.length; n++)
+        if (header[n] != JOURNAL_MAGIC[n])
+          throw new IOException("invalid protocol journal: bad magic");
+
+      if (header[JOURNAL_MAGIC.length] < 1 || header[JOURNAL_MAGIC.length] > JOURNAL_VERSION)
+        throw new IOException("unsupported protocol journal version " + header[4]);
+
+      final var frameHeader = new byte[8];
+      long checkpoint = 0;
+
+      while(remaining >= frameHeader.length)
+      {
+        in.readFully(frameHeader);
+        remaining -= frameHeader.length;
+
+        final var frameHeaderBuffer = ByteBuffer.wrap(frameHeader).order(LITTLE_ENDIAN);
+        final var length = frameHeaderBuffer.getInt();
+        if (length < 0 || length > remaining)
+          break;
+
+        final var bytes = new byte[length];
+        in.readFully(bytes);
+        remaining -= length;
+
+        final var crc = new CRC32();
+        crc.update(bytes);
+        if ((int)crc.getValue() != frameHeaderBuffer.getInt())
+          break;
+
+        checkpoint = new ProtocolDeltaReader<M>(new ByteArrayInputStream(bytes), messageDecoder)
+            .applyTo(protocol, checkpoint);
+      }
+    } catch(EOFException ex) {
+      throw new IOException("invalid protocol journal: missing header", ex);
+    }
+
+    return protocol;
+  }
+
+
+
+
+  /**
+   * Policy for forcing the journal file to the storage device.
+   */
+  public enum SyncPolicy
+  {
+    /** The journal file is forced after each write. */
+    COMMIT,
+
+    /** The journal file is forced on {@link #flush()} and {@link #close()} only. */
+    FLUSH,
+
+    /** The journal file is never forced; the operating system decides when data is written. */
+    NONE
+  }
+
+
+
+
+  private static final class Commit
+  {
+    private final ByteBuffer[] buffers;
+    private final CompletableFuture<Void> done;
+
+
+    private Commit(ByteBuffer[] buffers, CompletableFuture<Void> done)
+    {
+      this.buffers = buffers;
+      this.done = done;
+    }
+  }
+
+
+
+
+  private final class JournalListener implements ProtocolListener<M>
+  {
+    @Override
+    public void messageAdded(@NotNull ProtocolEntry.Message<M> message) {
+      changed();
+    }
+
+
+    @Override
+    public void groupCreated(@NotNull ProtocolGroup<M> group) {
+      changed();
+    }
+
+
+    private void changed()
+    {
+      synchronized(ProtocolJournal.this) {
+        if (++pendingChanges >= commitSize ||
+            System.nanoTime() - lastCommitNanos >= commitDelayNanos)
+          commit();
+      }
+    }
+  }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.codec;
+
+import de.sayayi.lib.protocol.Protocol;
+import de.sayayi.lib.protocol.Protocol.Message;
+import de.sayayi.lib.protocol.internal.ProtocolSpill;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_END;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryFormat.RECORD_MESSAGE;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Temporary file receiving the messages of sealed protocol groups when a protocol exceeds its
+ * heap budget.
+ * <p>
+ * Creating a spill file enables spilling for the protocol. The heap occupied by the messages of
+ * the protocol is estimated as messages are added. When the estimate exceeds the heap budget,
+ * the messages of the groups which have been {@link de.sayayi.lib.protocol.ProtocolGroup#seal()
+ * sealed} first are encoded using the compact encoding of {@link ProtocolBinaryWriter}, appended
+ * to the spill file and released. Group headers, parameters and the summaries used to answer
+ * queries remain in memory, so spilled messages are only reloaded when a query or iteration
+ * actually needs to inspect them. Spilled groups are queried by scanning their reloaded
+ * messages; the messages of the most recently reloaded groups are cached.
+ * <p>
+ * Spilled messages are restored like messages read by {@link ProtocolBinaryReader}: parameter
+ * values other than strings, booleans and numbers are restored as strings and throwables are
+ * restored as {@link SerializedThrowable}. Reloaded message instances are not identical to the
+ * original instances.
+ * <p>
+ * The spill file is deleted when it is closed, or earlier where supported by the platform.
+ * After closing, spilled messages can no longer be accessed and the protocol should be
+ * discarded.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class ProtocolSpillFile<M> implements AutoCloseable
+{
+  private final @NotNull Protocol<M> protocol;
+  private final @NotNull FileChannel channel;
+  private final @NotNull Function<? super M,String> messageEncoder;
+  private final @NotNull Function<String,? extends M> messageDecoder;
+
+  private long size;
+
+
+  /**
+   * Enables spilling for {@code protocol}, using a spill file in the default temporary-file
+   * directory.
+   *
+   * @param protocol        protocol, not {@code null}
+   * @param heapBudget      estimated heap size in bytes the messages of the protocol may occupy
+   * @param messageEncoder  function converting a message into a string, not {@code null}
+   * @param messageDecoder  function converting a string into a message, not {@code null}
+   *
+   * @throws IOException            if the spill file cannot be created
+   * @throws IllegalStateException  if spilling has already been enabled for the protocol or if
+   *                                the protocol has a message budget
+   */
+  public ProtocolSpillFile(@NotNull Protocol<M> protocol, long heapBudget,
+                           @NotNull Function<? super M,String> messageEncoder,
+                           @NotNull Function<String,? extends M> messageDecoder)
+      throws IOException {
+    this(protocol, null, heapBudget, messageEncoder, messageDecoder);
+  }
+
+
+  /**
+   * Enables spilling for {@code protocol}, using a spill file in {@code directory}.
+   *
+   * @param protocol        protocol, not {@code null}
+   * @param directory       directory for the spill file or {@code null} for the default
+   *                        temporary-file directory
+   * @param heapBudget      estimated heap size in bytes the messages of the protocol may occupy
+   * @param messageEncoder  function converting a message into a string, not {@code null}
+   * @param messageDecoder  function converting a string into a message, not {@code null}
+   *
+   * @throws IOException            if the spill file cannot be created
+   * @throws IllegalStateException  if spilling has already been enabled for the protocol or if
+   *                                the protocol has a message budget
+   */
+  public ProtocolSpillFile(@NotNull Protocol<M> protocol, Path directory, long heapBudget,
+                           @NotNull Function<? super M,String> messageEncoder,
+                           @NotNull Function<String,? extends M> messageDecoder)
+      throws IOException
+  {
+    this.protocol = requireNonNull(protocol, "protocol must not be null");
+    this.messageEncoder = requireNonNull(messageEncoder, "messageEncoder must not be null");
+    this.messageDecoder = requireNonNull(messageDecoder, "messageDecoder must not be null");
+
+    final var file = directory == null
+        ? Files.createTempFile("protocol-", ".spill")
+        : Files.createTempFile(directory, "protocol-", ".spill");
+    channel = FileChannel.open(file, READ, WRITE, DELETE_ON_CLOSE);
+
+    try {
+      ProtocolSpill.enable(protocol, heapBudget, new Store());
+    } catch(RuntimeException ex) {
+      channel.close();
+      throw ex;
+    }
+  }
+
+
+  /**
+   * Returns the number of bytes written to the spill file.
+   *
+   * @return  spill file size
+   */
+  @Contract(pure = true)
+  public synchronized long getSize() {
+    return size;
+  }
+
+
+  /**
+   * Returns the estimated heap size occupied by the messages of the protocol, which have not
+   * been spilled.
+   *
+   * @return  estimated heap size in bytes
+   */
+  @Contract(pure = true)
+  public long getEstimatedHeapSize() {
+    return ProtocolSpill.getEstimatedHeapSize(protocol);
+  }
+
+
+  /**
+   * Returns the number of groups whose messages have been spilled.
+   *
+   * @return  number of spilled groups
+   */
+  @Contract(pure = true)
+  public int getSpilledGroupCount() {
+    return ProtocolSpill.getSpilledGroupCount(protocol);
+  }
+
+
+  /**
+   * Closes and deletes the spill file.
+   *
+   * @throws IOException  if an I/O error occurs
+   */
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+
+
+
+  private final class Store implements ProtocolSpill.Store<M>
+  {
+    @Override
+    public long write(@NotNull List<? extends Message<M>> messages) throws IOException
+    {
+      final var bytes = new ByteArrayOutputStream();
+      final var encoder = new ProtocolBinaryEncoder<M>(bytes, messageEncoder);
+
+      // length placeholder
+      encoder.writeFixed(0, 4);
+
+      for(var message: messages)
+      {
+        encoder.writeByte(RECORD_MESSAGE);
+        encoder.writeMessage(message);
+      }
+
+      encoder.writeByte(RECORD_END);
+      encoder.flush();
+
+      final var buffer = ByteBuffer.wrap(bytes.toByteArray()).order(LITTLE_ENDIAN);
+      buffer.putInt(0, buffer.capacity() - 4);
+
+      synchronized(ProtocolSpillFile.this) {
+        final var handle = size;
+
+        while(buffer.hasRemaining())
+          channel.write(buffer, handle + buffer.position());
+
+        size += buffer.capacity();
+
+        return handle;
+      }
+    }
+
+
+    @Override
+    public void read(long handle, @NotNull Consumer<? super Message<M>> action)
+        throws IOException
+    {
+      final var length = ByteBuffer.allocate(4).order(LITTLE_ENDIAN);
+      readFully(length, handle);
+
+      final var buffer = ByteBuffer.allocate(length.getInt(0));
+      readFully(buffer, handle + 4);
+
+      final var decoder = new ProtocolArchive.BufferDecoder<M>(buffer.flip(), messageDecoder);
+
+      for(int recordType; (recordType = decoder.readByte()) != RECORD_END;)
+      {
+        if (recordType != RECORD_MESSAGE)
+          throw new IOException("invalid protocol spill file: unexpected record " + recordType);
+
+        action.accept(decoder.readMessage());
+      }
+    }
+
+
+    private void readFully(@NotNull ByteBuffer buffer, long position) throws IOException
+    {
+      while(buffer.hasRemaining())
+        if (channel.read(buffer, position + buffer.position()) < 0)
+          throw new EOFException("unexpected end of protocol spill file");
+    }
+  }
+}
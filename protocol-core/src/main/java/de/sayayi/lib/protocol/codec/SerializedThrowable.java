@@ -0,0 +1,68 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.codec;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+
+/**
+ * Summary of a throwable read from a binary protocol stream. It retains the class name and
+ * message of the original throwable and its causes, but no stack trace.
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class SerializedThrowable extends Throwable
+{
+  private static final long serialVersionUID = 1L;
+
+  private final @NotNull String className;
+
+
+  /**
+   * Creates a throwable summary.
+   *
+   * @param className  class name of the original throwable, not {@code null}
+   * @param message    message of the original throwable or {@code null}
+   * @param cause      cause summary or {@code null}
+   */
+  public SerializedThrowable(@NotNull String className, String message, SerializedThrowable cause)
+  {
+    super(message, cause, false, false);
+
+    this.className = className;
+  }
+
+
+  /**
+   * Returns the class name of the original throwable.
+   *
+   * @return  class name, never {@code null}
+   */
+  @Contract(pure = true)
+  public @NotNull String getClassName() {
+    return className;
+  }
+
+
+  @Override
+  public String toString()
+  {
+    final var message = getLocalizedMessage();
+    return message == null ? className : className + ": " + message;
+  }
+}
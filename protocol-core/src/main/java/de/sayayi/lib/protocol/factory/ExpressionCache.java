@@ -0,0 +1,225 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.factory;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Bounded least recently used cache for parsed message matcher and tag selector expressions.
+ * <p>
+ * The cache is thread safe. Expressions are parsed outside the cache lock, so a slow parse does
+ * not block concurrent lookups. Expressions which fail to parse are not cached.
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class ExpressionCache
+{
+  /** Default maximum number of cached expressions. */
+  public static final int DEFAULT_CAPACITY = 256;
+
+  private final LinkedHashMap<Key,Object> cache;
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  private volatile int capacity;
+  private int generation;
+
+
+  ExpressionCache(int capacity)
+  {
+    if (capacity < 0)
+      throw new IllegalArgumentException("capacity must not be negative");
+
+    this.capacity = capacity;
+
+    cache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Entry<Key,Object> eldest) {
+        return size() > ExpressionCache.this.capacity;
+      }
+    };
+  }
+
+
+  /**
+   * Returns the maximum number of cached expressions.
+   *
+   * @return  cache capacity, {@code 0} if caching is disabled
+   */
+  @Contract(pure = true)
+  public int getCapacity() {
+    return capacity;
+  }
+
+
+  /**
+   * Sets the maximum number of cached expressions. If the cache currently contains more
+   * expressions, the least recently used ones are evicted.
+   *
+   * @param capacity  cache capacity, {@code 0} disables caching
+   */
+  public void setCapacity(int capacity)
+  {
+    if (capacity < 0)
+      throw new IllegalArgumentException("capacity must not be negative");
+
+    synchronized(this) {
+      this.capacity = capacity;
+
+      for(var iterator = cache.keySet().iterator(); cache.size() > capacity;)
+      {
+        iterator.next();
+        iterator.remove();
+      }
+    }
+  }
+
+
+  /**
+   * Returns the number of lookups which returned a cached expression.
+   *
+   * @return  hit count
+   */
+  @Contract(pure = true)
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+
+  /**
+   * Returns the number of lookups which required the expression to be parsed.
+   *
+   * @return  miss count
+   */
+  @Contract(pure = true)
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+
+  /**
+   * Returns the number of currently cached expressions.
+   *
+   * @return  cache size
+   */
+  @Contract(pure = true)
+  public synchronized int size() {
+    return cache.size();
+  }
+
+
+  /**
+   * Removes all cached expressions. The hit and miss counters are not reset.
+   */
+  public synchronized void clear()
+  {
+    cache.clear();
+    generation++;
+  }
+
+
+  @SuppressWarnings("unchecked")
+  <T> @NotNull T get(boolean tagSelector, @NotNull String expression,
+                     @NotNull Function<String,T> parser)
+  {
+    final var key = new Key(tagSelector, expression);
+    final int parseGeneration;
+    Object value;
+
+    synchronized(this) {
+      value = cache.get(key);
+      parseGeneration = generation;
+    }
+
+    if (value != null)
+    {
+      hitCount.incrementAndGet();
+      return (T)value;
+    }
+
+    missCount.incrementAndGet();
+
+    // the parser must resolve its matcher only now, after the generation has been read, so a
+    // concurrent matcher change followed by clear() discards the parsed value
+    value = requireNonNull(parser.apply(expression));
+
+    synchronized(this) {
+      // do not cache expressions parsed before the cache was cleared
+      if (capacity > 0 && parseGeneration == generation)
+      {
+        final var cachedValue = cache.putIfAbsent(key, value);
+        if (cachedValue != null)
+          value = cachedValue;
+      }
+    }
+
+    return (T)value;
+  }
+
+
+  @Override
+  public String toString()
+  {
+    return "ExpressionCache(size=" + size() + ",capacity=" + capacity + ",hits=" + hitCount +
+        ",misses=" + missCount + ')';
+  }
+
+
+
+
+  private static final class Key
+  {
+    private final boolean tagSelector;
+    private final String expression;
+
+
+    private Key(boolean tagSelector, @NotNull String expression)
+    {
+      this.tagSelector = tagSelector;
+      this.expression = expression;
+    }
+
+
+    @Override
+    public boolean equals(Object o)
+    {
+      if (this == o)
+        return true;
+      if (!(o instanceof Key))
+        return false;
+
+      final var that = (Key)o;
+
+      return tagSelector == that.tagSelector && expression.equals(that.expression);
+    }
+
+
+    @Override
+    public int hashCode() {
+      return expression.hashCode() * 2 + (tagSelector ? 1 : 0);
+    }
+  }
+}
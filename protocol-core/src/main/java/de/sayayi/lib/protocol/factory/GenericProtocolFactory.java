@@ -15,8 +15,10 @@
  */
 package de.sayayi.lib.protocol.factory;
 
+import de.sayayi.lib.protocol.Level;
 import de.sayayi.lib.protocol.Protocol;
 import de.sayayi.lib.protocol.ProtocolFactory;
+import de.sayayi.lib.protocol.ProtocolListener;
 import de.sayayi.lib.protocol.ProtocolMessageMatcher;
 import de.sayayi.lib.protocol.TagSelector;
 import de.sayayi.lib.protocol.exception.MessageMatcherException;
@@ -26,10 +28,15 @@ import de.sayayi.lib.protocol.matcher.MessageMatcher;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ServiceLoader;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static de.sayayi.lib.protocol.Level.Shared.LOWEST;
 import static java.lang.Thread.currentThread;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
 import static java.util.Objects.requireNonNull;
 
 
@@ -46,7 +53,11 @@ public class GenericProtocolFactory<M> implements ProtocolFactory<M>
   private final @NotNull MessageProcessor<M> messageProcessor;
   private final @NotNull MessageFormatter<M> messageFormatter;
 
-  private @NotNull ProtocolMessageMatcher messageMatcher;
+  private final @NotNull ExpressionCache expressionCache;
+
+  private volatile @NotNull ProtocolMessageMatcher messageMatcher;
+  private volatile @NotNull List<ProtocolListener<M>> listeners = emptyList();
+  private volatile @NotNull Level admissionLevel = LOWEST;
 
 
   public GenericProtocolFactory(@NotNull MessageProcessor<M> messageProcessor,
@@ -70,6 +81,7 @@ public class GenericProtocolFactory<M> implements ProtocolFactory<M>
     this.messageFormatter = requireNonNull(messageFormatter, "messageFormatter must not be null");
     this.messageMatcher = requireNonNull(messageMatcher, "messageMatcher must not be null");
 
+    expressionCache = new ExpressionCache(ExpressionCache.DEFAULT_CAPACITY);
     id = FACTORY_ID.incrementAndGet();
   }
 
@@ -88,30 +100,110 @@ public class GenericProtocolFactory<M> implements ProtocolFactory<M>
 
   /**
    * Associate a protocol message matcher with this factory,
-   * overriding the previous message matcher.
+   * overriding the previous message matcher. The expression cache is cleared.
    *
    * @param messageMatcher   protocol message matcher instance, not {@code null}
    *
    * @since 1.2.1
    */
-  public void setMessageMatcher(@NotNull ProtocolMessageMatcher messageMatcher) {
+  public void setMessageMatcher(@NotNull ProtocolMessageMatcher messageMatcher)
+  {
     this.messageMatcher = requireNonNull(messageMatcher, "messageMatcher must not be null");
+
+    expressionCache.clear();
+  }
+
+
+  /**
+   * Returns the cache for parsed message matcher and tag selector expressions. It can be used to
+   * query hit/miss statistics or to change the cache capacity.
+   *
+   * @return  expression cache, never {@code null}
+   *
+   * @since 1.6.0
+   */
+  @Contract(pure = true)
+  public @NotNull ExpressionCache getExpressionCache() {
+    return expressionCache;
   }
 
 
   @Override
   public @NotNull MessageMatcher parseMessageMatcher(@NotNull String messageMatcherExpression)
   {
-    return messageMatcher.parseMessageMatcher(
-        requireNonNull(messageMatcherExpression, "messageMatcherExpression must not be null"));
+    return expressionCache.get(false,
+        requireNonNull(messageMatcherExpression, "messageMatcherExpression must not be null"),
+        expression -> messageMatcher.parseMessageMatcher(expression));
   }
 
 
   @Override
   public @NotNull TagSelector parseTagSelector(@NotNull String tagSelectorExpression)
   {
-    return messageMatcher.parseTagSelector(
-        requireNonNull(tagSelectorExpression, "tagSelectorExpression must not be null"));
+    return expressionCache.get(true,
+        requireNonNull(tagSelectorExpression, "tagSelectorExpression must not be null"),
+        expression -> messageMatcher.parseTagSelector(expression));
+  }
+
+
+  @Override
+  public @NotNull List<ProtocolListener<M>> getListeners() {
+    return listeners;
+  }
+
+
+  /**
+   * Adds a listener which is notified about messages and groups added to any protocol created by
+   * this factory.
+   *
+   * @param listener  protocol listener, not {@code null}
+   *
+   * @since 1.6.0
+   */
+  public synchronized void addListener(@NotNull ProtocolListener<M> listener)
+  {
+    final var newListeners = new ArrayList<>(listeners);
+    newListeners.add(requireNonNull(listener, "listener must not be null"));
+
+    listeners = unmodifiableList(newListeners);
+  }
+
+
+  /**
+   * Removes a listener previously added to this factory.
+   *
+   * @param listener  protocol listener, not {@code null}
+   *
+   * @since 1.6.0
+   */
+  public synchronized void removeListener(@NotNull ProtocolListener<M> listener)
+  {
+    final var newListeners = new ArrayList<>(listeners);
+
+    if (newListeners.remove(requireNonNull(listener, "listener must not be null")))
+      listeners = newListeners.isEmpty() ? emptyList() : unmodifiableList(newListeners);
+  }
+
+
+  @Override
+  public @NotNull Level getAdmissionLevel() {
+    return admissionLevel;
+  }
+
+
+  /**
+   * Sets the admission level for all protocols created by this factory, which do not have an
+   * admission level of their own. The new level is effective for messages added afterwards, so
+   * it can be changed at runtime, e.g. to record debug messages while analysing an incident.
+   *
+   * @param admissionLevel  admission level, not {@code null}
+   *
+   * @see Protocol#setAdmissionLevel(Level)
+   *
+   * @since 1.6.0
+   */
+  public void setAdmissionLevel(@NotNull Level admissionLevel) {
+    this.admissionLevel = requireNonNull(admissionLevel, "admissionLevel must not be null");
   }
 
 
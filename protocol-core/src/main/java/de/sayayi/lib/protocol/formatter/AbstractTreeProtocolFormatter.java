@@ -18,7 +18,7 @@ package de.sayayi.lib.protocol.formatter;
 import de.sayayi.lib.protocol.Protocol.GenericMessageWithLevel;
 import de.sayayi.lib.protocol.ProtocolFactory;
 import de.sayayi.lib.protocol.ProtocolFactory.MessageFormatter;
-import de.sayayi.lib.protocol.ProtocolFormatter;
+import de.sayayi.lib.protocol.ProtocolFormatter.ChunkedProtocolFormatter;
 import de.sayayi.lib.protocol.ProtocolIterator.GroupStartEntry;
 import de.sayayi.lib.protocol.ProtocolIterator.MessageEntry;
 import de.sayayi.lib.protocol.matcher.MessageMatcher;
@@ -28,13 +28,16 @@ import org.jetbrains.annotations.NotNull;
 
 /**
  * Abstract class capable of representing the protocol as a tree using ascii graphics.
+ * <p>
+ * If messages have been evicted from a group, the number of evicted messages is shown next to
+ * the group header.
  *
  * @param <M>  internal message object type
  *
  * @author Jeroen Gremmen
  * @since 0.1.0
  */
-public abstract class AbstractTreeProtocolFormatter<M> implements ProtocolFormatter<M,String>
+public abstract class AbstractTreeProtocolFormatter<M> implements ChunkedProtocolFormatter<M>
 {
   private static final String GRAPH_ROOT_NODE_PREFIX = "■──";
   private static final String GRAPH_MIDDLE_NODE_PREFIX = "├──";
@@ -107,7 +110,16 @@ public abstract class AbstractTreeProtocolFormatter<M> implements ProtocolFormat
             .append(prefix).append(group.isLast() ? GRAPH_LAST_NODE_PREFIX : GRAPH_MIDDLE_NODE_PREFIX);
     }
 
-    result.append(format(group.getGroupMessage())).append('\n');
+    result.append(format(group.getGroupMessage()));
+
+    final var droppedMessageCount = group.getDroppedMessageCount();
+    if (droppedMessageCount > 0)
+    {
+      result.append("  (").append(droppedMessageCount)
+            .append(droppedMessageCount == 1 ? " message dropped)" : " messages dropped)");
+    }
+
+    result.append('\n');
 
     prefixes[depth] = prefix + (group.isLast() ? GRAPH_LEVEL_SEPARATOR_EMPTY : GRAPH_LEVEL_SEPARATOR_BAR);
   }
@@ -117,4 +129,19 @@ public abstract class AbstractTreeProtocolFormatter<M> implements ProtocolFormat
   public @NotNull String getResult() {
     return result.toString();
   }
+
+
+  /**
+   * {@inheritDoc}
+   *
+   * @since 1.6.0
+   */
+  @Override
+  public @NotNull String takeChunk()
+  {
+    final var chunk = result.toString();
+    result.setLength(0);
+
+    return chunk;
+  }
 }
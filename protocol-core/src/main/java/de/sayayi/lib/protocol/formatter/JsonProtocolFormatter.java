@@ -0,0 +1,432 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.formatter;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.Protocol.GenericMessageWithLevel;
+import de.sayayi.lib.protocol.ProtocolFactory;
+import de.sayayi.lib.protocol.ProtocolFactory.MessageFormatter;
+import de.sayayi.lib.protocol.ProtocolFormatter.ChunkedProtocolFormatter;
+import de.sayayi.lib.protocol.ProtocolIterator.GroupEndEntry;
+import de.sayayi.lib.protocol.ProtocolIterator.GroupMessageEntry;
+import de.sayayi.lib.protocol.ProtocolIterator.GroupStartEntry;
+import de.sayayi.lib.protocol.ProtocolIterator.MessageEntry;
+import de.sayayi.lib.protocol.matcher.MessageMatcher;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Protocol formatter producing JSON.
+ * <p>
+ * The formatter writes the JSON text directly, without building an intermediate object model.
+ * The protocol is represented as an object with an {@code entries} array. Each entry is an
+ * object with a {@code type} of either {@code message} or {@code group} and contains the
+ * level name (shared levels only), severity, message id, formatted text, timestamp (epoch
+ * milliseconds) and parameter values of the message or group header message. Messages also
+ * contain their tags and, if present, the throwable. Groups contain their name, if set, and,
+ * unless only the group header is visible, the number of visible messages ({@code messageCount}),
+ * the number of evicted messages ({@code droppedMessageCount}), if any, and a nested
+ * {@code entries} array:
+ * <pre>
+ *   {"entries":[
+ *     {"type":"message","level":"INFO","severity":...,"tags":["ui"],"id":"...","text":"...",
+ *      "timestamp":...,"params":{"n":1}},
+ *     {"type":"group","name":"g","level":"WARN",...,"messageCount":1,"entries":[...]}
+ *   ]}
+ * </pre>
+ * <p>
+ * Parameter values which are booleans or numbers are written as JSON literals, all other values
+ * are written as strings.
+ * <p>
+ * If the formatter is created with a writer or output stream, the JSON text is written to it
+ * while the protocol is being formatted and {@link #getResult()} only returns output which has
+ * not been written yet. The writer is flushed, but not closed, at the end of the protocol.
+ * Otherwise, the JSON text is collected and can be taken in chunks or obtained as a whole.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class JsonProtocolFormatter<M> implements ChunkedProtocolFormatter<M>
+{
+  private static final int FLUSH_THRESHOLD = 8192;
+  private static final int MAX_CACHED_STRINGS = 1024;
+
+  private static final String PROTOCOL_START = "{\"entries\":[";
+  private static final String PROTOCOL_END = "]}";
+  private static final String MESSAGE_START = "{\"type\":\"message\"";
+  private static final String GROUP_START = "{\"type\":\"group\"";
+  private static final String KEY_NAME = ",\"name\":";
+  private static final String KEY_LEVEL = ",\"level\":";
+  private static final String KEY_SEVERITY = ",\"severity\":";
+  private static final String KEY_TAGS = ",\"tags\":[";
+  private static final String KEY_ID = ",\"id\":";
+  private static final String KEY_TEXT = ",\"text\":";
+  private static final String KEY_TIMESTAMP = ",\"timestamp\":";
+  private static final String KEY_PARAMS = ",\"params\":{";
+  private static final String KEY_THROWABLE = ",\"throwable\":";
+  private static final String KEY_MESSAGE_COUNT = ",\"messageCount\":";
+  private static final String KEY_DROPPED_MESSAGE_COUNT = ",\"droppedMessageCount\":";
+  private static final String KEY_ENTRIES = ",\"entries\":[";
+  private static final String GROUP_END = "]}";
+
+  private static final String[] LEVEL_NAMES;
+  private static final String[] CONTROL_ESCAPES;
+
+  private final StringBuilder json = new StringBuilder();
+  private final Writer writer;
+  private final Map<String,String> quotedStrings = new HashMap<>();
+
+  private MessageFormatter<M> messageFormatter;
+  private boolean separatorRequired;
+  private char[] chars;
+
+
+  static
+  {
+    final var shared = Level.Shared.values();
+
+    LEVEL_NAMES = new String[shared.length];
+    for(var level: shared)
+      LEVEL_NAMES[level.ordinal()] = '"' + level.name() + '"';
+
+    CONTROL_ESCAPES = new String[0x20];
+    for(int c = 0; c < 0x20; c++)
+      CONTROL_ESCAPES[c] = String.format("\\u%04x", c);
+
+    CONTROL_ESCAPES['\b'] = "\\b";
+    CONTROL_ESCAPES['\f'] = "\\f";
+    CONTROL_ESCAPES['\n'] = "\\n";
+    CONTROL_ESCAPES['\r'] = "\\r";
+    CONTROL_ESCAPES['\t'] = "\\t";
+  }
+
+
+  /**
+   * Creates a JSON formatter collecting the formatted protocol.
+   */
+  public JsonProtocolFormatter() {
+    writer = null;
+  }
+
+
+  /**
+   * Creates a JSON formatter writing the formatted protocol to {@code writer}.
+   *
+   * @param writer  writer, not {@code null}
+   */
+  public JsonProtocolFormatter(@NotNull Writer writer) {
+    this.writer = requireNonNull(writer, "writer must not be null");
+  }
+
+
+  /**
+   * Creates a JSON formatter writing the formatted protocol to {@code out}, using UTF-8
+   * encoding.
+   *
+   * @param out  output stream, not {@code null}
+   */
+  public JsonProtocolFormatter(@NotNull OutputStream out) {
+    this(new OutputStreamWriter(requireNonNull(out, "out must not be null"), UTF_8));
+  }
+
+
+  @Override
+  public void init(@NotNull ProtocolFactory<M> factory, @NotNull MessageMatcher matcher,
+                   int estimatedGroupDepth)
+  {
+    json.setLength(0);
+
+    messageFormatter = factory.getMessageFormatter();
+    separatorRequired = false;
+  }
+
+
+  @Override
+  public void protocolStart() {
+    json.append(PROTOCOL_START);
+  }
+
+
+  @Override
+  public void protocolEnd()
+  {
+    json.append(PROTOCOL_END);
+
+    if (writer != null)
+    {
+      flushJson();
+
+      try {
+        writer.flush();
+      } catch(IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+  }
+
+
+  @Override
+  public void message(@NotNull MessageEntry<M> message)
+  {
+    startEntry();
+
+    if (message.isGroupMessage())
+    {
+      json.append(GROUP_START);
+      appendName(((GroupMessageEntry<M>)message).getName());
+      appendLevel(message.getLevel());
+      appendMessage(message);
+    }
+    else
+    {
+      json.append(MESSAGE_START);
+      appendLevel(message.getLevel());
+      appendTags(message.getTagNames());
+      appendMessage(message);
+
+      final var throwable = message.getThrowable();
+      if (throwable != null)
+        appendString(json.append(KEY_THROWABLE), throwable.toString());
+    }
+
+    json.append('}');
+    endEntry();
+  }
+
+
+  @Override
+  public void groupStart(@NotNull GroupStartEntry<M> group)
+  {
+    startEntry();
+
+    final var groupMessage = group.getGroupMessage();
+
+    json.append(GROUP_START);
+    appendName(group.getName());
+    appendLevel(groupMessage.getLevel());
+    appendMessage(groupMessage);
+    json.append(KEY_MESSAGE_COUNT).append(group.getMessageCount());
+
+    final var droppedMessageCount = group.getDroppedMessageCount();
+    if (droppedMessageCount > 0)
+      json.append(KEY_DROPPED_MESSAGE_COUNT).append(droppedMessageCount);
+
+    json.append(KEY_ENTRIES);
+
+    separatorRequired = false;
+  }
+
+
+  @Override
+  public void groupEnd(@NotNull GroupEndEntry<M> groupEnd)
+  {
+    json.append(GROUP_END);
+    endEntry();
+  }
+
+
+  @Override
+  public @NotNull String getResult() {
+    return json.toString();
+  }
+
+
+  @Override
+  public @NotNull String takeChunk()
+  {
+    final var chunk = json.toString();
+    json.setLength(0);
+
+    return chunk;
+  }
+
+
+  private void startEntry()
+  {
+    if (separatorRequired)
+      json.append(',');
+  }
+
+
+  private void endEntry()
+  {
+    separatorRequired = true;
+
+    if (writer != null && json.length() >= FLUSH_THRESHOLD)
+      flushJson();
+  }
+
+
+  private void flushJson()
+  {
+    final var length = json.length();
+
+    if (chars == null || chars.length < length)
+      chars = new char[Math.max(length, FLUSH_THRESHOLD * 2)];
+
+    json.getChars(0, length, chars, 0);
+    json.setLength(0);
+
+    try {
+      writer.write(chars, 0, length);
+    } catch(IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+
+  private void appendName(String name)
+  {
+    if (name != null)
+      appendQuoted(json.append(KEY_NAME), name);
+  }
+
+
+  private void appendLevel(@NotNull Level level)
+  {
+    if (level instanceof Level.Shared)
+      json.append(KEY_LEVEL).append(LEVEL_NAMES[((Level.Shared)level).ordinal()]);
+
+    json.append(KEY_SEVERITY).append(level.severity());
+  }
+
+
+  private void appendTags(@NotNull Set<String> tagNames)
+  {
+    json.append(KEY_TAGS);
+
+    var first = true;
+    for(var tagName: tagNames)
+    {
+      if (!first)
+        json.append(',');
+
+      appendQuoted(json, tagName);
+      first = false;
+    }
+
+    json.append(']');
+  }
+
+
+  private void appendMessage(@NotNull GenericMessageWithLevel<M> message)
+  {
+    appendString(json.append(KEY_ID), message.getMessageId());
+    appendString(json.append(KEY_TEXT), messageFormatter.formatMessage(message));
+    json.append(KEY_TIMESTAMP).append(message.getTimeMillis()).append(KEY_PARAMS);
+
+    var first = true;
+    for(var parameter: message.getParameterValues().entrySet())
+    {
+      if (!first)
+        json.append(',');
+
+      appendQuoted(json, parameter.getKey()).append(':');
+      appendValue(parameter.getValue());
+      first = false;
+    }
+
+    json.append('}');
+  }
+
+
+  private void appendValue(Object value)
+  {
+    if (value == null)
+      json.append("null");
+    else if (value instanceof Boolean)
+      json.append(((Boolean)value).booleanValue());
+    else if (value instanceof Integer || value instanceof Long || value instanceof Short ||
+             value instanceof Byte || value instanceof BigInteger || value instanceof BigDecimal)
+      json.append(value);
+    else if ((value instanceof Double || value instanceof Float) &&
+             Double.isFinite(((Number)value).doubleValue()))
+      json.append(value);
+    else
+      appendString(json, String.valueOf(value));
+  }
+
+
+  /**
+   * Appends the quoted and escaped string {@code s}. This method is used for repeatedly
+   * occurring strings, like tag names, parameter names and group names, and caches the quoted
+   * strings.
+   */
+  private @NotNull StringBuilder appendQuoted(@NotNull StringBuilder json, @NotNull String s)
+  {
+    var quoted = quotedStrings.get(s);
+    if (quoted == null)
+    {
+      quoted = appendString(new StringBuilder(s.length() + 2), s).toString();
+
+      if (quotedStrings.size() < MAX_CACHED_STRINGS)
+        quotedStrings.put(s, quoted);
+    }
+
+    return json.append(quoted);
+  }
+
+
+  private static @NotNull StringBuilder appendString(@NotNull StringBuilder json,
+                                                     @NotNull String s)
+  {
+    json.append('"');
+
+    final var length = s.length();
+    int start = 0;
+
+    for(int n = 0; n < length; n++)
+    {
+      final var c = s.charAt(n);
+      final String escape;
+
+      if (c < 0x20)
+        escape = CONTROL_ESCAPES[c];
+      else if (c == '"')
+        escape = "\\\"";
+      else if (c == '\\')
+        escape = "\\\\";
+      else if (c == '\u2028')
+        escape = "\\u2028";
+      else if (c == '\u2029')
+        escape = "\\u2029";
+      else
+        continue;
+
+      json.append(s, start, n).append(escape);
+      start = n + 1;
+    }
+
+    return json.append(s, start, length).append('"');
+  }
+}
@@ -37,16 +37,80 @@ abstract class AbstractGenericMessage<M> implements GenericMessage<M>
   final long timeMillis;
 
   protected final @NotNull MessageWithId<M> messageWithId;
-  protected final @NotNull ParameterMap parameterMap;
+  protected @NotNull ParameterMap parameterMap;
 
 
   protected AbstractGenericMessage(@NotNull MessageWithId<M> messageWithId,
-                                   @NotNull ParameterMap parentParameterMap)
+                                   @NotNull ParameterMap parentParameterMap) {
+    this(messageWithId, parentParameterMap, currentTimeMillis());
+  }
+
+
+  protected AbstractGenericMessage(@NotNull MessageWithId<M> messageWithId,
+                                   @NotNull ParameterMap parentParameterMap, long timeMillis)
   {
     this.messageWithId = messageWithId;
+    this.timeMillis = timeMillis;
+
+    parameterMap = new ParameterMap(parentParameterMap);
+  }
+
+
+  /**
+   * Creates a copy of {@code message} for a protocol snapshot. The parameters set on the message
+   * are copied, inherited parameters are looked up in {@code parentParameterMap}.
+   *
+   * @param message             message to copy, not {@code null}
+   * @param parentParameterMap  parameters of the snapshot protocol, not {@code null}
+   *
+   * @since 1.6.0
+   */
+  protected AbstractGenericMessage(@NotNull AbstractGenericMessage<M> message,
+                                   @NotNull ParameterMap parentParameterMap)
+  {
+    messageWithId = message.messageWithId;
+    timeMillis = message.timeMillis;
 
-    timeMillis = currentTimeMillis();
     parameterMap = new ParameterMap(parentParameterMap);
+
+    synchronized(message) {
+      parameterMap.putAll(message.parameterMap.getLocalValues());
+    }
+  }
+
+
+  /**
+   * Creates a copy of {@code message} for a protocol snapshot, with the message parameters set to
+   * {@code parameterValues}. Inherited parameters are looked up in {@code parentParameterMap}.
+   *
+   * @param message             message to copy, not {@code null}
+   * @param parentParameterMap  parameters of the snapshot protocol, not {@code null}
+   * @param parameterValues     parameters set on the message, not {@code null}
+   *
+   * @since 1.6.0
+   */
+  protected AbstractGenericMessage(@NotNull AbstractGenericMessage<M> message,
+                                   @NotNull ParameterMap parentParameterMap,
+                                   @NotNull Map<String,Object> parameterValues)
+  {
+    messageWithId = message.messageWithId;
+    timeMillis = message.timeMillis;
+
+    parameterMap = new ParameterMap(parentParameterMap);
+    parameterMap.putAll(parameterValues);
+  }
+
+
+  /**
+   * Returns the parameter map to put message parameters into. The caller must hold the lock of
+   * this message.
+   *
+   * @return  parameter map to be modified, never {@code null}
+   *
+   * @since 1.6.0
+   */
+  @NotNull ParameterMap getParameterMapForUpdate() {
+    return parameterMap;
   }
 
 
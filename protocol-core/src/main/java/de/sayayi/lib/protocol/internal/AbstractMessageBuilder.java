@@ -43,10 +43,11 @@ abstract class AbstractMessageBuilder
     extends AbstractBuilder<M,B>
     implements ProtocolMessageBuilder<M>
 {
-  private final @NotNull Level level;
-  private final @NotNull Set<String> tags;
+  private final Level level;
+  private final Set<String> tags;
 
   private Throwable throwable;
+  private P discardingParameterBuilder;
 
 
   protected AbstractMessageBuilder(@NotNull AbstractProtocol<M,B> protocol, @NotNull Level level)
@@ -60,17 +61,47 @@ abstract class AbstractMessageBuilder
   }
 
 
+  /**
+   * Creates a builder which discards messages with a level below the admission level. The
+   * builder is shared by all discarded messages of the protocol, so it does not keep any state
+   * and does not process the message.
+   *
+   * @param protocol  protocol, not {@code null}
+   *
+   * @since 1.6.0
+   */
+  protected AbstractMessageBuilder(@NotNull AbstractProtocol<M,B> protocol)
+  {
+    super(protocol);
+
+    level = null;
+    tags = null;
+  }
+
+
   @Contract("_ -> new")
   protected abstract @NotNull P createMessageParameterBuilder(@NotNull ProtocolMessageEntry<M> message);
 
 
+  /**
+   * Creates a parameter builder which ignores all parameters.
+   *
+   * @return  parameter builder for a discarded message, never {@code null}
+   *
+   * @since 1.6.0
+   */
+  @Contract("-> new")
+  protected abstract @NotNull P createDiscardingParameterBuilder();
+
+
   @Override
   public @NotNull B forTag(@NotNull String tagName)
   {
     if (requireNonNull(tagName, "tagName must not be null").isEmpty())
       throw new IllegalArgumentException("tagName must not be empty");
 
-    tags.add(tagName);
+    if (tags != null)
+      tags.add(tagName);
 
     return (B)this;
   }
@@ -89,7 +120,10 @@ abstract class AbstractMessageBuilder
   @Override
   public @NotNull B withThrowable(@NotNull Throwable throwable)
   {
-    this.throwable = requireNonNull(throwable, "throwable must not be null");
+    requireNonNull(throwable, "throwable must not be null");
+
+    if (level != null)
+      this.throwable = throwable;
 
     return (B)this;
   }
@@ -98,23 +132,31 @@ abstract class AbstractMessageBuilder
   @Override
   public @NotNull P message(@NotNull String message)
   {
+    requireNonNull(message, "message must not be null");
+
+    if (level == null)
+      return discard();
+
     return message0(protocol
         .getFactory()
         .getMessageProcessor()
-        .processMessage(requireNonNull(message, "message must not be null")));
+        .processMessage(message));
   }
 
 
   @Override
   public @NotNull P withMessage(@NotNull M message)
   {
+    requireNonNull(message, "message must not be null");
+
+    if (level == null)
+      return discard();
+
     var msg = new ProtocolMessageEntry<>(protocol, level, protocol.getPropagatedTags(tags), throwable,
         new GenericMessageWithId<>(
-            protocol.getFactory().getMessageProcessor().getIdFromMessage(message),
-            requireNonNull(message, "message must not be null")),
-        protocol.parameterMap);
+            protocol.getFactory().getMessageProcessor().getIdFromMessage(message), message));
 
-    protocol.entries.add(msg);
+    protocol.addMessage(msg);
 
     return createMessageParameterBuilder(msg);
   }
@@ -123,10 +165,23 @@ abstract class AbstractMessageBuilder
   private @NotNull P message0(@NotNull MessageWithId<M> messageWithId)
   {
     var msg = new ProtocolMessageEntry<>(protocol, level, protocol.getPropagatedTags(tags),
-        throwable, messageWithId, protocol.parameterMap);
+        throwable, messageWithId);
 
-    protocol.entries.add(msg);
+    protocol.addMessage(msg);
 
     return createMessageParameterBuilder(msg);
   }
+
+
+  private @NotNull P discard()
+  {
+    // a discarded message must not hide an attempt to modify a sealed group or a snapshot
+    protocol.checkModifiable();
+
+    var parameterBuilder = discardingParameterBuilder;
+    if (parameterBuilder == null)
+      discardingParameterBuilder = parameterBuilder = createDiscardingParameterBuilder();
+
+    return parameterBuilder;
+  }
 }
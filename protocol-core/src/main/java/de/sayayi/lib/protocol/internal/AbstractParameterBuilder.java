@@ -20,16 +20,22 @@ import de.sayayi.lib.protocol.Protocol;
 import de.sayayi.lib.protocol.Protocol.MessageParameterBuilder;
 import de.sayayi.lib.protocol.Protocol.ProtocolMessageBuilder;
 import de.sayayi.lib.protocol.ProtocolFactory;
+import de.sayayi.lib.protocol.ProtocolCursor;
+import de.sayayi.lib.protocol.ProtocolEntry;
 import de.sayayi.lib.protocol.ProtocolFormatter;
 import de.sayayi.lib.protocol.ProtocolGroup;
 import de.sayayi.lib.protocol.ProtocolIterator;
+import de.sayayi.lib.protocol.ProtocolListener;
+import de.sayayi.lib.protocol.ProtocolVisitor;
 import de.sayayi.lib.protocol.TagSelector;
+import de.sayayi.lib.protocol.exception.ProtocolException;
 import de.sayayi.lib.protocol.matcher.MessageMatcher;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.UnmodifiableView;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Spliterator;
@@ -50,7 +56,7 @@ abstract class AbstractParameterBuilder
     extends AbstractBuilder<M,B>
     implements MessageParameterBuilder<M>
 {
-  private final @NotNull AbstractGenericMessage<M> message;
+  private final AbstractGenericMessage<M> message;
 
 
   protected AbstractParameterBuilder(@NotNull AbstractProtocol<M,B> protocol,
@@ -62,16 +68,50 @@ abstract class AbstractParameterBuilder
   }
 
 
+  /**
+   * Creates a parameter builder for messages which have been discarded because their level is
+   * below the admission level. Parameters are ignored.
+   *
+   * @param protocol  protocol, not {@code null}
+   *
+   * @since 1.6.0
+   */
+  protected AbstractParameterBuilder(@NotNull AbstractProtocol<M,B> protocol)
+  {
+    super(protocol);
+
+    message = null;
+  }
+
+
   @Override
   public @NotNull P with(@NotNull Map<String,Object> parameterValues)
   {
     requireNonNull(parameterValues, "parameterValues must not be null");
 
-    for(var entry: parameterValues.entrySet())
+    if (message != null)
     {
-      var key = entry.getKey();
-      if (key != null && !key.isEmpty())
-        with(key, entry.getValue());
+      if (!protocol.isTrackingChanges())
+      {
+        // snapshots and exports copy the message parameters while holding the message lock
+        synchronized(message) {
+          if (!protocol.isTrackingChanges())
+          {
+            protocol.checkMessageModifiable(message);
+            message.getParameterMapForUpdate().putAll(parameterValues);
+
+            return (P)this;
+          }
+        }
+      }
+
+      synchronized(protocol.getRoot()) {
+        protocol.messageChanged(message);
+
+        synchronized(message) {
+          message.getParameterMapForUpdate().putAll(parameterValues);
+        }
+      }
     }
 
     return (P)this;
@@ -84,7 +124,30 @@ abstract class AbstractParameterBuilder
     if (requireNonNull(parameter, "parameter must not be null").isEmpty())
       throw new IllegalArgumentException("parameter must not be empty");
 
-    message.parameterMap.put(parameter, value);
+    if (message != null)
+    {
+      if (!protocol.isTrackingChanges())
+      {
+        // snapshots and exports copy the message parameters while holding the message lock
+        synchronized(message) {
+          if (!protocol.isTrackingChanges())
+          {
+            protocol.checkMessageModifiable(message);
+            message.getParameterMapForUpdate().put(parameter, value);
+
+            return (P)this;
+          }
+        }
+      }
+
+      synchronized(protocol.getRoot()) {
+        protocol.messageChanged(message);
+
+        synchronized(message) {
+          message.getParameterMapForUpdate().put(parameter, value);
+        }
+      }
+    }
 
     return (P)this;
   }
@@ -92,26 +155,38 @@ abstract class AbstractParameterBuilder
 
   @Override
   public @NotNull String getMessageId() {
-    return message.getMessageId();
+    return getGenericMessage().getMessageId();
   }
 
 
   @Override
   public @NotNull M getMessage() {
-    return message.getMessage();
+    return getGenericMessage().getMessage();
   }
 
 
   @Override
   public long getTimeMillis() {
-    return message.timeMillis;
+    return getGenericMessage().timeMillis;
   }
 
 
   @Override
   @UnmodifiableView
   public @NotNull Map<String,Object> getParameterValues() {
-    return message.getParameterValues();
+    return getGenericMessage().getParameterValues();
+  }
+
+
+  private @NotNull AbstractGenericMessage<M> getGenericMessage()
+  {
+    if (message == null)
+    {
+      throw new ProtocolException(
+          "message has been discarded as its level is below the admission level");
+    }
+
+    return message;
   }
 
 
@@ -151,6 +226,46 @@ abstract class AbstractParameterBuilder
   }
 
 
+  @Override
+  public @NotNull ProtocolGroup<M> graft(@NotNull Protocol<M> protocol) {
+    return this.protocol.graft(protocol);
+  }
+
+
+  @Override
+  public @NotNull Protocol<M> snapshot() {
+    return protocol.snapshot();
+  }
+
+
+  @Override
+  public @NotNull Protocol<M> setMessageBudget(int maxMessages, long heapBudget)
+  {
+    protocol.setMessageBudget(maxMessages, heapBudget);
+    return this;
+  }
+
+
+  @Override
+  public int getDroppedMessageCount() {
+    return protocol.getDroppedMessageCount();
+  }
+
+
+  @Override
+  public @NotNull Protocol<M> setAdmissionLevel(Level level)
+  {
+    protocol.setAdmissionLevel(level);
+    return this;
+  }
+
+
+  @Override
+  public @NotNull Level getAdmissionLevel() {
+    return protocol.getAdmissionLevel();
+  }
+
+
   @Override
   public @NotNull Iterator<ProtocolGroup<M>> groupIterator() {
     return protocol.groupIterator();
@@ -181,6 +296,46 @@ abstract class AbstractParameterBuilder
   }
 
 
+  @Override
+  public int count(@NotNull MessageMatcher matcher) {
+    return protocol.count(matcher);
+  }
+
+
+  @Override
+  public @NotNull List<ProtocolEntry.Message<M>> find(@NotNull MessageMatcher matcher) {
+    return protocol.find(matcher);
+  }
+
+
+  @Override
+  public @NotNull Protocol<M> addListener(@NotNull ProtocolListener<M> listener)
+  {
+    protocol.addListener(listener);
+    return this;
+  }
+
+
+  @Override
+  public @NotNull Protocol<M> removeListener(@NotNull ProtocolListener<M> listener)
+  {
+    protocol.removeListener(listener);
+    return this;
+  }
+
+
+  @Override
+  public void accept(@NotNull ProtocolVisitor<M> visitor) {
+    protocol.accept(visitor);
+  }
+
+
+  @Override
+  public @NotNull ProtocolCursor<M> cursor(@NotNull MessageMatcher matcher) {
+    return protocol.cursor(matcher);
+  }
+
+
   @Override
   public @NotNull ProtocolIterator<M> iterator(@NotNull MessageMatcher matcher) {
     return protocol.iterator(matcher);
@@ -18,6 +18,7 @@ package de.sayayi.lib.protocol.internal;
 import de.sayayi.lib.protocol.Level;
 import de.sayayi.lib.protocol.Protocol;
 import de.sayayi.lib.protocol.Protocol.ProtocolMessageBuilder;
+import de.sayayi.lib.protocol.ProtocolCursor;
 import de.sayayi.lib.protocol.ProtocolEntry;
 import de.sayayi.lib.protocol.ProtocolFactory;
 import de.sayayi.lib.protocol.ProtocolFormatter;
@@ -28,17 +29,31 @@ import de.sayayi.lib.protocol.ProtocolIterator.GroupStartEntry;
 import de.sayayi.lib.protocol.ProtocolIterator.MessageEntry;
 import de.sayayi.lib.protocol.ProtocolIterator.ProtocolEnd;
 import de.sayayi.lib.protocol.ProtocolIterator.ProtocolStart;
+import de.sayayi.lib.protocol.ProtocolListener;
+import de.sayayi.lib.protocol.ProtocolVisitor;
 import de.sayayi.lib.protocol.TagSelector;
+import de.sayayi.lib.protocol.exception.ProtocolException;
+import de.sayayi.lib.protocol.internal.ProtocolMessageEntry.SnapshotEpoch;
 import de.sayayi.lib.protocol.matcher.MessageMatcher;
+import de.sayayi.lib.protocol.matcher.internal.PostingListEvaluator;
+import de.sayayi.lib.protocol.matcher.internal.ProtocolSpecializer;
+import de.sayayi.lib.protocol.matcher.internal.SubtreeSummary;
 import de.sayayi.lib.protocol.util.ParameterMap;
 
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
+import static de.sayayi.lib.protocol.Level.Shared.HIGHEST;
+import static de.sayayi.lib.protocol.matcher.internal.BooleanMatcher.NONE;
+import static java.util.Collections.emptyMap;
+import static java.util.Objects.requireNonNull;
 import static java.util.Spliterator.DISTINCT;
 import static java.util.Spliterator.NONNULL;
 import static java.util.Spliterator.ORDERED;
@@ -59,19 +74,110 @@ abstract class AbstractProtocol<M,B extends ProtocolMessageBuilder<M>>
 
   final @NotNull ProtocolFactory<M> factory;
   final @NotNull ParameterMap parameterMap;
-  final @NotNull List<InternalProtocolEntry<M>> entries;
+  final @NotNull ProtocolEntryList<M> entries;
   final @NotNull Map<TagSelector,Set<String>> tagPropagationMap;
-
-
-  protected AbstractProtocol(@NotNull ProtocolFactory<M> factory, ParameterMap parentParameterMap)
+  final @NotNull SubtreeSummary summary;
+
+  private int groupCount;
+  private ProtocolIndex<M> index;
+  private long sequence;
+  private long parameterSequence;
+  private long lateChangeSequence;
+  long estimatedSize;
+  ProtocolSpill<M> spill;
+  ProtocolEviction<M> eviction;
+  int attachedExporters;
+  volatile boolean changesTracked;
+  private boolean budgeted;
+  private int droppedMessageCount;
+  private volatile Level admissionLevel;
+  private String unmodifiableReason;
+  private volatile @NotNull List<ProtocolListener<M>> listeners = Collections.emptyList();
+  private volatile int listenerGeneration;
+  private volatile ListenerCache<M> listenerCache;
+  private long snapshotCount;
+  private volatile WeakReference<SnapshotEpoch> snapshotEpoch;
+
+
+  protected AbstractProtocol(@NotNull ProtocolFactory<M> factory, ParameterMap parentParameterMap,
+                             SubtreeSummary parentSummary)
   {
     id = PROTOCOL_ID.incrementAndGet();
 
     this.factory = factory;
 
     parameterMap = new ParameterMap(parentParameterMap);
-    entries = new ArrayList<>(8);
+    entries = new ProtocolEntryList<>(this);
     tagPropagationMap = new HashMap<>(8);
+    summary = new SubtreeSummary(parentSummary);
+  }
+
+
+  /**
+   * Creates a protocol taking over the entries, parameters, tag propagations and summary of root
+   * protocol {@code grafted}. The shared structures are attached to the new protocol by
+   * {@link #graft(Protocol)}.
+   *
+   * @param grafted  root protocol to be grafted, not {@code null}
+   *
+   * @since 1.6.0
+   */
+  protected AbstractProtocol(@NotNull AbstractProtocol<M,?> grafted)
+  {
+    id = PROTOCOL_ID.incrementAndGet();
+
+    factory = grafted.factory;
+    parameterMap = grafted.parameterMap;
+    entries = grafted.entries;
+    tagPropagationMap = new HashMap<>(grafted.tagPropagationMap);
+    summary = grafted.summary;
+
+    groupCount = grafted.groupCount;
+    index = grafted.index;
+    sequence = grafted.sequence;
+    parameterSequence = grafted.parameterSequence;
+    lateChangeSequence = grafted.lateChangeSequence;
+    admissionLevel = grafted.admissionLevel;
+  }
+
+
+  /**
+   * Creates a read-only snapshot of {@code protocol}, including snapshots of all of its groups.
+   * The snapshot shares the entries and messages with {@code protocol}. The caller must hold the
+   * lock of the root protocol.
+   *
+   * @param protocol            protocol to take a snapshot of, not {@code null}
+   * @param parentParameterMap  parameter map of the parent snapshot, or {@code null}
+   * @param parentSummary       summary of the parent snapshot, or {@code null}
+   *
+   * @since 1.6.0
+   */
+  protected AbstractProtocol(@NotNull AbstractProtocol<M,?> protocol,
+                             ParameterMap parentParameterMap, SubtreeSummary parentSummary)
+  {
+    id = PROTOCOL_ID.incrementAndGet();
+
+    factory = protocol.factory;
+    parameterMap = new ParameterMap(parentParameterMap);
+    parameterMap.putAll(protocol.parameterMap.getLocalValues());
+    tagPropagationMap = emptyMap();
+    summary = protocol.summary.copy(parentSummary);
+
+    groupCount = protocol.groupCount;
+    sequence = protocol.sequence;
+    parameterSequence = protocol.parameterSequence;
+    lateChangeSequence = protocol.lateChangeSequence;
+    droppedMessageCount = protocol.droppedMessageCount;
+    admissionLevel = protocol.admissionLevel;
+    unmodifiableReason = "protocol snapshot cannot be modified";
+
+    // the entry lists may contain evicted messages, so delta export must be rejected as well
+    budgeted = protocol.eviction != null || protocol.budgeted;
+
+    @SuppressWarnings("unchecked")
+    final var snapshot = (AbstractProtocol<M,ProtocolMessageBuilder<M>>)this;
+
+    entries = protocol.entries.snapshot(this, group -> new ProtocolGroupImpl<>(snapshot, group));
   }
 
 
@@ -106,6 +212,391 @@ abstract class AbstractProtocol<M,B extends ProtocolMessageBuilder<M>>
   public abstract @NotNull B add(@NotNull Level level);
 
 
+  /**
+   * Returns the parent protocol.
+   *
+   * @return  parent protocol or {@code null} if this is the root protocol
+   *
+   * @since 1.6.0
+   */
+  @Contract(pure = true)
+  AbstractProtocol<M,?> getParentProtocol() {
+    return null;
+  }
+
+
+  /**
+   * Appends {@code message} to this protocol and updates the subtree summaries of this protocol
+   * and all parent protocols.
+   *
+   * @param message  message entry, not {@code null}
+   *
+   * @since 1.6.0
+   */
+  void addMessage(@NotNull ProtocolMessageEntry<M> message)
+  {
+    checkModifiable();
+
+    final var root = getRoot();
+
+    // cursors and snapshots read the change count under the tree lock along with the entries
+    synchronized(root) {
+      message.sequence = nextSequence();
+      entries.add(message);
+      summary.add(message);
+
+      if (root.eviction != null)
+        root.eviction.messageAdded(message);
+      else if (root.spill != null)
+        root.spill.messageAdded(this, message);
+    }
+
+    for(var listener: getListeners())
+      listener.messageAdded(message);
+  }
+
+
+  /**
+   * Marks {@code message}, which is either contained in this protocol or is the group message of
+   * this protocol group, as changed. This method must be invoked before the message is changed.
+   *
+   * @param message  message to be changed, not {@code null}
+   *
+   * @throws ProtocolException  if {@code message} is contained in a sealed protocol group
+   *
+   * @since 1.6.0
+   */
+  void messageChanged(@NotNull AbstractGenericMessage<M> message)
+  {
+    if (message instanceof ProtocolMessageEntry)
+    {
+      checkModifiable();
+
+      final var messageEntry = (ProtocolMessageEntry<M>)message;
+
+      final var root = getRoot();
+
+      synchronized(root) {
+        // an evicted message is no longer part of the protocol
+        if (messageEntry.position < 0)
+          return;
+
+        final var changeSequence = nextSequence();
+        messageEntry.sequence = changeSequence;
+
+        // changes to a message other than the last entry break the ascending sequence order
+        if (entries.isEmpty() || entries.get(entries.size() - 1) != message)
+          lateChangeSequence = changeSequence;
+
+        if (root.spill != null)
+          root.spill.messageChanged(this);
+      }
+    }
+    else
+    {
+      checkWritable();
+      nextSequence();
+    }
+  }
+
+
+  /**
+   * Checks whether messages and groups can be added to this protocol and whether the messages
+   * contained in this protocol can be changed.
+   *
+   * @throws ProtocolException  if this protocol is a sealed protocol group, has been grafted or
+   *                            is a snapshot
+   *
+   * @since 1.6.0
+   */
+  void checkModifiable() {
+    checkWritable();
+  }
+
+
+  /**
+   * Checks whether this protocol can be changed at all.
+   *
+   * @throws ProtocolException  if this protocol has been grafted or is a snapshot
+   *
+   * @since 1.6.0
+   */
+  void checkWritable()
+  {
+    if (unmodifiableReason != null)
+      throw new ProtocolException(unmodifiableReason);
+  }
+
+
+  /**
+   * Sets a parameter value for this protocol.
+   *
+   * @param parameter  parameter name, not {@code null}
+   * @param value      parameter value
+   *
+   * @since 1.6.0
+   */
+  void setParameter(@NotNull String parameter, Object value)
+  {
+    checkWritable();
+
+    synchronized(getRoot()) {
+      parameterMap.put(parameter, value);
+      parameterSequence = nextSequence();
+    }
+  }
+
+
+  /**
+   * Sets multiple parameter values for this protocol.
+   *
+   * @param parameterValues  parameter values, not {@code null}
+   *
+   * @since 1.6.0
+   */
+  void setParameters(@NotNull Map<String,Object> parameterValues)
+  {
+    checkWritable();
+
+    synchronized(getRoot()) {
+      parameterMap.putAll(parameterValues);
+      parameterSequence = nextSequence();
+    }
+  }
+
+
+  /**
+   * Returns the current append sequence of the protocol tree this protocol belongs to.
+   *
+   * @return  current append sequence
+   *
+   * @since 1.6.0
+   */
+  long getSequence()
+  {
+    final var root = getRoot();
+
+    synchronized(root) {
+      // from now on, checkpoints may exist which must be compared against message changes
+      root.changesTracked = true;
+
+      return root.sequence;
+    }
+  }
+
+
+  /**
+   * Tells whether changes to the messages of the protocol tree this protocol belongs to must be
+   * tracked. Changes are tracked as soon as the append sequence has been read or the protocol
+   * tree has a message budget or spilling enabled. Until then, message parameters are changed
+   * while holding the lock of the message only.
+   *
+   * @return  {@code true} if message changes must be passed to {@link #messageChanged}
+   *
+   * @since 1.6.0
+   */
+  @Contract(pure = true)
+  boolean isTrackingChanges() {
+    return getRoot().changesTracked;
+  }
+
+
+  /**
+   * Returns the snapshot epoch started by the most recent snapshot of this root protocol.
+   *
+   * @return  most recent snapshot epoch or {@code null} if no snapshot taken of this protocol is
+   *          in use anymore
+   *
+   * @since 1.6.0
+   */
+  @Contract(pure = true)
+  SnapshotEpoch getSnapshotEpoch()
+  {
+    final var snapshotEpoch = this.snapshotEpoch;
+    return snapshotEpoch == null ? null : snapshotEpoch.get();
+  }
+
+
+  /**
+   * Starts a new snapshot epoch for a snapshot of this root protocol. Message parameters changed
+   * from now on are forked, so the snapshot keeps the current ones. The caller must hold the root
+   * lock and must keep a reference to the epoch until the snapshot has been created.
+   *
+   * @return  new snapshot epoch, never {@code null}
+   *
+   * @since 1.6.0
+   */
+  @NotNull SnapshotEpoch startSnapshotEpoch()
+  {
+    final var epoch = new SnapshotEpoch(++snapshotCount, getSnapshotEpoch());
+    snapshotEpoch = new WeakReference<>(epoch);
+
+    return epoch;
+  }
+
+
+  /**
+   * Checks whether {@code message}, which is either contained in this protocol or is the group
+   * message of this protocol group, can be changed.
+   *
+   * @param message  message to be changed, not {@code null}
+   *
+   * @throws ProtocolException  if {@code message} cannot be changed
+   *
+   * @since 1.6.0
+   */
+  void checkMessageModifiable(@NotNull AbstractGenericMessage<M> message)
+  {
+    if (message instanceof ProtocolMessageEntry)
+      checkModifiable();
+    else
+      checkWritable();
+  }
+
+
+  /**
+   * Increments the append sequence of the protocol tree and marks this protocol and all of its
+   * parents as changed with the new sequence.
+   *
+   * @return  new append sequence
+   *
+   * @since 1.6.0
+   */
+  long nextSequence()
+  {
+    final var root = getRoot();
+
+    synchronized(root) {
+      final var nextSequence = root.sequence + 1;
+
+      for(AbstractProtocol<M,?> protocol = this; protocol != null;
+          protocol = protocol.getParentProtocol())
+        protocol.sequence = nextSequence;
+
+      return nextSequence;
+    }
+  }
+
+
+  @Contract(pure = true)
+  @NotNull AbstractProtocol<M,?> getRoot()
+  {
+    AbstractProtocol<M,?> root = this;
+
+    for(AbstractProtocol<M,?> parent; (parent = root.getParentProtocol()) != null;)
+      root = parent;
+
+    return root;
+  }
+
+
+  /**
+   * Returns the listeners to be notified about changes to this protocol: the listeners registered
+   * with this protocol, its parents and the protocol factory.
+   *
+   * The merged list is cached until a listener is added to or removed from any protocol of the
+   * protocol tree or the factory listeners change.
+   *
+   * @return  list of listeners, never {@code null}
+   */
+  private @NotNull List<ProtocolListener<M>> getListeners()
+  {
+    final var root = getRoot();
+    final var factoryListeners = factory.getListeners();
+    final var cache = listenerCache;
+
+    if (cache != null && cache.root == root && cache.generation == root.listenerGeneration &&
+        cache.factoryListeners == factoryListeners)
+      return cache.listeners;
+
+    // the generation is read first, so a concurrent listener change invalidates the new cache
+    final var generation = root.listenerGeneration;
+    List<ProtocolListener<M>> allListeners = null;
+
+    for(AbstractProtocol<M,?> protocol = this; protocol != null;
+        protocol = protocol.getParentProtocol())
+    {
+      if (!protocol.listeners.isEmpty())
+      {
+        if (allListeners == null)
+          allListeners = new ArrayList<>();
+
+        allListeners.addAll(protocol.listeners);
+      }
+    }
+
+    if (allListeners == null)
+      allListeners = factoryListeners;
+    else
+    {
+      allListeners.addAll(factoryListeners);
+      allListeners = Collections.unmodifiableList(allListeners);
+    }
+
+    listenerCache = new ListenerCache<>(root, generation, factoryListeners, allListeners);
+
+    return allListeners;
+  }
+
+
+  @Override
+  public @NotNull Protocol<M> addListener(@NotNull ProtocolListener<M> listener)
+  {
+    requireNonNull(listener, "listener must not be null");
+
+    final var root = getRoot();
+
+    synchronized(root) {
+      final var newListeners = new ArrayList<>(listeners);
+      newListeners.add(listener);
+
+      listeners = Collections.unmodifiableList(newListeners);
+      root.listenerGeneration++;
+    }
+
+    return this;
+  }
+
+
+  @Override
+  public @NotNull Protocol<M> removeListener(@NotNull ProtocolListener<M> listener)
+  {
+    requireNonNull(listener, "listener must not be null");
+
+    final var root = getRoot();
+
+    synchronized(root) {
+      final var newListeners = new ArrayList<>(listeners);
+
+      if (newListeners.remove(listener))
+      {
+        listeners = newListeners.isEmpty()
+            ? Collections.emptyList() : Collections.unmodifiableList(newListeners);
+        root.listenerGeneration++;
+      }
+    }
+
+    return this;
+  }
+
+
+  /**
+   * Returns the matcher to be used for the messages directly contained in this protocol. Terms
+   * which only depend on the protocol, like {@code in-group} or {@code in-root}, are evaluated
+   * once for this protocol instead of once for each message.
+   *
+   * @param matcher  matcher, not {@code null}
+   *
+   * @return  residual matcher for messages in this protocol, never {@code null}
+   *
+   * @since 1.6.0
+   */
+  @Contract(pure = true)
+  @NotNull MessageMatcher getMessageMatcher(@NotNull MessageMatcher matcher) {
+    return ProtocolSpecializer.specialize(matcher, this);
+  }
+
+
   @Override
   public boolean matches(@NotNull String matcher) {
     return matches(factory.parseMessageMatcher(matcher));
@@ -115,8 +606,17 @@ abstract class AbstractProtocol<M,B extends ProtocolMessageBuilder<M>>
   @Override
   public boolean matches0(@NotNull Level levelLimit, @NotNull MessageMatcher matcher, boolean messageOnly)
   {
+    if ((messageOnly || !summary.isNestedHeaderVisible()) && !summary.mayMatch(levelLimit, matcher))
+      return false;
+
+    final var messageMatcher = getMessageMatcher(matcher);
+    if (messageMatcher == NONE && groupCount == 0)
+      return false;
+
     for(var entry: entries)
-      if (entry.matches0(levelLimit, matcher, messageOnly))
+      if (entry instanceof InternalProtocolEntry.Group
+          ? entry.matches0(levelLimit, matcher, messageOnly)
+          : messageMatcher != NONE && entry.matches0(levelLimit, messageMatcher, messageOnly))
         return true;
 
     return false;
@@ -125,14 +625,28 @@ abstract class AbstractProtocol<M,B extends ProtocolMessageBuilder<M>>
 
   @NotNull List<ProtocolEntry<M>> getEntries(@NotNull Level levelLimit, @NotNull MessageMatcher matcher)
   {
+    if (!summary.isNestedHeaderVisible() && !summary.mayMatch(levelLimit, matcher))
+      return new ArrayList<>();
+
+    final var messageMatcher = getMessageMatcher(matcher);
+    if (messageMatcher == NONE && groupCount == 0)
+      return new ArrayList<>();
+
     var filteredEntries = new ArrayList<ProtocolEntry<M>>();
 
     for(var entry: entries)
-      if (entry.matches0(levelLimit, matcher, false))
+      if (entry instanceof InternalProtocolEntry.Group)
       {
-        filteredEntries.add(entry instanceof InternalProtocolEntry.Group
-            ? ProtocolGroupEntryAdapter.from(levelLimit, (InternalProtocolEntry.Group<M>)entry)
-            : ProtocolMessageEntryAdapter.from(levelLimit, (InternalProtocolEntry.Message<M>)entry));
+        if (entry.matches0(levelLimit, matcher, false))
+        {
+          filteredEntries.add(
+              ProtocolGroupEntryAdapter.from(levelLimit, (InternalProtocolEntry.Group<M>)entry));
+        }
+      }
+      else if (messageMatcher != NONE && entry.matches0(levelLimit, messageMatcher, false))
+      {
+        filteredEntries.add(
+            ProtocolMessageEntryAdapter.from(levelLimit, (InternalProtocolEntry.Message<M>)entry));
       }
 
     return filteredEntries;
@@ -142,15 +656,258 @@ abstract class AbstractProtocol<M,B extends ProtocolMessageBuilder<M>>
   @Override
   public int getVisibleEntryCount0(@NotNull Level levelLimit, @NotNull MessageMatcher matcher)
   {
+    if (!summary.isNestedHeaderVisible() && !summary.mayMatch(levelLimit, matcher))
+      return 0;
+
+    final var messageMatcher = getMessageMatcher(matcher);
+    if (messageMatcher == NONE && groupCount == 0)
+      return 0;
+
     int count = 0;
 
     for(var entry: entries)
-      count += entry.getVisibleEntryCount0(levelLimit, matcher);
+      if (entry instanceof InternalProtocolEntry.Group)
+        count += entry.getVisibleEntryCount0(levelLimit, matcher);
+      else if (messageMatcher != NONE)
+        count += entry.getVisibleEntryCount0(levelLimit, messageMatcher);
+
+    return count;
+  }
+
+
+  @Override
+  public int count(@NotNull MessageMatcher matcher) {
+    return count0(HIGHEST, matcher);
+  }
+
+
+  /**
+   * Counts the messages in this protocol and all descendant groups which are matched by
+   * {@code matcher}. Tag, message id and level terms are answered by the protocol index, so
+   * only the remaining candidates need to be verified.
+   *
+   * @param levelLimit  level limit, not {@code null}
+   * @param matcher     matcher, not {@code null}
+   *
+   * @return  number of matching messages
+   *
+   * @since 1.6.0
+   */
+  @Contract(pure = true)
+  int count0(@NotNull Level levelLimit, @NotNull MessageMatcher matcher)
+  {
+    if (!summary.mayMatch(levelLimit, matcher))
+      return 0;
+
+    final var messageMatcher = getMessageMatcher(matcher);
+    int count = 0;
+
+    if (entries.isSpilled())
+    {
+      for(var iterator = messageMatcher == NONE ? entries.groupIterator() : entries.iterator();
+          iterator.hasNext();)
+      {
+        final var entry = iterator.next();
+
+        if (entry instanceof InternalProtocolEntry.Group)
+          count += ((AbstractProtocol<M,?>)entry).count0(levelLimit, matcher);
+        else if (messageMatcher != NONE && entry.matches0(levelLimit, messageMatcher, true))
+          count++;
+      }
+
+      return count;
+    }
+
+    final var candidates = new ArrayList<InternalProtocolEntry<M>>();
+
+    // the index is resolved under the tree lock, the candidates are verified without it
+    synchronized(getRoot()) {
+      final var index = getIndex();
+
+      if (messageMatcher != NONE)
+      {
+        final var evaluated = PostingListEvaluator.evaluate(levelLimit, messageMatcher, index);
+        final var positions = evaluated.getPositions();
+
+        if (evaluated.isExact())
+          count = positions.cardinality();
+        else
+          collectEntries(positions, candidates);
+      }
+
+      collectEntries(index.groups(), candidates);
+    }
+
+    for(var entry: candidates)
+    {
+      if (entry instanceof InternalProtocolEntry.Group)
+        count += ((AbstractProtocol<M,?>)entry).count0(levelLimit, matcher);
+      else if (entry.matches0(levelLimit, messageMatcher, true))
+        count++;
+    }
 
     return count;
   }
 
 
+  @Override
+  public @NotNull List<ProtocolEntry.Message<M>> find(@NotNull MessageMatcher matcher)
+  {
+    final var messages = new ArrayList<ProtocolEntry.Message<M>>();
+    find0(HIGHEST, matcher, messages);
+
+    return messages;
+  }
+
+
+  /**
+   * Collects the messages in this protocol and all descendant groups which are matched by
+   * {@code matcher}, in protocol order.
+   *
+   * @param levelLimit  level limit, not {@code null}
+   * @param matcher     matcher, not {@code null}
+   * @param messages    list receiving the matching messages, not {@code null}
+   *
+   * @since 1.6.0
+   */
+  void find0(@NotNull Level levelLimit, @NotNull MessageMatcher matcher,
+             @NotNull List<ProtocolEntry.Message<M>> messages)
+  {
+    if (!summary.mayMatch(levelLimit, matcher))
+      return;
+
+    final var messageMatcher = getMessageMatcher(matcher);
+
+    if (entries.isSpilled())
+    {
+      for(var iterator = messageMatcher == NONE ? entries.groupIterator() : entries.iterator();
+          iterator.hasNext();)
+      {
+        final var entry = iterator.next();
+
+        if (entry instanceof InternalProtocolEntry.Group)
+          ((AbstractProtocol<M,?>)entry).find0(levelLimit, matcher, messages);
+        else if (messageMatcher != NONE && entry.matches0(levelLimit, messageMatcher, true))
+        {
+          messages.add(ProtocolMessageEntryAdapter.from(levelLimit,
+              (InternalProtocolEntry.Message<M>)entry));
+        }
+      }
+
+      return;
+    }
+
+    final var candidates = new ArrayList<InternalProtocolEntry<M>>();
+    final boolean exact;
+
+    // the index is resolved under the tree lock, the candidates are verified without it
+    synchronized(getRoot()) {
+      final var index = getIndex();
+      final BitSet positions;
+
+      if (messageMatcher == NONE)
+      {
+        positions = new BitSet();
+        exact = true;
+      }
+      else
+      {
+        final var evaluated = PostingListEvaluator.evaluate(levelLimit, messageMatcher, index);
+
+        positions = evaluated.getPositions();
+        exact = evaluated.isExact();
+      }
+
+      positions.or(index.groups());
+      collectEntries(positions, candidates);
+    }
+
+    for(var entry: candidates)
+    {
+      if (entry instanceof InternalProtocolEntry.Group)
+        ((AbstractProtocol<M,?>)entry).find0(levelLimit, matcher, messages);
+      else if (exact || entry.matches0(levelLimit, messageMatcher, true))
+      {
+        messages.add(
+            ProtocolMessageEntryAdapter.from(levelLimit, (InternalProtocolEntry.Message<M>)entry));
+      }
+    }
+  }
+
+
+  /**
+   * Writes the message entries of this protocol to {@code store} and releases them, together
+   * with the index. Spilled entries are queried sequentially, so the index does not have to be
+   * rebuilt from reloaded entries.
+   *
+   * @param spill  spill instance, not {@code null}
+   *
+   * @throws IOException  if writing the message entries fails
+   *
+   * @since 1.6.0
+   */
+  void spillEntries(@NotNull ProtocolSpill<M> spill) throws IOException
+  {
+    entries.spill(spill);
+    index = null;
+  }
+
+
+  /**
+   * Evicts {@code message} from this protocol, decreasing the message count of this protocol and
+   * all parent protocols. The message is removed from the index, unless evicting it compacts the
+   * entry list: as this changes the positions of the entries, the index is discarded instead.
+   * The caller must hold the lock of the root protocol.
+   *
+   * @param message  message entry contained in this protocol, not {@code null}
+   *
+   * @since 1.6.0
+   */
+  void evictMessage(@NotNull ProtocolMessageEntry<M> message)
+  {
+    final var position = message.position;
+    final var compaction = entries.getCompaction();
+
+    entries.evict(message);
+
+    if (index != null)
+    {
+      if (entries.getCompaction() != compaction)
+        index = null;
+      else
+        index.remove(position, message);
+    }
+
+    droppedMessageCount++;
+    summary.removeMessage();
+  }
+
+
+  /**
+   * Returns the index of this protocol, indexing the entries added since the last query. The
+   * caller must hold the lock of the root protocol.
+   *
+   * @return  up-to-date protocol index, never {@code null}
+   */
+  private @NotNull ProtocolIndex<M> getIndex()
+  {
+    if (index == null)
+      index = new ProtocolIndex<>(entries);
+
+    index.update();
+
+    return index;
+  }
+
+
+  private void collectEntries(@NotNull BitSet positions,
+                              @NotNull List<InternalProtocolEntry<M>> collected)
+  {
+    for(int n = positions.nextSetBit(0); n >= 0; n = positions.nextSetBit(n + 1))
+      collected.add(entries.get(n));
+  }
+
+
   @Override
   public @NotNull Optional<ProtocolGroup<M>> getGroupByName(@NotNull String name)
   {
@@ -174,15 +931,263 @@ abstract class AbstractProtocol<M,B extends ProtocolMessageBuilder<M>>
   @Override
   public @NotNull ProtocolGroup<M> createGroup()
   {
+    checkModifiable();
+
     @SuppressWarnings("unchecked")
     var group = new ProtocolGroupImpl<>((AbstractProtocol<M,ProtocolMessageBuilder<M>>)this);
 
-    entries.add(group);
+    synchronized(getRoot()) {
+      group.entrySequence = group.nextSequence();
+
+      entries.add(group);
+      groupCount++;
+      summary.addGroup();
+    }
+
+    for(var listener: getListeners())
+      listener.groupCreated(group);
+
+    return group;
+  }
+
+
+  @Override
+  public @NotNull ProtocolGroup<M> graft(@NotNull Protocol<M> protocol)
+  {
+    checkModifiable();
+
+    if (!(requireNonNull(protocol, "protocol must not be null") instanceof ProtocolImpl))
+      throw new ProtocolException("only a root protocol can be grafted");
+
+    final AbstractProtocol<M,?> grafted = (ProtocolImpl<M>)protocol;
+    final var root = getRoot();
+
+    if (grafted.factory != factory)
+      throw new ProtocolException("protocol must be created by the same factory");
+    if (grafted == root)
+      throw new ProtocolException("protocol cannot be grafted onto itself");
+    if (grafted.spill != null)
+      throw new ProtocolException("protocol with spilling enabled cannot be grafted");
+    if (grafted.eviction != null)
+      throw new ProtocolException("protocol with a message budget cannot be grafted");
+
+    grafted.checkWritable();
+    checkGraftedGroupNames(grafted, root);
+
+    @SuppressWarnings("unchecked")
+    final var group = new ProtocolGroupImpl<>((AbstractProtocol<M,ProtocolMessageBuilder<M>>)this,
+        (ProtocolImpl<M>)protocol);
+
+    grafted.unmodifiableReason = "protocol has been grafted";
+    ((AbstractProtocol<M,?>)group).attachGrafted(this);
+
+    synchronized(root) {
+      // all grafted entries must precede the new group in the append sequence
+      root.sequence = Math.max(root.sequence, grafted.sequence);
+      group.entrySequence = group.nextSequence();
+
+      entries.add(group);
+      groupCount++;
+      group.summary.attach(summary);
+
+      if (root.eviction != null)
+      {
+        root.eviction.register(group);
+        root.eviction.evict();
+      }
+      else if (root.spill != null)
+        root.spill.groupGrafted(group);
+    }
+
+    for(var listener: getListeners())
+      listener.groupCreated(group);
 
     return group;
   }
 
 
+  /**
+   * Attaches the entries and parameters taken over from a grafted protocol to this protocol
+   * group and its {@code parent}. The summary is attached once the group has been added. Message
+   * entries refer to their protocol through the entry list, so only the groups directly contained
+   * in this group need to be re-parented.
+   *
+   * @param parent  parent protocol of this group, not {@code null}
+   */
+  private void attachGrafted(@NotNull AbstractProtocol<M,?> parent)
+  {
+    entries.protocol = this;
+    // the grafted protocol is unmodifiable, its messages inherit the parameters of the new parent
+    ParameterMapAccess.get().setParent(parameterMap, parent.parameterMap);
+
+    @SuppressWarnings("unchecked")
+    final var protocol = (AbstractProtocol<M,ProtocolMessageBuilder<M>>)this;
+
+    for(var iterator = entries.groupIterator(); iterator.hasNext();)
+    {
+      final var entry = iterator.next();
+
+      if (entry instanceof ProtocolGroupImpl)
+        ((ProtocolGroupImpl<M>)entry).parent = protocol;
+    }
+  }
+
+
+  private static <M> void checkGraftedGroupNames(@NotNull AbstractProtocol<M,?> grafted,
+                                                 @NotNull AbstractProtocol<M,?> root)
+  {
+    final var graftedNames = new HashSet<String>();
+    collectGroupNames(grafted, graftedNames);
+
+    if (!graftedNames.isEmpty())
+    {
+      final var names = new HashSet<String>();
+      collectGroupNames(root, names);
+
+      for(var name: graftedNames)
+        if (names.contains(name))
+          throw new ProtocolException("group name '" + name + "' must be unique");
+    }
+  }
+
+
+  private static void collectGroupNames(@NotNull Protocol<?> protocol, @NotNull Set<String> names)
+  {
+    for(var iterator = protocol.groupIterator(); iterator.hasNext();)
+    {
+      final var group = iterator.next();
+      final var name = group.getName();
+
+      if (name != null)
+        names.add(name);
+
+      collectGroupNames(group, names);
+    }
+  }
+
+
+  @Override
+  public @NotNull Protocol<M> snapshot()
+  {
+    @SuppressWarnings("unchecked")
+    final var root = (ProtocolImpl<M>)getRoot();
+
+    synchronized(root) {
+      final var epoch = root.startSnapshotEpoch();
+
+      try {
+        return new ProtocolImpl<>(root);
+      } finally {
+        // the entry lists of the snapshot pick up the epoch from the root protocol
+        Reference.reachabilityFence(epoch);
+      }
+    }
+  }
+
+
+  @Override
+  public @NotNull Protocol<M> setMessageBudget(int maxMessages, long heapBudget)
+  {
+    if (maxMessages < 0)
+      throw new IllegalArgumentException("maxMessages must not be negative");
+    if (heapBudget < 0)
+      throw new IllegalArgumentException("heapBudget must not be negative");
+
+    checkWritable();
+
+    final var root = getRoot();
+
+    synchronized(root) {
+      if (root.spill != null)
+        throw new ProtocolException("protocol with spilling enabled cannot have a message budget");
+      if (root.attachedExporters > 0)
+        throw new ProtocolException("exported protocol cannot have a message budget");
+
+      if (root.eviction != null)
+        root.eviction.setBudget(maxMessages, heapBudget);
+      else
+      {
+        root.eviction = new ProtocolEviction<>(maxMessages, heapBudget);
+        root.eviction.register(root);
+        root.changesTracked = true;
+      }
+
+      root.eviction.evict();
+    }
+
+    return this;
+  }
+
+
+  @Override
+  public int getDroppedMessageCount() {
+    return droppedMessageCount;
+  }
+
+
+  /**
+   * Tells whether the protocol tree this protocol belongs to has a message budget.
+   *
+   * @return  {@code true} if messages may be evicted, {@code false} otherwise
+   *
+   * @since 1.6.0
+   */
+  @Contract(pure = true)
+  boolean hasMessageBudget()
+  {
+    final var root = getRoot();
+    return root.eviction != null || root.budgeted;
+  }
+
+
+  @Override
+  public @NotNull Protocol<M> setAdmissionLevel(Level level)
+  {
+    checkWritable();
+
+    admissionLevel = level;
+
+    return this;
+  }
+
+
+  @Override
+  public @NotNull Level getAdmissionLevel()
+  {
+    for(AbstractProtocol<M,?> protocol = this; protocol != null;
+        protocol = protocol.getParentProtocol())
+    {
+      final var level = protocol.admissionLevel;
+      if (level != null)
+        return level;
+    }
+
+    return factory.getAdmissionLevel();
+  }
+
+
+  /**
+   * Tells whether messages with {@code level} are admitted to this protocol. Messages which are
+   * not admitted are discarded by the builder returned by {@link #add(Level)}.
+   *
+   * @param level  message level, not {@code null}
+   *
+   * @return  {@code true} if the message must be added, {@code false} if it is discarded
+   *
+   * @since 1.6.0
+   */
+  @Contract(pure = true)
+  boolean isAdmitted(@NotNull Level level) {
+    return level.severity() >= getAdmissionLevel().severity();
+  }
+
+
+  @Override
+  public @NotNull ProtocolCursor<M> cursor(@NotNull MessageMatcher matcher) {
+    return new ProtocolCursorImpl<>(this, matcher);
+  }
+
+
   @Override
   public @NotNull Spliterator<DepthEntry<M>> spliterator(@NotNull MessageMatcher matcher) {
     return new ProtocolSpliterator<>(iterator(matcher));
@@ -201,6 +1206,98 @@ abstract class AbstractProtocol<M,B extends ProtocolMessageBuilder<M>>
   }
 
 
+  @Override
+  public void accept(@NotNull ProtocolVisitor<M> visitor)
+  {
+    requireNonNull(visitor, "visitor must not be null");
+
+    for(var entry: entries)
+      if (entry instanceof ProtocolGroupImpl)
+      {
+        final var group = (ProtocolGroupImpl<M>)entry;
+
+        visitor.groupStart(group.getName(), group.getVisibility(), group.getLevelLimit(),
+            group.getGroupMessage());
+        group.accept(visitor);
+        visitor.groupEnd();
+      }
+      else
+        visitor.message((InternalProtocolEntry.Message<M>)entry);
+  }
+
+
+  /**
+   * Passes all changes made to this protocol after append sequence {@code checkpoint} to
+   * {@code visitor}.
+   *
+   * @param checkpoint  append sequence
+   * @param visitor     change visitor, not {@code null}
+   *
+   * @since 1.6.0
+   */
+  void acceptChanges(long checkpoint, @NotNull ProtocolDelta.Visitor<M> visitor)
+  {
+    if (sequence <= checkpoint)
+      return;
+
+    if (parameterSequence > checkpoint)
+      visitor.parameters(parameterMap.getLocalValues());
+
+    final var size = entries.size();
+
+    // entries are ordered by sequence, unless an older message has been changed afterwards
+    int start = size;
+    while(start > 0 && getEntrySequence(entries.get(start - 1)) > checkpoint)
+      start--;
+
+    if (lateChangeSequence > checkpoint || entries.isSpilled())
+      start = 0;
+    else if (groupCount > 0)
+    {
+      final var groups = getIndex().groups();
+      for(int n = groups.nextSetBit(0); n >= 0 && n < start; n = groups.nextSetBit(n + 1))
+        acceptGroupChanges(n, checkpoint, visitor);
+    }
+
+    for(int n = start; n < size; n++)
+    {
+      final var entry = entries.get(n);
+
+      if (entry instanceof ProtocolGroupImpl)
+        acceptGroupChanges(n, checkpoint, visitor);
+      else if (((ProtocolMessageEntry<M>)entry).sequence > checkpoint)
+        visitor.message(n, new ProtocolDelta.LocalMessage<>((ProtocolMessageEntry<M>)entry));
+    }
+  }
+
+
+  private void acceptGroupChanges(int n, long checkpoint,
+                                  @NotNull ProtocolDelta.Visitor<M> visitor)
+  {
+    final var group = (ProtocolGroupImpl<M>)entries.get(n);
+
+    if (((AbstractProtocol<M,?>)group).sequence > checkpoint)
+    {
+      final var groupMessage = (AbstractGenericMessage<M>)group.getGroupMessage();
+
+      visitor.groupStart(n, group.getName(), group.getVisibility(), group.getLevelLimit(),
+          groupMessage == null ? null : new ProtocolDelta.LocalGenericMessage<>(groupMessage));
+      // a group added after the checkpoint is passed completely, including grafted entries
+      group.acceptChanges(group.entrySequence > checkpoint ? 0 : checkpoint, visitor);
+      visitor.groupEnd();
+    }
+  }
+
+
+  @Contract(pure = true)
+  private static long getEntrySequence(@NotNull InternalProtocolEntry<?> entry)
+  {
+    return entry instanceof ProtocolGroupImpl
+        ? ((ProtocolGroupImpl<?>)entry).entrySequence
+        : ((ProtocolMessageEntry<?>)entry).sequence;
+  }
+
+
   @Override
   public <R> R format(@NotNull ProtocolFormatter<M,R> formatter, @NotNull MessageMatcher matcher)
   {
@@ -229,9 +1326,13 @@ abstract class AbstractProtocol<M,B extends ProtocolMessageBuilder<M>>
   {
     int depth = 0;
 
-    for(var entry: entries)
+    for(var iterator = entries.groupIterator(); iterator.hasNext();)
+    {
+      final var entry = iterator.next();
+
       if (entry instanceof ProtocolGroupImpl)
         depth = Math.max(depth, 1 + ((ProtocolGroupImpl<M>)entry).countGroupDepth());
+    }
 
     return depth;
   }
@@ -251,6 +1352,28 @@ abstract class AbstractProtocol<M,B extends ProtocolMessageBuilder<M>>
 
 
 
+  private static final class ListenerCache<M>
+  {
+    private final @NotNull AbstractProtocol<M,?> root;
+    private final int generation;
+    private final @NotNull List<ProtocolListener<M>> factoryListeners;
+    private final @NotNull List<ProtocolListener<M>> listeners;
+
+
+    private ListenerCache(@NotNull AbstractProtocol<M,?> root, int generation,
+                          @NotNull List<ProtocolListener<M>> factoryListeners,
+                          @NotNull List<ProtocolListener<M>> listeners)
+    {
+      this.root = root;
+      this.generation = generation;
+      this.factoryListeners = factoryListeners;
+      this.listeners = listeners;
+    }
+  }
+
+
+
+
   /**
    * @since 0.7.0
    */
@@ -262,7 +1385,7 @@ abstract class AbstractProtocol<M,B extends ProtocolMessageBuilder<M>>
 
     private GroupIterator()
     {
-      iterator = entries.iterator();
+      iterator = entries.groupIterator();
       findNext();
     }
 
@@ -68,5 +68,9 @@ interface InternalProtocolEntry<M> extends ProtocolEntry<M>, InternalProtocolQue
 
     @Contract(pure = true)
     int getVisibleGroupEntryMessageCount0(@NotNull Level levelLimit, @NotNull MessageMatcher matcher);
+
+
+    @Contract(pure = true)
+    int getDroppedMessageCount();
   }
 }
\ No newline at end of file
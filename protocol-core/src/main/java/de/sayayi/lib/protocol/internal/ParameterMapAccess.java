@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.internal;
+
+import de.sayayi.lib.protocol.util.ParameterMap;
+
+import org.jetbrains.annotations.NotNull;
+
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Access to the {@link ParameterMap} operations required by the protocol implementation, which
+ * are not part of the public parameter map api.
+ * <p>
+ * The implementation is registered by {@code ParameterMap} when the class is initialized. As this
+ * package is not exported, the operations are not available to library users.
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public abstract class ParameterMapAccess
+{
+  private static volatile ParameterMapAccess access;
+
+
+  /**
+   * Registers the parameter map access implementation. This method is invoked once, by
+   * {@code ParameterMap}.
+   *
+   * @param access  parameter map access implementation, not {@code null}
+   *
+   * @throws IllegalStateException  if an implementation has been registered already
+   */
+  public static synchronized void register(@NotNull ParameterMapAccess access)
+  {
+    if (ParameterMapAccess.access != null)
+      throw new IllegalStateException("parameter map access is already registered");
+
+    ParameterMapAccess.access = requireNonNull(access);
+  }
+
+
+  static @NotNull ParameterMapAccess get()
+  {
+    var access = ParameterMapAccess.access;
+
+    if (access == null)
+    {
+      try {
+        // registered by the static initializer of ParameterMap
+        Class.forName(ParameterMap.class.getName(), true, ParameterMap.class.getClassLoader());
+      } catch(ClassNotFoundException ex) {
+        throw new IllegalStateException(ex);
+      }
+
+      access = requireNonNull(ParameterMapAccess.access, "parameter map access not registered");
+    }
+
+    return access;
+  }
+
+
+  /**
+   * Sets the parent of {@code parameterMap} to {@code parent}. The parameters inherited by
+   * {@code parameterMap} change, so iterators created before are invalidated.
+   *
+   * @param parameterMap  parameter map, not {@code null}
+   * @param parent        new parent parameter map, not {@code null}
+   */
+  protected abstract void setParent(@NotNull ParameterMap parameterMap,
+                                    @NotNull ParameterMap parent);
+}
@@ -0,0 +1,544 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.internal;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.ProtocolCursor;
+import de.sayayi.lib.protocol.ProtocolIterator.BoundedDepthEntry;
+import de.sayayi.lib.protocol.ProtocolIterator.DepthEntry;
+import de.sayayi.lib.protocol.ProtocolIterator.ProtocolEnd;
+import de.sayayi.lib.protocol.ProtocolIterator.ProtocolStart;
+import de.sayayi.lib.protocol.internal.ProtocolStructureIterator.GroupEndEntryImpl;
+import de.sayayi.lib.protocol.internal.ProtocolStructureIterator.GroupMessageEntryImpl;
+import de.sayayi.lib.protocol.internal.ProtocolStructureIterator.GroupStartEntryImpl;
+import de.sayayi.lib.protocol.internal.ProtocolStructureIterator.MessageEntryImpl;
+import de.sayayi.lib.protocol.matcher.MessageMatcher;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static de.sayayi.lib.protocol.Level.Shared.HIGHEST;
+import static de.sayayi.lib.protocol.Level.min;
+import static de.sayayi.lib.protocol.internal.ProtocolStructureIterator.PROTOCOL_END;
+import static de.sayayi.lib.protocol.internal.ProtocolStructureIterator.PROTOCOL_START;
+import static de.sayayi.lib.protocol.matcher.internal.BooleanMatcher.NONE;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Tailing cursor implementation.
+ * <p>
+ * The cursor mirrors the protocol structure with a tree of states, one for each protocol and
+ * group visited so far. Each state keeps the position of the next unseen entry in the entry list
+ * of its protocol. States with a visible header (and the root state) act as containers: they
+ * hold back the most recent bounded entry until its last flag is known. A group start entry is
+ * returned right away; like the iterator, it is the last entry if no visible entry follows the
+ * group in its container at that time.
+ * <p>
+ * A group flattened on a single entry is flattened as long as it contains a single visible entry.
+ * If that entry is a message, it remains held back by the container, so the group can still be
+ * started if a second entry is added before the message is returned.
+ * <p>
+ * Evicted messages are skipped. When an entry list is compacted, the positions of its entries
+ * change; each state keeps the compaction its position refers to and relocates the position
+ * before polling the entry list.
+ * <p>
+ * At most one group is open per container. When an entry is added to a container, its open
+ * group is ended first, so the returned entries are always properly nested.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+final class ProtocolCursorImpl<M> implements ProtocolCursor<M>
+{
+  private final @NotNull AbstractProtocol<M,?> protocol;
+  private final @NotNull MessageMatcher matcher;
+  private final @NotNull State root;
+
+  private boolean started;
+  private boolean finished;
+
+
+  ProtocolCursorImpl(@NotNull AbstractProtocol<M,?> protocol, @NotNull MessageMatcher matcher)
+  {
+    this.protocol = protocol;
+    this.matcher = requireNonNull(matcher, "matcher must not be null");
+
+    root = new State(protocol, null, 0);
+    root.mode = Mode.ROOT;
+  }
+
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public @NotNull List<DepthEntry<M>> poll()
+  {
+    final var entries = new ArrayList<DepthEntry<M>>();
+
+    if (!finished)
+    {
+      if (!started)
+      {
+        entries.add((ProtocolStart<M>)PROTOCOL_START);
+        started = true;
+      }
+
+      synchronized(protocol.getRoot()) {
+        root.poll(HIGHEST, entries);
+      }
+    }
+
+    return entries;
+  }
+
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public @NotNull List<DepthEntry<M>> finish()
+  {
+    if (finished)
+      return new ArrayList<>();
+
+    final var entries = poll();
+
+    synchronized(protocol.getRoot()) {
+      root.closeOpenGroup(entries);
+      root.flush(true, entries);
+    }
+
+    entries.add((ProtocolEnd<M>)PROTOCOL_END);
+    finished = true;
+
+    return entries;
+  }
+
+
+  @Override
+  public boolean isFinished() {
+    return finished;
+  }
+
+
+  @Override
+  public String toString() {
+    return "ProtocolCursor(matcher=" + matcher + ",finished=" + finished + ')';
+  }
+
+
+
+
+  private enum Mode
+  {
+    /** Root protocol: container without header. */
+    ROOT,
+
+    /** Group with header: container, header is shown with the first visible entry. */
+    HEADER,
+
+    /** Flattened group: entries are added to the parent container. */
+    FLAT,
+
+    /** Group flattened on a single entry: flattened until a second entry is found. */
+    SINGLE,
+
+    /** Hidden group or group showing its header only: entries are not shown. */
+    HIDDEN
+  }
+
+
+
+
+  @FunctionalInterface
+  private interface PendingEntry<M>
+  {
+    @Contract(value = "_, _, _ -> new", pure = true)
+    @NotNull BoundedDepthEntry<M> create(int depth, boolean first, boolean last);
+  }
+
+
+
+
+  private final class State
+  {
+    private final @NotNull AbstractProtocol<M,?> protocol;
+    private final State parent;
+    private final @NotNull List<State> groups = new ArrayList<>();
+
+    private Mode mode;
+    private Level parentLevelLimit = HIGHEST;
+    private Level levelLimit = HIGHEST;
+    private int entryPosition;
+    private int position;
+    private ProtocolEntryList.Compaction compaction;
+    private int changeCount = -1;
+    private int entryCount;
+    private PendingEntry<M> single;
+
+    // container
+    private int depth;
+    private boolean headerShown;
+    private PendingEntry<M> headerOnly;
+    private State openGroup;
+    private boolean hasEntries;
+    private PendingEntry<M> pending;
+    private boolean pendingFirst;
+
+
+    private State(@NotNull AbstractProtocol<M,?> protocol, State parent, int entryPosition)
+    {
+      this.protocol = protocol;
+      this.parent = parent;
+      this.entryPosition = entryPosition;
+    }
+
+
+    private void visit(@NotNull Level levelLimit, @NotNull List<DepthEntry<M>> entries)
+    {
+      final var group = getGroup();
+
+      parentLevelLimit = levelLimit;
+
+      switch(group.getEffectiveVisibility())
+      {
+        case SHOW_HEADER_ONLY:
+          final var headerLevel = group.getHeaderLevel0(levelLimit, matcher);
+
+          parent.getContainer(entries).add((d, f, l) -> new GroupMessageEntryImpl<>(d, f, l,
+              group.getName(), headerLevel, requireNonNull(group.getGroupMessage())), entries);
+
+          mode = Mode.HIDDEN;
+          break;
+
+        case SHOW_HEADER_ALWAYS:
+          // shown as group message, unless visible entries are added before it is returned
+          headerOnly = (d, f, l) -> new GroupMessageEntryImpl<>(d, f, l, group.getName(),
+              group.getHeaderLevel0(parentLevelLimit, matcher),
+              requireNonNull(group.getGroupMessage()));
+          parent.getContainer(entries).add(headerOnly, entries);
+
+          mode = Mode.HEADER;
+          break;
+
+        case SHOW_HEADER_IF_NOT_EMPTY:
+          mode = Mode.HEADER;
+          break;
+
+        case FLATTEN_ON_SINGLE_ENTRY:
+          mode = Mode.SINGLE;
+          break;
+
+        case FLATTEN:
+          mode = Mode.FLAT;
+          break;
+
+        default:
+          mode = Mode.HIDDEN;
+          break;
+      }
+    }
+
+
+    private void poll(@NotNull Level levelLimit, @NotNull List<DepthEntry<M>> entries)
+    {
+      if (mode == Mode.HIDDEN)
+        return;
+
+      if (protocol instanceof ProtocolGroupImpl)
+      {
+        parentLevelLimit = levelLimit;
+        this.levelLimit = levelLimit = min(getGroup().getLevelLimit(), levelLimit);
+      }
+
+      // skip subtrees which have not changed since the last poll
+      final var summaryChangeCount = protocol.summary.getChangeCount();
+      if (summaryChangeCount == changeCount)
+        return;
+
+      changeCount = summaryChangeCount;
+
+      final var protocolEntries = protocol.entries;
+      final var messageMatcher = protocol.getMessageMatcher(matcher);
+
+      if (compaction == null)
+        compaction = protocolEntries.getCompaction();
+      else
+      {
+        for(ProtocolEntryList.Compaction next; (next = compaction.getNext()) != null;
+            compaction = next)
+        {
+          position = compaction.relocate(position);
+
+          for(var group: groups)
+            group.entryPosition = compaction.relocate(group.entryPosition);
+        }
+      }
+
+      Level nestedLevelLimit = null;
+      if (!groups.isEmpty())
+        nestedLevelLimit = getNestedLevelLimit(levelLimit);
+
+      for(var group: groups)
+        pollGroup(group, levelLimit, nestedLevelLimit, entries);
+
+      for(final int size = protocolEntries.size(); position < size; position++)
+      {
+        if (protocolEntries.isEvicted(position))
+          continue;
+
+        final var entry = protocolEntries.get(position);
+
+        if (entry instanceof ProtocolGroupImpl)
+        {
+          final var group = new State((ProtocolGroupImpl<M>)entry, this, position);
+
+          if (nestedLevelLimit == null)
+            nestedLevelLimit = getNestedLevelLimit(levelLimit);
+
+          groups.add(group);
+          pollGroup(group, levelLimit, nestedLevelLimit, entries);
+        }
+        else if (messageMatcher != NONE && entry.matches0(levelLimit, messageMatcher, true))
+        {
+          final var message = ProtocolMessageEntryAdapter.from(levelLimit,
+              (InternalProtocolEntry.Message<M>)entry);
+          final PendingEntry<M> pendingMessage =
+              (d, f, l) -> new MessageEntryImpl<>(d, f, l, message);
+
+          entryFound(entries);
+          getContainer(entries).add(pendingMessage, entries);
+
+          // the single entry of a flattened group may still be moved into the group
+          if (mode == Mode.SINGLE)
+            single = pendingMessage;
+        }
+      }
+    }
+
+
+    /**
+     * Polls {@code group}, which is nested in this state. Like the iterator, a group is visited
+     * once it matches at the level limit of this state; it is not shown before.
+     */
+    private void pollGroup(@NotNull State group, @NotNull Level levelLimit,
+                           @NotNull Level nestedLevelLimit, @NotNull List<DepthEntry<M>> entries)
+    {
+      if (group.mode == null)
+      {
+        if (!group.protocol.matches0(levelLimit, matcher, false))
+          return;
+
+        entryFound(entries);
+        group.visit(nestedLevelLimit, entries);
+      }
+
+      group.poll(nestedLevelLimit, entries);
+    }
+
+
+    /**
+     * Records that a visible entry has been found in the protocol of this state. Like the
+     * iterator, a group flattened on a single entry shows its header as soon as it contains more
+     * than one visible entry. The entries following the first one are counted right away, so
+     * the group is not flattened if they are present already.
+     */
+    private void entryFound(@NotNull List<DepthEntry<M>> entries)
+    {
+      if (mode == Mode.SINGLE &&
+          (++entryCount == 1 ? countVisibleEntries(2) > 1 : entryCount == 2))
+      {
+        mode = Mode.HEADER;
+        getContainer(entries);
+      }
+    }
+
+
+    /**
+     * Counts the visible entries in the protocol of this state, up to {@code limit}.
+     */
+    private int countVisibleEntries(int limit)
+    {
+      final var protocolEntries = protocol.entries;
+      final var messageMatcher = protocol.getMessageMatcher(matcher);
+      int count = 0;
+
+      for(int n = 0, size = protocolEntries.size(); n < size && count < limit; n++)
+        if (!protocolEntries.isEvicted(n))
+        {
+          final var entry = protocolEntries.get(n);
+
+          if (entry instanceof ProtocolGroupImpl
+              ? entry.matches0(levelLimit, matcher, false)
+              : messageMatcher != NONE && entry.matches0(levelLimit, messageMatcher, false))
+            count++;
+        }
+
+      return count;
+    }
+
+
+    /**
+     * Tells whether a visible entry follows this group in its container. Like the iterator, the
+     * entries following a flattened parent group are taken into account as well.
+     */
+    private boolean hasVisibleEntryAfter(@NotNull State container)
+    {
+      for(var state = this;; state = state.parent)
+      {
+        final var parent = state.parent;
+        final var protocolEntries = parent.protocol.entries;
+        final var messageMatcher = parent.protocol.getMessageMatcher(matcher);
+        final var parentLevelLimit = parent.levelLimit;
+
+        for(int n = state.entryPosition + 1, size = protocolEntries.size(); n < size; n++)
+          if (!protocolEntries.isEvicted(n))
+          {
+            final var entry = protocolEntries.get(n);
+
+            if (entry instanceof ProtocolGroupImpl
+                ? entry.matches0(parentLevelLimit, matcher, false) &&
+                  entry.getVisibleEntryCount0(parentLevelLimit, matcher) > 0
+                : messageMatcher != NONE &&
+                  entry.matches0(parentLevelLimit, messageMatcher, false))
+              return true;
+          }
+
+        if (parent == container)
+          return false;
+      }
+    }
+
+
+    @Contract(pure = true)
+    @SuppressWarnings("unchecked")
+    private @NotNull ProtocolGroupImpl<M> getGroup() {
+      return (ProtocolGroupImpl<M>)protocol;
+    }
+
+
+    /**
+     * Returns the level limit for the groups nested in this state. Like the iterator, nested
+     * groups are limited by the header level of the group they are contained in.
+     */
+    private @NotNull Level getNestedLevelLimit(@NotNull Level levelLimit)
+    {
+      return protocol instanceof ProtocolGroupImpl
+          ? getGroup().getHeaderLevel0(parentLevelLimit, matcher)
+          : levelLimit;
+    }
+
+
+    /**
+     * Returns the container for entries of this state. If this state is a group with a header
+     * which has not been shown yet, the group start entry is added first. A group message or
+     * single entry still held back by the container is replaced by the group start entry; the
+     * single entry is moved into the group.
+     */
+    private @NotNull State getContainer(@NotNull List<DepthEntry<M>> entries)
+    {
+      if (mode == Mode.ROOT)
+        return this;
+
+      if (mode != Mode.HEADER)
+        return parent.getContainer(entries);
+
+      if (!headerShown)
+      {
+        final var container = parent.getContainer(entries);
+        final var group = getGroup();
+        final var headerLevel = group.getHeaderLevel0(parentLevelLimit, matcher);
+        final var moveSingle = single != null && container.pending == single;
+        final boolean first;
+
+        depth = container.depth + 1;
+
+        if (moveSingle || headerOnly != null && container.pending == headerOnly)
+        {
+          // the group message or single entry has not been returned yet, start the group instead
+          first = container.pendingFirst;
+          container.pending = null;
+        }
+        else
+        {
+          container.closeOpenGroup(entries);
+          container.flush(false, entries);
+          first = !container.hasEntries;
+        }
+
+        entries.add(new GroupStartEntryImpl<>(group.getName(),
+            requireNonNull(group.getGroupMessage()), headerLevel,
+            group.getVisibleGroupEntryMessageCount0(headerLevel, matcher),
+            group.getDroppedMessageCount(), depth, first, !hasVisibleEntryAfter(container)));
+
+        container.hasEntries = true;
+        container.openGroup = this;
+        headerShown = true;
+        headerOnly = null;
+        hasEntries = false;
+
+        if (moveSingle)
+          add(single, entries);
+
+        single = null;
+      }
+
+      return this;
+    }
+
+
+    private void add(@NotNull PendingEntry<M> entry, @NotNull List<DepthEntry<M>> entries)
+    {
+      closeOpenGroup(entries);
+      flush(false, entries);
+
+      pending = entry;
+      pendingFirst = !hasEntries;
+      hasEntries = true;
+    }
+
+
+    private void flush(boolean last, @NotNull List<DepthEntry<M>> entries)
+    {
+      if (pending != null)
+      {
+        entries.add(pending.create(depth, pendingFirst, last));
+        pending = null;
+      }
+    }
+
+
+    /**
+     * Ends the group currently open in this container. If the group receives new entries later
+     * on, it is reopened with a new group start entry.
+     */
+    private void closeOpenGroup(@NotNull List<DepthEntry<M>> entries)
+    {
+      if (openGroup != null)
+      {
+        openGroup.closeOpenGroup(entries);
+        openGroup.flush(true, entries);
+        entries.add(new GroupEndEntryImpl<>(openGroup.depth));
+
+        openGroup.headerShown = false;
+        openGroup = null;
+      }
+    }
+  }
+}
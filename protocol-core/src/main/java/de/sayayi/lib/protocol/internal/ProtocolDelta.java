@@ -0,0 +1,430 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.internal;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.Protocol;
+import de.sayayi.lib.protocol.Protocol.GenericMessage;
+import de.sayayi.lib.protocol.Protocol.Message;
+import de.sayayi.lib.protocol.ProtocolGroup.Visibility;
+import de.sayayi.lib.protocol.message.GenericMessageWithId;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.UnmodifiableView;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static de.sayayi.lib.protocol.internal.ProtocolRestorer.toAbstractProtocol;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Support for exporting the changes made to a protocol after a given append sequence and for
+ * applying these changes to a copy of the protocol.
+ * <p>
+ * Every protocol tree maintains an append sequence, which is incremented for each message
+ * added, group created, group header changed and parameter set anywhere in the tree. Messages
+ * and groups are addressed by their entry index within the parent protocol, so a copy which
+ * has received all changes up to a checkpoint can be patched with the changes after that
+ * checkpoint.
+ * <p>
+ * Evicting messages changes the entry indices, so changes cannot be exported from or applied to
+ * a protocol with a message budget.
+ * <p>
+ * Changes are exported while holding the lock of the protocol tree, so exporting may run
+ * concurrently with modifications of the protocol. An exporter which continuously exports the
+ * changes of a protocol can {@linkplain #attachExporter(Protocol) attach} itself, which prevents
+ * a message budget from being set for the protocol tree afterwards.
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class ProtocolDelta
+{
+  private ProtocolDelta() {
+  }
+
+
+  /**
+   * Returns the current append sequence of the protocol tree {@code protocol} belongs to.
+   *
+   * @param protocol  protocol, not {@code null}
+   *
+   * @return  current append sequence
+   */
+  @Contract(pure = true)
+  public static long getSequence(@NotNull Protocol<?> protocol) {
+    return toAbstractProtocol(requireNonNull(protocol, "protocol must not be null")).getSequence();
+  }
+
+
+  /**
+   * Passes all changes made to {@code protocol} after append sequence {@code checkpoint} to
+   * {@code visitor}.
+   *
+   * @param protocol    protocol, not {@code null}
+   * @param checkpoint  append sequence returned by a previous invocation or {@code 0}
+   * @param visitor     change visitor, not {@code null}
+   *
+   * @param <M>  internal message object type
+   *
+   * @return  append sequence to be used as checkpoint for the next invocation
+   *
+   * @throws IllegalArgumentException  if {@code checkpoint} is negative or larger than the
+   *                                   current append sequence
+   * @throws IllegalStateException     if {@code protocol} has a message budget
+   */
+  public static <M> long accept(@NotNull Protocol<M> protocol, long checkpoint,
+                                @NotNull Visitor<M> visitor)
+  {
+    final var abstractProtocol =
+        toAbstractProtocol(requireNonNull(protocol, "protocol must not be null"));
+
+    requireNonNull(visitor, "visitor must not be null");
+
+    synchronized(abstractProtocol.getRoot()) {
+      final var sequence = abstractProtocol.getSequence();
+
+      if (checkpoint < 0 || checkpoint > sequence)
+        throw new IllegalArgumentException("invalid checkpoint " + checkpoint);
+      if (abstractProtocol.hasMessageBudget())
+      {
+        throw new IllegalStateException(
+            "changes of a protocol with a message budget cannot be exported");
+      }
+
+      abstractProtocol.acceptChanges(checkpoint, visitor);
+
+      return sequence;
+    }
+  }
+
+
+  /**
+   * Attaches an exporter to the protocol tree {@code protocol} belongs to. As long as an exporter
+   * is attached, a message budget cannot be set for the protocol tree.
+   *
+   * @param protocol  protocol, not {@code null}
+   *
+   * @throws IllegalStateException  if {@code protocol} has a message budget
+   *
+   * @see #detachExporter(Protocol)
+   */
+  public static void attachExporter(@NotNull Protocol<?> protocol)
+  {
+    final var root =
+        toAbstractProtocol(requireNonNull(protocol, "protocol must not be null")).getRoot();
+
+    synchronized(root) {
+      if (root.hasMessageBudget())
+      {
+        throw new IllegalStateException(
+            "changes of a protocol with a message budget cannot be exported");
+      }
+
+      root.attachedExporters++;
+    }
+  }
+
+
+  /**
+   * Detaches an exporter previously attached to the protocol tree {@code protocol} belongs to.
+   *
+   * @param protocol  protocol, not {@code null}
+   *
+   * @see #attachExporter(Protocol)
+   */
+  public static void detachExporter(@NotNull Protocol<?> protocol)
+  {
+    final var root =
+        toAbstractProtocol(requireNonNull(protocol, "protocol must not be null")).getRoot();
+
+    synchronized(root) {
+      if (root.attachedExporters > 0)
+        root.attachedExporters--;
+    }
+  }
+
+
+
+
+  /**
+   * Visitor receiving the changes made to a protocol. Group changes are reported between
+   * {@link #groupStart(int, String, Visibility, Level, GenericMessage) groupStart} and
+   * {@link #groupEnd() groupEnd}; other changes refer to the protocol or group currently being
+   * visited. Entries of a protocol are reported in ascending index order.
+   * <p>
+   * Parameter values passed to the visitor only contain the parameters set on the protocol or
+   * message itself; inherited parameters are not included.
+   *
+   * @param <M>  internal message object type
+   */
+  public interface Visitor<M>
+  {
+    /**
+     * Reports changed parameters of the current protocol.
+     *
+     * @param parameterValues  all parameter values of the current protocol, not {@code null}
+     */
+    void parameters(@NotNull Map<String,Object> parameterValues);
+
+
+    /**
+     * Reports a new or changed message.
+     *
+     * @param index    entry index within the current protocol
+     * @param message  message, not {@code null}
+     */
+    void message(int index, @NotNull Message<M> message);
+
+
+    /**
+     * Reports a new group or a group with changes in its header or content.
+     *
+     * @param index         entry index within the current protocol
+     * @param name          group name or {@code null}
+     * @param visibility    group visibility, not {@code null}
+     * @param levelLimit    group level limit, not {@code null}
+     * @param groupMessage  group message or {@code null}
+     */
+    void groupStart(int index, String name, @NotNull Visibility visibility,
+                    @NotNull Level levelLimit, GenericMessage<M> groupMessage);
+
+
+    /**
+     * Ends the group reported by the last unmatched {@code groupStart}.
+     */
+    void groupEnd();
+  }
+
+
+
+
+  /**
+   * Visitor applying changes to a protocol.
+   *
+   * @param <M>  internal message object type
+   */
+  public static final class Applier<M> implements Visitor<M>
+  {
+    private final @NotNull Deque<AbstractProtocol<M,?>> protocols = new ArrayDeque<>();
+
+
+    /**
+     * Creates an applier patching {@code protocol}.
+     *
+     * @param protocol  target protocol, not {@code null}
+     *
+     * @throws IllegalStateException  if {@code protocol} has a message budget
+     */
+    public Applier(@NotNull Protocol<M> protocol)
+    {
+      final var abstractProtocol =
+          toAbstractProtocol(requireNonNull(protocol, "protocol must not be null"));
+
+      if (abstractProtocol.hasMessageBudget())
+      {
+        throw new IllegalStateException(
+            "changes cannot be applied to a protocol with a message budget");
+      }
+
+      protocols.push(abstractProtocol);
+    }
+
+
+    @Override
+    public void parameters(@NotNull Map<String,Object> parameterValues) {
+      requireNonNull(protocols.peek()).setParameters(parameterValues);
+    }
+
+
+    @Override
+    public void message(int index, @NotNull Message<M> message)
+    {
+      final var protocol = requireNonNull(protocols.peek());
+      final var size = protocol.entries.size();
+
+      if (index == size)
+      {
+        final var entry = new ProtocolMessageEntry<>(protocol, message.getLevel(),
+            new HashSet<>(message.getTagNames()), message.getThrowable(),
+            new GenericMessageWithId<>(message.getMessageId(), message.getMessage()),
+            message.getTimeMillis());
+
+        entry.parameterMap.putAll(message.getParameterValues());
+        protocol.addMessage(entry);
+      }
+      else if (index < size && protocol.entries.get(index) instanceof ProtocolMessageEntry)
+      {
+        final var entry = (ProtocolMessageEntry<M>)protocol.entries.get(index);
+
+        protocol.messageChanged(entry);
+        entry.parameterMap.putAll(message.getParameterValues());
+      }
+      else
+        throw new IllegalStateException("no message at index " + index);
+    }
+
+
+    @Override
+    public void groupStart(int index, String name, @NotNull Visibility visibility,
+                           @NotNull Level levelLimit, GenericMessage<M> groupMessage)
+    {
+      final var protocol = requireNonNull(protocols.peek());
+      final var size = protocol.entries.size();
+      final ProtocolGroupImpl<M> group;
+
+      if (index == size)
+        group = (ProtocolGroupImpl<M>)protocol.createGroup();
+      else if (index < size && protocol.entries.get(index) instanceof ProtocolGroupImpl)
+        group = (ProtocolGroupImpl<M>)protocol.entries.get(index);
+      else
+        throw new IllegalStateException("no group at index " + index);
+
+      group.setName(name);
+      group.setVisibility(visibility);
+      group.setLevelLimit(levelLimit);
+
+      if (groupMessage != null)
+      {
+        group.restoreGroupMessage(
+            new GenericMessageWithId<>(groupMessage.getMessageId(), groupMessage.getMessage()),
+            groupMessage.getTimeMillis(), groupMessage.getParameterValues());
+      }
+      else if (group.getGroupMessage() != null)
+        group.removeGroupMessage();
+
+      protocols.push(group);
+    }
+
+
+    @Override
+    public void groupEnd()
+    {
+      if (protocols.size() == 1)
+        throw new IllegalStateException("no group to end");
+
+      protocols.pop();
+    }
+  }
+
+
+
+
+  static final class LocalGenericMessage<M> implements GenericMessage<M>
+  {
+    private final @NotNull AbstractGenericMessage<M> message;
+
+
+    LocalGenericMessage(@NotNull AbstractGenericMessage<M> message) {
+      this.message = message;
+    }
+
+
+    @Override
+    public @NotNull String getMessageId() {
+      return message.getMessageId();
+    }
+
+
+    @Override
+    public @NotNull M getMessage() {
+      return message.getMessage();
+    }
+
+
+    @Override
+    public long getTimeMillis() {
+      return message.getTimeMillis();
+    }
+
+
+    @Override
+    @UnmodifiableView
+    public @NotNull Map<String,Object> getParameterValues()
+    {
+      synchronized(message) {
+        return unmodifiableMap(message.parameterMap.getLocalValues());
+      }
+    }
+  }
+
+
+
+
+  static final class LocalMessage<M> implements Message<M>
+  {
+    private final @NotNull ProtocolMessageEntry<M> message;
+
+
+    LocalMessage(@NotNull ProtocolMessageEntry<M> message) {
+      this.message = message;
+    }
+
+
+    @Override
+    public @NotNull Level getLevel() {
+      return message.getLevel();
+    }
+
+
+    @Override
+    public Throwable getThrowable() {
+      return message.getThrowable();
+    }
+
+
+    @Override
+    @UnmodifiableView
+    public @NotNull Set<String> getTagNames() {
+      return message.getTagNames();
+    }
+
+
+    @Override
+    public @NotNull String getMessageId() {
+      return message.getMessageId();
+    }
+
+
+    @Override
+    public @NotNull M getMessage() {
+      return message.getMessage();
+    }
+
+
+    @Override
+    public long getTimeMillis() {
+      return message.getTimeMillis();
+    }
+
+
+    @Override
+    @UnmodifiableView
+    public @NotNull Map<String,Object> getParameterValues()
+    {
+      synchronized(message) {
+        return unmodifiableMap(message.parameterMap.getLocalValues());
+      }
+    }
+  }
+}
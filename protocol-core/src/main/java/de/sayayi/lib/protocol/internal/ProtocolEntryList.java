@@ -0,0 +1,566 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.internal;
+
+import de.sayayi.lib.protocol.Protocol.Message;
+import de.sayayi.lib.protocol.internal.ProtocolMessageEntry.SnapshotEpoch;
+import de.sayayi.lib.protocol.message.GenericMessageWithId;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+import static java.util.Objects.checkIndex;
+
+
+/**
+ * Entry list of a protocol.
+ * <p>
+ * The list knows the protocol it belongs to. Message entries refer to their list instead of
+ * their protocol, so all entries can be moved to another protocol at once when grafting.
+ * <p>
+ * Entries are stored in an array which is only ever appended to: once an entry has been stored,
+ * its slot is never written again and a full array is replaced by a larger copy. A snapshot of
+ * the list shares the entry array and the group positions, which are kept separately, and only
+ * copies the group entries, replacing them by snapshots of the groups. The message entries are
+ * copied when the snapshot is accessed for the first time. The copies refer to the parameters of
+ * the protocol snapshot and contain the message parameters of the {@link SnapshotEpoch} started
+ * by the snapshot.
+ * <p>
+ * Message entries evicted from a protocol with a message budget are not removed right away.
+ * Their positions are recorded instead and they are skipped by the iterator. Once more than a
+ * quarter of the slots hold evicted messages, the remaining entries are copied to a new array.
+ * Compacting changes the positions of the entries, which is recorded in a chain of
+ * {@link Compaction} instances, so tailing cursors can relocate their positions.
+ * <p>
+ * The message entries of a sealed protocol group can be spilled to a {@link ProtocolSpill.Store}.
+ * A spilled list only keeps its size, the store handle and the group entries in memory. The
+ * messages are reloaded when the list is accessed and kept in the reload cache of the
+ * {@link ProtocolSpill} instance. Reloaded message entries are equal in content but not
+ * identical to the original entries.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+@SuppressWarnings("unchecked")
+final class ProtocolEntryList<M> extends AbstractList<InternalProtocolEntry<M>>
+    implements RandomAccess
+{
+  private static final InternalProtocolEntry<?>[] NO_GROUPS = new InternalProtocolEntry<?>[0];
+  private static final int[] NO_POSITIONS = new int[0];
+
+  private final boolean snapshot;
+  private final SnapshotEpoch epoch;
+
+  private InternalProtocolEntry<M>[] entries;
+  private int size;
+  private InternalProtocolEntry<M>[] groups;
+  private int[] groupPositions;
+  private int groupCount;
+  private Spilled<M> spilled;
+  private BitSet evicted;
+  private int evictedCount;
+  private boolean evictedShared;
+  private @NotNull Compaction compaction = new Compaction();
+  private volatile InternalProtocolEntry<M>[] snapshotEntries;
+
+  @NotNull AbstractProtocol<M,?> protocol;
+
+
+  ProtocolEntryList(@NotNull AbstractProtocol<M,?> protocol)
+  {
+    this.protocol = protocol;
+
+    snapshot = false;
+    epoch = null;
+    entries = newEntryArray(8);
+    groups = (InternalProtocolEntry<M>[])NO_GROUPS;
+    groupPositions = NO_POSITIONS;
+  }
+
+
+  private ProtocolEntryList(@NotNull AbstractProtocol<M,?> protocol,
+                            @NotNull ProtocolEntryList<M> list)
+  {
+    this.protocol = protocol;
+
+    snapshot = true;
+    epoch = list.snapshot ? list.epoch : list.protocol.getRoot().getSnapshotEpoch();
+    entries = list.entries;
+    size = list.size;
+    groups = newEntryArray(list.groupCount);
+    groupPositions = list.groupPositions;
+    groupCount = list.groupCount;
+    spilled = list.spilled == null ? null : list.spilled.copy();
+    evicted = list.evicted;
+    evictedCount = list.evictedCount;
+
+    // the live list copies the evicted positions before evicting another message
+    list.evictedShared = evicted != null;
+  }
+
+
+  @Override
+  public InternalProtocolEntry<M> get(int index)
+  {
+    checkIndex(index, size);
+
+    if (spilled != null)
+      return reloaded()[index];
+
+    return entries()[index];
+  }
+
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+
+  @Override
+  public boolean add(InternalProtocolEntry<M> entry)
+  {
+    if (snapshot)
+      throw new IllegalStateException("snapshot entry list cannot be modified");
+    if (spilled != null)
+      throw new IllegalStateException("spilled entry list cannot be modified");
+
+    // stored slots are never written again, a full array is replaced by a larger copy
+    if (size == entries.length)
+      entries = Arrays.copyOf(entries, size + (size >> 1) + 1);
+
+    if (entry instanceof ProtocolGroupImpl)
+    {
+      if (groupCount == groups.length)
+      {
+        final var capacity = Math.max(4, groupCount * 2);
+
+        groups = Arrays.copyOf(groups, capacity);
+        groupPositions = Arrays.copyOf(groupPositions, capacity);
+      }
+
+      groups[groupCount] = entry;
+      groupPositions[groupCount++] = size;
+    }
+
+    else
+      ((ProtocolMessageEntry<M>)entry).position = size;
+
+    entries[size++] = entry;
+
+    return true;
+  }
+
+
+  @Override
+  public @NotNull Iterator<InternalProtocolEntry<M>> iterator()
+  {
+    return spilled == null
+        ? new EntryIterator(entries(), evicted)
+        : new EntryIterator(reloaded(), null);
+  }
+
+
+  private @NotNull InternalProtocolEntry<M>[] entries()
+  {
+    if (!snapshot)
+      return entries;
+
+    var snapshotEntries = this.snapshotEntries;
+    if (snapshotEntries == null)
+    {
+      synchronized(this) {
+        if ((snapshotEntries = this.snapshotEntries) == null)
+          this.snapshotEntries = snapshotEntries = copyEntries();
+      }
+    }
+
+    return snapshotEntries;
+  }
+
+
+  /**
+   * Copies the shared entries of this snapshot list. The group entries are replaced by the
+   * snapshots of the groups and the message entries by copies, which look up their inherited
+   * parameters in the protocol snapshot. Evicted messages are skipped by the snapshot and are not
+   * copied.
+   */
+  @Contract(pure = true)
+  private @NotNull InternalProtocolEntry<M>[] copyEntries()
+  {
+    final InternalProtocolEntry<M>[] copied = newEntryArray(size);
+
+    for(int n = 0, g = 0; n < size; n++)
+    {
+      if (g < groupCount && groupPositions[g] == n)
+        copied[n] = groups[g++];
+      else if (!isEvicted(n))
+        copied[n] = ((ProtocolMessageEntry<M>)entries[n]).snapshot(this, epoch, n);
+      else
+        copied[n] = entries[n];
+    }
+
+    return copied;
+  }
+
+
+  /**
+   * Tells whether the entry at position {@code index} is a message which has been evicted.
+   * Evicted messages are skipped by the iterator but are still returned by {@link #get(int)}.
+   *
+   * @param index  entry position
+   *
+   * @return  {@code true} if the entry has been evicted, {@code false} otherwise
+   */
+  @Contract(pure = true)
+  boolean isEvicted(int index) {
+    return evicted != null && evicted.get(index);
+  }
+
+
+  /**
+   * Evicts {@code message} from this list. If more than a quarter of the slots hold evicted
+   * messages afterwards, the list is compacted. Each compaction removes at least a quarter of
+   * the slots it copies, so the cost of evicting a message is amortized constant.
+   *
+   * @param message  message entry contained in this list, not {@code null}
+   */
+  void evict(@NotNull ProtocolMessageEntry<M> message)
+  {
+    if (evicted == null)
+      evicted = new BitSet(size);
+    else if (evictedShared)
+    {
+      evicted = (BitSet)evicted.clone();
+      evictedShared = false;
+    }
+
+    evicted.set(message.position);
+    message.position = -1;
+
+    if (++evictedCount * 4 > size)
+      compact();
+  }
+
+
+  private void compact()
+  {
+    final var removed = evicted.stream().toArray();
+    final var live = size - evictedCount;
+    final InternalProtocolEntry<M>[] compacted = newEntryArray(live + (live >> 1) + 1);
+    final var compactedGroupPositions = new int[groups.length];
+
+    for(int n = 0, m = 0, g = 0; n < size; n++)
+      if (!evicted.get(n))
+      {
+        final var entry = entries[n];
+
+        if (entry instanceof ProtocolGroupImpl)
+          compactedGroupPositions[g++] = m;
+        else
+          ((ProtocolMessageEntry<M>)entry).position = m;
+
+        compacted[m++] = entry;
+      }
+
+    // snapshots share the previous group positions, which are left untouched
+    entries = compacted;
+    size = live;
+    groupPositions = compactedGroupPositions;
+    evicted = null;
+    evictedCount = 0;
+    evictedShared = false;
+
+    compaction.removed = removed;
+    compaction = compaction.next = new Compaction();
+  }
+
+
+  /**
+   * Returns the most recent compaction of this list. The returned instance is linked to the
+   * compactions taking place afterwards.
+   *
+   * @return  most recent compaction, never {@code null}
+   */
+  @Contract(pure = true)
+  @NotNull Compaction getCompaction() {
+    return compaction;
+  }
+
+
+  /**
+   * Returns an iterator over the group entries of this list. The message entries are not
+   * accessed, so they are not reloaded if they have been spilled.
+   *
+   * @return  iterator over the group entries, never {@code null}
+   */
+  @NotNull Iterator<InternalProtocolEntry<M>> groupIterator() {
+    return Arrays.asList(groups).subList(0, groupCount).iterator();
+  }
+
+
+  /**
+   * Tells whether the message entries of this list have been spilled.
+   *
+   * @return  {@code true} if the message entries have been spilled, {@code false} otherwise
+   */
+  @Contract(pure = true)
+  boolean isSpilled() {
+    return spilled != null;
+  }
+
+
+  /**
+   * Creates a snapshot of this list for protocol snapshot {@code protocol}. The group entries are
+   * replaced by snapshots of the groups, the message entries are shared until the snapshot is
+   * accessed. The cost of taking a snapshot therefore depends on the number of groups only. The
+   * caller must hold the root lock, after having started a new snapshot epoch.
+   *
+   * @param protocol       protocol snapshot owning the new list, not {@code null}
+   * @param groupSnapshot  function creating a snapshot of a group entry, not {@code null}
+   *
+   * @return  snapshot of this list, never {@code null}
+   */
+  @Contract(value = "_, _ -> new", pure = true)
+  @NotNull ProtocolEntryList<M> snapshot(
+      @NotNull AbstractProtocol<M,?> protocol,
+      @NotNull Function<ProtocolGroupImpl<M>,InternalProtocolEntry<M>> groupSnapshot)
+  {
+    final var snapshot = new ProtocolEntryList<>(protocol, this);
+
+    for(int n = 0; n < groupCount; n++)
+      snapshot.groups[n] = groupSnapshot.apply((ProtocolGroupImpl<M>)groups[n]);
+
+    return snapshot;
+  }
+
+
+  /**
+   * Writes the message entries of this list to {@code store} and releases them.
+   *
+   * @param spill  spill instance, not {@code null}
+   *
+   * @throws IOException  if writing the message entries fails
+   */
+  void spill(@NotNull ProtocolSpill<M> spill) throws IOException
+  {
+    final var messages = new ArrayList<ProtocolDelta.LocalMessage<M>>(size - groupCount);
+    long sequence = 0;
+
+    for(int n = 0; n < size; n++)
+    {
+      final var entry = entries[n];
+
+      if (entry instanceof ProtocolMessageEntry)
+      {
+        final var message = (ProtocolMessageEntry<M>)entry;
+
+        messages.add(new ProtocolDelta.LocalMessage<>(message));
+        sequence = Math.max(sequence, message.sequence);
+      }
+    }
+
+    spilled = new Spilled<>(spill, spill.store.write(messages), sequence);
+    entries = null;
+  }
+
+
+  private @NotNull InternalProtocolEntry<M>[] reloaded()
+  {
+    final var reloadCache = spilled.spill.reloadCache;
+
+    synchronized(reloadCache) {
+      var reloaded = reloadCache.get(spilled);
+      if (reloaded == null)
+      {
+        try {
+          reloaded = spilled.reload(this);
+        } catch(IOException ex) {
+          throw new UncheckedIOException("failed to reload spilled protocol entries", ex);
+        }
+
+        reloadCache.put(spilled, reloaded);
+      }
+
+      return reloaded;
+    }
+  }
+
+
+  @Contract(value = "_ -> new", pure = true)
+  private static <M> @NotNull InternalProtocolEntry<M>[] newEntryArray(int length) {
+    return (InternalProtocolEntry<M>[])new InternalProtocolEntry<?>[length];
+  }
+
+
+
+
+  /**
+   * Compaction of an entry list. Each instance is linked to the next compaction of the same list
+   * once it has taken place, together with the positions removed by it. A cursor keeping a
+   * reference to a compaction can therefore relocate a position to the current entry array.
+   */
+  static final class Compaction
+  {
+    private int[] removed;
+    private Compaction next;
+
+
+    /**
+     * Returns the next compaction.
+     *
+     * @return  next compaction or {@code null} if no compaction has taken place since this one
+     */
+    @Contract(pure = true)
+    Compaction getNext() {
+      return next;
+    }
+
+
+    /**
+     * Relocates {@code position}, which refers to the entry array before the next compaction, to
+     * the entry array after the next compaction. A removed position is relocated to the position
+     * of the next remaining entry.
+     *
+     * @param position  entry position before the next compaction
+     *
+     * @return  entry position after the next compaction
+     */
+    @Contract(pure = true)
+    int relocate(int position)
+    {
+      final var n = Arrays.binarySearch(removed, position);
+      return position - (n >= 0 ? n : -n - 1);
+    }
+  }
+
+
+
+
+  private final class EntryIterator implements Iterator<InternalProtocolEntry<M>>
+  {
+    private final @NotNull InternalProtocolEntry<M>[] entries;
+    private final int size;
+    private final BitSet evicted;
+    private int n;
+
+
+    private EntryIterator(@NotNull InternalProtocolEntry<M>[] entries, BitSet evicted)
+    {
+      this.entries = entries;
+      this.evicted = evicted;
+
+      size = ProtocolEntryList.this.size;
+    }
+
+
+    @Override
+    public boolean hasNext()
+    {
+      if (evicted != null)
+        while(n < size && evicted.get(n))
+          n++;
+
+      return n < size;
+    }
+
+
+    @Override
+    public InternalProtocolEntry<M> next()
+    {
+      if (!hasNext())
+        throw new NoSuchElementException();
+
+      return entries[n++];
+    }
+  }
+
+
+
+
+  private static final class Spilled<M>
+  {
+    private final @NotNull ProtocolSpill<M> spill;
+    private final long handle;
+    private final long sequence;
+
+
+    private Spilled(@NotNull ProtocolSpill<M> spill, long handle, long sequence)
+    {
+      this.spill = spill;
+      this.handle = handle;
+      this.sequence = sequence;
+    }
+
+
+    /**
+     * Returns a copy of this instance. As the reload cache is keyed by instance, a list snapshot
+     * uses a copy to keep its reloaded entries, which contain its own protocol and groups,
+     * separate from those of the live list.
+     */
+    @Contract(value = "-> new", pure = true)
+    private @NotNull Spilled<M> copy() {
+      return new Spilled<>(spill, handle, sequence);
+    }
+
+
+    private @NotNull InternalProtocolEntry<M>[] reload(@NotNull ProtocolEntryList<M> list)
+        throws IOException
+    {
+      final var size = list.size;
+      final var messages = new ArrayList<Message<M>>(size - list.groupCount);
+      spill.store.read(handle, messages::add);
+
+      if (messages.size() + list.groupCount != size)
+        throw new IOException("spilled protocol entries are incomplete");
+
+      final InternalProtocolEntry<M>[] entries = newEntryArray(size);
+
+      for(int n = 0, m = 0, g = 0; n < size; n++)
+      {
+        if (g < list.groupCount && list.groupPositions[g] == n)
+          entries[n] = list.groups[g++];
+        else
+        {
+          final var message = messages.get(m++);
+          final var entry = new ProtocolMessageEntry<>(list.protocol, message.getLevel(),
+              message.getTagNames(), message.getThrowable(),
+              new GenericMessageWithId<>(message.getMessageId(), message.getMessage()),
+              message.getTimeMillis());
+
+          entry.parameterMap.putAll(message.getParameterValues());
+          entry.sequence = sequence;
+          entries[n] = entry;
+        }
+      }
+
+      return entries;
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.internal;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeMap;
+
+import static de.sayayi.lib.protocol.internal.ProtocolSpill.estimateSize;
+
+
+/**
+ * Eviction of messages from a protocol tree with a message budget.
+ * <p>
+ * The messages of the protocol tree are kept in FIFO rings, one for each level severity. When the
+ * number of messages or their estimated heap size exceeds the budget, the oldest message of the
+ * lowest severity is evicted, until the protocol tree is within budget again. The number of
+ * distinct severities is small, so finding the ring to evict from, as well as evicting the
+ * message itself, takes amortized constant time.
+ * <p>
+ * The estimated heap size of a message covers the message entry and its tag names, but not the
+ * parameters set on the message.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+final class ProtocolEviction<M>
+{
+  private final @NotNull TreeMap<Integer,Deque<ProtocolMessageEntry<M>>> rings = new TreeMap<>();
+
+  private int maxMessages;
+  private long heapBudget;
+  private int messageCount;
+  private long estimatedHeapSize;
+
+
+  ProtocolEviction(int maxMessages, long heapBudget) {
+    setBudget(maxMessages, heapBudget);
+  }
+
+
+  void setBudget(int maxMessages, long heapBudget)
+  {
+    this.maxMessages = maxMessages;
+    this.heapBudget = heapBudget;
+  }
+
+
+  /**
+   * Registers all messages contained in {@code protocol} and its descendant groups. Messages are
+   * registered in the order of their append sequence, so they are evicted in the order they
+   * have been added.
+   *
+   * @param protocol  protocol, not {@code null}
+   */
+  void register(@NotNull AbstractProtocol<M,?> protocol)
+  {
+    final var messages = new ArrayList<ProtocolMessageEntry<M>>();
+
+    collectMessages(protocol, messages);
+    messages.sort(Comparator.comparingLong(message -> message.sequence));
+
+    for(var message: messages)
+      add(message);
+  }
+
+
+  private static <M> void collectMessages(@NotNull AbstractProtocol<M,?> protocol,
+                                          @NotNull List<ProtocolMessageEntry<M>> messages)
+  {
+    for(var entry: protocol.entries)
+      if (entry instanceof ProtocolGroupImpl)
+        collectMessages((ProtocolGroupImpl<M>)entry, messages);
+      else
+        messages.add((ProtocolMessageEntry<M>)entry);
+  }
+
+
+  void messageAdded(@NotNull ProtocolMessageEntry<M> message)
+  {
+    add(message);
+    evict();
+  }
+
+
+  private void add(@NotNull ProtocolMessageEntry<M> message)
+  {
+    rings.computeIfAbsent(message.getLevel().severity(), severity -> new ArrayDeque<>())
+        .add(message);
+
+    messageCount++;
+    estimatedHeapSize += estimateSize(message);
+  }
+
+
+  /**
+   * Evicts messages until the protocol tree is within budget.
+   */
+  void evict()
+  {
+    while(messageCount > maxMessages || (estimatedHeapSize > heapBudget && messageCount > 0))
+    {
+      // rings are kept when they run empty, as the same severities are used over and over
+      for(var ring: rings.values())
+        if (!ring.isEmpty())
+        {
+          final var message = ring.remove();
+
+          messageCount--;
+          estimatedHeapSize -= estimateSize(message);
+          message.entries.protocol.evictMessage(message);
+          break;
+        }
+    }
+  }
+}
@@ -133,6 +133,12 @@ final class ProtocolGroupEntryAdapter<M> implements InternalProtocolEntry.Group<
   }
 
 
+  @Override
+  public int getDroppedMessageCount() {
+    return group.getDroppedMessageCount();
+  }
+
+
   @Override
   public boolean matches0(@NotNull Level levelLimit, @NotNull MessageMatcher matcher, boolean messageOnly) {
     return group.matches0(levelLimit, matcher, messageOnly);
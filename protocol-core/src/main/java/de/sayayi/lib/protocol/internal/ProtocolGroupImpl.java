@@ -29,6 +29,7 @@ import de.sayayi.lib.protocol.matcher.MessageMatcher;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
@@ -57,17 +58,21 @@ final class ProtocolGroupImpl<M>
     extends AbstractProtocol<M,ProtocolMessageBuilder<M>>
     implements ProtocolGroup<M>, InternalProtocolEntry.Group<M>
 {
-  private final @NotNull AbstractProtocol<M,Protocol.ProtocolMessageBuilder<M>> parent;
+  @NotNull AbstractProtocol<M,Protocol.ProtocolMessageBuilder<M>> parent;
 
   private @NotNull Level levelLimit;
   private @NotNull Visibility visibility;
   private GroupMessage groupMessage;
   private String name;
+  private volatile boolean sealed;
+  private MessageBuilder discardingMessageBuilder;
+
+  long entrySequence;
 
 
   ProtocolGroupImpl(@NotNull AbstractProtocol<M,Protocol.ProtocolMessageBuilder<M>> parent)
   {
-    super(parent.getFactory(), parent.parameterMap);
+    super(parent.getFactory(), parent.parameterMap, parent.summary);
 
     this.parent = parent;
 
@@ -76,12 +81,64 @@ final class ProtocolGroupImpl<M>
   }
 
 
+  /**
+   * Creates a protocol group for {@code parent} taking over the entries of root protocol
+   * {@code grafted}.
+   *
+   * @param parent   parent protocol, not {@code null}
+   * @param grafted  root protocol to be grafted, not {@code null}
+   *
+   * @since 1.6.0
+   */
+  ProtocolGroupImpl(@NotNull AbstractProtocol<M,Protocol.ProtocolMessageBuilder<M>> parent,
+                    @NotNull ProtocolImpl<M> grafted)
+  {
+    super(grafted);
+
+    this.parent = parent;
+
+    levelLimit = HIGHEST;
+    visibility = SHOW_HEADER_IF_NOT_EMPTY;
+  }
+
+
+  /**
+   * Creates a read-only snapshot of {@code group} for parent snapshot {@code parent}. The group
+   * message is copied, so its parameters are looked up in the parameters of the snapshot.
+   *
+   * @param parent  parent protocol snapshot, not {@code null}
+   * @param group   protocol group to take a snapshot of, not {@code null}
+   *
+   * @since 1.6.0
+   */
+  ProtocolGroupImpl(@NotNull AbstractProtocol<M,Protocol.ProtocolMessageBuilder<M>> parent,
+                    @NotNull ProtocolGroupImpl<M> group)
+  {
+    super(group, parent.parameterMap, parent.summary);
+
+    this.parent = parent;
+
+    levelLimit = group.levelLimit;
+    visibility = group.visibility;
+    groupMessage = group.groupMessage == null ? null : new GroupMessage(group.groupMessage);
+    name = group.name;
+    sealed = group.sealed;
+    entrySequence = group.entrySequence;
+  }
+
+
   @Override
   public @NotNull Protocol<M> getParent() {
     return parent;
   }
 
 
+  @Override
+  @NotNull AbstractProtocol<M,?> getParentProtocol() {
+    return parent;
+  }
+
+
   @Override
   public @NotNull Level getLevelLimit() {
     return levelLimit;
@@ -121,7 +178,14 @@ final class ProtocolGroupImpl<M>
   @Override
   public @NotNull ProtocolGroup<M> setVisibility(@NotNull Visibility visibility)
   {
+    checkWritable();
+
     this.visibility = requireNonNull(visibility, "visibility must not be null");
+    nextSequence();
+
+    if (visibility == SHOW_HEADER_ALWAYS || visibility == SHOW_HEADER_ONLY)
+      parent.summary.markNestedHeaderVisible();
+
     return this;
   }
 
@@ -129,7 +193,14 @@ final class ProtocolGroupImpl<M>
   @Override
   public @NotNull ProtocolGroup<M> setLevelLimit(@NotNull Level level)
   {
+    checkWritable();
+
     levelLimit = requireNonNull(level, "level must not be null");
+    nextSequence();
+
+    if (compare(level, HIGHEST) < 0)
+      parent.summary.markNestedLevelLimit();
+
     return this;
   }
 
@@ -199,6 +270,19 @@ final class ProtocolGroupImpl<M>
   }
 
 
+  @Override
+  int count0(@NotNull Level levelLimit, @NotNull MessageMatcher matcher) {
+    return super.count0(min(this.levelLimit, levelLimit), matcher);
+  }
+
+
+  @Override
+  void find0(@NotNull Level levelLimit, @NotNull MessageMatcher matcher,
+             @NotNull List<ProtocolEntry.Message<M>> messages) {
+    super.find0(min(this.levelLimit, levelLimit), matcher, messages);
+  }
+
+
   @Override
   public @NotNull List<ProtocolEntry<M>> getEntries0(@NotNull Level levelLimit, @NotNull MessageMatcher matcher)
   {
@@ -261,17 +345,42 @@ final class ProtocolGroupImpl<M>
   @Override
   public @NotNull ProtocolGroup.MessageParameterBuilder<M> setGroupMessage(@NotNull String message)
   {
+    checkWritable();
+
     groupMessage = new GroupMessage(factory.getMessageProcessor()
         .processMessage(requireNonNull(message, "message must not be null")));
+    nextSequence();
 
     return new ParameterBuilderImpl(groupMessage);
   }
 
 
+  /**
+   * Sets the group message with a given creation time and parameter values. This method is used
+   * when restoring a previously saved protocol.
+   *
+   * @param messageWithId    group message, not {@code null}
+   * @param timeMillis       creation time
+   * @param parameterValues  group message parameter values, not {@code null}
+   *
+   * @since 1.6.0
+   */
+  void restoreGroupMessage(@NotNull MessageWithId<M> messageWithId, long timeMillis,
+                           @NotNull Map<String,Object> parameterValues)
+  {
+    groupMessage = new GroupMessage(messageWithId, timeMillis);
+    groupMessage.parameterMap.putAll(parameterValues);
+    nextSequence();
+  }
+
+
   @Override
   public @NotNull ProtocolGroup<M> removeGroupMessage()
   {
+    checkWritable();
+
     groupMessage = null;
+    nextSequence();
 
     return this;
   }
@@ -280,8 +389,16 @@ final class ProtocolGroupImpl<M>
   @Override
   public @NotNull ProtocolGroup<M> setName(String name)
   {
+    checkWritable();
+
     if (name == null || name.isEmpty())
-      this.name = null;
+    {
+      if (this.name != null)
+      {
+        this.name = null;
+        nextSequence();
+      }
+    }
     else if (!name.equals(this.name))
     {
       getRootProtocol().getGroupByName(name).ifPresent(group -> {
@@ -289,6 +406,7 @@ final class ProtocolGroupImpl<M>
       });
 
       this.name = name;
+      nextSequence();
     }
 
     return this;
@@ -315,8 +433,53 @@ final class ProtocolGroupImpl<M>
 
 
   @Override
-  public @NotNull ProtocolGroup.ProtocolMessageBuilder<M> add(@NotNull Level level) {
-    return new MessageBuilder(requireNonNull(level, "level must not be null"));
+  public @NotNull ProtocolGroup.ProtocolMessageBuilder<M> add(@NotNull Level level)
+  {
+    if (isAdmitted(requireNonNull(level, "level must not be null")))
+      return new MessageBuilder(level);
+
+    var messageBuilder = discardingMessageBuilder;
+    if (messageBuilder == null)
+      discardingMessageBuilder = messageBuilder = new MessageBuilder();
+
+    return messageBuilder;
+  }
+
+
+  @Override
+  public @NotNull ProtocolGroup<M> seal()
+  {
+    checkWritable();
+
+    final var root = getRoot();
+
+    synchronized(root) {
+      if (!sealed)
+      {
+        sealed = true;
+
+        if (root.spill != null)
+          root.spill.groupSealed(this);
+      }
+    }
+
+    return this;
+  }
+
+
+  @Override
+  public boolean isSealed() {
+    return sealed;
+  }
+
+
+  @Override
+  void checkModifiable()
+  {
+    super.checkModifiable();
+
+    if (sealed)
+      throw new ProtocolException("protocol group is sealed");
   }
 
 
@@ -368,7 +531,7 @@ final class ProtocolGroupImpl<M>
   @Override
   public @NotNull ProtocolGroup<M> set(@NotNull String parameter, Object value)
   {
-    parameterMap.put(parameter, value);
+    setParameter(parameter, value);
     return this;
   }
 
@@ -404,11 +567,22 @@ final class ProtocolGroupImpl<M>
     }
 
 
+    private MessageBuilder() {
+      super(ProtocolGroupImpl.this);
+    }
+
+
     @Override
     protected @NotNull ProtocolGroup.MessageParameterBuilder<M> createMessageParameterBuilder(
         @NotNull ProtocolMessageEntry<M> message) {
       return new ParameterBuilderImpl(message);
     }
+
+
+    @Override
+    protected @NotNull ProtocolGroup.MessageParameterBuilder<M> createDiscardingParameterBuilder() {
+      return new ParameterBuilderImpl();
+    }
   }
 
 
@@ -421,6 +595,16 @@ final class ProtocolGroupImpl<M>
     }
 
 
+    private GroupMessage(@NotNull MessageWithId<M> messageWithId, long timeMillis) {
+      super(messageWithId, ProtocolGroupImpl.this.parameterMap, timeMillis);
+    }
+
+
+    private GroupMessage(@NotNull AbstractGenericMessage<M> groupMessage) {
+      super(groupMessage, ProtocolGroupImpl.this.parameterMap);
+    }
+
+
     @Override
     public String toString()
     {
@@ -449,6 +633,11 @@ final class ProtocolGroupImpl<M>
     }
 
 
+    private ParameterBuilderImpl() {
+      super(ProtocolGroupImpl.this);
+    }
+
+
     @Override
     public @NotNull Visibility getVisibility() {
       return ProtocolGroupImpl.this.getVisibility();
@@ -509,6 +698,18 @@ final class ProtocolGroupImpl<M>
     }
 
 
+    @Override
+    public @NotNull ProtocolGroup<M> seal() {
+      return ProtocolGroupImpl.this.seal();
+    }
+
+
+    @Override
+    public boolean isSealed() {
+      return ProtocolGroupImpl.this.isSealed();
+    }
+
+
     @Override
     public @NotNull Protocol<M> getRootProtocol() {
       return ProtocolGroupImpl.this.getRootProtocol();
@@ -536,7 +737,7 @@ final class ProtocolGroupImpl<M>
     @Override
     public @NotNull ProtocolGroup<M> set(@NotNull String parameter, Object value)
     {
-      parameterMap.put(parameter, value);
+      setParameter(parameter, value);
       return this;
     }
   }
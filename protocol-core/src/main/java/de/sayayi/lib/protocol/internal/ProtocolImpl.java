@@ -40,8 +40,23 @@ import static java.util.stream.Collectors.joining;
  */
 public final class ProtocolImpl<M> extends AbstractProtocol<M,ProtocolMessageBuilder<M>>
 {
+  private MessageBuilder discardingMessageBuilder;
+
+
   public ProtocolImpl(@NotNull ProtocolFactory<M> factory) {
-    super(factory, null);
+    super(factory, null, null);
+  }
+
+
+  /**
+   * Creates a read-only snapshot of root protocol {@code protocol}.
+   *
+   * @param protocol  root protocol to take a snapshot of, not {@code null}
+   *
+   * @since 1.6.0
+   */
+  ProtocolImpl(@NotNull ProtocolImpl<M> protocol) {
+    super(protocol, null, null);
   }
 
 
@@ -52,8 +67,16 @@ public final class ProtocolImpl<M> extends AbstractProtocol<M,ProtocolMessageBui
 
 
   @Override
-  public @NotNull ProtocolMessageBuilder<M> add(@NotNull Level level) {
-    return new MessageBuilder(requireNonNull(level, "level must not be null"));
+  public @NotNull ProtocolMessageBuilder<M> add(@NotNull Level level)
+  {
+    if (isAdmitted(requireNonNull(level, "level must not be null")))
+      return new MessageBuilder(level);
+
+    var messageBuilder = discardingMessageBuilder;
+    if (messageBuilder == null)
+      discardingMessageBuilder = messageBuilder = new MessageBuilder();
+
+    return messageBuilder;
   }
 
 
@@ -90,7 +113,7 @@ public final class ProtocolImpl<M> extends AbstractProtocol<M,ProtocolMessageBui
   @Override
   public @NotNull Protocol<M> set(@NotNull String parameter, Object value)
   {
-    parameterMap.put(parameter, value);
+    setParameter(parameter, value);
     return this;
   }
 
@@ -119,11 +142,22 @@ public final class ProtocolImpl<M> extends AbstractProtocol<M,ProtocolMessageBui
     }
 
 
+    MessageBuilder() {
+      super(ProtocolImpl.this);
+    }
+
+
     @Override
     protected @NotNull MessageParameterBuilder<M> createMessageParameterBuilder(
         @NotNull ProtocolMessageEntry<M> message) {
       return new ParameterBuilder(message);
     }
+
+
+    @Override
+    protected @NotNull MessageParameterBuilder<M> createDiscardingParameterBuilder() {
+      return new ParameterBuilder();
+    }
   }
 
 
@@ -137,10 +171,15 @@ public final class ProtocolImpl<M> extends AbstractProtocol<M,ProtocolMessageBui
     }
 
 
+    ParameterBuilder() {
+      super(ProtocolImpl.this);
+    }
+
+
     @Override
     public @NotNull Protocol<M> set(@NotNull String parameter, Object value)
     {
-      parameterMap.put(parameter, value);
+      setParameter(parameter, value);
       return this;
     }
   }
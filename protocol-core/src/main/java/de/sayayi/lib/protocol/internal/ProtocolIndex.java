@@ -0,0 +1,167 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.internal;
+
+import de.sayayi.lib.protocol.matcher.internal.PostingListEvaluator;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * Secondary index over the entries of a single protocol.
+ * <p>
+ * For each tag name, message id and level severity the index keeps a posting list with the
+ * positions of the matching messages in the entry list of the protocol. Protocol entries are
+ * never reordered, so the index is brought up to date by indexing the entries which have been
+ * added since the last update. Evicted messages are not indexed and are removed from the posting
+ * lists when they are evicted. As compacting the entry list changes the positions of the entries,
+ * the index is discarded by the protocol instead.
+ * <p>
+ * The index is not thread safe: it is updated and queried under the lock of the root protocol.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+final class ProtocolIndex<M> implements PostingListEvaluator.Index
+{
+  private final @NotNull ProtocolEntryList<M> entries;
+  private final @NotNull BitSet messages = new BitSet();
+  private final @NotNull BitSet groups = new BitSet();
+  private final @NotNull Map<String,BitSet> tagNames = new HashMap<>();
+  private final @NotNull Map<String,BitSet> messageIds = new HashMap<>();
+  private final @NotNull TreeMap<Integer,BitSet> severities = new TreeMap<>();
+
+  private int indexedEntries;
+
+
+  ProtocolIndex(@NotNull ProtocolEntryList<M> entries) {
+    this.entries = entries;
+  }
+
+
+  /**
+   * Indexes all entries which have been added to the protocol since the last update.
+   */
+  void update()
+  {
+    for(final int size = entries.size(); indexedEntries < size; indexedEntries++)
+    {
+      final var entry = entries.get(indexedEntries);
+
+      if (entry instanceof InternalProtocolEntry.Group)
+        groups.set(indexedEntries);
+      else if (!entries.isEvicted(indexedEntries))
+      {
+        final var message = (InternalProtocolEntry.Message<M>)entry;
+
+        messages.set(indexedEntries);
+
+        for(var tagName: message.getTagNames())
+          tagNames.computeIfAbsent(tagName, t -> new BitSet()).set(indexedEntries);
+
+        messageIds.computeIfAbsent(message.getMessageId(), id -> new BitSet())
+            .set(indexedEntries);
+        severities.computeIfAbsent(message.getLevel().severity(), s -> new BitSet())
+            .set(indexedEntries);
+      }
+    }
+  }
+
+
+  /**
+   * Removes evicted message {@code message} at position {@code position} from the posting lists.
+   *
+   * @param position  former position of the message in the entry list
+   * @param message   evicted message, not {@code null}
+   */
+  void remove(int position, @NotNull InternalProtocolEntry.Message<M> message)
+  {
+    // messages which have not been indexed yet are skipped by the next update
+    if (position >= indexedEntries)
+      return;
+
+    messages.clear(position);
+
+    for(var tagName: message.getTagNames())
+      clear(tagNames.get(tagName), position);
+
+    clear(messageIds.get(message.getMessageId()), position);
+    clear(severities.get(message.getLevel().severity()), position);
+  }
+
+
+  /**
+   * Returns the positions of all groups in the entry list.
+   *
+   * @return  group positions, never {@code null}
+   */
+  @Contract(pure = true)
+  @NotNull BitSet groups() {
+    return groups;
+  }
+
+
+  @Override
+  public @NotNull BitSet all() {
+    return (BitSet)messages.clone();
+  }
+
+
+  @Override
+  public @NotNull BitSet forTag(@NotNull String tagName) {
+    return copyOf(tagNames.get(tagName));
+  }
+
+
+  @Override
+  public @NotNull BitSet forMessageId(@NotNull String messageId) {
+    return copyOf(messageIds.get(messageId));
+  }
+
+
+  @Override
+  public @NotNull BitSet forSeverity(int minSeverity, int maxSeverity)
+  {
+    final var positions = new BitSet();
+
+    if (minSeverity <= maxSeverity)
+      for(var severityPositions: severities.subMap(minSeverity, true, maxSeverity, true).values())
+        positions.or(severityPositions);
+
+    return positions;
+  }
+
+
+  private static void clear(BitSet positions, int position)
+  {
+    if (positions != null)
+      positions.clear(position);
+  }
+
+
+  @Contract(value = "_ -> new", pure = true)
+  private static @NotNull BitSet copyOf(BitSet positions) {
+    return positions == null ? new BitSet() : (BitSet)positions.clone();
+  }
+}
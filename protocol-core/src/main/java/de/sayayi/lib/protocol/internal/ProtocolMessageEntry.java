@@ -21,18 +21,30 @@ import de.sayayi.lib.protocol.ProtocolFactory.MessageProcessor.MessageWithId;
 import de.sayayi.lib.protocol.matcher.MessageMatcher;
 import de.sayayi.lib.protocol.util.ParameterMap;
 
+import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.UnmodifiableView;
 
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static de.sayayi.lib.protocol.Level.Shared.HIGHEST;
+import static java.lang.System.currentTimeMillis;
 import static java.util.Collections.unmodifiableSet;
 import static java.util.stream.Collectors.joining;
 
 
 /**
+ * Message entry of a protocol.
+ * <p>
+ * Protocol snapshots share the message entries of the live protocol and create a copy of a
+ * message entry only when the snapshot is accessed. The message parameters are versioned for
+ * this purpose: each snapshot of the root protocol starts a new {@link SnapshotEpoch}. The first
+ * parameter change after a snapshot forks the parameter map of the message, leaving the previous
+ * map with the epoch for the snapshots taken since the map was created.
+ *
  * @param <M>  internal message object type
  *
  * @author Jeroen Gremmen
@@ -40,29 +52,110 @@ import static java.util.stream.Collectors.joining;
  */
 final class ProtocolMessageEntry<M> extends AbstractGenericMessage<M> implements InternalProtocolEntry.Message<M>
 {
-  private final @NotNull Protocol<M> protocol;
+  final @NotNull ProtocolEntryList<M> entries;
   private final @NotNull Level level;
   private final @NotNull Set<String> tagNames;
   private final Throwable throwable;
 
+  long sequence;
+
+  /** Position in the entry list or {@code -1} if the message has been evicted. */
+  int position;
+
+  /** Number of the snapshot epoch the parameter map belongs to, guarded by the message lock. */
+  private long parameterEpoch;
+
+
+  ProtocolMessageEntry(@NotNull AbstractProtocol<M,?> protocol, @NotNull Level level,
+                       @NotNull Set<String> tagNames, Throwable throwable,
+                       @NotNull MessageWithId<M> messageWithId) {
+    this(protocol, level, tagNames, throwable, messageWithId, currentTimeMillis());
+  }
+
 
-  ProtocolMessageEntry(@NotNull Protocol<M> protocol, @NotNull Level level,
+  ProtocolMessageEntry(@NotNull AbstractProtocol<M,?> protocol, @NotNull Level level,
                        @NotNull Set<String> tagNames, Throwable throwable,
-                       @NotNull MessageWithId<M> messageWithId,
-                       @NotNull ParameterMap parentParameterMap)
+                       @NotNull MessageWithId<M> messageWithId, long timeMillis)
   {
-    super(messageWithId, parentParameterMap);
+    super(messageWithId, protocol.parameterMap, timeMillis);
 
-    this.protocol = protocol;
+    this.entries = protocol.entries;
     this.level = level;
     this.tagNames = tagNames;
     this.throwable = throwable;
+
+    final var epoch = protocol.getRoot().getSnapshotEpoch();
+    if (epoch != null)
+      parameterEpoch = epoch.number;
+  }
+
+
+  private ProtocolMessageEntry(@NotNull ProtocolEntryList<M> entries,
+                               @NotNull ProtocolMessageEntry<M> message,
+                               @NotNull ParameterMap parameterMap, int position)
+  {
+    super(message, entries.protocol.parameterMap, parameterMap.getLocalValues());
+
+    this.entries = entries;
+    this.position = position;
+
+    level = message.level;
+    tagNames = message.tagNames;
+    throwable = message.throwable;
+    sequence = message.sequence;
+  }
+
+
+  /**
+   * Creates a copy of this message for the entry list of a protocol snapshot. The copy contains
+   * the message parameters as they were when the snapshot was taken.
+   *
+   * @param entries   entry list of the protocol snapshot, not {@code null}
+   * @param epoch     snapshot epoch of the protocol snapshot, not {@code null}
+   * @param position  position in the snapshot entry list
+   *
+   * @return  message copy, never {@code null}
+   *
+   * @since 1.6.0
+   */
+  @Contract(value = "_, _, _ -> new", pure = true)
+  @NotNull ProtocolMessageEntry<M> snapshot(@NotNull ProtocolEntryList<M> entries,
+                                            @NotNull SnapshotEpoch epoch, int position)
+  {
+    synchronized(this) {
+      return new ProtocolMessageEntry<>(entries, this, epoch.getParameterMap(this), position);
+    }
+  }
+
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * If a snapshot has been taken since the parameter map has been created, the map is forked.
+   */
+  @Override
+  @NotNull ParameterMap getParameterMapForUpdate()
+  {
+    final var epoch = entries.protocol.getRoot().getSnapshotEpoch();
+
+    if (epoch != null && parameterEpoch < epoch.number)
+    {
+      epoch.forkedParameterMaps.put(this, parameterMap);
+
+      final var forkedParameterMap = new ParameterMap(entries.protocol.parameterMap);
+      forkedParameterMap.putAll(parameterMap.getLocalValues());
+
+      parameterMap = forkedParameterMap;
+      parameterEpoch = epoch.number;
+    }
+
+    return parameterMap;
   }
 
 
   @Override
   public @NotNull Protocol<M> getProtocol() {
-    return protocol;
+    return entries.protocol;
   }
 
 
@@ -130,4 +223,69 @@ final class ProtocolMessageEntry<M> extends AbstractGenericMessage<M> implements
 
     return s.append(')').toString();
   }
+
+
+
+
+  /**
+   * Epoch started by a snapshot of a root protocol, which lasts until the next snapshot of the
+   * same root protocol. An epoch keeps the parameter maps of the messages which have been forked
+   * during the epoch, as these maps are still used by the snapshots taken before.
+   * <p>
+   * Each epoch is linked to the next epoch. The protocol snapshots hold on to their epoch, the
+   * root protocol only keeps a weak reference to the most recent epoch. Forked parameter maps are
+   * therefore released together with the last snapshot requiring them, and no map is forked if
+   * there are no snapshots left.
+   *
+   * @since 1.6.0
+   */
+  static final class SnapshotEpoch
+  {
+    final long number;
+    private final Map<ProtocolMessageEntry<?>,ParameterMap> forkedParameterMaps =
+        new ConcurrentHashMap<>();
+    private volatile SnapshotEpoch next;
+
+
+    /**
+     * Creates a new epoch following {@code previous}. The caller must hold the root lock.
+     *
+     * @param number    epoch number, greater than the number of all previous epochs
+     * @param previous  previous epoch or {@code null}
+     */
+    SnapshotEpoch(long number, SnapshotEpoch previous)
+    {
+      this.number = number;
+
+      if (previous != null)
+        previous.next = this;
+    }
+
+
+    /**
+     * Returns the parameter map {@code message} had during this epoch. The caller must hold the
+     * lock of {@code message}.
+     *
+     * @param message  message contained in a snapshot taken at the start of this epoch
+     *
+     * @return  parameter map, never {@code null}
+     */
+    @Contract(pure = true)
+    private @NotNull ParameterMap getParameterMap(@NotNull ProtocolMessageEntry<?> message)
+    {
+      if (message.parameterEpoch < number)
+        return message.parameterMap;
+
+      // the map is kept by the first epoch during which it has been forked
+      for(var epoch = this; epoch != null; epoch = epoch.next)
+      {
+        final var parameterMap = epoch.forkedParameterMaps.get(message);
+        if (parameterMap != null)
+          return parameterMap;
+      }
+
+      // messages of a grafted protocol count the epochs of their former root, but never change
+      return message.parameterMap;
+    }
+  }
 }
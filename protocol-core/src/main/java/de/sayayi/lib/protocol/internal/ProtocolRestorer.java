@@ -0,0 +1,119 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.internal;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.Protocol;
+import de.sayayi.lib.protocol.Protocol.GenericMessage;
+import de.sayayi.lib.protocol.Protocol.Message;
+import de.sayayi.lib.protocol.ProtocolGroup.Visibility;
+import de.sayayi.lib.protocol.ProtocolVisitor;
+import de.sayayi.lib.protocol.message.GenericMessageWithId;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Protocol visitor which restores the visited messages and groups into a protocol.
+ * <p>
+ * Contrary to the protocol builder methods, message ids, creation times, tags and parameter
+ * values are taken over as is. Tags are not propagated again and the message processor of the
+ * target protocol is not involved.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class ProtocolRestorer<M> implements ProtocolVisitor<M>
+{
+  private final @NotNull Deque<AbstractProtocol<M,?>> protocols = new ArrayDeque<>();
+
+
+  /**
+   * Creates a restorer adding messages and groups to {@code protocol}.
+   *
+   * @param protocol  target protocol, not {@code null}
+   */
+  public ProtocolRestorer(@NotNull Protocol<M> protocol) {
+    protocols.push(toAbstractProtocol(requireNonNull(protocol, "protocol must not be null")));
+  }
+
+
+  @Override
+  public void message(@NotNull Message<M> message)
+  {
+    final var protocol = requireNonNull(protocols.peek());
+    final var entry = new ProtocolMessageEntry<>(protocol, message.getLevel(),
+        new HashSet<>(message.getTagNames()), message.getThrowable(),
+        new GenericMessageWithId<>(message.getMessageId(), message.getMessage()),
+        message.getTimeMillis());
+
+    entry.parameterMap.putAll(message.getParameterValues());
+    protocol.addMessage(entry);
+  }
+
+
+  @Override
+  public void groupStart(String name, @NotNull Visibility visibility, @NotNull Level levelLimit,
+                         GenericMessage<M> groupMessage)
+  {
+    final var group = (ProtocolGroupImpl<M>)requireNonNull(protocols.peek()).createGroup();
+
+    group.setName(name);
+    group.setVisibility(visibility);
+    group.setLevelLimit(levelLimit);
+
+    if (groupMessage != null)
+    {
+      group.restoreGroupMessage(
+          new GenericMessageWithId<>(groupMessage.getMessageId(), groupMessage.getMessage()),
+          groupMessage.getTimeMillis(), groupMessage.getParameterValues());
+    }
+
+    protocols.push(group);
+  }
+
+
+  @Override
+  public void groupEnd()
+  {
+    if (protocols.size() == 1)
+      throw new IllegalStateException("no group to end");
+
+    protocols.pop();
+  }
+
+
+  @SuppressWarnings("unchecked")
+  static <M> @NotNull AbstractProtocol<M,?> toAbstractProtocol(
+      @NotNull Protocol<M> protocol)
+  {
+    if (protocol instanceof AbstractParameterBuilder)
+      return ((AbstractParameterBuilder<M,?,?>)protocol).protocol;
+
+    if (protocol instanceof AbstractProtocol)
+      return (AbstractProtocol<M,?>)protocol;
+
+    throw new IllegalArgumentException("unsupported protocol implementation");
+  }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.internal;
+
+import de.sayayi.lib.protocol.Protocol;
+import de.sayayi.lib.protocol.Protocol.Message;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static de.sayayi.lib.protocol.internal.ProtocolRestorer.toAbstractProtocol;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Spilling of sealed protocol groups to secondary storage.
+ * <p>
+ * Spilling is enabled for a protocol tree by registering a {@link Store} and a heap budget. The
+ * heap used by the message entries of the protocol tree is estimated as messages are added and
+ * changed. If the estimate exceeds the budget, the message entries of the groups which have been
+ * sealed first are written to the store and released, until the estimate is within budget again
+ * or no sealed groups are left. Group headers, parameters and subtree summaries remain in memory,
+ * as do the child groups of a spilled group. The entries of the most recently reloaded groups
+ * are kept in a small cache, so iterating a spilled group reloads it only once.
+ * <p>
+ * The heap estimate is updated and groups are spilled while holding the lock of the protocol
+ * tree, so spilling is safe with sibling groups being appended to by different threads.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ *
+ * @see de.sayayi.lib.protocol.ProtocolGroup#seal()
+ */
+public final class ProtocolSpill<M>
+{
+  static final int MESSAGE_SIZE = 160;
+  static final int TAG_SIZE = 16;
+  static final int PARAMETER_SIZE = 64;
+  static final int RELOAD_CACHE_SIZE = 16;
+
+  final @NotNull Store<M> store;
+  final @NotNull Map<Object,InternalProtocolEntry<M>[]> reloadCache =
+      new LinkedHashMap<>(RELOAD_CACHE_SIZE * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object,InternalProtocolEntry<M>[]> e) {
+          return size() > RELOAD_CACHE_SIZE;
+        }
+      };
+
+  private final long heapBudget;
+  private final @NotNull Deque<ProtocolGroupImpl<M>> sealedGroups = new ArrayDeque<>();
+
+  private long estimatedHeapSize;
+  private int spilledGroupCount;
+
+
+  private ProtocolSpill(@NotNull Store<M> store, long heapBudget)
+  {
+    this.store = store;
+    this.heapBudget = heapBudget;
+  }
+
+
+  /**
+   * Enables spilling for the protocol tree {@code protocol} belongs to.
+   *
+   * @param protocol    protocol, not {@code null}
+   * @param heapBudget  estimated heap size in bytes the message entries may occupy
+   * @param store       spill store, not {@code null}
+   *
+   * @param <M>  internal message object type
+   *
+   * @throws IllegalStateException  if spilling has already been enabled for the protocol tree or
+   *                                if the protocol tree has a message budget
+   */
+  public static <M> void enable(@NotNull Protocol<M> protocol, long heapBudget,
+                                @NotNull Store<M> store)
+  {
+    if (heapBudget < 0)
+      throw new IllegalArgumentException("heapBudget must not be negative");
+
+    final var root = toAbstractProtocol(requireNonNull(protocol, "protocol must not be null"))
+        .getRoot();
+
+    synchronized(root) {
+      if (root.spill != null)
+        throw new IllegalStateException("spilling has already been enabled for protocol");
+      if (root.hasMessageBudget())
+        throw new IllegalStateException("protocol with a message budget cannot be spilled");
+
+      final var spill = new ProtocolSpill<>(requireNonNull(store, "store must not be null"),
+          heapBudget);
+
+      spill.register(root);
+      root.spill = spill;
+      root.changesTracked = true;
+      spill.spillSealedGroups();
+    }
+  }
+
+
+  /**
+   * Returns the estimated heap size occupied by the message entries of the protocol tree
+   * {@code protocol} belongs to.
+   *
+   * @param protocol  protocol, not {@code null}
+   *
+   * @return  estimated heap size in bytes or {@code 0} if spilling is not enabled
+   */
+  public static long getEstimatedHeapSize(@NotNull Protocol<?> protocol)
+  {
+    final var root = getRoot(protocol);
+
+    synchronized(root) {
+      return root.spill == null ? 0 : root.spill.estimatedHeapSize;
+    }
+  }
+
+
+  /**
+   * Accounts for the messages of a group which has been grafted onto the protocol and registers
+   * its sealed descendant groups. Unlike grafting itself, this visits every grafted message.
+   *
+   * @param group  grafted group, not {@code null}
+   */
+  void groupGrafted(@NotNull ProtocolGroupImpl<M> group)
+  {
+    register(group);
+    spillSealedGroups();
+  }
+
+
+  /**
+   * Returns the number of groups in the protocol tree {@code protocol} belongs to, whose message
+   * entries have been spilled.
+   *
+   * @param protocol  protocol, not {@code null}
+   *
+   * @return  number of spilled groups
+   */
+  public static int getSpilledGroupCount(@NotNull Protocol<?> protocol)
+  {
+    final var root = getRoot(protocol);
+
+    synchronized(root) {
+      return root.spill == null ? 0 : root.spill.spilledGroupCount;
+    }
+  }
+
+
+  private static @NotNull AbstractProtocol<?,?> getRoot(@NotNull Protocol<?> protocol)
+  {
+    return toAbstractProtocol(requireNonNull(protocol, "protocol must not be null"))
+        .getRoot();
+  }
+
+
+  private void register(@NotNull AbstractProtocol<M,?> protocol)
+  {
+    for(var entry: protocol.entries)
+      if (entry instanceof ProtocolGroupImpl)
+        register((ProtocolGroupImpl<M>)entry);
+      else
+      {
+        final var message = (ProtocolMessageEntry<M>)entry;
+
+        protocol.estimatedSize += estimateSize(message) +
+            PARAMETER_SIZE * message.parameterMap.getLocalValues().size();
+      }
+
+    estimatedHeapSize += protocol.estimatedSize;
+
+    if (protocol instanceof ProtocolGroupImpl)
+    {
+      @SuppressWarnings("unchecked")
+      final var group = (ProtocolGroupImpl<M>)protocol;
+
+      if (group.isSealed())
+        sealedGroups.add(group);
+    }
+  }
+
+
+  void messageAdded(@NotNull AbstractProtocol<M,?> protocol,
+                    @NotNull ProtocolMessageEntry<M> message)
+  {
+    final var size = estimateSize(message);
+
+    protocol.estimatedSize += size;
+    estimatedHeapSize += size;
+
+    spillSealedGroups();
+  }
+
+
+  void messageChanged(@NotNull AbstractProtocol<M,?> protocol)
+  {
+    protocol.estimatedSize += PARAMETER_SIZE;
+    estimatedHeapSize += PARAMETER_SIZE;
+
+    spillSealedGroups();
+  }
+
+
+  void groupSealed(@NotNull ProtocolGroupImpl<M> group)
+  {
+    sealedGroups.add(group);
+    spillSealedGroups();
+  }
+
+
+  private void spillSealedGroups()
+  {
+    while(estimatedHeapSize > heapBudget && !sealedGroups.isEmpty())
+    {
+      final var group = sealedGroups.remove();
+
+      try {
+        group.spillEntries(this);
+      } catch(IOException ex) {
+        throw new UncheckedIOException("failed to spill protocol group", ex);
+      }
+
+      estimatedHeapSize -= group.estimatedSize;
+      group.estimatedSize = 0;
+      spilledGroupCount++;
+    }
+  }
+
+
+  @Contract(pure = true)
+  static long estimateSize(@NotNull ProtocolMessageEntry<?> message) {
+    return MESSAGE_SIZE + TAG_SIZE * (long)message.getTagNames().size();
+  }
+
+
+
+
+  /**
+   * Secondary storage for spilled message entries.
+   *
+   * @param <M>  internal message object type
+   */
+  public interface Store<M>
+  {
+    /**
+     * Writes {@code messages} to the store.
+     *
+     * @param messages  messages, not {@code null}
+     *
+     * @return  handle identifying the written messages
+     *
+     * @throws IOException  if an I/O error occurs
+     */
+    long write(@NotNull List<? extends Message<M>> messages) throws IOException;
+
+
+    /**
+     * Reads the messages identified by {@code handle} and passes them to {@code action} in the
+     * order they have been written.
+     *
+     * @param handle  handle returned by {@link #write(List)}
+     * @param action  action receiving the messages, not {@code null}
+     *
+     * @throws IOException  if an I/O error occurs
+     */
+    void read(long handle, @NotNull Consumer<? super Message<M>> action) throws IOException;
+  }
+}
@@ -51,12 +51,12 @@ import static java.util.Collections.emptySet;
  */
 abstract class ProtocolStructureIterator<M> implements ProtocolIterator<M>
 {
-  private static final ProtocolStart<?> PROTOCOL_START = new ProtocolStart<>() {
+  static final ProtocolStart<?> PROTOCOL_START = new ProtocolStart<>() {
     @Override public int getDepth() { return 0; }
     @Override public String toString() { return "ProtocolStart"; }
   };
 
-  private static final ProtocolEnd<?> PROTOCOL_END = new ProtocolEnd<>() {
+  static final ProtocolEnd<?> PROTOCOL_END = new ProtocolEnd<>() {
     @Override public int getDepth() { return 0; }
     @Override public String toString() { return "ProtocolEnd"; }
   };
@@ -210,7 +210,7 @@ abstract class ProtocolStructureIterator<M> implements ProtocolIterator<M>
       if (protocolEntry instanceof InternalProtocolEntry.Group)
       {
         groupIterator = new ProtocolStructureIterator.ForGroup<>(levelLimit, matcher, depth,
-            (InternalProtocolEntry.Group<M>)protocolEntry, hasEntryBefore, iterator.hasNext(),
+            (InternalProtocolEntry.Group<M>)protocolEntry, hasEntryBefore, hasVisibleEntryAfter(),
             false);
         continue;
       }
@@ -293,7 +293,8 @@ abstract class ProtocolStructureIterator<M> implements ProtocolIterator<M>
           setDepth(depth + 1);
           addNextEntry(new GroupStartEntryImpl<>(protocol.getName(), protocol.getGroupMessage(),
               super.levelLimit, protocol.getVisibleGroupEntryMessageCount0(super.levelLimit, matcher),
-              depth + 1, !hasEntryBeforeGroup, !hasEntryAfterGroup));
+              protocol.getDroppedMessageCount(), depth + 1, !hasEntryBeforeGroup,
+              !hasEntryAfterGroup));
           groupHeader = true;
           forceFirst = true;
           break;
@@ -398,12 +399,12 @@ abstract class ProtocolStructureIterator<M> implements ProtocolIterator<M>
 
 
 
-  private static class MessageEntryImpl<M> extends BoundedDepthEntryImpl<M> implements MessageEntry<M>
+  static class MessageEntryImpl<M> extends BoundedDepthEntryImpl<M> implements MessageEntry<M>
   {
     final Protocol.Message<M> message;
 
 
-    private MessageEntryImpl(int depth, boolean first, boolean last, @NotNull Protocol.Message<M> message)
+    MessageEntryImpl(int depth, boolean first, boolean last, @NotNull Protocol.Message<M> message)
     {
       super(depth, first, last);
 
@@ -470,15 +471,15 @@ abstract class ProtocolStructureIterator<M> implements ProtocolIterator<M>
 
 
 
-  private static class GroupMessageEntryImpl<M> extends BoundedDepthEntryImpl<M> implements GroupMessageEntry<M>
+  static class GroupMessageEntryImpl<M> extends BoundedDepthEntryImpl<M> implements GroupMessageEntry<M>
   {
     final String name;
     final Level level;
     final GenericMessage<M> groupMessage;
 
 
-    private GroupMessageEntryImpl(int depth, boolean first, boolean last, String name, @NotNull Level level,
-                                  @NotNull GenericMessage<M> groupMessage)
+    GroupMessageEntryImpl(int depth, boolean first, boolean last, String name, @NotNull Level level,
+                          @NotNull GenericMessage<M> groupMessage)
     {
       super(depth, first, last);
 
@@ -590,15 +591,17 @@ abstract class ProtocolStructureIterator<M> implements ProtocolIterator<M>
 
 
 
-  private static class GroupStartEntryImpl<M> extends BoundedDepthEntryImpl<M> implements GroupStartEntry<M>
+  static class GroupStartEntryImpl<M> extends BoundedDepthEntryImpl<M> implements GroupStartEntry<M>
   {
     private final String name;
     private final GenericMessageWithLevel<M> groupMessage;
     private final int messageCount;
+    private final int droppedMessageCount;
 
 
-    private GroupStartEntryImpl(String name, final GenericMessage<M> groupMessage, final Level level,
-                                int messageCount, int depth, boolean first, boolean last)
+    GroupStartEntryImpl(String name, final GenericMessage<M> groupMessage, final Level level,
+                        int messageCount, int droppedMessageCount, int depth, boolean first,
+                        boolean last)
     {
       super(depth, first, last);
 
@@ -612,6 +615,7 @@ abstract class ProtocolStructureIterator<M> implements ProtocolIterator<M>
 
       this.name = name;
       this.messageCount = messageCount;
+      this.droppedMessageCount = droppedMessageCount;
     }
 
 
@@ -633,6 +637,12 @@ abstract class ProtocolStructureIterator<M> implements ProtocolIterator<M>
     }
 
 
+    @Override
+    public int getDroppedMessageCount() {
+      return droppedMessageCount;
+    }
+
+
     @Override
     public String toString()
     {
@@ -644,9 +654,9 @@ abstract class ProtocolStructureIterator<M> implements ProtocolIterator<M>
 
 
 
-  private static class GroupEndEntryImpl<M> extends DepthEntryImpl<M> implements GroupEndEntry<M>
+  static class GroupEndEntryImpl<M> extends DepthEntryImpl<M> implements GroupEndEntry<M>
   {
-    private GroupEndEntryImpl(int depth) {
+    GroupEndEntryImpl(int depth) {
       super(depth);
     }
 
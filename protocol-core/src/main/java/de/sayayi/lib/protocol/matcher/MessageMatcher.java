@@ -19,9 +19,12 @@ import de.sayayi.lib.protocol.Level;
 import de.sayayi.lib.protocol.ProtocolEntry.Message;
 import de.sayayi.lib.protocol.TagSelector;
 import de.sayayi.lib.protocol.exception.MessageMatcherException;
+import de.sayayi.lib.protocol.matcher.internal.AdaptiveOrder;
+import de.sayayi.lib.protocol.matcher.internal.CompiledMatcher;
 import de.sayayi.lib.protocol.matcher.internal.Conjunction;
 import de.sayayi.lib.protocol.matcher.internal.Disjunction;
 import de.sayayi.lib.protocol.matcher.internal.JunctionAdapter;
+import de.sayayi.lib.protocol.matcher.internal.MatcherOptimizer;
 import de.sayayi.lib.protocol.matcher.internal.TagNamesMessageAdapter;
 
 import org.jetbrains.annotations.Contract;
@@ -102,6 +105,69 @@ public interface MessageMatcher
   }
 
 
+  /**
+   * <p>
+   *   Compiles this message matcher into a specialized matcher which evaluates the complete
+   *   matcher tree in a single loop instead of traversing the tree for every message.
+   * </p>
+   * <p>
+   *   Compilation is worthwhile for complex matchers which are evaluated for many messages. The
+   *   compiled matcher is equivalent to this matcher, but modifications made to the returned
+   *   matcher (by using {@link Junction#and(MessageMatcher)} etc.) are not compiled.
+   * </p>
+   *
+   * @return  compiled message matcher, never {@code null}
+   *
+   * @since 1.6.0
+   */
+  @Contract(pure = true)
+  default @NotNull Junction compile() {
+    return CompiledMatcher.of(this);
+  }
+
+
+  /**
+   * <p>
+   *   Returns a message matcher which is equivalent to this matcher, but where every conjunction
+   *   and disjunction adapts the evaluation order of its matchers at runtime.
+   * </p>
+   * <p>
+   *   Matchers which are cheap to evaluate and most likely decide the outcome ({@code false} for
+   *   a conjunction, {@code true} for a disjunction) are moved to the front, based on statistics
+   *   sampled from a fraction of the evaluations. This is worthwhile for long-lived matchers
+   *   which are evaluated for many messages and where the optimal order is not known in advance.
+   * </p>
+   *
+   * @return  adaptive message matcher, never {@code null}
+   *
+   * @since 1.6.0
+   */
+  @Contract(pure = true)
+  default @NotNull Junction adaptive() {
+    return AdaptiveOrder.adapt(this);
+  }
+
+
+  /**
+   * <p>
+   *   Returns an optimized message matcher which is equivalent to this matcher.
+   * </p>
+   * <p>
+   *   The optimizer pushes negations inward, merges level ranges, combines tag checks into set
+   *   based checks and removes redundant terms. Contradicting terms result in a matcher which
+   *   matches no message at all.
+   * </p>
+   *
+   * @return  optimized message matcher, never {@code null}
+   *
+   * @since 1.6.0
+   */
+  @Contract(pure = true)
+  default @NotNull Junction optimize() {
+    return MatcherOptimizer.optimize(this);
+  }
+
+
   /**
    * <p>
    *   Converts a message matcher to a matcher which implements the {@link Junction} interface.
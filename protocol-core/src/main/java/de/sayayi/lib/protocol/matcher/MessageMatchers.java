@@ -18,29 +18,32 @@ package de.sayayi.lib.protocol.matcher;
 import de.sayayi.lib.protocol.Level;
 import de.sayayi.lib.protocol.Protocol;
 import de.sayayi.lib.protocol.ProtocolEntry.Message;
-import de.sayayi.lib.protocol.ProtocolGroup;
 import de.sayayi.lib.protocol.TagSelector;
 import de.sayayi.lib.protocol.matcher.MessageMatcher.Junction;
-import de.sayayi.lib.protocol.matcher.internal.Conjunction;
-import de.sayayi.lib.protocol.matcher.internal.Disjunction;
+import de.sayayi.lib.protocol.matcher.internal.BetweenMatcher;
+import de.sayayi.lib.protocol.matcher.internal.GroupNameMatcher;
 import de.sayayi.lib.protocol.matcher.internal.LevelMatcher;
+import de.sayayi.lib.protocol.matcher.internal.MessageIdMatcher;
 import de.sayayi.lib.protocol.matcher.internal.Negation;
+import de.sayayi.lib.protocol.matcher.internal.ParameterMatcher;
+import de.sayayi.lib.protocol.matcher.internal.ParameterValueMatcher;
+import de.sayayi.lib.protocol.matcher.internal.ProtocolInstanceMatcher;
+import de.sayayi.lib.protocol.matcher.internal.TagMatcher;
+import de.sayayi.lib.protocol.matcher.internal.TagSetMatcher;
+import de.sayayi.lib.protocol.matcher.internal.ThrowableMatcher;
 
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Collection;
 import java.util.List;
-import java.util.Objects;
 import java.util.TreeSet;
-import java.util.regex.Pattern;
 
-import static de.sayayi.lib.protocol.Level.Shared.HIGHEST;
-import static de.sayayi.lib.protocol.Level.compare;
-import static de.sayayi.lib.protocol.Level.min;
 import static de.sayayi.lib.protocol.ProtocolFactory.DEFAULT_TAG_NAME;
 import static de.sayayi.lib.protocol.matcher.internal.BooleanMatcher.ANY;
 import static de.sayayi.lib.protocol.matcher.internal.BooleanMatcher.NONE;
+import static de.sayayi.lib.protocol.matcher.internal.TagSetMatcher.Mode.ALL_OF;
+import static de.sayayi.lib.protocol.matcher.internal.TagSetMatcher.Mode.ANY_OF;
 import static java.util.Objects.requireNonNull;
 
 
@@ -84,18 +87,7 @@ public final class MessageMatchers
   }
 
 
-  static final Junction HAS_THROWABLE_MATCHER = new Junction() {
-    @Override
-    public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message) {
-      return message.getThrowable() != null;
-    }
-
-
-    @Override
-    public String toString() {
-      return "throwable";
-    }
-  };
+  static final Junction HAS_THROWABLE_MATCHER = ThrowableMatcher.ANY_THROWABLE;
 
 
   /**
@@ -118,52 +110,14 @@ public final class MessageMatchers
    * @return  throwable message matcher, never {@code null}
    */
   @Contract(pure = true)
-  public static @NotNull Junction hasThrowable(@NotNull Class<? extends Throwable> type)
-  {
-    if (requireNonNull(type) == Throwable.class)
-      return HAS_THROWABLE_MATCHER;
-
-    return new Junction() {
-      @Override
-      public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message) {
-        return type.isInstance(message.getThrowable());
-      }
-
-
-      @Override
-      public String toString() {
-        return "throwable(" + type.getName() + ')';
-      }
-    };
+  public static @NotNull Junction hasThrowable(@NotNull Class<? extends Throwable> type) {
+    return ThrowableMatcher.of(type);
   }
 
 
   @Contract(pure = true)
-  public static @NotNull Junction hasTag(@NotNull String tagName)
-  {
-    if (tagName.isEmpty())
-      return NONE;
-    else if (DEFAULT_TAG_NAME.equals(tagName))
-      return ANY;
-
-    return new Junction() {
-      @Override
-      public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message) {
-        return message.hasTag(tagName);
-      }
-
-
-      @Override
-      public boolean isTagSelector() {
-        return true;
-      }
-
-
-      @Override
-      public String toString() {
-        return "tag(" + tagName + ')';
-      }
-    };
+  public static @NotNull Junction hasTag(@NotNull String tagName) {
+    return TagMatcher.of(tagName);
   }
 
 
@@ -178,9 +132,9 @@ public final class MessageMatchers
     else if (uniqueTagNames.isEmpty())
       return NONE;
 
-    return Disjunction.of(uniqueTagNames.stream()
-        .map(MessageMatchers::hasTag)
-        .toArray(MessageMatcher[]::new));
+    return uniqueTagNames.size() == 1
+        ? hasTag(uniqueTagNames.first())
+        : TagSetMatcher.of(ANY_OF, uniqueTagNames);
   }
 
 
@@ -201,9 +155,9 @@ public final class MessageMatchers
     else if (uniqueTagNames.isEmpty())
       return hasDefaultTag ? ANY : NONE;
 
-    return Conjunction.of(uniqueTagNames.stream()
-        .map(MessageMatchers::hasTag)
-        .toArray(MessageMatcher[]::new));
+    return uniqueTagNames.size() == 1
+        ? hasTag(uniqueTagNames.first())
+        : TagSetMatcher.of(ALL_OF, uniqueTagNames);
   }
 
 
@@ -232,70 +186,20 @@ public final class MessageMatchers
 
 
   @Contract(pure = true)
-  public static @NotNull Junction hasParam(@NotNull String parameterName)
-  {
-    if (parameterName.isEmpty())
-      return NONE;
-
-    return new Junction() {
-      @Override
-      public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message) {
-        return message.getParameterValues().containsKey(parameterName);
-      }
-
-
-      @Override
-      public String toString() {
-        return "has-param(" + parameterName + ')';
-      }
-    };
+  public static @NotNull Junction hasParam(@NotNull String parameterName) {
+    return ParameterMatcher.of(parameterName, false);
   }
 
 
   @Contract(pure = true)
-  public static @NotNull Junction hasParamValue(@NotNull String parameterName)
-  {
-    if (parameterName.isEmpty())
-      return NONE;
-
-    return new Junction() {
-      @Override
-      public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message) {
-        return message.getParameterValues().get(parameterName) != null;
-      }
-
-
-      @Override
-      public String toString() {
-        return "has-param-value(" + parameterName + ')';
-      }
-    };
+  public static @NotNull Junction hasParamValue(@NotNull String parameterName) {
+    return ParameterMatcher.of(parameterName, true);
   }
 
 
   @Contract(pure = true)
-  public static @NotNull Junction hasParamValue(@NotNull String parameterName, Object value)
-  {
-    if (parameterName.isEmpty())
-      return NONE;
-
-    return new Junction() {
-      @Override
-      public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message)
-      {
-        var parameterValues = message.getParameterValues();
-
-        return value == null
-            ? parameterValues.containsKey(parameterName) && parameterValues.get(parameterName) == null
-            : Objects.equals(parameterValues.get(parameterName), value);
-      }
-
-
-      @Override
-      public String toString() {
-        return "has-param-value(" + parameterName + ',' + value + ')';
-      }
-    };
+  public static @NotNull Junction hasParamValue(@NotNull String parameterName, Object value) {
+    return ParameterValueMatcher.of(parameterName, value);
   }
 
 
@@ -367,7 +271,7 @@ public final class MessageMatchers
    * @return  matcher instance which checks for messages with level &gt;= {@code level},
    *          never {@code null}
    */
-  @Contract(value = "_ -> new", pure = true)
+  @Contract(pure = true)
   public static @NotNull Junction is(@NotNull Level level) {
     return LevelMatcher.of(requireNonNull(level));
   }
@@ -384,25 +288,8 @@ public final class MessageMatchers
    *          and {@code levelHigh}
    */
   @Contract(pure = true)
-  public static @NotNull Junction between(@NotNull Level levelLow, @NotNull Level levelHigh)
-  {
-    if (Level.equals(levelHigh, HIGHEST))
-      return is(levelLow);
-
-    return new Junction() {
-      @Override
-      public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message)
-      {
-        var messageLevel = min(message.getLevel(), levelLimit);
-        return compare(messageLevel, levelLow) >= 0 && compare(messageLevel, levelHigh) <= 0;
-      }
-
-
-      @Override
-      public String toString() {
-        return "between(" + levelLow + "," + levelHigh + ')';
-      }
-    };
+  public static @NotNull Junction between(@NotNull Level levelLow, @NotNull Level levelHigh) {
+    return BetweenMatcher.of(levelLow, levelHigh);
   }
 
 
@@ -415,23 +302,8 @@ public final class MessageMatchers
    *          never {@code null}
    */
   @Contract(pure = true)
-  public static @NotNull Junction hasMessage(@NotNull String messageId)
-  {
-    if (messageId.isEmpty())
-      return NONE;
-
-    return new Junction() {
-      @Override
-      public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message) {
-        return message.getMessageId().equals(messageId);
-      }
-
-
-      @Override
-      public String toString() {
-        return "message(" + messageId + ')';
-      }
-    };
+  public static @NotNull Junction hasMessage(@NotNull String messageId) {
+    return MessageIdMatcher.of(messageId);
   }
 
 
@@ -489,20 +361,7 @@ public final class MessageMatchers
     if (requireNonNull(groupName).isEmpty())
       return IN_GROUP_MATCHER;
 
-    return new Junction() {
-      @Override
-      public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message)
-      {
-        var protocol = message.getProtocol();
-        return protocol.isProtocolGroup() && groupName.equals(((ProtocolGroup<M>)protocol).getName());
-      }
-
-
-      @Override
-      public String toString() {
-        return "in-group('" + groupName + "')";
-      }
-    };
+    return GroupNameMatcher.of(groupName);
   }
 
 
@@ -520,30 +379,8 @@ public final class MessageMatchers
    * @since 1.1.0
    */
   @Contract(pure = true)
-  public static @NotNull Junction inGroupRegex(@NotNull String groupNameRegex)
-  {
-    final var pattern = Pattern.compile(requireNonNull(groupNameRegex));
-
-    return new Junction() {
-      @Override
-      public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message)
-      {
-        var protocol = message.getProtocol();
-        if (protocol.isProtocolGroup())
-        {
-          var groupName = ((ProtocolGroup<M>)protocol).getName();
-          return groupName != null && pattern.matcher(groupName).matches();
-        }
-
-        return false;
-      }
-
-
-      @Override
-      public String toString() {
-        return "in-group-regex('" + groupNameRegex + "')";
-      }
-    };
+  public static @NotNull Junction inGroupRegex(@NotNull String groupNameRegex) {
+    return GroupNameMatcher.ofRegex(groupNameRegex);
   }
 
 
@@ -585,25 +422,8 @@ public final class MessageMatchers
    *
    * @since 1.1.0
    */
-  @Contract(value = "_ -> new", pure = true)
-  public static @NotNull Junction inProtocol(@NotNull Protocol<?> protocol)
-  {
-    final var protocolFactory = protocol.getFactory();
-    final var protocolId = protocol.getId();
-
-    return new Junction() {
-      @Override
-      public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message)
-      {
-        var protocol = message.getProtocol();
-        return protocol.getFactory() == protocolFactory && protocol.getId() == protocolId;
-      }
-
-
-      @Override
-      public String toString() {
-        return "in-protocol(" + protocolId + ')';
-      }
-    };
+  @Contract(pure = true)
+  public static @NotNull Junction inProtocol(@NotNull Protocol<?> protocol) {
+    return ProtocolInstanceMatcher.of(protocol);
   }
 }
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.internal;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.ProtocolEntry.Message;
+import de.sayayi.lib.protocol.matcher.MessageMatcher;
+import de.sayayi.lib.protocol.matcher.MessageMatcher.Junction;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.stream.IntStream;
+
+import static java.lang.System.nanoTime;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * <p>
+ *   Adaptive evaluation order for the matchers of a conjunction or disjunction.
+ * </p>
+ * <p>
+ *   Every 16th evaluation is sampled: for each evaluated matcher the number of evaluations, the
+ *   number of short-circuiting results ({@code false} for a conjunction, {@code true} for a
+ *   disjunction) and the evaluation time are recorded. After a number of samples the matchers
+ *   are reordered by expected cost per short-circuit, so that cheap and selective matchers are
+ *   evaluated first. Older statistics are halved on each reordering, allowing the order to
+ *   follow changing message distributions.
+ * </p>
+ * <p>
+ *   Statistics are collected without synchronization. Lost updates caused by concurrent
+ *   evaluations only affect the quality of the ordering, never the result of an evaluation.
+ * </p>
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class AdaptiveOrder
+{
+  private static final int SAMPLE_MASK = 0xf;
+  private static final int REORDER_SAMPLES = 256;
+
+  private final @NotNull MessageMatcher[] matchers;
+  private final boolean shortCircuitResult;
+
+  private final long[] evaluations;
+  private final long[] shortCircuits;
+  private final long[] costNanos;
+
+  private volatile int[] order;
+  private int evaluationCount;
+  private int sampleCount;
+
+
+  AdaptiveOrder(@NotNull Collection<MessageMatcher> matchers, boolean shortCircuitResult)
+  {
+    this.matchers = matchers.toArray(MessageMatcher[]::new);
+    this.shortCircuitResult = shortCircuitResult;
+
+    final int n = this.matchers.length;
+
+    evaluations = new long[n];
+    shortCircuits = new long[n];
+    costNanos = new long[n];
+    order = IntStream.range(0, n).toArray();
+  }
+
+
+  <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message)
+  {
+    final var order = this.order;
+
+    if ((++evaluationCount & SAMPLE_MASK) == 0)
+      return matchesSampled(order, levelLimit, message);
+
+    for(var idx: order)
+      if (matchers[idx].matches(levelLimit, message) == shortCircuitResult)
+        return shortCircuitResult;
+
+    return !shortCircuitResult;
+  }
+
+
+  private <M> boolean matchesSampled(int @NotNull [] order, @NotNull Level levelLimit,
+                                     @NotNull Message<M> message)
+  {
+    var result = !shortCircuitResult;
+
+    for(var idx: order)
+    {
+      final long start = nanoTime();
+      final boolean matches = matchers[idx].matches(levelLimit, message);
+
+      costNanos[idx] += nanoTime() - start;
+      evaluations[idx]++;
+
+      if (matches == shortCircuitResult)
+      {
+        shortCircuits[idx]++;
+        result = shortCircuitResult;
+        break;
+      }
+    }
+
+    if (++sampleCount >= REORDER_SAMPLES)
+      reorder();
+
+    return result;
+  }
+
+
+  @Contract(pure = true)
+  int @NotNull [] getOrder() {
+    return order.clone();
+  }
+
+
+  private synchronized void reorder()
+  {
+    if (sampleCount < REORDER_SAMPLES)
+      return;
+
+    sampleCount = 0;
+
+    final int n = matchers.length;
+    long totalCost = 0;
+    long totalEvaluations = 0;
+
+    for(int i = 0; i < n; i++)
+    {
+      totalCost += costNanos[i];
+      totalEvaluations += evaluations[i];
+    }
+
+    // matchers which have never been evaluated are assumed to have average cost
+    final double averageCost = totalEvaluations == 0 ? 1.0 : (double)totalCost / totalEvaluations;
+    final double[] score = new double[n];
+
+    for(int i = 0; i < n; i++)
+    {
+      final double cost = evaluations[i] == 0 ? averageCost : (double)costNanos[i] / evaluations[i];
+      final double shortCircuitProbability = (shortCircuits[i] + 1.0) / (evaluations[i] + 2.0);
+
+      score[i] = Math.max(cost, 1.0) / shortCircuitProbability;
+
+      evaluations[i] >>= 1;
+      shortCircuits[i] >>= 1;
+      costNanos[i] >>= 1;
+    }
+
+    order = IntStream
+        .of(order)
+        .boxed()
+        .sorted(Comparator.comparingDouble(idx -> score[idx]))
+        .mapToInt(Integer::intValue)
+        .toArray();
+  }
+
+
+  /**
+   * Returns a matcher equivalent to {@code matcher}, where every conjunction and disjunction
+   * adapts the evaluation order of its matchers based on collected statistics.
+   *
+   * @param matcher  matcher, not {@code null}
+   *
+   * @return  adaptive matcher, never {@code null}
+   */
+  @Contract(pure = true)
+  public static @NotNull Junction adapt(@NotNull MessageMatcher matcher)
+  {
+    requireNonNull(matcher, "matcher must not be null");
+
+    if (matcher instanceof JunctionAdapter)
+      return adapt(((JunctionAdapter)matcher).getMatcher());
+
+    if (matcher instanceof Negation)
+      return Negation.ofTransient(adapt(((Negation)matcher).getMatcher()));
+
+    if (matcher instanceof Conjunction)
+      return new Conjunction(adapt(((Conjunction)matcher).getMatchers()), true);
+
+    if (matcher instanceof Disjunction)
+      return new Disjunction(adapt(((Disjunction)matcher).getMatchers()), true);
+
+    return matcher.asJunction();
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull LinkedHashSet<MessageMatcher> adapt(
+      @NotNull Collection<MessageMatcher> matchers)
+  {
+    final var adaptedMatchers = new LinkedHashSet<MessageMatcher>();
+
+    for(var matcher: matchers)
+      adaptedMatchers.add(adapt(matcher));
+
+    return adaptedMatchers;
+  }
+}
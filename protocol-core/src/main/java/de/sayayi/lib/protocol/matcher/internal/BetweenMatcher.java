@@ -0,0 +1,105 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.internal;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.ProtocolEntry.Message;
+import de.sayayi.lib.protocol.matcher.MessageMatcher.Junction;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import static de.sayayi.lib.protocol.Level.Shared.HIGHEST;
+import static de.sayayi.lib.protocol.Level.compare;
+import static de.sayayi.lib.protocol.Level.min;
+import static de.sayayi.lib.protocol.matcher.internal.BooleanMatcher.NONE;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class BetweenMatcher implements Junction
+{
+  private final Level levelLow;
+  private final Level levelHigh;
+
+
+  private BetweenMatcher(@NotNull Level levelLow, @NotNull Level levelHigh)
+  {
+    this.levelLow = levelLow;
+    this.levelHigh = levelHigh;
+  }
+
+
+  @Contract(pure = true)
+  @NotNull Level getLevelLow() {
+    return levelLow;
+  }
+
+
+  @Contract(pure = true)
+  @NotNull Level getLevelHigh() {
+    return levelHigh;
+  }
+
+
+  @Override
+  public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message)
+  {
+    var messageLevel = min(message.getLevel(), levelLimit);
+    return compare(messageLevel, levelLow) >= 0 && compare(messageLevel, levelHigh) <= 0;
+  }
+
+
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o)
+      return true;
+    if (!(o instanceof BetweenMatcher))
+      return false;
+
+    final var that = (BetweenMatcher)o;
+
+    return Level.equals(levelLow, that.levelLow) && Level.equals(levelHigh, that.levelHigh);
+  }
+
+
+  @Override
+  public int hashCode() {
+    return levelLow.severity() * 31 + levelHigh.severity();
+  }
+
+
+  @Override
+  public String toString() {
+    return "between(" + levelLow + "," + levelHigh + ')';
+  }
+
+
+  @Contract(pure = true)
+  public static @NotNull Junction of(@NotNull Level levelLow, @NotNull Level levelHigh)
+  {
+    if (compare(requireNonNull(levelLow), requireNonNull(levelHigh)) > 0)
+      return NONE;
+    if (Level.equals(levelHigh, HIGHEST))
+      return LevelMatcher.of(levelLow);
+
+    return MatcherInterner.intern(new BetweenMatcher(levelLow, levelHigh));
+  }
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.internal;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.ProtocolEntry.Message;
+import de.sayayi.lib.protocol.matcher.MessageMatcher;
+import de.sayayi.lib.protocol.matcher.MessageMatcher.Junction;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static de.sayayi.lib.protocol.Level.min;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * A message matcher tree compiled into a flat instruction array.
+ * <p>
+ * Every instruction consists of an opcode and an operand. Level comparisons and tag checks are
+ * evaluated inline, conjunctions and disjunctions are translated into short-circuit jumps and all
+ * other matchers are invoked as is. The resulting program is interpreted in a single loop, with a
+ * boolean accumulator holding the result of the most recently evaluated term.
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class CompiledMatcher implements Junction
+{
+  private static final int OP_TRUE = 0;
+  private static final int OP_FALSE = 1;
+  private static final int OP_LEVEL_MIN = 2;
+  private static final int OP_LEVEL_MAX = 3;
+  private static final int OP_TAG = 4;
+  private static final int OP_CALL = 5;
+  private static final int OP_NOT = 6;
+  private static final int OP_JUMP_IF_FALSE = 7;
+  private static final int OP_JUMP_IF_TRUE = 8;
+
+  private final @NotNull MessageMatcher matcher;
+  private final int @NotNull [] code;
+  private final @NotNull String[] tagNames;
+  private final @NotNull MessageMatcher[] matchers;
+
+  // residual matchers by protocol dependent term outcome, see ProtocolSpecializer
+  volatile ProtocolSpecializer.Specialization specialization;
+
+
+  private CompiledMatcher(@NotNull MessageMatcher matcher, @NotNull Compiler compiler)
+  {
+    this.matcher = matcher;
+
+    code = Arrays.copyOf(compiler.code, compiler.size);
+    tagNames = compiler.tagNames.toArray(String[]::new);
+    matchers = compiler.matchers.toArray(MessageMatcher[]::new);
+  }
+
+
+  /**
+   * Returns the matcher this compiled matcher was created from.
+   *
+   * @return  source matcher, never {@code null}
+   */
+  @Contract(pure = true)
+  public @NotNull MessageMatcher getMatcher() {
+    return matcher;
+  }
+
+
+  @Override
+  public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message)
+  {
+    final int[] code = this.code;
+    boolean result = true;
+    Level level = null;
+
+    for(int pc = 0, n = code.length; pc < n; pc += 2)
+    {
+      switch(code[pc])
+      {
+        case OP_TRUE:
+          result = true;
+          break;
+
+        case OP_FALSE:
+          result = false;
+          break;
+
+        case OP_LEVEL_MIN:
+          if (level == null)
+            level = min(message.getLevel(), levelLimit);
+          result = level.severity() >= code[pc + 1];
+          break;
+
+        case OP_LEVEL_MAX:
+          if (level == null)
+            level = min(message.getLevel(), levelLimit);
+          result = level.severity() <= code[pc + 1];
+          break;
+
+        case OP_TAG:
+          result = message.hasTag(tagNames[code[pc + 1]]);
+          break;
+
+        case OP_CALL:
+          result = matchers[code[pc + 1]].matches(levelLimit, message);
+          break;
+
+        case OP_NOT:
+          result = !result;
+          break;
+
+        case OP_JUMP_IF_FALSE:
+          if (!result)
+            pc = code[pc + 1] - 2;
+          break;
+
+        case OP_JUMP_IF_TRUE:
+          if (result)
+            pc = code[pc + 1] - 2;
+          break;
+
+        default:
+          throw new IllegalStateException("illegal opcode " + code[pc]);
+      }
+    }
+
+    return result;
+  }
+
+
+  @Override
+  public boolean isTagSelector() {
+    return matcher.isTagSelector();
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o || o instanceof CompiledMatcher && matcher.equals(((CompiledMatcher)o).matcher);
+  }
+
+
+  @Override
+  public int hashCode() {
+    return matcher.hashCode();
+  }
+
+
+  @Override
+  public String toString() {
+    return matcher.toString();
+  }
+
+
+  /**
+   * Compiles the given {@code matcher} into a flat instruction array. Matchers which consist of a
+   * single term only are returned as is, as compiling them has no benefit.
+   *
+   * @param matcher  matcher to compile, not {@code null}
+   *
+   * @return  compiled matcher, never {@code null}
+   */
+  @Contract(pure = true)
+  public static @NotNull Junction of(@NotNull MessageMatcher matcher)
+  {
+    matcher = unwrap(requireNonNull(matcher, "matcher must not be null"));
+
+    if (!(matcher instanceof Conjunction || matcher instanceof Disjunction ||
+          matcher instanceof Negation || matcher instanceof BetweenMatcher))
+      return matcher.asJunction();
+
+    var compiler = new Compiler();
+    compiler.compile(matcher);
+    compiler.threadJumps();
+
+    return new CompiledMatcher(matcher, compiler);
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull MessageMatcher unwrap(@NotNull MessageMatcher matcher)
+  {
+    while(true)
+    {
+      if (matcher instanceof CompiledMatcher)
+        matcher = ((CompiledMatcher)matcher).matcher;
+      else if (matcher instanceof JunctionAdapter)
+        matcher = ((JunctionAdapter)matcher).getMatcher();
+      else
+        return matcher;
+    }
+  }
+
+
+
+
+  private static final class Compiler
+  {
+    private final List<String> tagNames = new ArrayList<>();
+    private final List<MessageMatcher> matchers = new ArrayList<>();
+
+    private int[] code = new int[32];
+    private int size;
+
+
+    private void compile(@NotNull MessageMatcher matcher)
+    {
+      matcher = unwrap(matcher);
+
+      if (matcher == BooleanMatcher.ANY)
+        emit(OP_TRUE, 0);
+      else if (matcher == BooleanMatcher.NONE)
+        emit(OP_FALSE, 0);
+      else if (matcher instanceof LevelMatcher)
+        emit(OP_LEVEL_MIN, ((LevelMatcher)matcher).getLevel().severity());
+      else if (matcher instanceof BetweenMatcher)
+      {
+        var betweenMatcher = (BetweenMatcher)matcher;
+        emit(OP_LEVEL_MIN, betweenMatcher.getLevelLow().severity());
+        var jump = emit(OP_JUMP_IF_FALSE, 0);
+        emit(OP_LEVEL_MAX, betweenMatcher.getLevelHigh().severity());
+        code[jump + 1] = size;
+      }
+      else if (matcher instanceof TagMatcher)
+        emit(OP_TAG, index(tagNames, ((TagMatcher)matcher).getTagName()));
+      else if (matcher instanceof Negation)
+      {
+        compile(((Negation)matcher).getMatcher());
+        emit(OP_NOT, 0);
+      }
+      else if (matcher instanceof Conjunction)
+        compileJunction(((Conjunction)matcher).getMatchers(), OP_JUMP_IF_FALSE);
+      else if (matcher instanceof Disjunction)
+        compileJunction(((Disjunction)matcher).getMatchers(), OP_JUMP_IF_TRUE);
+      else
+        emit(OP_CALL, index(matchers, matcher));
+    }
+
+
+    private void compileJunction(@NotNull Iterable<MessageMatcher> junctionMatchers, int jumpOpcode)
+    {
+      var jumps = new ArrayList<Integer>();
+
+      for(var iterator = junctionMatchers.iterator(); iterator.hasNext();)
+      {
+        compile(iterator.next());
+
+        if (iterator.hasNext())
+          jumps.add(emit(jumpOpcode, 0));
+      }
+
+      for(var jump: jumps)
+        code[jump + 1] = size;
+    }
+
+
+    /**
+     * Redirect jumps which target another jump instruction. As jumps do not modify the
+     * accumulator, a jump onto a jump with the same condition can jump to its target directly and
+     * a jump onto a jump with the opposite condition can skip it.
+     */
+    private void threadJumps()
+    {
+      for(int pc = 0; pc < size; pc += 2)
+      {
+        var opcode = code[pc];
+        if (opcode != OP_JUMP_IF_FALSE && opcode != OP_JUMP_IF_TRUE)
+          continue;
+
+        var target = code[pc + 1];
+
+        while(target < size && (code[target] == OP_JUMP_IF_FALSE || code[target] == OP_JUMP_IF_TRUE))
+          target = code[target] == opcode ? code[target + 1] : target + 2;
+
+        code[pc + 1] = target;
+      }
+    }
+
+
+    private int emit(int opcode, int operand)
+    {
+      if (size + 2 > code.length)
+        code = Arrays.copyOf(code, code.length * 2);
+
+      code[size] = opcode;
+      code[size + 1] = operand;
+
+      var pc = size;
+      size += 2;
+
+      return pc;
+    }
+
+
+    private static <T> int index(@NotNull List<T> list, @NotNull T value)
+    {
+      var idx = list.indexOf(value);
+      if (idx == -1)
+      {
+        idx = list.size();
+        list.add(value);
+      }
+
+      return idx;
+    }
+  }
+}
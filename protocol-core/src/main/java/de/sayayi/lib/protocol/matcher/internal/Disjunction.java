@@ -40,15 +40,38 @@ import static java.util.stream.Collectors.joining;
 public final class Disjunction implements Junction
 {
   private final Set<MessageMatcher> matchers;
+  private final AdaptiveOrder adaptiveOrder;
+  private int hashCode;
 
+  // residual matchers by protocol dependent term outcome, see ProtocolSpecializer
+  volatile ProtocolSpecializer.Specialization specialization;
 
-  private Disjunction(@NotNull Set<MessageMatcher> matchers) {
+
+  Disjunction(@NotNull Set<MessageMatcher> matchers, boolean adaptive)
+  {
     this.matchers = matchers;
+
+    adaptiveOrder = adaptive ? new AdaptiveOrder(matchers, true) : null;
+  }
+
+
+  @Contract(pure = true)
+  @NotNull Set<MessageMatcher> getMatchers() {
+    return matchers;
+  }
+
+
+  @Contract(pure = true)
+  boolean isAdaptive() {
+    return adaptiveOrder != null;
   }
 
 
   public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> target)
   {
+    if (adaptiveOrder != null)
+      return adaptiveOrder.matches(levelLimit, target);
+
     for(var matcher: matchers)
       if (matcher.matches(levelLimit, target))
         return true;
@@ -64,14 +87,33 @@ public final class Disjunction implements Junction
 
 
   @Override
-  public boolean equals(Object o) {
-    return this == o || o instanceof Disjunction && matchers.equals(((Disjunction)o).matchers);
+  public boolean equals(Object o)
+  {
+    if (this == o)
+      return true;
+    if (!(o instanceof Disjunction))
+      return false;
+
+    final var that = (Disjunction)o;
+
+    // adaptive junctions carry mutable statistics, so they are equal to themselves only
+    return adaptiveOrder == null && that.adaptiveOrder == null &&
+        MatcherInterner.equalsInOrder(matchers, that.matchers);
   }
 
 
   @Override
-  public int hashCode() {
-    return matchers.hashCode();
+  public int hashCode()
+  {
+    var h = hashCode;
+    if (h == 0)
+    {
+      hashCode = h = adaptiveOrder == null
+          ? MatcherInterner.hashCodeInOrder(matchers)
+          : System.identityHashCode(this);
+    }
+
+    return h;
   }
 
 
@@ -86,7 +128,30 @@ public final class Disjunction implements Junction
 
 
   @Contract(pure = true)
-  public static @NotNull Junction of(@NotNull MessageMatcher... matcher)
+  public static @NotNull Junction of(@NotNull MessageMatcher... matcher) {
+    return of(true, matcher);
+  }
+
+
+  /**
+   * Creates a disjunction which is not interned. This is used for matchers owned by another
+   * matcher, like the residual matchers created when specializing a matcher for a protocol, as
+   * interning them would contend for the intern table without any benefit.
+   *
+   * @param matcher  matchers, not {@code null}
+   *
+   * @return  disjunction, never {@code null}
+   *
+   * @since 1.6.0
+   */
+  @Contract(pure = true)
+  static @NotNull Junction ofTransient(@NotNull MessageMatcher... matcher) {
+    return of(false, matcher);
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull Junction of(boolean intern, @NotNull MessageMatcher... matcher)
   {
     if (matcher.length == 0)
       throw new MessageMatcherException("matcher must not be empty");
@@ -115,6 +180,11 @@ public final class Disjunction implements Junction
     if (matchers.size() > 1)
       matchers.remove(NONE);
 
-    return matchers.size() == 1 ? matchers.iterator().next().asJunction() : new Disjunction(matchers);
+    if (matchers.size() == 1)
+      return matchers.iterator().next().asJunction();
+
+    final var junction = new Disjunction(matchers, false);
+
+    return intern ? MatcherInterner.intern(junction) : junction;
   }
 }
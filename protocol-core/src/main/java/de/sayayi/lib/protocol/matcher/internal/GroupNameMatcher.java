@@ -0,0 +1,137 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.internal;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.Protocol;
+import de.sayayi.lib.protocol.ProtocolEntry.Message;
+import de.sayayi.lib.protocol.ProtocolGroup;
+import de.sayayi.lib.protocol.matcher.MessageMatcher.Junction;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.regex.Pattern;
+
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Matcher for messages contained in a protocol group with a given name or with a name matching
+ * a regular expression.
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class GroupNameMatcher implements Junction
+{
+  private final String groupName;
+  private final Pattern pattern;
+
+
+  private GroupNameMatcher(@NotNull String groupName, Pattern pattern)
+  {
+    this.groupName = groupName;
+    this.pattern = pattern;
+  }
+
+
+  @Contract(pure = true)
+  @NotNull String getGroupName() {
+    return groupName;
+  }
+
+
+  @Contract(pure = true)
+  boolean isRegex() {
+    return pattern != null;
+  }
+
+
+  @Override
+  public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message) {
+    return matches(message.getProtocol());
+  }
+
+
+  @Contract(pure = true)
+  boolean matches(@NotNull Protocol<?> protocol)
+  {
+    if (!protocol.isProtocolGroup())
+      return false;
+
+    final var name = ((ProtocolGroup<?>)protocol).getName();
+
+    return pattern == null
+        ? groupName.equals(name)
+        : name != null && pattern.matcher(name).matches();
+  }
+
+
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o)
+      return true;
+    if (!(o instanceof GroupNameMatcher))
+      return false;
+
+    final var that = (GroupNameMatcher)o;
+
+    return (pattern == null) == (that.pattern == null) && groupName.equals(that.groupName);
+  }
+
+
+  @Override
+  public int hashCode() {
+    return groupName.hashCode() * 31 + (pattern == null ? 0 : 1);
+  }
+
+
+  @Override
+  public String toString() {
+    return (pattern == null ? "in-group('" : "in-group-regex('") + groupName + "')";
+  }
+
+
+  /**
+   * Creates a matcher for messages contained in a protocol group named {@code groupName}.
+   *
+   * @param groupName  group name, not {@code null}
+   *
+   * @return  group name matcher, never {@code null}
+   */
+  @Contract(pure = true)
+  public static @NotNull Junction of(@NotNull String groupName) {
+    return MatcherInterner.intern(new GroupNameMatcher(requireNonNull(groupName), null));
+  }
+
+
+  /**
+   * Creates a matcher for messages contained in a protocol group with a name matching
+   * {@code groupNameRegex}.
+   *
+   * @param groupNameRegex  regular expression for the group name, not {@code null}
+   *
+   * @return  group name matcher, never {@code null}
+   */
+  @Contract(pure = true)
+  public static @NotNull Junction ofRegex(@NotNull String groupNameRegex)
+  {
+    return MatcherInterner.intern(
+        new GroupNameMatcher(groupNameRegex, Pattern.compile(requireNonNull(groupNameRegex))));
+  }
+}
@@ -20,6 +20,7 @@ import de.sayayi.lib.protocol.ProtocolEntry.Message;
 import de.sayayi.lib.protocol.TagSelector;
 import de.sayayi.lib.protocol.matcher.MessageMatcher;
 
+import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
 
@@ -37,6 +38,12 @@ public final class JunctionAdapter implements MessageMatcher.Junction
   }
 
 
+  @Contract(pure = true)
+  @NotNull MessageMatcher getMatcher() {
+    return matcher;
+  }
+
+
   @Override
   public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message) {
     return matcher.matches(levelLimit, message);
@@ -48,6 +48,12 @@ public final class LevelMatcher implements Junction
   }
 
 
+  @Contract(pure = true)
+  @NotNull Level getLevel() {
+    return level;
+  }
+
+
   @Override
   public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message) {
     return compare(min(message.getLevel(), levelLimit), level) >= 0;
@@ -92,6 +98,6 @@ public final class LevelMatcher implements Junction
     else if (level.severity() == LOWEST.severity())
       return ANY;
     else
-      return new LevelMatcher(level);
+      return MatcherInterner.intern(new LevelMatcher(level));
   }
 }
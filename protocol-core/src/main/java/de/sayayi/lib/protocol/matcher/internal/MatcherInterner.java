@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.internal;
+
+import de.sayayi.lib.protocol.matcher.MessageMatcher;
+import de.sayayi.lib.protocol.matcher.MessageMatcher.Junction;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+
+/**
+ * Intern table for built-in matchers.
+ * <p>
+ * All built-in matchers are immutable value types. Interning them makes structurally equal
+ * matchers the same instance, which allows them to be used as cache keys and lets junctions
+ * detect duplicate terms. Entries are held weakly and disappear as soon as a matcher is no
+ * longer referenced.
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+final class MatcherInterner
+{
+  private static final Map<Junction,WeakReference<Junction>> INTERNED_MATCHERS = new WeakHashMap<>();
+
+
+  private MatcherInterner() {
+  }
+
+
+  /**
+   * Returns the canonical instance for the given {@code matcher}.
+   *
+   * @param matcher  matcher to intern, not {@code null}
+   *
+   * @return  interned matcher equal to {@code matcher}, never {@code null}
+   */
+  @Contract(pure = true)
+  @SuppressWarnings("unchecked")
+  static <J extends Junction> @NotNull J intern(@NotNull J matcher)
+  {
+    synchronized(INTERNED_MATCHERS) {
+      final var internedMatcherRef = INTERNED_MATCHERS.get(matcher);
+
+      if (internedMatcherRef != null)
+      {
+        final var internedMatcher = internedMatcherRef.get();
+        if (internedMatcher != null)
+          return (J)internedMatcher;
+      }
+
+      INTERNED_MATCHERS.put(matcher, new WeakReference<>(matcher));
+    }
+
+    return matcher;
+  }
+
+
+  /**
+   * Compares the matchers of two junctions, including their order. The order determines the
+   * evaluation order and the string representation, so junctions with the same matchers in a
+   * different order must not be interned as the same instance.
+   *
+   * @param matchers1  first matcher collection, not {@code null}
+   * @param matchers2  second matcher collection, not {@code null}
+   *
+   * @return  {@code true} if both collections contain equal matchers in the same order
+   */
+  @Contract(pure = true)
+  static boolean equalsInOrder(@NotNull Collection<MessageMatcher> matchers1,
+                               @NotNull Collection<MessageMatcher> matchers2)
+  {
+    if (matchers1.size() != matchers2.size())
+      return false;
+
+    for(Iterator<MessageMatcher> iterator1 = matchers1.iterator(),
+        iterator2 = matchers2.iterator(); iterator1.hasNext();)
+      if (!iterator1.next().equals(iterator2.next()))
+        return false;
+
+    return true;
+  }
+
+
+  /**
+   * Returns a hash code for {@code matchers} which depends on their order.
+   *
+   * @param matchers  matcher collection, not {@code null}
+   *
+   * @return  hash code
+   */
+  @Contract(pure = true)
+  static int hashCodeInOrder(@NotNull Collection<MessageMatcher> matchers)
+  {
+    int hashCode = 1;
+
+    for(var matcher: matchers)
+      hashCode = 31 * hashCode + matcher.hashCode();
+
+    return hashCode;
+  }
+}
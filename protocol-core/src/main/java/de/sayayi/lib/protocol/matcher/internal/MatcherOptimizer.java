@@ -0,0 +1,541 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.internal;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.matcher.MessageMatcher;
+import de.sayayi.lib.protocol.matcher.MessageMatcher.Junction;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static de.sayayi.lib.protocol.Level.Shared.HIGHEST;
+import static de.sayayi.lib.protocol.Level.Shared.LOWEST;
+import static de.sayayi.lib.protocol.Level.max;
+import static de.sayayi.lib.protocol.Level.min;
+import static de.sayayi.lib.protocol.matcher.internal.BooleanMatcher.ANY;
+import static de.sayayi.lib.protocol.matcher.internal.BooleanMatcher.NONE;
+import static de.sayayi.lib.protocol.matcher.internal.TagSetMatcher.Mode.ALL_OF;
+import static de.sayayi.lib.protocol.matcher.internal.TagSetMatcher.Mode.ANY_OF;
+import static de.sayayi.lib.protocol.matcher.internal.TagSetMatcher.Mode.NONE_OF;
+import static java.util.Comparator.comparingInt;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Boolean optimizer for message matchers.
+ * <p>
+ * The optimizer rewrites a matcher tree into an equivalent tree with fewer terms:
+ * <ul>
+ *   <li>negations are pushed inward using De Morgan's laws</li>
+ *   <li>level and between terms are merged into a single severity range per junction</li>
+ *   <li>tag terms are combined into set based any-of, all-of and none-of checks</li>
+ *   <li>
+ *     contradictions ({@code a and not(a)}, disjoint level ranges) fold to
+ *     {@link BooleanMatcher#NONE}
+ *   </li>
+ *   <li>tautologies ({@code a or not(a)}) fold to {@link BooleanMatcher#ANY}</li>
+ *   <li>absorption removes redundant terms ({@code a and (a or b)} becomes {@code a})</li>
+ * </ul>
+ * Level ranges are placed in front of tag terms, which are placed in front of all other terms,
+ * as they are the cheapest to evaluate.
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class MatcherOptimizer
+{
+  private MatcherOptimizer() {
+  }
+
+
+  /**
+   * Returns an optimized matcher, equivalent to the given {@code matcher}.
+   *
+   * @param matcher  matcher to optimize, not {@code null}
+   *
+   * @return  optimized matcher, never {@code null}
+   */
+  @Contract(pure = true)
+  public static @NotNull Junction optimize(@NotNull MessageMatcher matcher) {
+    return optimize0(requireNonNull(matcher, "matcher must not be null"));
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull Junction optimize0(@NotNull MessageMatcher matcher)
+  {
+    if (matcher instanceof CompiledMatcher)
+      return optimize0(((CompiledMatcher)matcher).getMatcher());
+    else if (matcher instanceof JunctionAdapter)
+      return optimize0(((JunctionAdapter)matcher).getMatcher());
+    else if (matcher instanceof Negation)
+      return negate(optimize0(((Negation)matcher).getMatcher()));
+    else if (matcher instanceof Conjunction)
+      return optimizeJunction(((Conjunction)matcher).getMatchers(), true);
+    else if (matcher instanceof Disjunction)
+      return optimizeJunction(((Disjunction)matcher).getMatchers(), false);
+    else
+      return matcher.asJunction();
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull Junction negate(@NotNull Junction matcher)
+  {
+    if (matcher instanceof Conjunction)
+      return optimizeJunction(negateAll(((Conjunction)matcher).getMatchers()), false);
+    else if (matcher instanceof Disjunction)
+      return optimizeJunction(negateAll(((Disjunction)matcher).getMatchers()), true);
+    else
+      return Negation.of(matcher);
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull List<MessageMatcher> negateAll(
+      @NotNull Collection<MessageMatcher> matchers)
+  {
+    final var negatedMatchers = new ArrayList<MessageMatcher>(matchers.size());
+
+    for(var matcher: matchers)
+      negatedMatchers.add(negate(matcher.asJunction()));
+
+    return negatedMatchers;
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull Junction optimizeJunction(@NotNull Collection<MessageMatcher> matchers,
+                                                    boolean conjunction)
+  {
+    final var identity = conjunction ? ANY : NONE;
+    final var annihilator = conjunction ? NONE : ANY;
+    final var terms = new LinkedHashSet<MessageMatcher>();
+
+    for(var matcher: matchers)
+    {
+      final var optimizedMatcher = optimize0(matcher);
+
+      if (conjunction && optimizedMatcher instanceof Conjunction)
+        terms.addAll(((Conjunction)optimizedMatcher).getMatchers());
+      else if (!conjunction && optimizedMatcher instanceof Disjunction)
+        terms.addAll(((Disjunction)optimizedMatcher).getMatchers());
+      else
+        terms.add(optimizedMatcher);
+    }
+
+    terms.remove(identity);
+    if (terms.contains(annihilator))
+      return annihilator;
+
+    final var levelTerms = new ArrayList<MessageMatcher>();
+    final var tagTerms = new ArrayList<MessageMatcher>();
+    final var otherTerms = new ArrayList<MessageMatcher>();
+
+    for(var term: terms)
+    {
+      if (term instanceof LevelMatcher || term instanceof BetweenMatcher)
+        levelTerms.add(term);
+      else if (isTagTerm(term))
+        tagTerms.add(term);
+      else
+        otherTerms.add(term);
+    }
+
+    final var optimizedTerms = new ArrayList<MessageMatcher>();
+
+    optimizedTerms.addAll(conjunction ? intersectLevels(levelTerms) : unionLevels(levelTerms));
+    optimizedTerms.addAll(conjunction ? conjunctTags(tagTerms) : disjunctTags(tagTerms));
+    optimizedTerms.removeIf(term -> term == identity);
+
+    if (optimizedTerms.contains(annihilator))
+      return annihilator;
+
+    optimizedTerms.addAll(otherTerms);
+
+    // a and not(a) = none, a or not(a) = any
+    for(var term: optimizedTerms)
+      if (optimizedTerms.contains(Negation.of(term)))
+        return annihilator;
+
+    absorb(optimizedTerms, conjunction);
+
+    if (optimizedTerms.isEmpty())
+      return identity;
+    if (optimizedTerms.size() == 1)
+      return optimizedTerms.get(0).asJunction();
+
+    final var optimizedMatchers = optimizedTerms.toArray(MessageMatcher[]::new);
+
+    return conjunction ? Conjunction.of(optimizedMatchers) : Disjunction.of(optimizedMatchers);
+  }
+
+
+  /**
+   * Removes terms which are absorbed by other terms: {@code a and (a or b) = a} and
+   * {@code a or (a and b) = a}.
+   */
+  private static void absorb(@NotNull List<MessageMatcher> terms, boolean conjunction)
+  {
+    for(var iterator = terms.iterator(); iterator.hasNext();)
+    {
+      final var term = iterator.next();
+      final var termChildren = conjunction ? disjuncts(term) : conjuncts(term);
+
+      if (termChildren.size() > 1)
+      {
+        for(var other: terms)
+          if (other != term &&
+              termChildren.containsAll(conjunction ? disjuncts(other) : conjuncts(other)))
+          {
+            iterator.remove();
+            break;
+          }
+      }
+    }
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull Set<MessageMatcher> disjuncts(@NotNull MessageMatcher matcher)
+  {
+    return matcher instanceof Disjunction
+        ? expandTags(((Disjunction)matcher).getMatchers(), ANY_OF)
+        : expandTags(Set.of(matcher), ANY_OF);
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull Set<MessageMatcher> conjuncts(@NotNull MessageMatcher matcher)
+  {
+    return matcher instanceof Conjunction
+        ? expandTags(((Conjunction)matcher).getMatchers(), ALL_OF)
+        : expandTags(Set.of(matcher), ALL_OF);
+  }
+
+
+  /**
+   * Expands tag set matchers with the given {@code mode} into separate tag matchers, so that
+   * absorption detects {@code tag(a) or all-of(a,b)} as well.
+   */
+  @Contract(pure = true)
+  private static @NotNull Set<MessageMatcher> expandTags(@NotNull Set<MessageMatcher> matchers,
+                                                         @NotNull TagSetMatcher.Mode mode)
+  {
+    final var expandedMatchers = new LinkedHashSet<MessageMatcher>();
+
+    for(var matcher: matchers)
+    {
+      if (matcher instanceof TagSetMatcher && ((TagSetMatcher)matcher).getMode() == mode)
+      {
+        for(var tagName: ((TagSetMatcher)matcher).getTagNames())
+          expandedMatchers.add(TagMatcher.of(tagName));
+      }
+      else
+        expandedMatchers.add(matcher);
+    }
+
+    return expandedMatchers;
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull List<MessageMatcher> intersectLevels(
+      @NotNull List<MessageMatcher> levelTerms)
+  {
+    if (levelTerms.size() <= 1)
+      return levelTerms;
+
+    Level levelLow = LOWEST;
+    Level levelHigh = HIGHEST;
+
+    for(var term: levelTerms)
+    {
+      levelLow = max(levelLow, getLevelLow(term));
+      levelHigh = min(levelHigh, getLevelHigh(term));
+    }
+
+    return List.of(BetweenMatcher.of(levelLow, levelHigh));
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull List<MessageMatcher> unionLevels(@NotNull List<MessageMatcher> levelTerms)
+  {
+    if (levelTerms.size() <= 1)
+      return levelTerms;
+
+    levelTerms.sort(comparingInt(term -> getLevelLow(term).severity()));
+
+    final var ranges = new ArrayList<MessageMatcher>();
+    Level levelLow = null;
+    Level levelHigh = null;
+
+    for(var term: levelTerms)
+    {
+      final var termLevelLow = getLevelLow(term);
+
+      // severities are integers, so adjacent ranges can be merged as well
+      if (levelLow != null && termLevelLow.severity() <= (long)levelHigh.severity() + 1)
+        levelHigh = max(levelHigh, getLevelHigh(term));
+      else
+      {
+        if (levelLow != null)
+          ranges.add(BetweenMatcher.of(levelLow, levelHigh));
+
+        levelLow = termLevelLow;
+        levelHigh = getLevelHigh(term);
+      }
+    }
+
+    ranges.add(BetweenMatcher.of(levelLow, levelHigh));
+
+    return ranges;
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull Level getLevelLow(@NotNull MessageMatcher levelTerm)
+  {
+    return levelTerm instanceof LevelMatcher
+        ? ((LevelMatcher)levelTerm).getLevel()
+        : ((BetweenMatcher)levelTerm).getLevelLow();
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull Level getLevelHigh(@NotNull MessageMatcher levelTerm) {
+    return levelTerm instanceof LevelMatcher ? HIGHEST : ((BetweenMatcher)levelTerm).getLevelHigh();
+  }
+
+
+  @Contract(pure = true)
+  private static boolean isTagTerm(@NotNull MessageMatcher term)
+  {
+    if (term instanceof Negation)
+    {
+      final var matcher = ((Negation)term).getMatcher();
+      return matcher instanceof TagMatcher ||
+             matcher instanceof TagSetMatcher && ((TagSetMatcher)matcher).getMode() == ALL_OF;
+    }
+
+    return term instanceof TagMatcher || term instanceof TagSetMatcher;
+  }
+
+
+  /**
+   * Combines the tag terms of a conjunction into at most one all-of term, one none-of term and
+   * the any-of terms which are not satisfied by the all-of term.
+   */
+  @Contract(pure = true)
+  private static @NotNull List<MessageMatcher> conjunctTags(@NotNull List<MessageMatcher> tagTerms)
+  {
+    if (tagTerms.size() <= 1)
+      return tagTerms;
+
+    final var requiredTags = new TreeSet<String>();
+    final var excludedTags = new TreeSet<String>();
+    final var anyOfTags = new ArrayList<Set<String>>();
+    final var otherTerms = new ArrayList<MessageMatcher>();
+
+    for(var term: tagTerms)
+    {
+      if (term instanceof TagMatcher)
+        requiredTags.add(((TagMatcher)term).getTagName());
+      else if (term instanceof TagSetMatcher)
+      {
+        final var tagSetMatcher = (TagSetMatcher)term;
+        final var tagNames = Set.of(tagSetMatcher.getTagNames());
+
+        switch(tagSetMatcher.getMode())
+        {
+          case ALL_OF:
+            requiredTags.addAll(tagNames);
+            break;
+
+          case NONE_OF:
+            excludedTags.addAll(tagNames);
+            break;
+
+          default:
+            anyOfTags.add(tagNames);
+            break;
+        }
+      }
+      else if (((Negation)term).getMatcher() instanceof TagMatcher)
+        excludedTags.add(((TagMatcher)((Negation)term).getMatcher()).getTagName());
+      else
+        otherTerms.add(term);
+    }
+
+    final var remainingAnyOfTags = new ArrayList<Set<String>>();
+
+    for(boolean requiredTagsChanged = true; requiredTagsChanged;)
+    {
+      requiredTagsChanged = false;
+      remainingAnyOfTags.clear();
+
+      anyOf: for(var tagNames: anyOfTags)
+      {
+        final var remainingTags = new TreeSet<String>();
+
+        for(var tagName: tagNames)
+          if (requiredTags.contains(tagName))
+            continue anyOf;
+          else if (!excludedTags.contains(tagName))
+            remainingTags.add(tagName);
+
+        if (remainingTags.isEmpty())
+          return List.of(NONE);
+
+        // any-of with a single remaining tag is a required tag
+        if (remainingTags.size() == 1)
+          requiredTagsChanged |= requiredTags.add(remainingTags.first());
+        else
+          remainingAnyOfTags.add(remainingTags);
+      }
+    }
+
+    for(var requiredTag: requiredTags)
+      if (excludedTags.contains(requiredTag))
+        return List.of(NONE);
+
+    final var tagMatchers = new ArrayList<MessageMatcher>();
+
+    tagMatchers.add(tagSetTerm(ALL_OF, requiredTags));
+    tagMatchers.add(tagSetTerm(NONE_OF, excludedTags));
+
+    for(var tagNames: remainingAnyOfTags)
+      tagMatchers.add(tagSetTerm(ANY_OF, tagNames));
+
+    tagMatchers.addAll(otherTerms);
+
+    return tagMatchers;
+  }
+
+
+  /**
+   * Combines the tag terms of a disjunction into at most one any-of term, one negated all-of
+   * term and the all-of and none-of terms which are not covered by the any-of term.
+   */
+  @Contract(pure = true)
+  private static @NotNull List<MessageMatcher> disjunctTags(@NotNull List<MessageMatcher> tagTerms)
+  {
+    if (tagTerms.size() <= 1)
+      return tagTerms;
+
+    final var anyOfTags = new TreeSet<String>();
+    final var notAllOfTags = new TreeSet<String>();
+    final var allOfTags = new ArrayList<Set<String>>();
+    final var noneOfTags = new ArrayList<Set<String>>();
+
+    for(var term: tagTerms)
+    {
+      if (term instanceof TagMatcher)
+        anyOfTags.add(((TagMatcher)term).getTagName());
+      else if (term instanceof TagSetMatcher)
+      {
+        final var tagSetMatcher = (TagSetMatcher)term;
+        final var tagNames = Set.of(tagSetMatcher.getTagNames());
+
+        switch(tagSetMatcher.getMode())
+        {
+          case ANY_OF:
+            anyOfTags.addAll(tagNames);
+            break;
+
+          case ALL_OF:
+            allOfTags.add(tagNames);
+            break;
+
+          default:
+            noneOfTags.add(tagNames);
+            break;
+        }
+      }
+      else
+      {
+        final var matcher = ((Negation)term).getMatcher();
+
+        if (matcher instanceof TagMatcher)
+          notAllOfTags.add(((TagMatcher)matcher).getTagName());
+        else
+          notAllOfTags.addAll(Set.of(((TagSetMatcher)matcher).getTagNames()));
+      }
+    }
+
+    for(var anyOfTag: anyOfTags)
+      if (notAllOfTags.contains(anyOfTag))
+        return List.of(ANY);
+
+    // none-of(a,b) or any-of(a,b,c) = any
+    for(var tagNames: noneOfTags)
+      if (anyOfTags.containsAll(tagNames))
+        return List.of(ANY);
+
+    final var tagMatchers = new ArrayList<MessageMatcher>();
+
+    tagMatchers.add(tagSetTerm(ANY_OF, anyOfTags));
+    tagMatchers.add(Negation.of(tagSetTerm(ALL_OF, notAllOfTags)));
+
+    allOf: for(var tagNames: allOfTags)
+    {
+      for(var tagName: tagNames)
+        if (anyOfTags.contains(tagName))
+          continue allOf;
+
+      tagMatchers.add(tagSetTerm(ALL_OF, tagNames));
+    }
+
+    for(var tagNames: noneOfTags)
+      tagMatchers.add(tagSetTerm(NONE_OF, tagNames));
+
+    tagMatchers.removeIf(term -> term == NONE);
+
+    return tagMatchers;
+  }
+
+
+  /**
+   * Creates a tag term for the given {@code mode}. An empty set of tag names results in the
+   * junction identity value, so it can be removed from the enclosing junction.
+   */
+  @Contract(pure = true)
+  private static @NotNull Junction tagSetTerm(@NotNull TagSetMatcher.Mode mode,
+                                              @NotNull Collection<String> tagNames)
+  {
+    switch(tagNames.size())
+    {
+      case 0:
+        return mode == ANY_OF ? NONE : ANY;
+
+      case 1:
+        final var tagMatcher = TagMatcher.of(tagNames.iterator().next());
+        return mode == NONE_OF ? Negation.of(tagMatcher) : tagMatcher;
+
+      default:
+        return TagSetMatcher.of(mode, tagNames);
+    }
+  }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.internal;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.exception.MessageMatcherException;
+import de.sayayi.lib.protocol.matcher.MessageMatcher;
+import de.sayayi.lib.protocol.matcher.MessageMatchers;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Converts a matcher tree into a Java expression which constructs an equal matcher.
+ * <p>
+ * The generated expression only uses the public {@link MessageMatchers} API. It expects
+ * {@code de.sayayi.lib.protocol.Level} to be imported and all methods of {@code MessageMatchers}
+ * to be statically imported. Matchers which cannot be expressed in source, like matchers for a
+ * specific protocol instance or custom matcher implementations, are rejected.
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class MatcherSourceWriter
+{
+  private MatcherSourceWriter() {
+  }
+
+
+  /**
+   * Returns a Java expression which constructs a matcher equal to {@code matcher}.
+   *
+   * @param matcher  matcher to convert, not {@code null}
+   *
+   * @return  java expression, never {@code null}
+   *
+   * @throws MessageMatcherException  if {@code matcher} cannot be expressed in source
+   */
+  @Contract(pure = true)
+  public static @NotNull String toSource(@NotNull MessageMatcher matcher)
+  {
+    final var source = new StringBuilder();
+
+    write(source, requireNonNull(matcher, "matcher must not be null"));
+
+    return source.toString();
+  }
+
+
+  private static void write(@NotNull StringBuilder source, @NotNull MessageMatcher matcher)
+  {
+    if (matcher instanceof CompiledMatcher)
+      write(source, ((CompiledMatcher)matcher).getMatcher());
+    else if (matcher instanceof JunctionAdapter)
+      write(source, ((JunctionAdapter)matcher).getMatcher());
+    else if (matcher == BooleanMatcher.ANY)
+      source.append("any()");
+    else if (matcher == BooleanMatcher.NONE)
+      source.append("none()");
+    else if (matcher instanceof Conjunction)
+      writeJunction(source, ((Conjunction)matcher).getMatchers(), ".and(");
+    else if (matcher instanceof Disjunction)
+      writeJunction(source, ((Disjunction)matcher).getMatchers(), ".or(");
+    else if (matcher instanceof Negation)
+    {
+      source.append("not(");
+      write(source, ((Negation)matcher).getMatcher());
+      source.append(')');
+    }
+    else if (matcher instanceof TagMatcher)
+      writeCall(source, "hasTag", ((TagMatcher)matcher).getTagName());
+    else if (matcher instanceof TagSetMatcher)
+      writeTagSet(source, (TagSetMatcher)matcher);
+    else if (matcher instanceof LevelMatcher)
+      writeLevelMatcher(source, ((LevelMatcher)matcher).getLevel());
+    else if (matcher instanceof BetweenMatcher)
+    {
+      final var betweenMatcher = (BetweenMatcher)matcher;
+
+      source.append("between(");
+      writeLevel(source, betweenMatcher.getLevelLow());
+      source.append(", ");
+      writeLevel(source, betweenMatcher.getLevelHigh());
+      source.append(')');
+    }
+    else if (matcher == ThrowableMatcher.ANY_THROWABLE)
+      source.append("hasThrowable()");
+    else if (matcher instanceof ThrowableMatcher)
+      writeThrowableMatcher(source, ((ThrowableMatcher)matcher).getType());
+    else if (matcher instanceof ParameterMatcher)
+    {
+      final var parameterMatcher = (ParameterMatcher)matcher;
+
+      writeCall(source, parameterMatcher.isValueRequired() ? "hasParamValue" : "hasParam",
+          parameterMatcher.getParameterName());
+    }
+    else if (matcher instanceof ParameterValueMatcher)
+      writeParameterValueMatcher(source, (ParameterValueMatcher)matcher);
+    else if (matcher instanceof MessageIdMatcher)
+      writeCall(source, "hasMessage", ((MessageIdMatcher)matcher).getMessageId());
+    else if (matcher instanceof GroupNameMatcher)
+    {
+      final var groupNameMatcher = (GroupNameMatcher)matcher;
+
+      writeCall(source, groupNameMatcher.isRegex() ? "inGroupRegex" : "inGroup",
+          groupNameMatcher.getGroupName());
+    }
+    else if (matcher == MessageMatchers.inGroup())
+      source.append("inGroup()");
+    else if (matcher == MessageMatchers.inRoot())
+      source.append("inRoot()");
+    else
+      throw new MessageMatcherException("matcher cannot be expressed in source: " + matcher);
+  }
+
+
+  private static void writeJunction(@NotNull StringBuilder source,
+                                    @NotNull Collection<MessageMatcher> matchers,
+                                    @NotNull String operator)
+  {
+    var first = true;
+
+    for(var matcher: matchers)
+    {
+      if (!first)
+        source.append(operator);
+
+      write(source, matcher);
+
+      if (!first)
+        source.append(')');
+
+      first = false;
+    }
+  }
+
+
+  private static void writeTagSet(@NotNull StringBuilder source, @NotNull TagSetMatcher matcher)
+  {
+    switch(matcher.getMode())
+    {
+      case ANY_OF:
+        source.append("hasAnyOf(");
+        break;
+
+      case ALL_OF:
+        source.append("hasAllOf(");
+        break;
+
+      case NONE_OF:
+        source.append("hasNoneOf(");
+        break;
+    }
+
+    var first = true;
+
+    for(var tagName: matcher.getTagNames())
+    {
+      if (!first)
+        source.append(", ");
+
+      writeString(source, tagName);
+      first = false;
+    }
+
+    source.append(')');
+  }
+
+
+  private static void writeLevelMatcher(@NotNull StringBuilder source, @NotNull Level level)
+  {
+    if (level == Level.Shared.DEBUG)
+      source.append("isDebug()");
+    else if (level == Level.Shared.INFO)
+      source.append("isInfo()");
+    else if (level == Level.Shared.WARN)
+      source.append("isWarn()");
+    else if (level == Level.Shared.ERROR)
+      source.append("isError()");
+    else
+    {
+      source.append("is(");
+      writeLevel(source, level);
+      source.append(')');
+    }
+  }
+
+
+  private static void writeLevel(@NotNull StringBuilder source, @NotNull Level level)
+  {
+    if (level instanceof Level.Shared)
+      source.append("Level.Shared.").append(((Level.Shared)level).name());
+    else
+    {
+      // matchers only depend on the severity of a custom level
+      source.append("(Level)() -> ").append(level.severity());
+    }
+  }
+
+
+  private static void writeThrowableMatcher(@NotNull StringBuilder source,
+                                            @NotNull Class<? extends Throwable> type)
+  {
+    final var className = type.getCanonicalName();
+    if (className == null)
+      throw new MessageMatcherException("throwable type cannot be expressed in source: " + type);
+
+    source.append("hasThrowable(").append(className).append(".class)");
+  }
+
+
+  private static void writeParameterValueMatcher(@NotNull StringBuilder source,
+                                                 @NotNull ParameterValueMatcher matcher)
+  {
+    final var value = matcher.getValue();
+
+    source.append("hasParamValue(");
+    writeString(source, matcher.getParameterName());
+    source.append(", ");
+
+    if (value == null)
+      source.append("null");
+    else if (value instanceof String)
+      writeString(source, (String)value);
+    else if (value instanceof Boolean || value instanceof Integer)
+      source.append(value);
+    else if (value instanceof Long)
+      source.append(value).append('L');
+    else
+    {
+      throw new MessageMatcherException("parameter value cannot be expressed in source: " +
+          matcher);
+    }
+
+    source.append(')');
+  }
+
+
+  private static void writeCall(@NotNull StringBuilder source, @NotNull String method,
+                                @NotNull String argument)
+  {
+    source.append(method).append('(');
+    writeString(source, argument);
+    source.append(')');
+  }
+
+
+  private static void writeString(@NotNull StringBuilder source, @NotNull String s)
+  {
+    source.append('"');
+
+    for(int i = 0, n = s.length(); i < n; i++)
+    {
+      final var c = s.charAt(i);
+
+      switch(c)
+      {
+        case '"':
+        case '\\':
+          source.append('\\').append(c);
+          break;
+
+        case '\n':
+          source.append("\\n");
+          break;
+
+        case '\r':
+          source.append("\\r");
+          break;
+
+        case '\t':
+          source.append("\\t");
+          break;
+
+        default:
+          if (c >= ' ' && c < 0x7f)
+            source.append(c);
+          else
+            source.append(String.format("\\u%04x", (int)c));
+          break;
+      }
+    }
+
+    source.append('"');
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.internal;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.ProtocolEntry.Message;
+import de.sayayi.lib.protocol.matcher.MessageMatcher.Junction;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import static de.sayayi.lib.protocol.matcher.internal.BooleanMatcher.NONE;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class MessageIdMatcher implements Junction
+{
+  private final String messageId;
+
+
+  private MessageIdMatcher(@NotNull String messageId) {
+    this.messageId = messageId;
+  }
+
+
+  @Contract(pure = true)
+  @NotNull String getMessageId() {
+    return messageId;
+  }
+
+
+  @Override
+  public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message) {
+    return message.getMessageId().equals(messageId);
+  }
+
+
+  @Override
+  public boolean equals(Object o)
+  {
+    return this == o ||
+           o instanceof MessageIdMatcher && messageId.equals(((MessageIdMatcher)o).messageId);
+  }
+
+
+  @Override
+  public int hashCode() {
+    return messageId.hashCode();
+  }
+
+
+  @Override
+  public String toString() {
+    return "message(" + messageId + ')';
+  }
+
+
+  @Contract(pure = true)
+  public static @NotNull Junction of(@NotNull String messageId)
+  {
+    if (requireNonNull(messageId).isEmpty())
+      return NONE;
+
+    return MatcherInterner.intern(new MessageIdMatcher(messageId));
+  }
+}
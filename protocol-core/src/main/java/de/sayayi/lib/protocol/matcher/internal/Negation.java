@@ -23,8 +23,13 @@ import de.sayayi.lib.protocol.matcher.MessageMatcher.Junction;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.List;
+
 import static de.sayayi.lib.protocol.matcher.internal.BooleanMatcher.ANY;
 import static de.sayayi.lib.protocol.matcher.internal.BooleanMatcher.NONE;
+import static de.sayayi.lib.protocol.matcher.internal.TagSetMatcher.Mode.ALL_OF;
+import static de.sayayi.lib.protocol.matcher.internal.TagSetMatcher.Mode.ANY_OF;
+import static de.sayayi.lib.protocol.matcher.internal.TagSetMatcher.Mode.NONE_OF;
 
 
 /**
@@ -35,12 +40,21 @@ public final class Negation implements Junction
 {
   private final MessageMatcher matcher;
 
+  // residual matchers by protocol dependent term outcome, see ProtocolSpecializer
+  volatile ProtocolSpecializer.Specialization specialization;
+
 
   private Negation(@NotNull MessageMatcher matcher) {
     this.matcher = matcher;
   }
 
 
+  @Contract(pure = true)
+  @NotNull MessageMatcher getMatcher() {
+    return matcher;
+  }
+
+
   @Override
   public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message) {
     return !matcher.matches(levelLimit, message);
@@ -72,7 +86,30 @@ public final class Negation implements Junction
 
 
   @Contract(pure = true)
-  public static @NotNull Junction of(@NotNull MessageMatcher matcher)
+  public static @NotNull Junction of(@NotNull MessageMatcher matcher) {
+    return of(true, matcher);
+  }
+
+
+  /**
+   * Creates a negation which is not interned. This is used for matchers owned by another matcher,
+   * like the residual matchers created when specializing a matcher for a protocol, and for
+   * adaptive matchers, which must not be shared.
+   *
+   * @param matcher  matcher to negate, not {@code null}
+   *
+   * @return  negated matcher, never {@code null}
+   *
+   * @since 1.6.0
+   */
+  @Contract(pure = true)
+  static @NotNull Junction ofTransient(@NotNull MessageMatcher matcher) {
+    return of(false, matcher);
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull Junction of(boolean intern, @NotNull MessageMatcher matcher)
   {
     if (matcher == ANY)
       return NONE;
@@ -80,6 +117,15 @@ public final class Negation implements Junction
       return ANY;
     else if (matcher instanceof Negation)
       return ((Negation)matcher).matcher.asJunction();
+    else if (matcher instanceof TagSetMatcher && ((TagSetMatcher)matcher).getMode() != ALL_OF)
+    {
+      final var tagSetMatcher = (TagSetMatcher)matcher;
+
+      return TagSetMatcher.of(tagSetMatcher.getMode() == ANY_OF ? NONE_OF : ANY_OF,
+          List.of(tagSetMatcher.getTagNames()));
+    }
+    else if (intern)
+      return MatcherInterner.intern(new Negation(matcher));
     else
       return new Negation(matcher);
   }
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.internal;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.ProtocolEntry.Message;
+import de.sayayi.lib.protocol.matcher.MessageMatcher.Junction;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import static de.sayayi.lib.protocol.matcher.internal.BooleanMatcher.NONE;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Matcher for messages containing a parameter, optionally with a non-null value.
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class ParameterMatcher implements Junction
+{
+  private final String parameterName;
+  private final boolean valueRequired;
+
+
+  private ParameterMatcher(@NotNull String parameterName, boolean valueRequired)
+  {
+    this.parameterName = parameterName;
+    this.valueRequired = valueRequired;
+  }
+
+
+  @Contract(pure = true)
+  @NotNull String getParameterName() {
+    return parameterName;
+  }
+
+
+  @Contract(pure = true)
+  boolean isValueRequired() {
+    return valueRequired;
+  }
+
+
+  @Override
+  public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message)
+  {
+    final var parameterValues = message.getParameterValues();
+
+    return valueRequired
+        ? parameterValues.get(parameterName) != null
+        : parameterValues.containsKey(parameterName);
+  }
+
+
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o)
+      return true;
+    if (!(o instanceof ParameterMatcher))
+      return false;
+
+    final var that = (ParameterMatcher)o;
+
+    return valueRequired == that.valueRequired && parameterName.equals(that.parameterName);
+  }
+
+
+  @Override
+  public int hashCode() {
+    return parameterName.hashCode() * 31 + (valueRequired ? 1 : 0);
+  }
+
+
+  @Override
+  public String toString() {
+    return (valueRequired ? "has-param-value(" : "has-param(") + parameterName + ')';
+  }
+
+
+  /**
+   * Creates a matcher for messages containing parameter {@code parameterName}.
+   *
+   * @param parameterName  parameter name, not {@code null}
+   * @param valueRequired  {@code true} if the parameter value must not be {@code null}
+   *
+   * @return  parameter matcher, never {@code null}
+   */
+  @Contract(pure = true)
+  public static @NotNull Junction of(@NotNull String parameterName, boolean valueRequired)
+  {
+    if (requireNonNull(parameterName).isEmpty())
+      return NONE;
+
+    return MatcherInterner.intern(new ParameterMatcher(parameterName, valueRequired));
+  }
+}
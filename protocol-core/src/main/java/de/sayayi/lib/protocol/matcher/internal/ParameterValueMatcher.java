@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.internal;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.ProtocolEntry.Message;
+import de.sayayi.lib.protocol.matcher.MessageMatcher.Junction;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+import static de.sayayi.lib.protocol.matcher.internal.BooleanMatcher.NONE;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Matcher for messages containing a parameter with a specific value.
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class ParameterValueMatcher implements Junction
+{
+  private final String parameterName;
+  private final Object value;
+
+
+  private ParameterValueMatcher(@NotNull String parameterName, Object value)
+  {
+    this.parameterName = parameterName;
+    this.value = value;
+  }
+
+
+  @Contract(pure = true)
+  @NotNull String getParameterName() {
+    return parameterName;
+  }
+
+
+  @Contract(pure = true)
+  Object getValue() {
+    return value;
+  }
+
+
+  @Override
+  public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message)
+  {
+    final var parameterValues = message.getParameterValues();
+
+    return value == null
+        ? parameterValues.containsKey(parameterName) && parameterValues.get(parameterName) == null
+        : Objects.equals(parameterValues.get(parameterName), value);
+  }
+
+
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o)
+      return true;
+    if (!(o instanceof ParameterValueMatcher))
+      return false;
+
+    final var that = (ParameterValueMatcher)o;
+
+    return parameterName.equals(that.parameterName) && Objects.equals(value, that.value);
+  }
+
+
+  @Override
+  public int hashCode() {
+    return parameterName.hashCode() * 31 + Objects.hashCode(value);
+  }
+
+
+  @Override
+  public String toString() {
+    return "has-param-value(" + parameterName + ',' + value + ')';
+  }
+
+
+  /**
+   * Creates a matcher for messages containing parameter {@code parameterName} with the given
+   * {@code value}.
+   *
+   * @param parameterName  parameter name, not {@code null}
+   * @param value          parameter value or {@code null}
+   *
+   * @return  parameter value matcher, never {@code null}
+   */
+  @Contract(pure = true)
+  public static @NotNull Junction of(@NotNull String parameterName, Object value)
+  {
+    if (requireNonNull(parameterName).isEmpty())
+      return NONE;
+
+    return MatcherInterner.intern(new ParameterValueMatcher(parameterName, value));
+  }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.internal;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.matcher.MessageMatcher;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.BitSet;
+
+import static java.lang.Integer.MAX_VALUE;
+
+
+/**
+ * Evaluates a matcher against posting lists instead of individual messages.
+ * <p>
+ * A posting list is a bit set containing the positions of all messages with a given tag, message
+ * id or level severity. Tag, message id and level terms are looked up in the index, conjunctions
+ * intersect and disjunctions unite the posting lists of their terms. Terms which cannot be
+ * answered by the index match all messages.
+ * <p>
+ * The result is a set of candidate positions, which is a superset of the matching messages. If
+ * the matcher consists of indexable terms only, the result is exact and the candidates do not
+ * need to be verified.
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class PostingListEvaluator
+{
+  private PostingListEvaluator() {
+  }
+
+
+  /**
+   * Evaluates {@code matcher} against the posting lists provided by {@code index}.
+   *
+   * @param levelLimit  level limit, not {@code null}
+   * @param matcher     matcher, not {@code null}
+   * @param index       message index, not {@code null}
+   *
+   * @return  candidate positions, never {@code null}
+   */
+  @Contract(pure = true)
+  public static @NotNull Candidates evaluate(@NotNull Level levelLimit,
+                                             @NotNull MessageMatcher matcher,
+                                             @NotNull Index index)
+  {
+    final var candidates = evaluate0(levelLimit, matcher, index);
+
+    return candidates == null ? new Candidates(index.all(), false) : candidates;
+  }
+
+
+  /**
+   * @return  candidates or {@code null} if the matcher cannot be answered by the index
+   */
+  @Contract(pure = true)
+  private static Candidates evaluate0(@NotNull Level levelLimit, @NotNull MessageMatcher matcher,
+                                      @NotNull Index index)
+  {
+    if (matcher instanceof CompiledMatcher)
+      return evaluate0(levelLimit, ((CompiledMatcher)matcher).getMatcher(), index);
+
+    if (matcher instanceof JunctionAdapter)
+      return evaluate0(levelLimit, ((JunctionAdapter)matcher).getMatcher(), index);
+
+    if (matcher == BooleanMatcher.ANY)
+      return new Candidates(index.all(), true);
+
+    if (matcher == BooleanMatcher.NONE)
+      return new Candidates(new BitSet(), true);
+
+    if (matcher instanceof TagMatcher)
+      return new Candidates(index.forTag(((TagMatcher)matcher).getTagName()), true);
+
+    if (matcher instanceof MessageIdMatcher)
+      return new Candidates(index.forMessageId(((MessageIdMatcher)matcher).getMessageId()), true);
+
+    if (matcher instanceof LevelMatcher)
+    {
+      final var severity = ((LevelMatcher)matcher).getLevel().severity();
+
+      // min(level, levelLimit) >= severity
+      return new Candidates(levelLimit.severity() < severity
+          ? new BitSet() : index.forSeverity(severity, MAX_VALUE), true);
+    }
+
+    if (matcher instanceof BetweenMatcher)
+      return evaluateBetween(levelLimit, (BetweenMatcher)matcher, index);
+
+    if (matcher instanceof TagSetMatcher)
+      return evaluateTagSet((TagSetMatcher)matcher, index);
+
+    if (matcher instanceof Negation)
+    {
+      final var candidates = evaluate0(levelLimit, ((Negation)matcher).getMatcher(), index);
+      if (candidates == null || !candidates.exact)
+        return null;
+
+      final var positions = index.all();
+      positions.andNot(candidates.positions);
+
+      return new Candidates(positions, true);
+    }
+
+    if (matcher instanceof Conjunction)
+    {
+      Candidates result = null;
+      var exact = true;
+
+      for(var m: ((Conjunction)matcher).getMatchers())
+      {
+        final var candidates = evaluate0(levelLimit, m, index);
+
+        if (candidates == null)
+          exact = false;
+        else
+        {
+          exact &= candidates.exact;
+
+          if (result == null)
+            result = candidates;
+          else
+            result.positions.and(candidates.positions);
+        }
+      }
+
+      return result == null ? null : new Candidates(result.positions, exact);
+    }
+
+    if (matcher instanceof Disjunction)
+    {
+      BitSet positions = null;
+      var exact = true;
+
+      for(var m: ((Disjunction)matcher).getMatchers())
+      {
+        final var candidates = evaluate0(levelLimit, m, index);
+        if (candidates == null)
+          return null;
+
+        exact &= candidates.exact;
+
+        if (positions == null)
+          positions = candidates.positions;
+        else
+          positions.or(candidates.positions);
+      }
+
+      return positions == null ? null : new Candidates(positions, exact);
+    }
+
+    return null;
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull Candidates evaluateBetween(@NotNull Level levelLimit,
+                                                     @NotNull BetweenMatcher matcher,
+                                                     @NotNull Index index)
+  {
+    final var limit = levelLimit.severity();
+    final var low = matcher.getLevelLow().severity();
+    final var high = matcher.getLevelHigh().severity();
+
+    // low <= min(level, levelLimit) <= high
+    if (limit < low)
+      return new Candidates(new BitSet(), true);
+
+    return new Candidates(index.forSeverity(low, limit <= high ? MAX_VALUE : high), true);
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull Candidates evaluateTagSet(@NotNull TagSetMatcher matcher,
+                                                    @NotNull Index index)
+  {
+    final var mode = matcher.getMode();
+    BitSet positions = null;
+
+    for(var tagName: matcher.getTagNames())
+    {
+      final var tagPositions = index.forTag(tagName);
+
+      if (positions == null)
+        positions = tagPositions;
+      else if (mode == TagSetMatcher.Mode.ALL_OF)
+        positions.and(tagPositions);
+      else
+        positions.or(tagPositions);
+    }
+
+    if (positions == null)
+      positions = new BitSet();
+
+    if (mode == TagSetMatcher.Mode.NONE_OF)
+    {
+      final var all = index.all();
+      all.andNot(positions);
+      positions = all;
+    }
+
+    return new Candidates(positions, true);
+  }
+
+
+
+
+  /**
+   * Index providing posting lists. Each method returns a new bit set which may be modified by
+   * the caller.
+   */
+  public interface Index
+  {
+    /**
+     * Returns the positions of all indexed messages.
+     *
+     * @return  positions of all messages, never {@code null}
+     */
+    @Contract(value = "-> new", pure = true)
+    @NotNull BitSet all();
+
+
+    /**
+     * Returns the positions of all messages with tag {@code tagName}.
+     *
+     * @param tagName  tag name, not {@code null}
+     *
+     * @return  positions of tagged messages, never {@code null}
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull BitSet forTag(@NotNull String tagName);
+
+
+    /**
+     * Returns the positions of all messages with message id {@code messageId}.
+     *
+     * @param messageId  message id, not {@code null}
+     *
+     * @return  positions of messages with the given id, never {@code null}
+     */
+    @Contract(value = "_ -> new", pure = true)
+    @NotNull BitSet forMessageId(@NotNull String messageId);
+
+
+    /**
+     * Returns the positions of all messages with a level severity in the given range.
+     *
+     * @param minSeverity  minimum severity (inclusive)
+     * @param maxSeverity  maximum severity (inclusive)
+     *
+     * @return  positions of messages with a severity in range, never {@code null}
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    @NotNull BitSet forSeverity(int minSeverity, int maxSeverity);
+  }
+
+
+
+
+  public static final class Candidates
+  {
+    private final @NotNull BitSet positions;
+    private final boolean exact;
+
+
+    private Candidates(@NotNull BitSet positions, boolean exact)
+    {
+      this.positions = positions;
+      this.exact = exact;
+    }
+
+
+    /**
+     * Returns the candidate message positions.
+     *
+     * @return  candidate positions, never {@code null}
+     */
+    @Contract(pure = true)
+    public @NotNull BitSet getPositions() {
+      return positions;
+    }
+
+
+    /**
+     * Tells whether all candidates are known to match, so they don't need to be verified.
+     *
+     * @return  {@code true} if the candidates are exact, {@code false} otherwise
+     */
+    @Contract(pure = true)
+    public boolean isExact() {
+      return exact;
+    }
+  }
+}
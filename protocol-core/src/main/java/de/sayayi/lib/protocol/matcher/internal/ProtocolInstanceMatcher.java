@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.internal;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.Protocol;
+import de.sayayi.lib.protocol.ProtocolEntry.Message;
+import de.sayayi.lib.protocol.ProtocolFactory;
+import de.sayayi.lib.protocol.matcher.MessageMatcher.Junction;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+
+/**
+ * Matcher for messages contained in a specific protocol instance, identified by its factory and
+ * protocol id.
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class ProtocolInstanceMatcher implements Junction
+{
+  private final ProtocolFactory<?> protocolFactory;
+  private final int protocolId;
+
+
+  private ProtocolInstanceMatcher(@NotNull ProtocolFactory<?> protocolFactory, int protocolId)
+  {
+    this.protocolFactory = protocolFactory;
+    this.protocolId = protocolId;
+  }
+
+
+  @Override
+  public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message) {
+    return matches(message.getProtocol());
+  }
+
+
+  @Contract(pure = true)
+  boolean matches(@NotNull Protocol<?> protocol) {
+    return protocol.getFactory() == protocolFactory && protocol.getId() == protocolId;
+  }
+
+
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o)
+      return true;
+    if (!(o instanceof ProtocolInstanceMatcher))
+      return false;
+
+    final var that = (ProtocolInstanceMatcher)o;
+
+    return protocolFactory == that.protocolFactory && protocolId == that.protocolId;
+  }
+
+
+  @Override
+  public int hashCode() {
+    return System.identityHashCode(protocolFactory) * 31 + protocolId;
+  }
+
+
+  @Override
+  public String toString() {
+    return "in-protocol(" + protocolId + ')';
+  }
+
+
+  @Contract(pure = true)
+  public static @NotNull Junction of(@NotNull Protocol<?> protocol)
+  {
+    return MatcherInterner.intern(
+        new ProtocolInstanceMatcher(protocol.getFactory(), protocol.getId()));
+  }
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.internal;
+
+import de.sayayi.lib.protocol.Protocol;
+import de.sayayi.lib.protocol.matcher.MessageMatcher;
+import de.sayayi.lib.protocol.matcher.MessageMatchers;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static de.sayayi.lib.protocol.matcher.internal.BooleanMatcher.ANY;
+import static de.sayayi.lib.protocol.matcher.internal.BooleanMatcher.NONE;
+
+
+/**
+ * Partial evaluation of a matcher for the messages directly contained in a protocol or group.
+ * <p>
+ * Terms like {@code in-group}, {@code in-group-regex}, {@code in-root} and {@code in-protocol}
+ * only depend on the protocol owning a message, so they evaluate to the same result for every
+ * message in that protocol. This class replaces these terms with {@code any} or {@code none} and
+ * simplifies the surrounding junctions. The resulting residual matcher is often {@code any} or
+ * {@code none} itself, allowing the caller to skip per message evaluation altogether.
+ * <p>
+ * Matchers without protocol dependent terms are returned as is, without allocating new objects.
+ * For other matchers, the residual matcher only depends on the outcome of the protocol dependent
+ * terms. Residual matchers are therefore cached by the matcher for each outcome, so groups with
+ * the same outcome share a residual matcher. The residual matcher of a compiled matcher is
+ * compiled and the residual matcher of an adaptive matcher is adaptive as well.
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class ProtocolSpecializer
+{
+  private static final int MAX_CACHED_RESIDUALS = 64;
+
+
+  private ProtocolSpecializer() {
+  }
+
+
+  /**
+   * Returns the residual matcher for messages directly contained in {@code protocol}. The
+   * residual matcher must not be used for messages in nested groups.
+   *
+   * @param matcher   matcher to specialize, not {@code null}
+   * @param protocol  protocol or group containing the messages, not {@code null}
+   *
+   * @return  residual matcher, never {@code null}
+   */
+  @Contract(pure = true)
+  public static @NotNull MessageMatcher specialize(@NotNull MessageMatcher matcher,
+                                                   @NotNull Protocol<?> protocol)
+  {
+    if (matcher instanceof JunctionAdapter)
+    {
+      final var adaptedMatcher = ((JunctionAdapter)matcher).getMatcher();
+      final var residualMatcher = specialize(adaptedMatcher, protocol);
+
+      return residualMatcher == adaptedMatcher ? matcher : residualMatcher;
+    }
+
+    final var specialization = getSpecialization(matcher);
+
+    return specialization == null
+        ? specialize0(matcher, protocol)
+        : specialization.specialize(matcher, protocol);
+  }
+
+
+  private static Specialization getSpecialization(@NotNull MessageMatcher matcher)
+  {
+    Specialization specialization;
+
+    if (matcher instanceof CompiledMatcher)
+    {
+      final var compiledMatcher = (CompiledMatcher)matcher;
+      if ((specialization = compiledMatcher.specialization) == null)
+        compiledMatcher.specialization = specialization = new Specialization(matcher);
+    }
+    else if (matcher instanceof Conjunction)
+    {
+      final var conjunction = (Conjunction)matcher;
+      if ((specialization = conjunction.specialization) == null)
+        conjunction.specialization = specialization = new Specialization(matcher);
+    }
+    else if (matcher instanceof Disjunction)
+    {
+      final var disjunction = (Disjunction)matcher;
+      if ((specialization = disjunction.specialization) == null)
+        disjunction.specialization = specialization = new Specialization(matcher);
+    }
+    else if (matcher instanceof Negation)
+    {
+      final var negation = (Negation)matcher;
+      if ((specialization = negation.specialization) == null)
+        negation.specialization = specialization = new Specialization(matcher);
+    }
+    else
+      specialization = null;
+
+    return specialization;
+  }
+
+
+  @Contract(pure = true)
+  private static @NotNull MessageMatcher specialize0(@NotNull MessageMatcher matcher,
+                                                     @NotNull Protocol<?> protocol)
+  {
+    if (matcher instanceof CompiledMatcher)
+    {
+      final var sourceMatcher = ((CompiledMatcher)matcher).getMatcher();
+      final var residualMatcher = specialize0(sourceMatcher, protocol);
+
+      return residualMatcher == sourceMatcher ? matcher : residualMatcher;
+    }
+
+    if (matcher instanceof JunctionAdapter)
+    {
+      final var adaptedMatcher = ((JunctionAdapter)matcher).getMatcher();
+      final var residualMatcher = specialize0(adaptedMatcher, protocol);
+
+      return residualMatcher == adaptedMatcher ? matcher : residualMatcher;
+    }
+
+    if (matcher instanceof Conjunction)
+    {
+      final var matchers = specialize0(((Conjunction)matcher).getMatchers(), protocol);
+      return matchers == null ? matcher : Conjunction.ofTransient(matchers);
+    }
+
+    if (matcher instanceof Disjunction)
+    {
+      final var matchers = specialize0(((Disjunction)matcher).getMatchers(), protocol);
+      return matchers == null ? matcher : Disjunction.ofTransient(matchers);
+    }
+
+    if (matcher instanceof Negation)
+    {
+      final var negatedMatcher = ((Negation)matcher).getMatcher();
+      final var residualMatcher = specialize0(negatedMatcher, protocol);
+
+      return residualMatcher == negatedMatcher ? matcher : Negation.ofTransient(residualMatcher);
+    }
+
+    if (isProtocolTerm(matcher))
+      return matches(matcher, protocol) ? ANY : NONE;
+
+    return matcher;
+  }
+
+
+  /**
+   * Specializes all {@code matchers}.
+   *
+   * @return  specialized matchers or {@code null} if none of the matchers has changed
+   */
+  @Contract(pure = true)
+  private static MessageMatcher[] specialize0(@NotNull Collection<MessageMatcher> matchers,
+                                              @NotNull Protocol<?> protocol)
+  {
+    MessageMatcher[] residualMatchers = null;
+    int n = 0;
+
+    for(var matcher: matchers)
+    {
+      final var residualMatcher = specialize0(matcher, protocol);
+
+      if (residualMatchers == null && residualMatcher != matcher)
+      {
+        residualMatchers = new MessageMatcher[matchers.size()];
+        for(var m: matchers)
+        {
+          if (m == matcher)
+            break;
+
+          residualMatchers[n++] = m;
+        }
+      }
+
+      if (residualMatchers != null)
+        residualMatchers[n++] = residualMatcher;
+    }
+
+    return residualMatchers;
+  }
+
+
+  @Contract(pure = true)
+  private static boolean isProtocolTerm(@NotNull MessageMatcher matcher)
+  {
+    return matcher instanceof GroupNameMatcher || matcher instanceof ProtocolInstanceMatcher ||
+        matcher == MessageMatchers.inGroup() || matcher == MessageMatchers.inRoot();
+  }
+
+
+  @Contract(pure = true)
+  private static boolean matches(@NotNull MessageMatcher term, @NotNull Protocol<?> protocol)
+  {
+    if (term instanceof GroupNameMatcher)
+      return ((GroupNameMatcher)term).matches(protocol);
+
+    if (term instanceof ProtocolInstanceMatcher)
+      return ((ProtocolInstanceMatcher)term).matches(protocol);
+
+    return term == MessageMatchers.inGroup()
+        ? protocol.isProtocolGroup()
+        : protocol.getParent() == null;
+  }
+
+
+  @Contract(pure = true)
+  private static boolean isAdaptive(@NotNull MessageMatcher matcher)
+  {
+    if (matcher instanceof Conjunction)
+      return ((Conjunction)matcher).isAdaptive();
+
+    if (matcher instanceof Disjunction)
+      return ((Disjunction)matcher).isAdaptive();
+
+    return matcher instanceof Negation && isAdaptive(((Negation)matcher).getMatcher());
+  }
+
+
+
+
+  /**
+   * Protocol dependent terms of a matcher, together with the residual matchers created so far.
+   * A specialization is created once for each matcher and is kept by the matcher.
+   */
+  static final class Specialization
+  {
+    private final @NotNull MessageMatcher[] terms;
+    private final @NotNull Map<Long,MessageMatcher> residualMatchers = new ConcurrentHashMap<>();
+
+
+    private Specialization(@NotNull MessageMatcher matcher)
+    {
+      final var terms = new ArrayList<MessageMatcher>();
+      collectTerms(matcher, terms);
+
+      this.terms = terms.toArray(MessageMatcher[]::new);
+    }
+
+
+    private @NotNull MessageMatcher specialize(@NotNull MessageMatcher matcher,
+                                               @NotNull Protocol<?> protocol)
+    {
+      if (terms.length == 0)
+        return matcher;
+
+      // the outcome of more than 64 terms cannot be used as a cache key
+      if (terms.length > 64)
+        return residual(matcher, protocol);
+
+      long outcome = 0;
+      for(int n = 0; n < terms.length; n++)
+        if (matches(terms[n], protocol))
+          outcome |= 1L << n;
+
+      var residualMatcher = residualMatchers.get(outcome);
+      if (residualMatcher == null)
+      {
+        residualMatcher = residual(matcher, protocol);
+
+        if (residualMatchers.size() < MAX_CACHED_RESIDUALS)
+        {
+          final var cachedMatcher = residualMatchers.putIfAbsent(outcome, residualMatcher);
+          if (cachedMatcher != null)
+            residualMatcher = cachedMatcher;
+        }
+      }
+
+      return residualMatcher;
+    }
+
+
+    /**
+     * Creates the residual matcher for {@code protocol}, in the form of {@code matcher}.
+     */
+    @Contract(pure = true)
+    private static @NotNull MessageMatcher residual(@NotNull MessageMatcher matcher,
+                                                    @NotNull Protocol<?> protocol)
+    {
+      final var residualMatcher = specialize0(matcher, protocol);
+
+      if (matcher instanceof CompiledMatcher)
+        return CompiledMatcher.of(residualMatcher);
+
+      return isAdaptive(matcher) ? AdaptiveOrder.adapt(residualMatcher) : residualMatcher;
+    }
+
+
+    private static void collectTerms(@NotNull MessageMatcher matcher,
+                                     @NotNull List<MessageMatcher> terms)
+    {
+      if (matcher instanceof CompiledMatcher)
+        collectTerms(((CompiledMatcher)matcher).getMatcher(), terms);
+      else if (matcher instanceof JunctionAdapter)
+        collectTerms(((JunctionAdapter)matcher).getMatcher(), terms);
+      else if (matcher instanceof Conjunction)
+        ((Conjunction)matcher).getMatchers().forEach(m -> collectTerms(m, terms));
+      else if (matcher instanceof Disjunction)
+        ((Disjunction)matcher).getMatchers().forEach(m -> collectTerms(m, terms));
+      else if (matcher instanceof Negation)
+        collectTerms(((Negation)matcher).getMatcher(), terms);
+      else if (isProtocolTerm(matcher) && !terms.contains(matcher))
+        terms.add(matcher);
+    }
+  }
+}
@@ -0,0 +1,373 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.internal;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.ProtocolEntry.Message;
+import de.sayayi.lib.protocol.matcher.MessageMatcher;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+
+/**
+ * Compact summary of all messages contained in a protocol and its descendant groups.
+ * <p>
+ * The summary consists of a bloom filter for the tag names and message ids and the severity
+ * range of the messages. It is updated whenever a message is added to the protocol or any of its
+ * descendant groups and allows to skip subtrees which cannot contain a message matching a given
+ * matcher.
+ * <p>
+ * Level limits set on descendant groups lower the effective level of their messages. As long as
+ * no descendant group has a level limit, the minimum severity is used for pruning as well.
+ * <p>
+ * Sibling groups may be used by different threads, so updates propagated to the parent
+ * summaries are synchronized.
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class SubtreeSummary
+{
+  private SubtreeSummary parent;
+
+  private int messageCount;
+  private int changeCount;
+  private long tagNameBloom;
+  private long messageIdBloom;
+  private int minSeverity = Integer.MAX_VALUE;
+  private int maxSeverity = Integer.MIN_VALUE;
+  private boolean nestedLevelLimit;
+  private boolean nestedHeaderVisible;
+
+
+  /**
+   * Creates a summary for a protocol.
+   *
+   * @param parent  summary of the parent protocol or {@code null} for a root protocol
+   */
+  public SubtreeSummary(@Nullable SubtreeSummary parent) {
+    this.parent = parent;
+  }
+
+
+  /**
+   * Adds {@code message} to this summary and the summaries of all parent protocols.
+   *
+   * @param message  message, not {@code null}
+   */
+  public void add(@NotNull Message<?> message)
+  {
+    final var severity = message.getLevel().severity();
+    final var messageIdBits = bits(message.getMessageId());
+    var tagNameBits = 0L;
+
+    for(var tagName: message.getTagNames())
+      tagNameBits |= bits(tagName);
+
+    for(var summary = this; summary != null; summary = summary.parent)
+    {
+      // sibling groups may be appended to by different threads
+      synchronized(summary) {
+        summary.messageCount++;
+        summary.changeCount++;
+        summary.tagNameBloom |= tagNameBits;
+        summary.messageIdBloom |= messageIdBits;
+        summary.minSeverity = min(summary.minSeverity, severity);
+        summary.maxSeverity = max(summary.maxSeverity, severity);
+      }
+    }
+  }
+
+
+  /**
+   * Records that a message has been evicted from the protocol of this summary. The message count
+   * of this summary and all parent summaries is decreased. The bloom filters and the severity
+   * range cannot be narrowed for a single message and are only reset when a summary no longer
+   * contains any messages. As they are used for pruning only, a wider range never leads to wrong
+   * results.
+   * <p>
+   * The change count is not affected, as evicting a message does not add any entries.
+   */
+  public void removeMessage()
+  {
+    for(var summary = this; summary != null; summary = summary.parent)
+    {
+      synchronized(summary) {
+        if (--summary.messageCount == 0)
+        {
+          summary.tagNameBloom = 0;
+          summary.messageIdBloom = 0;
+          summary.minSeverity = Integer.MAX_VALUE;
+          summary.maxSeverity = Integer.MIN_VALUE;
+        }
+      }
+    }
+  }
+
+
+  /**
+   * Returns a copy of this summary for a protocol snapshot.
+   *
+   * @param parent  summary of the parent protocol snapshot or {@code null} for a root protocol
+   *
+   * @return  copy of this summary, never {@code null}
+   */
+  @Contract(value = "_ -> new", pure = true)
+  public synchronized @NotNull SubtreeSummary copy(@Nullable SubtreeSummary parent)
+  {
+    final var copy = new SubtreeSummary(parent);
+
+    copy.messageCount = messageCount;
+    copy.changeCount = changeCount;
+    copy.tagNameBloom = tagNameBloom;
+    copy.messageIdBloom = messageIdBloom;
+    copy.minSeverity = minSeverity;
+    copy.maxSeverity = maxSeverity;
+    copy.nestedLevelLimit = nestedLevelLimit;
+    copy.nestedHeaderVisible = nestedHeaderVisible;
+
+    return copy;
+  }
+
+
+  /**
+   * Attaches this summary, which must not have a parent, to {@code parent}. The messages
+   * summarized by this summary are added to the summaries of {@code parent} and all of its
+   * parents. This is used when a protocol is grafted onto another protocol as a new group.
+   *
+   * @param parent  summary of the protocol receiving the grafted protocol, not {@code null}
+   *
+   * @throws IllegalStateException  if this summary already has a parent
+   */
+  public void attach(@NotNull SubtreeSummary parent)
+  {
+    if (this.parent != null)
+      throw new IllegalStateException("summary is already attached");
+
+    final int messageCount;
+    final int changeCount;
+    final long tagNameBloom;
+    final long messageIdBloom;
+    final int minSeverity;
+    final int maxSeverity;
+
+    synchronized(this) {
+      this.parent = parent;
+
+      messageCount = this.messageCount;
+      changeCount = this.changeCount + 1;
+      tagNameBloom = this.tagNameBloom;
+      messageIdBloom = this.messageIdBloom;
+      minSeverity = this.minSeverity;
+      maxSeverity = this.maxSeverity;
+    }
+
+    for(var summary = parent; summary != null; summary = summary.parent)
+    {
+      synchronized(summary) {
+        summary.messageCount += messageCount;
+        summary.changeCount += changeCount;
+        summary.tagNameBloom |= tagNameBloom;
+        summary.messageIdBloom |= messageIdBloom;
+        summary.minSeverity = min(summary.minSeverity, minSeverity);
+        summary.maxSeverity = max(summary.maxSeverity, maxSeverity);
+      }
+    }
+
+    if (nestedLevelLimit)
+      parent.markNestedLevelLimit();
+    if (nestedHeaderVisible)
+      parent.markNestedHeaderVisible();
+  }
+
+
+  /**
+   * Records that a group has been added to the protocol of this summary. The summary itself is
+   * not affected, only the change count of this summary and all parent summaries is increased.
+   */
+  public void addGroup()
+  {
+    for(var summary = this; summary != null; summary = summary.parent)
+      synchronized(summary) {
+        summary.changeCount++;
+      }
+  }
+
+
+  /**
+   * Returns the number of messages and groups added to the subtree so far. Entries are only ever
+   * appended, apart from messages being evicted, so an unchanged count means no entries have been
+   * added to the subtree. Protocols increase the change count after appending the entry, while
+   * holding the lock of the root protocol.
+   *
+   * @return  change count
+   */
+  @Contract(pure = true)
+  public synchronized int getChangeCount() {
+    return changeCount;
+  }
+
+
+  /**
+   * Records that a group, contained in the protocol of this summary or one of its descendant
+   * groups, has a level limit.
+   */
+  public void markNestedLevelLimit()
+  {
+    for(var summary = this; summary != null && !summary.nestedLevelLimit; summary = summary.parent)
+      summary.nestedLevelLimit = true;
+  }
+
+
+  /**
+   * Records that a group, contained in the protocol of this summary or one of its descendant
+   * groups, may show its header regardless of the messages it contains.
+   */
+  public void markNestedHeaderVisible()
+  {
+    for(var summary = this; summary != null && !summary.nestedHeaderVisible;
+         summary = summary.parent)
+      summary.nestedHeaderVisible = true;
+  }
+
+
+  /**
+   * Tells whether a descendant group may show its header regardless of the messages it contains.
+   * In that case the visible entry count of the protocol cannot be derived from this summary.
+   *
+   * @return  {@code true} if a descendant group may have a visible header without messages
+   */
+  @Contract(pure = true)
+  public boolean isNestedHeaderVisible() {
+    return nestedHeaderVisible;
+  }
+
+
+  /**
+   * Tells whether the protocol of this summary, including its descendant groups, may contain a
+   * message matched by {@code matcher}. A return value of {@code false} is definite, whereas
+   * {@code true} only means the subtree cannot be ruled out.
+   *
+   * @param levelLimit  level limit, not {@code null}
+   * @param matcher     matcher, not {@code null}
+   *
+   * @return  {@code false} if no message in the subtree matches, {@code true} otherwise
+   */
+  @Contract(pure = true)
+  public boolean mayMatch(@NotNull Level levelLimit, @NotNull MessageMatcher matcher) {
+    return messageCount > 0 && mayMatch0(levelLimit.severity(), matcher);
+  }
+
+
+  @Contract(pure = true)
+  private boolean mayMatch0(int levelLimit, @NotNull MessageMatcher matcher)
+  {
+    if (matcher instanceof CompiledMatcher)
+      return mayMatch0(levelLimit, ((CompiledMatcher)matcher).getMatcher());
+
+    if (matcher instanceof JunctionAdapter)
+      return mayMatch0(levelLimit, ((JunctionAdapter)matcher).getMatcher());
+
+    if (matcher == BooleanMatcher.NONE)
+      return false;
+
+    if (matcher instanceof TagMatcher)
+      return mayContain(tagNameBloom, ((TagMatcher)matcher).getTagName());
+
+    if (matcher instanceof MessageIdMatcher)
+      return mayContain(messageIdBloom, ((MessageIdMatcher)matcher).getMessageId());
+
+    if (matcher instanceof TagSetMatcher)
+    {
+      final var tagSetMatcher = (TagSetMatcher)matcher;
+      final var mode = tagSetMatcher.getMode();
+
+      if (mode == TagSetMatcher.Mode.NONE_OF)
+        return true;
+
+      for(var tagName: tagSetMatcher.getTagNames())
+        if (mayContain(tagNameBloom, tagName) == (mode == TagSetMatcher.Mode.ANY_OF))
+          return mode == TagSetMatcher.Mode.ANY_OF;
+
+      return mode == TagSetMatcher.Mode.ALL_OF;
+    }
+
+    if (matcher instanceof LevelMatcher)
+      return min(maxSeverity, levelLimit) >= ((LevelMatcher)matcher).getLevel().severity();
+
+    if (matcher instanceof BetweenMatcher)
+    {
+      final var betweenMatcher = (BetweenMatcher)matcher;
+
+      return min(maxSeverity, levelLimit) >= betweenMatcher.getLevelLow().severity() &&
+          (nestedLevelLimit ||
+           min(minSeverity, levelLimit) <= betweenMatcher.getLevelHigh().severity());
+    }
+
+    if (matcher instanceof Conjunction)
+    {
+      for(var m: ((Conjunction)matcher).getMatchers())
+        if (!mayMatch0(levelLimit, m))
+          return false;
+
+      return true;
+    }
+
+    if (matcher instanceof Disjunction)
+    {
+      for(var m: ((Disjunction)matcher).getMatchers())
+        if (mayMatch0(levelLimit, m))
+          return true;
+
+      return false;
+    }
+
+    return true;
+  }
+
+
+  @Contract(pure = true)
+  private static boolean mayContain(long bloom, @NotNull String value)
+  {
+    final var bits = bits(value);
+    return (bloom & bits) == bits;
+  }
+
+
+  /**
+   * Returns the bloom filter bits for {@code value}. Two bit positions are derived from the
+   * (spread) hash code of the value.
+   */
+  @Contract(pure = true)
+  private static long bits(@NotNull String value)
+  {
+    final var h = value.hashCode() * 0x9e3779b9;
+    return (1L << (h >>> 26)) | (1L << ((h >>> 20) & 63));
+  }
+
+
+  @Override
+  public String toString()
+  {
+    return "SubtreeSummary(messages=" + messageCount + ",severity=" + minSeverity + ".." +
+        maxSeverity + ')';
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.internal;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.ProtocolEntry.Message;
+import de.sayayi.lib.protocol.TagSelector;
+import de.sayayi.lib.protocol.matcher.MessageMatcher;
+import de.sayayi.lib.protocol.matcher.MessageMatcher.Junction;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static de.sayayi.lib.protocol.ProtocolFactory.DEFAULT_TAG_NAME;
+
+
+/**
+ * Matcher for a set of tag names, evaluating any-of, all-of and none-of with a single pass over
+ * the tag names of a message instead of a junction of separate tag matchers.
+ * <p>
+ * Each tag name is assigned an index, so that all-of can track the distinct tags found in a
+ * bitmask. The smaller of both sets is iterated: either the tag names of the message are looked
+ * up in this matcher or the tag names of this matcher are looked up in the message.
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class TagSetMatcher implements Junction, TagSelector
+{
+  private final @NotNull Mode mode;
+  private final @NotNull String[] tagNames;
+  private final @NotNull Map<String,Integer> tagIndex;
+
+
+  private TagSetMatcher(@NotNull Mode mode, @NotNull Collection<String> tagNames)
+  {
+    this.mode = mode;
+    this.tagNames = tagNames.toArray(String[]::new);
+
+    tagIndex = new HashMap<>();
+    for(int n = 0; n < this.tagNames.length; n++)
+      tagIndex.put(this.tagNames[n], n);
+  }
+
+
+  @Contract(pure = true)
+  @NotNull Mode getMode() {
+    return mode;
+  }
+
+
+  @Contract(pure = true)
+  @NotNull String[] getTagNames() {
+    return tagNames.clone();
+  }
+
+
+  @Override
+  public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message)
+  {
+    final var messageTagNames = message.getTagNames();
+    final var n = tagNames.length;
+
+    if (mode == Mode.ALL_OF)
+    {
+      if (messageTagNames.size() < n)
+        return false;
+
+      for(var tagName: tagNames)
+        if (!messageTagNames.contains(tagName))
+          return false;
+
+      return true;
+    }
+
+    var found = false;
+
+    if (messageTagNames.size() < n)
+    {
+      for(var tagName: messageTagNames)
+        if (tagIndex.containsKey(tagName))
+        {
+          found = true;
+          break;
+        }
+    }
+    else
+    {
+      for(var tagName: tagNames)
+        if (messageTagNames.contains(tagName))
+        {
+          found = true;
+          break;
+        }
+    }
+
+    return found == (mode == Mode.ANY_OF);
+  }
+
+
+  @Override
+  public boolean match(@NotNull Iterable<String> tagNames)
+  {
+    if (mode != Mode.ALL_OF)
+    {
+      for(var tagName: tagNames)
+        if (tagName != null && tagIndex.containsKey(tagName))
+          return mode == Mode.ANY_OF;
+
+      return mode == Mode.NONE_OF;
+    }
+
+    final var n = this.tagNames.length;
+    final var found = new BitSet(n);
+
+    for(var tagName: tagNames)
+      if (tagName != null)
+      {
+        final var idx = tagIndex.get(tagName);
+        if (idx != null)
+        {
+          found.set(idx);
+          if (found.cardinality() == n)
+            return true;
+        }
+      }
+
+    return false;
+  }
+
+
+  @Override
+  public boolean isTagSelector() {
+    return true;
+  }
+
+
+  @Override
+  public @NotNull TagSelector asTagSelector() {
+    return this;
+  }
+
+
+  @Override
+  public @NotNull MessageMatcher asMessageMatcher() {
+    return this;
+  }
+
+
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o)
+      return true;
+    if (!(o instanceof TagSetMatcher))
+      return false;
+
+    final var that = (TagSetMatcher)o;
+
+    return mode == that.mode && tagIndex.keySet().equals(that.tagIndex.keySet());
+  }
+
+
+  @Override
+  public int hashCode() {
+    return mode.hashCode() * 31 + tagIndex.keySet().hashCode();
+  }
+
+
+  @Override
+  public String toString() {
+    return mode.prefix + '(' + String.join(",", tagNames) + ')';
+  }
+
+
+  /**
+   * Creates a matcher for the given {@code tagNames}. Empty tag names are ignored and the
+   * default tag is not expected to be part of {@code tagNames}. The caller is responsible for
+   * handling the degenerate cases where less than 2 tag names remain.
+   *
+   * @param mode      match mode, not {@code null}
+   * @param tagNames  tag names, not {@code null}
+   *
+   * @return  tag set matcher, never {@code null}
+   */
+  @Contract(pure = true)
+  public static @NotNull Junction of(@NotNull Mode mode, @NotNull Collection<String> tagNames)
+  {
+    final var uniqueTagNames = new TreeSet<>(tagNames);
+
+    uniqueTagNames.remove("");
+    uniqueTagNames.remove(DEFAULT_TAG_NAME);
+
+    return MatcherInterner.intern(new TagSetMatcher(mode, uniqueTagNames));
+  }
+
+
+
+
+  public enum Mode
+  {
+    ANY_OF("any-of"),
+    ALL_OF("all-of"),
+    NONE_OF("none-of");
+
+
+    private final String prefix;
+
+
+    Mode(@NotNull String prefix) {
+      this.prefix = prefix;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.internal;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.ProtocolEntry.Message;
+import de.sayayi.lib.protocol.matcher.MessageMatcher.Junction;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class ThrowableMatcher implements Junction
+{
+  public static final Junction ANY_THROWABLE = new ThrowableMatcher(Throwable.class);
+
+  private final Class<? extends Throwable> type;
+
+
+  private ThrowableMatcher(@NotNull Class<? extends Throwable> type) {
+    this.type = type;
+  }
+
+
+  @Contract(pure = true)
+  @NotNull Class<? extends Throwable> getType() {
+    return type;
+  }
+
+
+  @Override
+  public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message) {
+    return type.isInstance(message.getThrowable());
+  }
+
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o || o instanceof ThrowableMatcher && type == ((ThrowableMatcher)o).type;
+  }
+
+
+  @Override
+  public int hashCode() {
+    return type.hashCode();
+  }
+
+
+  @Override
+  public String toString() {
+    return type == Throwable.class ? "throwable" : "throwable(" + type.getName() + ')';
+  }
+
+
+  @Contract(pure = true)
+  public static @NotNull Junction of(@NotNull Class<? extends Throwable> type)
+  {
+    if (requireNonNull(type) == Throwable.class)
+      return ANY_THROWABLE;
+
+    return MatcherInterner.intern(new ThrowableMatcher(type));
+  }
+}
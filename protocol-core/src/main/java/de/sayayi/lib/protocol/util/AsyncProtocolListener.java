@@ -0,0 +1,471 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.util;
+
+import de.sayayi.lib.protocol.ProtocolEntry;
+import de.sayayi.lib.protocol.ProtocolGroup;
+import de.sayayi.lib.protocol.ProtocolListener;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.UnmodifiableView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Protocol listener which delivers events asynchronously and in batches to a consumer.
+ * <p>
+ * Events are published into a bounded ring buffer with preallocated slots. Publishing an event
+ * claims a sequence number, fills the corresponding slot and marks it as published, without
+ * taking any locks. A dedicated daemon thread collects consecutive published events and passes
+ * them to the {@link BatchConsumer} in batches of up to {@code maxBatchSize} events.
+ * <p>
+ * If the ring buffer is full, the {@link OverflowPolicy} decides whether the publishing thread
+ * waits for the consumer or the event is dropped. The {@link WaitStrategy} controls how waiting
+ * threads idle. Exceptions thrown by the consumer are passed to the uncaught exception handler
+ * of the consumer thread and do not stop the delivery of subsequent events.
+ * <p>
+ * The consumer may add messages to the observed protocol. The events published by the consumer
+ * thread itself are dropped if the ring buffer is full, as waiting for the consumer would never
+ * end, even if the overflow policy is {@link OverflowPolicy#BLOCK BLOCK}.
+ * <p>
+ * Events are delivered in publication order. A message event is published as soon as the message
+ * has been added, so parameters set afterwards may or may not be visible to the consumer.
+ *
+ * @param <M>  internal message object type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class AsyncProtocolListener<M> implements ProtocolListener<M>, AutoCloseable
+{
+  /** Default ring buffer capacity. */
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  /** Default maximum number of events delivered in a single batch. */
+  public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
+  private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+  /** Bit set in the claimed sequence once the listener has been closed. */
+  private static final long CLOSED = Long.MIN_VALUE;
+
+  private final @NotNull Event<M>[] slots;
+  private final @NotNull AtomicLongArray published;
+  private final int mask;
+  private final int maxBatchSize;
+  private final @NotNull WaitStrategy waitStrategy;
+  private final @NotNull OverflowPolicy overflowPolicy;
+  private final @NotNull BatchConsumer<M> consumer;
+  private final @NotNull AtomicLong claimed = new AtomicLong();
+  private final @NotNull AtomicLong consumed = new AtomicLong();
+  private final @NotNull AtomicLong droppedEventCount = new AtomicLong();
+  private final @NotNull Thread consumerThread;
+
+  private volatile boolean consumerParked;
+
+
+  /**
+   * Creates an asynchronous listener with default capacity and batch size, which waits for the
+   * consumer by parking if the ring buffer is full.
+   *
+   * @param consumer  batch consumer, not {@code null}
+   */
+  public AsyncProtocolListener(@NotNull BatchConsumer<M> consumer) {
+    this(DEFAULT_CAPACITY, DEFAULT_MAX_BATCH_SIZE, WaitStrategy.PARK, OverflowPolicy.BLOCK,
+        consumer);
+  }
+
+
+  /**
+   * Creates an asynchronous listener.
+   *
+   * @param capacity        ring buffer capacity, rounded up to the next power of 2
+   * @param maxBatchSize    maximum number of events delivered in a single batch, at least 1
+   * @param waitStrategy    strategy used by waiting threads, not {@code null}
+   * @param overflowPolicy  policy applied if the ring buffer is full, not {@code null}
+   * @param consumer        batch consumer, not {@code null}
+   */
+  public AsyncProtocolListener(int capacity, int maxBatchSize, @NotNull WaitStrategy waitStrategy,
+                               @NotNull OverflowPolicy overflowPolicy,
+                               @NotNull BatchConsumer<M> consumer)
+  {
+    if (capacity < 1 || capacity > (1 << 30))
+      throw new IllegalArgumentException("capacity must be in range 1..2^30");
+    if (maxBatchSize < 1)
+      throw new IllegalArgumentException("maxBatchSize must be at least 1");
+
+    this.maxBatchSize = maxBatchSize;
+    this.waitStrategy = requireNonNull(waitStrategy, "waitStrategy must not be null");
+    this.overflowPolicy = requireNonNull(overflowPolicy, "overflowPolicy must not be null");
+    this.consumer = requireNonNull(consumer, "consumer must not be null");
+
+    capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    mask = capacity - 1;
+
+    @SuppressWarnings("unchecked")
+    final var slots = (Event<M>[])new Event<?>[capacity];
+
+    this.slots = slots;
+    published = new AtomicLongArray(capacity);
+
+    for(int n = 0; n < capacity; n++)
+    {
+      slots[n] = new Event<>();
+      published.set(n, -1);
+    }
+
+    consumerThread = new Thread(this::consume,
+        "protocol-listener-" + THREAD_NUMBER.incrementAndGet());
+    consumerThread.setDaemon(true);
+    consumerThread.start();
+  }
+
+
+  @Override
+  public void messageAdded(@NotNull ProtocolEntry.Message<M> message) {
+    publish(EventType.MESSAGE_ADDED, message, null);
+  }
+
+
+  @Override
+  public void groupCreated(@NotNull ProtocolGroup<M> group) {
+    publish(EventType.GROUP_CREATED, null, group);
+  }
+
+
+  /**
+   * Returns the number of events which have been dropped, either because the ring buffer was
+   * full and the overflow policy is {@link OverflowPolicy#DROP DROP} or because the listener
+   * was already closed.
+   *
+   * @return  dropped event count
+   */
+  @Contract(pure = true)
+  public long getDroppedEventCount() {
+    return droppedEventCount.get();
+  }
+
+
+  /**
+   * Tells whether this listener has been closed.
+   *
+   * @return  {@code true} if this listener has been closed, {@code false} otherwise
+   */
+  @Contract(pure = true)
+  public boolean isClosed() {
+    return claimed.get() < 0;
+  }
+
+
+  /**
+   * Closes this listener. Events published before closing are delivered to the consumer before
+   * this method returns; events published afterwards are dropped.
+   * <p>
+   * If invoked by the consumer thread itself, this method does not wait for the remaining events
+   * to be delivered.
+   */
+  @Override
+  public void close()
+  {
+    // events claimed before the closed bit has been set are delivered, later ones are dropped
+    for(long sequence; (sequence = claimed.get()) >= 0;)
+      if (claimed.compareAndSet(sequence, sequence | CLOSED))
+        break;
+
+    LockSupport.unpark(consumerThread);
+
+    if (Thread.currentThread() != consumerThread)
+    {
+      var interrupted = false;
+
+      while(consumerThread.isAlive())
+        try {
+          consumerThread.join();
+        } catch(InterruptedException ex) {
+          interrupted = true;
+        }
+
+      if (interrupted)
+        Thread.currentThread().interrupt();
+    }
+  }
+
+
+  private void publish(@NotNull EventType type, ProtocolEntry.Message<M> message,
+                       ProtocolGroup<M> group)
+  {
+    final var capacity = mask + 1;
+    final var block = overflowPolicy == OverflowPolicy.BLOCK &&
+        Thread.currentThread() != consumerThread;
+    long sequence;
+
+    do {
+      sequence = claimed.get();
+
+      // closed or full without being able to wait for the consumer
+      if (sequence < 0 || (!block && sequence - capacity >= consumed.get()))
+      {
+        droppedEventCount.incrementAndGet();
+        return;
+      }
+    } while(!claimed.compareAndSet(sequence, sequence + 1));
+
+    for(int idleCount = 0; sequence - capacity >= consumed.get(); idleCount++)
+    {
+      if (!consumerThread.isAlive())
+      {
+        droppedEventCount.incrementAndGet();
+        return;
+      }
+
+      waitStrategy.idle(idleCount);
+    }
+
+    final var index = (int)sequence & mask;
+    final var event = slots[index];
+
+    event.type = type;
+    event.message = message;
+    event.group = group;
+
+    if (waitStrategy != WaitStrategy.PARK)
+      published.lazySet(index, sequence);
+    else
+    {
+      published.set(index, sequence);
+
+      if (consumerParked)
+        LockSupport.unpark(consumerThread);
+    }
+  }
+
+
+  private void consume()
+  {
+    final var batch = new ArrayList<Event<M>>(Math.min(maxBatchSize, mask + 1));
+    final var unmodifiableBatch = unmodifiableList(batch);
+    long next = 0;
+    int idleCount = 0;
+
+    for(;;)
+    {
+      while(batch.size() < maxBatchSize && published.get((int)next & mask) == next)
+        batch.add(slots[(int)(next++) & mask]);
+
+      if (batch.isEmpty())
+      {
+        if (next == (claimed.get() ^ CLOSED))
+          break;
+
+        if (waitStrategy != WaitStrategy.PARK || claimed.get() < 0)
+          waitStrategy.idle(idleCount++);
+        else
+        {
+          consumerParked = true;
+
+          // publish unparks the consumer if it sees the flag, otherwise the event is seen here
+          if (published.get((int)next & mask) != next)
+            LockSupport.park(this);
+
+          consumerParked = false;
+        }
+
+        continue;
+      }
+
+      idleCount = 0;
+
+      try {
+        consumer.accept(unmodifiableBatch);
+      } catch(Throwable ex) {
+        final var thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, ex);
+      }
+
+      for(var event: batch)
+      {
+        event.message = null;
+        event.group = null;
+      }
+
+      batch.clear();
+      consumed.lazySet(next);
+    }
+  }
+
+
+
+
+  /**
+   * Consumer receiving batches of events.
+   *
+   * @param <M>  internal message object type
+   */
+  @FunctionalInterface
+  public interface BatchConsumer<M>
+  {
+    /**
+     * Accepts a batch of events.
+     * <p>
+     * The list and its events are reused for subsequent batches and must not be accessed after
+     * this method returns.
+     *
+     * @param events  unmodifiable list of events in publication order, never empty
+     */
+    void accept(@NotNull @UnmodifiableView List<Event<M>> events);
+  }
+
+
+
+
+  /**
+   * Protocol event, either for an added message or a created group.
+   *
+   * @param <M>  internal message object type
+   */
+  public static final class Event<M>
+  {
+    private EventType type;
+    private ProtocolEntry.Message<M> message;
+    private ProtocolGroup<M> group;
+
+
+    private Event() {
+    }
+
+
+    /**
+     * Returns the event type.
+     *
+     * @return  event type, never {@code null}
+     */
+    @Contract(pure = true)
+    public @NotNull EventType getType() {
+      return type;
+    }
+
+
+    /**
+     * Returns the added message.
+     *
+     * @return  added message, never {@code null}
+     *
+     * @throws IllegalStateException  if the event type is not {@link EventType#MESSAGE_ADDED}
+     */
+    @Contract(pure = true)
+    public @NotNull ProtocolEntry.Message<M> getMessage()
+    {
+      if (type != EventType.MESSAGE_ADDED)
+        throw new IllegalStateException("event has no message");
+
+      return message;
+    }
+
+
+    /**
+     * Returns the created group.
+     *
+     * @return  created group, never {@code null}
+     *
+     * @throws IllegalStateException  if the event type is not {@link EventType#GROUP_CREATED}
+     */
+    @Contract(pure = true)
+    public @NotNull ProtocolGroup<M> getGroup()
+    {
+      if (type != EventType.GROUP_CREATED)
+        throw new IllegalStateException("event has no group");
+
+      return group;
+    }
+
+
+    @Override
+    public String toString() {
+      return "Event(" + type + ',' + (type == EventType.MESSAGE_ADDED ? message : group) + ')';
+    }
+  }
+
+
+
+
+  public enum EventType {
+    MESSAGE_ADDED, GROUP_CREATED
+  }
+
+
+
+
+  /**
+   * Policy applied when an event is published while the ring buffer is full.
+   */
+  public enum OverflowPolicy
+  {
+    /** The publishing thread waits until the consumer has freed a slot. */
+    BLOCK,
+
+    /** The event is dropped and counted. */
+    DROP
+  }
+
+
+
+
+  /**
+   * Strategy used by threads waiting for events or free slots.
+   */
+  public enum WaitStrategy
+  {
+    /** Spin, lowest latency at the cost of a fully occupied cpu core. */
+    BUSY_SPIN {
+      @Override
+      void idle(int idleCount) {
+        Thread.onSpinWait();
+      }
+    },
+
+    /** Yield the processor to other threads. */
+    YIELD {
+      @Override
+      void idle(int idleCount) {
+        Thread.yield();
+      }
+    },
+
+    /**
+     * Park the thread, lowest cpu usage. The consumer thread is unparked when an event is
+     * published; threads waiting for a free slot park for progressively longer periods of time.
+     */
+    PARK {
+      @Override
+      void idle(int idleCount) {
+        LockSupport.parkNanos(1_000L << Math.min(idleCount, 10));
+      }
+    };
+
+
+    abstract void idle(int idleCount);
+  }
+}
@@ -15,6 +15,8 @@
  */
 package de.sayayi.lib.protocol.util;
 
+import de.sayayi.lib.protocol.internal.ParameterMapAccess;
+
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -43,13 +45,30 @@ import static java.util.Spliterator.SORTED;
  */
 public final class ParameterMap implements Iterable<Entry<String,Object>>
 {
-  private final ParameterMap parent;
+  private static final Comparator<ParameterEntry> PARAMETER_ENTRY_COMPARATOR =
+      (e1, e2) -> e1.key.compareTo(e2.key);
+
+  // only re-parented through ParameterMapAccess, when a protocol is grafted
+  private ParameterMap parent;
 
   private ParameterEntry[] entries;
   private int size;
   private int modCount;
 
 
+  static
+  {
+    ParameterMapAccess.register(new ParameterMapAccess() {
+      @Override
+      protected void setParent(@NotNull ParameterMap parameterMap, @NotNull ParameterMap parent)
+      {
+        parameterMap.parent = parent;
+        parameterMap.modCount++;
+      }
+    });
+  }
+
+
   public ParameterMap() {
     this(null);
   }
@@ -90,18 +109,15 @@ public final class ParameterMap implements Iterable<Entry<String,Object>>
           high = mid - 1;
         else
         {
-          if (!Objects.equals(entry.value, value))
-          {
+          if (entry.update(value))
             modCount++;
-            entry.value = value;
-          }
 
           return;
         }
       }
 
       if (entries.length == size)
-        entries = copyOf(entries, size + 2);
+        entries = copyOf(entries, newCapacity(size + 1));
 
       arraycopy(entries, low, entries, low + 1, size - low);
       entries[low] = new ParameterEntry(parameter, value);
@@ -112,6 +128,91 @@ public final class ParameterMap implements Iterable<Entry<String,Object>>
   }
 
 
+  /**
+   * Puts all parameters from {@code parameterValues} into this map. Entries with a {@code null}
+   * or empty key are ignored.
+   * <p>
+   * The keys are sorted once and merged with the existing entries, requiring at most a single
+   * array allocation regardless of the number of parameters added.
+   *
+   * @param parameterValues  parameters to add, not {@code null}
+   *
+   * @since 1.6.0
+   */
+  @Contract(mutates = "this")
+  public void putAll(@NotNull Map<String,?> parameterValues)
+  {
+    final int count = requireNonNull(parameterValues, "parameterValues must not be null").size();
+    if (count == 0)
+      return;
+
+    final int capacity = newCapacity(size + count);
+    final int start = capacity - count;
+    final var merged = new ParameterEntry[capacity];
+    int end = start;
+
+    // collect new entries at the end of the merged array
+    for(var parameterValue: parameterValues.entrySet())
+    {
+      final var key = parameterValue.getKey();
+      if (key != null && !key.isEmpty())
+        merged[end++] = new ParameterEntry(key, parameterValue.getValue());
+    }
+
+    if (end == start)
+      return;
+
+    if (!(parameterValues instanceof SortedMap && ((SortedMap<String,?>)parameterValues).comparator() == null))
+      Arrays.sort(merged, start, end, PARAMETER_ENTRY_COMPARATOR);
+
+    // merge existing and new entries; the write index never overtakes the read index of the new entries
+    boolean changed = false;
+    int n = 0;
+
+    for(int i = 0, j = start; i < size || j < end;)
+    {
+      final int cmp = i == size ? 1 : j == end ? -1 : entries[i].key.compareTo(merged[j].key);
+
+      if (cmp < 0)
+        merged[n++] = entries[i++];
+      else if (cmp == 0)
+      {
+        final var entry = entries[i++];
+
+        changed |= entry.update(merged[j++].value);
+        merged[n++] = entry;
+      }
+      else
+      {
+        final var entry = merged[j++];
+
+        // duplicate keys provided by the map; last one wins
+        if (n > 0 && merged[n - 1].key.equals(entry.key))
+          changed |= merged[n - 1].update(entry.value);
+        else
+        {
+          merged[n++] = entry;
+          changed = true;
+        }
+      }
+    }
+
+    Arrays.fill(merged, n, capacity, null);
+
+    entries = merged;
+    size = n;
+
+    if (changed)
+      modCount++;
+  }
+
+
+  @Contract(pure = true)
+  private int newCapacity(int minCapacity) {
+    return Math.max(minCapacity, size + (size >> 1) + 2);
+  }
+
+
   @Contract(pure = true)
   public boolean has(@NotNull String parameter) {
     return getEntry(requireNonNull(parameter, "parameter must not be null")) != null;
@@ -139,6 +240,18 @@ public final class ParameterMap implements Iterable<Entry<String,Object>>
   }
 
 
+  @Contract(value = "-> new", pure = true)
+  public @NotNull SortedMap<String,Object> getLocalValues()
+  {
+    final var localValues = new TreeMap<String,Object>();
+
+    for(int n = 0; n < size; n++)
+      localValues.put(entries[n].key, entries[n].value);
+
+    return localValues;
+  }
+
+
   @Contract(value = "-> new", pure = true)
   public @NotNull Stream<Entry<String,Object>> stream() {
     return StreamSupport.stream(spliterator(), false);
@@ -654,6 +767,17 @@ public final class ParameterMap implements Iterable<Entry<String,Object>>
     }
 
 
+    @Contract(mutates = "this")
+    private boolean update(Object value)
+    {
+      if (Objects.equals(this.value, value))
+        return false;
+
+      this.value = value;
+      return true;
+    }
+
+
     @Override
     public boolean equals(Object o)
     {
@@ -0,0 +1,375 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.util;
+
+import de.sayayi.lib.protocol.Protocol;
+import de.sayayi.lib.protocol.ProtocolFormatter.ChunkedProtocolFormatter;
+import de.sayayi.lib.protocol.ProtocolGroup;
+import de.sayayi.lib.protocol.ProtocolIterator;
+import de.sayayi.lib.protocol.ProtocolIterator.DepthEntry;
+import de.sayayi.lib.protocol.ProtocolIterator.GroupEndEntry;
+import de.sayayi.lib.protocol.ProtocolIterator.GroupStartEntry;
+import de.sayayi.lib.protocol.ProtocolIterator.MessageEntry;
+import de.sayayi.lib.protocol.ProtocolIterator.ProtocolEnd;
+import de.sayayi.lib.protocol.ProtocolIterator.ProtocolStart;
+import de.sayayi.lib.protocol.matcher.MessageMatcher;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.Flow.Publisher;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Publisher emitting the elements of a protocol to a reactive stream subscriber.
+ * <p>
+ * Each subscription traverses the protocol independently. Traversal is driven by demand only:
+ * elements are produced and emitted on the thread calling {@link Subscription#request(long)},
+ * no element is produced ahead of demand and cancelling the subscription stops the traversal
+ * and releases the underlying iterator. Completion is signalled as soon as the last element has
+ * been emitted, without waiting for further demand.
+ * <p>
+ * The protocol must not be modified while it is being published, as with
+ * {@link Protocol#iterator(MessageMatcher)}.
+ *
+ * @param <T>  published element type
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class ProtocolPublisher<T> implements Publisher<T>
+{
+  private final @NotNull Supplier<Source<T>> sourceFactory;
+
+
+  private ProtocolPublisher(@NotNull Supplier<Source<T>> sourceFactory) {
+    this.sourceFactory = sourceFactory;
+  }
+
+
+  @Override
+  public void subscribe(@NotNull Subscriber<? super T> subscriber)
+  {
+    requireNonNull(subscriber, "subscriber must not be null");
+
+    subscriber.onSubscribe(new ProtocolSubscription<>(subscriber, sourceFactory));
+  }
+
+
+  /**
+   * Creates a publisher emitting the entries of {@code protocol} matching {@code matcher} in the
+   * same order as returned by {@link Protocol#iterator(MessageMatcher)}.
+   *
+   * @param protocol  protocol, not {@code null}
+   * @param matcher   message matcher, not {@code null}
+   *
+   * @param <M>  internal message object type
+   *
+   * @return  publisher for protocol entries, never {@code null}
+   */
+  @Contract(value = "_, _ -> new", pure = true)
+  public static <M> @NotNull ProtocolPublisher<DepthEntry<M>> of(@NotNull Protocol<M> protocol,
+                                                                 @NotNull MessageMatcher matcher)
+  {
+    requireNonNull(protocol, "protocol must not be null");
+    requireNonNull(matcher, "matcher must not be null");
+
+    return new ProtocolPublisher<>(() -> {
+      final var iterator = protocol.iterator(matcher);
+
+      return new Source<DepthEntry<M>>() {
+        @Override
+        public DepthEntry<M> next() {
+          return iterator.hasNext() ? iterator.next() : null;
+        }
+
+
+        @Override
+        public boolean isExhausted() {
+          return !iterator.hasNext();
+        }
+      };
+    });
+  }
+
+
+  /**
+   * Creates a publisher emitting the formatted representation of {@code protocol} in chunks. The
+   * concatenation of all chunks equals the result of
+   * {@link Protocol#format(de.sayayi.lib.protocol.ProtocolFormatter, MessageMatcher)
+   * protocol.format(formatter, matcher)}.
+   * <p>
+   * Each subscription initializes and uses {@code formatter}, so subscriptions to the returned
+   * publisher must not overlap.
+   *
+   * @param protocol   protocol, not {@code null}
+   * @param formatter  chunked protocol formatter, not {@code null}
+   * @param matcher    message matcher, not {@code null}
+   *
+   * @param <M>  internal message object type
+   *
+   * @return  publisher for formatted chunks, never {@code null}
+   */
+  @Contract(value = "_, _, _ -> new", pure = true)
+  public static <M> @NotNull ProtocolPublisher<String> formatted(
+      @NotNull Protocol<M> protocol, @NotNull ChunkedProtocolFormatter<M> formatter,
+      @NotNull MessageMatcher matcher)
+  {
+    requireNonNull(protocol, "protocol must not be null");
+    requireNonNull(formatter, "formatter must not be null");
+    requireNonNull(matcher, "matcher must not be null");
+
+    return new ProtocolPublisher<>(() -> {
+      formatter.init(protocol.getFactory(), matcher,
+          countGroupDepth(protocol) + (protocol instanceof ProtocolGroup ? 1 : 0));
+
+      return new FormattingSource<>(protocol.iterator(matcher), formatter);
+    });
+  }
+
+
+  @Contract(pure = true)
+  private static int countGroupDepth(@NotNull Protocol<?> protocol)
+  {
+    int depth = 0;
+
+    for(var groupIterator = protocol.groupIterator(); groupIterator.hasNext();)
+      depth = Math.max(depth, 1 + countGroupDepth(groupIterator.next()));
+
+    return depth;
+  }
+
+
+
+
+  private interface Source<T>
+  {
+    /**
+     * Produces the next element.
+     *
+     * @return  next element or {@code null} if the source is exhausted
+     */
+    T next();
+
+
+    /**
+     * Tells whether the source is known to be exhausted without producing an element.
+     *
+     * @return  {@code true} if {@link #next()} is guaranteed to return {@code null}
+     */
+    boolean isExhausted();
+  }
+
+
+
+
+  private static final class FormattingSource<M> implements Source<String>
+  {
+    private final @NotNull ProtocolIterator<M> iterator;
+    private final @NotNull ChunkedProtocolFormatter<M> formatter;
+
+
+    private FormattingSource(@NotNull ProtocolIterator<M> iterator,
+                             @NotNull ChunkedProtocolFormatter<M> formatter)
+    {
+      this.iterator = iterator;
+      this.formatter = formatter;
+    }
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public String next()
+    {
+      while(iterator.hasNext())
+      {
+        final var entry = iterator.next();
+
+        if (entry instanceof MessageEntry)
+          formatter.message((MessageEntry<M>)entry);
+        else if (entry instanceof GroupStartEntry)
+          formatter.groupStart((GroupStartEntry<M>)entry);
+        else if (entry instanceof GroupEndEntry)
+          formatter.groupEnd((GroupEndEntry<M>)entry);
+        else if (entry instanceof ProtocolStart)
+          formatter.protocolStart();
+        else if (entry instanceof ProtocolEnd)
+          formatter.protocolEnd();
+
+        final var chunk = formatter.takeChunk();
+        if (!chunk.isEmpty())
+          return chunk;
+      }
+
+      return null;
+    }
+
+
+    @Override
+    public boolean isExhausted() {
+      return !iterator.hasNext();
+    }
+  }
+
+
+
+
+  private static final class ProtocolSubscription<T> implements Subscription
+  {
+    private final @NotNull Subscriber<? super T> subscriber;
+    private final @NotNull AtomicLong requested = new AtomicLong();
+    private final @NotNull AtomicInteger wip = new AtomicInteger();
+
+    private Supplier<Source<T>> sourceFactory;
+    private Source<T> source;
+    private volatile boolean cancelled;
+    private volatile boolean illegalRequest;
+
+
+    private ProtocolSubscription(@NotNull Subscriber<? super T> subscriber,
+                                 @NotNull Supplier<Source<T>> sourceFactory)
+    {
+      this.subscriber = subscriber;
+      this.sourceFactory = sourceFactory;
+    }
+
+
+    @Override
+    public void request(long n)
+    {
+      if (n <= 0)
+        illegalRequest = true;
+      else
+        requested.getAndUpdate(r -> r + n < 0 ? Long.MAX_VALUE : r + n);
+
+      drain();
+    }
+
+
+    @Override
+    public void cancel()
+    {
+      cancelled = true;
+      drain();
+    }
+
+
+    private void drain()
+    {
+      // emission is serialized: re-entrant or concurrent requests are handled by the thread
+      // currently draining
+      if (wip.getAndIncrement() != 0)
+        return;
+
+      for(int missed = 1; missed != 0; missed = wip.addAndGet(-missed))
+      {
+        if (cancelled)
+        {
+          release();
+          continue;
+        }
+
+        if (illegalRequest)
+        {
+          terminate();
+          subscriber.onError(
+              new IllegalArgumentException("number of requested elements must be positive"));
+          continue;
+        }
+
+        final var r = requested.get();
+        long emitted = 0;
+
+        while(emitted != r && !cancelled)
+        {
+          final T element;
+
+          try {
+            if (source == null)
+              source = sourceFactory.get();
+
+            element = source.next();
+          } catch(Throwable ex) {
+            terminate();
+            subscriber.onError(ex);
+            break;
+          }
+
+          if (element == null)
+          {
+            terminate();
+            subscriber.onComplete();
+            break;
+          }
+
+          try {
+            subscriber.onNext(element);
+          } catch(Throwable ex) {
+            terminate();
+            throw ex;
+          }
+
+          emitted++;
+        }
+
+        // complete right away if the demand was met by the last element
+        if (emitted == r && emitted != 0 && !cancelled)
+        {
+          final boolean exhausted;
+
+          try {
+            exhausted = source.isExhausted();
+          } catch(Throwable ex) {
+            terminate();
+            subscriber.onError(ex);
+            continue;
+          }
+
+          if (exhausted)
+          {
+            terminate();
+            subscriber.onComplete();
+            continue;
+          }
+        }
+
+        if (emitted != 0 && r != Long.MAX_VALUE)
+          requested.addAndGet(-emitted);
+      }
+    }
+
+
+    private void terminate()
+    {
+      cancelled = true;
+      release();
+    }
+
+
+    private void release()
+    {
+      sourceFactory = null;
+      source = null;
+    }
+  }
+}
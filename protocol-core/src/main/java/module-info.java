@@ -4,6 +4,7 @@ module de.sayayi.lib.protocol {
   requires static de.sayayi.lib.message;
 
   exports de.sayayi.lib.protocol;
+  exports de.sayayi.lib.protocol.codec;
   exports de.sayayi.lib.protocol.exception;
   exports de.sayayi.lib.protocol.factory;
   exports de.sayayi.lib.protocol.formatter;
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol;
+
+import de.sayayi.lib.protocol.exception.ProtocolException;
+import de.sayayi.lib.protocol.factory.StringProtocolFactory;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+import static de.sayayi.lib.protocol.Level.Shared.DEBUG;
+import static de.sayayi.lib.protocol.Level.Shared.INFO;
+import static de.sayayi.lib.protocol.Level.Shared.LOWEST;
+import static de.sayayi.lib.protocol.Level.Shared.WARN;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.any;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+/**
+ * @author Jeroen Gremmen
+ */
+public class ProtocolAdmissionTest
+{
+  @Test
+  public void testFactoryAdmissionLevel()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+
+    assertSame(LOWEST, protocol.getAdmissionLevel());
+
+    factory.setAdmissionLevel(INFO);
+
+    assertSame(protocol.debug(), protocol.debug());
+    assertSame(protocol.debug().message("a"), protocol.debug().forTag("t").message("b"));
+
+    protocol.debug().message("debug 1").with("p", 1)
+        .info().message("info 1");
+
+    assertEquals(1, protocol.count(any()));
+
+    // the level can be lowered at runtime
+    factory.setAdmissionLevel(DEBUG);
+    protocol.debug().message("debug 2");
+
+    assertEquals(2, protocol.count(any()));
+  }
+
+
+  @Test
+  public void testProtocolAdmissionLevel()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol().setAdmissionLevel(WARN);
+    val group = protocol.createGroup();
+    val debugGroup = protocol.createGroup().setAdmissionLevel(DEBUG);
+
+    factory.setAdmissionLevel(INFO);
+
+    protocol.info().message("info 1");
+    group.info().message("info 2");
+    group.warn().message("warn 1");
+    debugGroup.debug().message("debug 1");
+
+    assertSame(WARN, group.getAdmissionLevel());
+    assertSame(DEBUG, debugGroup.getAdmissionLevel());
+    assertEquals(2, protocol.count(any()));
+
+    // reset to the factory admission level
+    protocol.setAdmissionLevel(null);
+    group.info().message("info 3");
+
+    assertSame(INFO, group.getAdmissionLevel());
+    assertEquals(3, protocol.count(any()));
+  }
+
+
+  @Test
+  public void testDiscardedMessage()
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol()
+        .setAdmissionLevel(INFO);
+    val group = protocol.createGroup();
+
+    val discarded = group.debug().withThrowable(new RuntimeException()).message("debug");
+
+    assertSame(group, discarded.setLevelLimit(WARN));
+    assertThrows(ProtocolException.class, discarded::getMessage);
+    assertThrows(NullPointerException.class, () -> group.debug().message(null));
+
+    group.seal();
+
+    assertThrows(ProtocolException.class, () -> group.debug().message("sealed"));
+    assertThrows(ProtocolException.class,
+        () -> protocol.snapshot().setAdmissionLevel(DEBUG));
+    assertEquals(0, protocol.count(any()));
+  }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol;
+
+import de.sayayi.lib.protocol.ProtocolIterator.DepthEntry;
+import de.sayayi.lib.protocol.ProtocolIterator.GroupEndEntry;
+import de.sayayi.lib.protocol.ProtocolIterator.GroupStartEntry;
+import de.sayayi.lib.protocol.ProtocolIterator.MessageEntry;
+import de.sayayi.lib.protocol.ProtocolIterator.ProtocolEnd;
+import de.sayayi.lib.protocol.ProtocolIterator.ProtocolStart;
+import de.sayayi.lib.protocol.factory.StringProtocolFactory;
+import de.sayayi.lib.protocol.matcher.MessageMatcher;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static de.sayayi.lib.protocol.Level.Shared.WARN;
+import static de.sayayi.lib.protocol.ProtocolGroup.Visibility.FLATTEN;
+import static de.sayayi.lib.protocol.ProtocolGroup.Visibility.FLATTEN_ON_SINGLE_ENTRY;
+import static de.sayayi.lib.protocol.ProtocolGroup.Visibility.SHOW_HEADER_ALWAYS;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.any;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.isError;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.isWarn;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author Jeroen Gremmen
+ */
+public class ProtocolCursorTest
+{
+  @Test
+  public void testPoll()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+    val cursor = protocol.cursor(isWarn());
+
+    protocol.warn().message("msg1");
+
+    // msg1 is held back until its last flag is known
+    var entries = cursor.poll();
+    assertEquals(1, entries.size());
+    assertInstanceOf(ProtocolStart.class, entries.get(0));
+
+    protocol.info().message("msg2");
+    protocol.error().message("msg3");
+
+    entries = cursor.poll();
+    assertEquals(1, entries.size());
+    assertMessage(entries.get(0), "msg1", 0, true, false);
+    assertTrue(cursor.poll().isEmpty());
+
+    entries = cursor.finish();
+    assertEquals(2, entries.size());
+    assertMessage(entries.get(0), "msg3", 0, false, true);
+    assertInstanceOf(ProtocolEnd.class, entries.get(1));
+
+    assertTrue(cursor.isFinished());
+    assertTrue(cursor.poll().isEmpty());
+  }
+
+
+  @Test
+  public void testGroups()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+    val cursor = protocol.cursor(any());
+
+    assertEquals(1, cursor.poll().size());
+
+    val group = protocol.createGroup();
+    group.setGroupMessage("group");
+
+    // empty group is not shown
+    assertTrue(cursor.poll().isEmpty());
+
+    group.info().message("msg1");
+    group.info().message("msg2");
+
+    var entries = cursor.poll();
+    assertEquals(2, entries.size());
+    assertInstanceOf(GroupStartEntry.class, entries.get(0));
+    assertEquals(1, entries.get(0).getDepth());
+    assertMessage(entries.get(1), "msg1", 1, true, false);
+
+    // message added to the parent ends the group
+    protocol.info().message("msg3");
+
+    entries = cursor.poll();
+    assertEquals(2, entries.size());
+    assertMessage(entries.get(0), "msg2", 1, false, true);
+    assertInstanceOf(GroupEndEntry.class, entries.get(1));
+
+    // new message in the group starts the group again
+    group.info().message("msg4");
+
+    entries = cursor.finish();
+    assertEquals(5, entries.size());
+    assertMessage(entries.get(0), "msg3", 0, false, false);
+    assertInstanceOf(GroupStartEntry.class, entries.get(1));
+    assertFalse(((GroupStartEntry<String>)entries.get(1)).isFirst());
+    assertMessage(entries.get(2), "msg4", 1, true, true);
+    assertInstanceOf(GroupEndEntry.class, entries.get(3));
+    assertInstanceOf(ProtocolEnd.class, entries.get(4));
+  }
+
+
+  @Test
+  public void testSameAsIterator()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+
+    protocol.info().message("msg1");
+    protocol.createGroup().setVisibility(SHOW_HEADER_ALWAYS).setGroupMessage("empty");
+
+    val group = protocol.createGroup();
+    group.setGroupMessage("group");
+    group.info().message("msg2");
+
+    // nested groups are limited by the header level of their parent group
+    val nested = group.createGroup();
+    nested.error().message("msg3");
+    nested.debug().message("msg4");
+    group.debug().message("msg5");
+
+    // groups without matching messages are not shown
+    protocol.createGroup().error().message("msg6");
+    protocol.createGroup().setLevelLimit(WARN).error().message("msg7");
+    protocol.warn().message("msg8");
+
+    // flattened on a single entry, depending on the matcher
+    val single = protocol.createGroup().setVisibility(FLATTEN_ON_SINGLE_ENTRY);
+    single.setGroupMessage("single");
+    single.error().message("msg9");
+    single.warn().message("msg10");
+
+    // a group nested in a flattened group, ending the protocol
+    val flattened = protocol.createGroup().setVisibility(FLATTEN);
+    flattened.info().message("msg11");
+
+    val last = flattened.createGroup();
+    last.setGroupMessage("last");
+    last.warn().message("msg12");
+
+    for(val matcher: new MessageMatcher[] { any(), not(isError()), isError(), isWarn() })
+    {
+      val expected = new ArrayList<String>();
+      protocol.iterator(matcher).forEachRemaining(entry -> expected.add(toString(entry)));
+
+      val actual = new ArrayList<String>();
+      protocol.cursor(matcher).finish().forEach(entry -> actual.add(toString(entry)));
+
+      assertEquals(expected, actual);
+    }
+  }
+
+
+  @Test
+  public void testFlattenOnSingleEntry()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+    val cursor = protocol.cursor(any());
+
+    assertEquals(1, cursor.poll().size());
+
+    val group = protocol.createGroup().setVisibility(FLATTEN_ON_SINGLE_ENTRY);
+    group.setGroupMessage("group");
+    group.info().message("msg1");
+
+    // the single entry is held back, so it can still be moved into the group
+    assertTrue(cursor.poll().isEmpty());
+
+    group.info().message("msg2");
+
+    var entries = cursor.poll();
+    assertEquals(2, entries.size());
+    assertInstanceOf(GroupStartEntry.class, entries.get(0));
+    assertTrue(((GroupStartEntry<String>)entries.get(0)).isFirst());
+    assertMessage(entries.get(1), "msg1", 1, true, false);
+
+    val flattened = protocol.createGroup().setVisibility(FLATTEN_ON_SINGLE_ENTRY);
+    flattened.setGroupMessage("flattened");
+    flattened.info().message("msg3");
+
+    entries = cursor.finish();
+    assertEquals(4, entries.size());
+    assertMessage(entries.get(0), "msg2", 1, false, true);
+    assertInstanceOf(GroupEndEntry.class, entries.get(1));
+    assertMessage(entries.get(2), "msg3", 0, false, true);
+    assertInstanceOf(ProtocolEnd.class, entries.get(3));
+  }
+
+
+  @Test
+  public void testConcurrentAppend() throws Exception
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+    val cursor = protocol.cursor(any());
+    val groups = List.of(protocol.createGroup(), protocol.createGroup());
+
+    // every message appended while polling must be reported exactly once
+    val writer = new Thread(() -> {
+      for(int n = 0; n < 2000; n++)
+        groups.get(n % 2).info().message("msg" + n);
+    });
+    writer.start();
+
+    var messages = 0;
+
+    while(writer.isAlive())
+      messages += countMessages(cursor.poll());
+
+    writer.join();
+
+    assertEquals(2000, messages + countMessages(cursor.finish()));
+  }
+
+
+  private static @NotNull String toString(@NotNull DepthEntry<String> entry)
+  {
+    // group start entries do not show their name or message
+    return entry instanceof GroupStartEntry
+        ? entry + ((GroupStartEntry<String>)entry).getGroupMessage().getMessage()
+        : entry.toString();
+  }
+
+
+  private static int countMessages(@NotNull List<DepthEntry<String>> entries) {
+    return (int)entries.stream().filter(entry -> entry instanceof MessageEntry).count();
+  }
+
+
+  private void assertMessage(@NotNull DepthEntry<String> entry, @NotNull String message, int depth,
+                             boolean first, boolean last)
+  {
+    assertInstanceOf(MessageEntry.class, entry);
+
+    val messageEntry = (MessageEntry<String>)entry;
+
+    assertEquals(message, messageEntry.getMessage());
+    assertEquals(depth, messageEntry.getDepth());
+    assertEquals(first, messageEntry.isFirst());
+    assertEquals(last, messageEntry.isLast());
+  }
+}
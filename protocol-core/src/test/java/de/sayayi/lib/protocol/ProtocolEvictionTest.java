@@ -0,0 +1,243 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol;
+
+import de.sayayi.lib.protocol.ProtocolIterator.GroupStartEntry;
+import de.sayayi.lib.protocol.ProtocolIterator.MessageEntry;
+import de.sayayi.lib.protocol.codec.ProtocolDeltaWriter;
+import de.sayayi.lib.protocol.codec.ProtocolSpillFile;
+import de.sayayi.lib.protocol.exception.ProtocolException;
+import de.sayayi.lib.protocol.factory.StringProtocolFactory;
+import de.sayayi.lib.protocol.formatter.JsonProtocolFormatter;
+import de.sayayi.lib.protocol.formatter.TechnicalProtocolFormatter;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static de.sayayi.lib.protocol.Level.Shared.DEBUG;
+import static de.sayayi.lib.protocol.Level.Shared.INFO;
+import static de.sayayi.lib.protocol.ProtocolGroup.Visibility.SHOW_HEADER_ALWAYS;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.any;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.between;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author Jeroen Gremmen
+ */
+public class ProtocolEvictionTest
+{
+  @Test
+  public void testLevelAwareEviction()
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+    val group = protocol.createGroup("group");
+    group.setGroupMessage("group header");
+
+    protocol.debug().message("debug 1");
+    group.info().message("info 1");
+    group.debug().message("debug 2");
+    protocol.warn().message("warn 1");
+    group.info().message("info 2");
+    protocol.debug().message("debug 3");
+
+    protocol.setMessageBudget(4, Long.MAX_VALUE);
+
+    // the oldest debug messages are evicted first
+    assertEquals(4, protocol.count(any()));
+    assertEquals(List.of("info 1", "info 2", "warn 1", "debug 3"), texts(protocol));
+    assertEquals(1, protocol.getDroppedMessageCount());
+    assertEquals(1, group.getDroppedMessageCount());
+
+    group.error().message("error 1");
+    group.info().message("info 3");
+
+    assertEquals(List.of("info 2", "error 1", "info 3", "warn 1"), texts(protocol));
+    assertEquals(2, protocol.getDroppedMessageCount());
+    assertEquals(2, group.getDroppedMessageCount());
+    assertFalse(protocol.matches(between(DEBUG, DEBUG)));
+    assertEquals(2, group.count(between(INFO, INFO)));
+
+    // a new message with the lowest severity is evicted right away
+    protocol.debug().message("debug 4");
+    assertEquals(4, protocol.count(any()));
+    assertEquals(3, protocol.getDroppedMessageCount());
+
+    val formatted = protocol.format(TechnicalProtocolFormatter.getInstance());
+    assertTrue(formatted.contains("group header  {level=ERROR}  (2 messages dropped)"));
+
+    val json = protocol.format(new JsonProtocolFormatter<>(), any());
+    assertTrue(json.contains("\"messageCount\":3,\"droppedMessageCount\":2,"));
+
+    // lowering the budget evicts messages immediately
+    protocol.setMessageBudget(1, Long.MAX_VALUE);
+    assertEquals(List.of("error 1"), texts(protocol));
+    assertEquals(4, group.getDroppedMessageCount());
+    assertEquals(4, protocol.getDroppedMessageCount());
+  }
+
+
+  @Test
+  public void testHeapBudget()
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+
+    // 160 bytes per message and 16 bytes per tag, including the default tag
+    protocol.setMessageBudget(Integer.MAX_VALUE, 1760);
+
+    for(int n = 0; n < 100; n++)
+      protocol.info().message("message " + n);
+
+    assertEquals(10, protocol.count(any()));
+    assertEquals(90, protocol.getDroppedMessageCount());
+
+    protocol.warn().forTags("a", "b", "c", "d", "e").message("tagged");
+
+    assertEquals(9, protocol.count(any()));
+    assertEquals("message 92", texts(protocol).get(0));
+  }
+
+
+  @Test
+  public void testCompaction()
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol()
+        .setMessageBudget(50, Long.MAX_VALUE);
+    val group = protocol.createGroup("group").setVisibility(SHOW_HEADER_ALWAYS);
+    group.setGroupMessage("group");
+    val cursor = protocol.cursor(any());
+    val polled = new ArrayList<String>();
+
+    for(int n = 0; n < 10_000; n++)
+    {
+      (n % 3 == 0 ? group : protocol).info().message("message " + n);
+
+      if (n % 7 == 0)
+        protocol.debug().message("debug " + n);
+
+      for(var entry: cursor.poll())
+        if (entry instanceof MessageEntry)
+          polled.add(((MessageEntry<String>)entry).getMessage());
+    }
+
+    for(var entry: cursor.finish())
+      if (entry instanceof MessageEntry)
+        polled.add(((MessageEntry<String>)entry).getMessage());
+
+    // each message is polled exactly once, unless it has been evicted before being polled
+    assertEquals(polled.stream().distinct().count(), polled.size());
+    assertTrue(polled.containsAll(texts(protocol)));
+    assertEquals(10_000 - 50 + 10_000 / 7 + 1, protocol.getDroppedMessageCount() +
+        group.getDroppedMessageCount());
+    assertEquals(50, protocol.count(any()));
+    assertEquals(50, protocol.find(any()).size());
+    assertEquals(50, protocol.stream(any())
+        .filter(entry -> entry instanceof MessageEntry).count());
+
+    val groupStart = protocol.stream(any())
+        .filter(entry -> entry instanceof GroupStartEntry)
+        .map(entry -> (GroupStartEntry<String>)entry)
+        .findFirst().orElseThrow();
+    assertEquals(group.getDroppedMessageCount(), groupStart.getDroppedMessageCount());
+  }
+
+
+  @Test
+  public void testSnapshotAndGraft()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol().setMessageBudget(3, Long.MAX_VALUE);
+
+    protocol.info().message("info 1");
+    protocol.info().message("info 2");
+    protocol.info().message("info 3");
+
+    val snapshot = protocol.snapshot();
+
+    protocol.info().message("info 4");
+    protocol.info().message("info 5");
+
+    // evictions after taking the snapshot are not visible in the snapshot
+    assertEquals(List.of("info 1", "info 2", "info 3"), texts(snapshot));
+    assertEquals(0, snapshot.getDroppedMessageCount());
+    assertEquals(List.of("info 3", "info 4", "info 5"), texts(protocol));
+
+    val other = factory.createProtocol();
+    other.debug().message("debug 1");
+    other.error().message("error 1");
+
+    // grafted messages are added to the budget as the most recent messages
+    val grafted = protocol.graft(other);
+    assertEquals(List.of("info 4", "info 5", "error 1"), texts(protocol));
+    assertEquals(1, grafted.getDroppedMessageCount());
+    assertEquals(3, protocol.getDroppedMessageCount());
+  }
+
+
+  @Test
+  public void testParametersOfEvictedMessage()
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol()
+        .setMessageBudget(1, Long.MAX_VALUE);
+    protocol.info().message("keep");
+
+    val group = protocol.createGroup();
+
+    // the debug message is evicted right away, as the info message has a higher severity
+    group.debug().message("dropped").with("k", 1).with("l", 2);
+
+    assertEquals(List.of("keep"), texts(protocol));
+    assertEquals(1, group.getDroppedMessageCount());
+  }
+
+
+  @Test
+  public void testRestrictions()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol().setMessageBudget(10, Long.MAX_VALUE);
+    protocol.info().message("message");
+
+    assertThrows(IllegalArgumentException.class,
+        () -> protocol.setMessageBudget(-1, Long.MAX_VALUE));
+    assertThrows(IllegalArgumentException.class, () -> protocol.setMessageBudget(1, -1));
+    assertThrows(ProtocolException.class,
+        () -> protocol.snapshot().setMessageBudget(1, Long.MAX_VALUE));
+    assertThrows(ProtocolException.class, () -> factory.createProtocol().graft(protocol));
+    assertThrows(IllegalStateException.class,
+        () -> new ProtocolSpillFile<>(protocol, 0, Function.identity(), Function.identity()));
+    assertThrows(IllegalStateException.class,
+        () -> new ProtocolDeltaWriter<String>(new ByteArrayOutputStream(), Function.identity())
+            .exportSince(protocol, 0));
+  }
+
+
+  private static List<String> texts(Protocol<String> protocol)
+  {
+    return protocol.find(any()).stream()
+        .map(Protocol.Message::getMessage)
+        .collect(toList());
+  }
+}
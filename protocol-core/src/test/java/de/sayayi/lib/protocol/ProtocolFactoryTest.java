@@ -19,13 +19,19 @@ import de.sayayi.lib.protocol.ProtocolIterator.MessageEntry;
 import de.sayayi.lib.protocol.factory.GenericProtocolFactory;
 import de.sayayi.lib.protocol.message.GenericMessageWithId;
 import de.sayayi.lib.protocol.message.formatter.ToStringMessageFormatter;
+import de.sayayi.lib.protocol.matcher.MessageMatcher;
+import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
 
 import lombok.val;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static de.sayayi.lib.protocol.Level.Shared.LOWEST;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasTag;
 import static de.sayayi.lib.protocol.matcher.MessageMatchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 
 /**
@@ -45,4 +51,44 @@ public class ProtocolFactoryTest
 
     assertEquals("msg(ok)", ((MessageEntry<String>)iterator.next()).getMessage());
   }
-}
\ No newline at end of file
+
+
+  @Test
+  public void testExpressionCache()
+  {
+    val parseCount = new AtomicInteger();
+    val factory = new GenericProtocolFactory<>(message -> new GenericMessageWithId<>(message),
+        ToStringMessageFormatter.IDENTITY, new ProtocolMessageMatcher() {
+          @Override
+          public @NotNull MessageMatcher parseMessageMatcher(@NotNull String expression)
+          {
+            parseCount.incrementAndGet();
+            return hasTag(expression);
+          }
+
+
+          @Override
+          public @NotNull TagSelector parseTagSelector(@NotNull String expression)
+          {
+            parseCount.incrementAndGet();
+            return hasTag(expression).asTagSelector();
+          }
+        });
+    val cache = factory.getExpressionCache();
+
+    assertSame(factory.parseMessageMatcher("a"), factory.parseMessageMatcher("a"));
+    factory.parseTagSelector("a");
+    factory.parseMessageMatcher("b");
+
+    assertEquals(3, parseCount.get());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(3, cache.getMissCount());
+    assertEquals(3, cache.size());
+
+    cache.setCapacity(1);
+    assertEquals(1, cache.size());
+
+    factory.parseMessageMatcher("a");
+    assertEquals(4, parseCount.get());
+  }
+}
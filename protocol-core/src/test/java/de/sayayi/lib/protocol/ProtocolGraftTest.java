@@ -0,0 +1,124 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol;
+
+import de.sayayi.lib.protocol.exception.ProtocolException;
+import de.sayayi.lib.protocol.factory.StringProtocolFactory;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+import java.util.Map;
+
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.any;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasTag;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.inRoot;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.isError;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+/**
+ * @author Jeroen Gremmen
+ */
+public class ProtocolGraftTest
+{
+  @Test
+  public void testGraft()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol().set("request", "r1");
+    protocol.info().message("request received");
+
+    val call = factory.createProtocol().set("call", "c1");
+    call.propagate(hasTag("db").asTagSelector()).to("persistence");
+    call.info().forTag("db").message("query");
+    val sub = call.createGroup("sub");
+    sub.error().message("failed").with("code", 42);
+
+    val message = call.find(any()).get(0);
+    val group = protocol.graft(call);
+
+    assertSame(protocol, group.getParent());
+    assertSame(group, sub.getParent());
+    assertSame(sub, protocol.getGroupByName("sub").orElseThrow());
+
+    val messages = protocol.find(any());
+    assertEquals(3, messages.size());
+    assertSame(message.getMessage(), messages.get(1).getMessage());
+    assertSame(group, messages.get(1).getProtocol());
+    assertEquals(Map.of("request", "r1", "call", "c1"), messages.get(1).getParameterValues());
+    assertEquals(Map.of("request", "r1", "call", "c1", "code", 42),
+        messages.get(2).getParameterValues());
+
+    assertEquals(1, protocol.count(isError()));
+    assertEquals(1, protocol.count(hasTag("persistence")));
+    assertEquals(1, protocol.count(inRoot()));
+
+    // the grafted group remains modifiable
+    group.info().forTag("db").message("commit");
+    sub.warn().message("retry");
+    protocol.set("request", "r2");
+
+    assertEquals(2, protocol.count(hasTag("persistence")));
+    assertEquals(5, protocol.getVisibleEntryCount(any()));
+    assertEquals("r2", protocol.find(any()).get(4).getParameterValues().get("request"));
+  }
+
+
+  @Test
+  public void testGraftedProtocol()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+    val call = factory.createProtocol();
+    call.info().message("call");
+
+    protocol.graft(call);
+
+    assertThrows(ProtocolException.class, () -> call.info().message("after graft"));
+    assertThrows(ProtocolException.class, call::createGroup);
+    assertThrows(ProtocolException.class, () -> call.set("p", 1));
+    assertThrows(ProtocolException.class, () -> protocol.graft(call));
+  }
+
+
+  @Test
+  public void testInvalidGraft()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+    val group = protocol.createGroup("group");
+
+    assertThrows(ProtocolException.class, () -> protocol.graft(protocol));
+    assertThrows(ProtocolException.class, () -> group.graft(protocol));
+    assertThrows(ProtocolException.class, () -> factory.createProtocol().graft(group));
+    assertThrows(ProtocolException.class,
+        () -> protocol.graft(StringProtocolFactory.createPlainTextFactory().createProtocol()));
+
+    val call = factory.createProtocol();
+    call.createGroup().createGroup("group");
+    assertThrows(ProtocolException.class, () -> protocol.graft(call));
+
+    call.info().message("still usable");
+    assertFalse(call.find(any()).isEmpty());
+
+    group.seal();
+    assertThrows(ProtocolException.class, () -> group.graft(call));
+  }
+}
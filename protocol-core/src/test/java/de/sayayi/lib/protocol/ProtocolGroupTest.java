@@ -39,10 +39,15 @@ import static de.sayayi.lib.protocol.ProtocolGroup.Visibility.SHOW_HEADER_ALWAYS
 import static de.sayayi.lib.protocol.ProtocolGroup.Visibility.SHOW_HEADER_IF_NOT_EMPTY;
 import static de.sayayi.lib.protocol.ProtocolGroup.Visibility.SHOW_HEADER_ONLY;
 import static de.sayayi.lib.protocol.matcher.MessageMatchers.any;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasTag;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.inGroup;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.inGroupRegex;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.inRoot;
 import static de.sayayi.lib.protocol.matcher.MessageMatchers.is;
 import static de.sayayi.lib.protocol.matcher.MessageMatchers.isDebug;
 import static de.sayayi.lib.protocol.matcher.MessageMatchers.isError;
 import static de.sayayi.lib.protocol.matcher.MessageMatchers.isInfo;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.not;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
@@ -377,4 +382,37 @@ public class ProtocolGroupTest
     assertInstanceOf(GroupEndEntry.class, iterator2.next());
     assertInstanceOf(ProtocolEnd.class, iterator2.next());
   }
-}
\ No newline at end of file
+
+
+  @Test
+  public void testGroupInvariantMatchers()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+
+    protocol.debug().message("root");
+
+    val alpha = protocol.createGroup().setName("alpha").setVisibility(FLATTEN);
+    alpha.info().forTag("x").message("alpha #1");
+    alpha.warn().message("alpha #2");
+
+    val beta = alpha.createGroup().setName("beta2").setVisibility(FLATTEN);
+    beta.error().forTag("x").message("beta #1");
+
+    assertEquals(2, protocol.getVisibleEntryCount(inGroup("alpha")));
+    assertEquals(1, protocol.getVisibleEntryCount(inGroupRegex("b.*\\d")));
+    assertEquals(1, protocol.getVisibleEntryCount(inRoot()));
+    assertEquals(3, protocol.getVisibleEntryCount(inGroup()));
+    assertEquals(2, protocol.getVisibleEntryCount(not(inRoot()).and(hasTag("x"))));
+    assertEquals(3, protocol.getVisibleEntryCount(inGroup("alpha").or(isError())));
+
+    assertTrue(protocol.matches(inGroup("beta2")));
+    assertFalse(protocol.matches(inGroup("gamma")));
+    assertFalse(alpha.matches(inRoot()));
+
+    val iterator = protocol.iterator(inGroup("beta2").compile());
+    assertInstanceOf(ProtocolStart.class, iterator.next());
+    assertEquals("beta #1", ((MessageEntry<String>)iterator.next()).getMessage());
+    assertInstanceOf(ProtocolEnd.class, iterator.next());
+  }
+}
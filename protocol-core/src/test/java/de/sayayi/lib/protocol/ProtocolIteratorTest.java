@@ -27,6 +27,7 @@ import static de.sayayi.lib.protocol.Level.Shared.DEBUG;
 import static de.sayayi.lib.protocol.Level.Shared.ERROR;
 import static de.sayayi.lib.protocol.Level.Shared.LOWEST;
 import static de.sayayi.lib.protocol.Level.Shared.WARN;
+import static de.sayayi.lib.protocol.ProtocolGroup.Visibility.FLATTEN;
 import static de.sayayi.lib.protocol.ProtocolGroup.Visibility.FLATTEN_ON_SINGLE_ENTRY;
 import static de.sayayi.lib.protocol.ProtocolGroup.Visibility.SHOW_HEADER_ALWAYS;
 import static de.sayayi.lib.protocol.matcher.MessageMatchers.any;
@@ -163,6 +164,34 @@ public class ProtocolIteratorTest
   }
 
 
+  @Test
+  public void testGroupInFlattenedGroup()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+    val flattened = protocol.createGroup().setVisibility(FLATTEN);
+
+    flattened.createGroup().setGroupMessage("grp #1, header").debug().message("grp #1, msg #1");
+    protocol.debug().message("msg #1");
+
+    val iterator = protocol.iterator(any());
+
+    assertInstanceOf(ProtocolIterator.ProtocolStart.class, iterator.next());
+
+    // the message following the flattened group follows the nested group as well
+    val grpEntry = (GroupStartEntry<String>)iterator.next();
+    assertTrue(grpEntry.isFirst());
+    assertFalse(grpEntry.isLast());
+
+    assertInstanceOf(MessageEntry.class, iterator.next());
+    assertInstanceOf(ProtocolIterator.GroupEndEntry.class, iterator.next());
+
+    val msgEntry = (MessageEntry<String>)iterator.next();
+    assertFalse(msgEntry.isFirst());
+    assertTrue(msgEntry.isLast());
+  }
+
+
   @Test
   public void testNoMessages()
   {
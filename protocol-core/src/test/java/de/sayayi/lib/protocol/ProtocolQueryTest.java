@@ -0,0 +1,186 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol;
+
+import de.sayayi.lib.protocol.factory.StringProtocolFactory;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static de.sayayi.lib.protocol.Level.Shared.INFO;
+import static de.sayayi.lib.protocol.Level.Shared.WARN;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.any;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.between;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasAllOf;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasMessage;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasNoneOf;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasTag;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasThrowable;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.inGroup;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.isError;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.isWarn;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author Jeroen Gremmen
+ */
+public class ProtocolQueryTest
+{
+  @Test
+  public void testCount()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+
+    protocol.debug().forTag("a").message("msg1");
+    protocol.warn().forTags("a", "b").message("msg2");
+
+    val group = protocol.createGroup().setName("group");
+    group.error().forTag("b").message("msg3");
+    group.error(new IllegalStateException()).forTag("a").message("msg4");
+
+    assertEquals(4, protocol.count(any()));
+    assertEquals(3, protocol.count(hasTag("a")));
+    assertEquals(1, protocol.count(hasAllOf("a", "b")));
+    assertEquals(1, protocol.count(hasNoneOf("a", "c")));
+    assertEquals(3, protocol.count(isWarn()));
+    assertEquals(2, protocol.count(hasMessage("msg1").or(isError())));
+    assertEquals(1, protocol.count(hasThrowable().and(hasTag("a"))));
+    assertEquals(2, protocol.count(inGroup("group")));
+    assertEquals(2, protocol.count(not(hasTag("b"))));
+    assertEquals(2, group.count(any()));
+  }
+
+
+  @Test
+  public void testLevelLimit()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+
+    protocol.error().message("msg1");
+
+    val group = protocol.createGroup().setLevelLimit(INFO);
+    group.error().message("msg2");
+    group.warn().message("msg3");
+
+    assertEquals(1, protocol.count(isError()));
+    assertEquals(0, group.count(isWarn()));
+    assertEquals(3, protocol.count(between(INFO, WARN).or(isError())));
+
+    val messages = protocol.find(between(INFO, WARN));
+
+    assertEquals(2, messages.size());
+    assertEquals("msg2", messages.get(0).getMessage());
+    assertEquals(INFO, messages.get(0).getLevel());
+  }
+
+
+  @Test
+  public void testFindOrder()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+
+    protocol.info().forTag("x").message("msg1");
+    protocol.createGroup().info().forTag("x").message("msg2");
+    protocol.info().message("msg3");
+    protocol.info().forTag("x").message("msg4");
+
+    // index is updated with messages added after the first query
+    assertEquals(3, protocol.count(hasTag("x")));
+    protocol.warn().forTag("x").message("msg5");
+
+    val messages = protocol.find(hasTag("x"));
+
+    assertEquals(4, messages.size());
+    assertEquals("msg1", messages.get(0).getMessage());
+    assertEquals("msg2", messages.get(1).getMessage());
+    assertEquals("msg4", messages.get(2).getMessage());
+    assertEquals("msg5", messages.get(3).getMessage());
+    assertTrue(protocol.find(hasTag("y")).isEmpty());
+  }
+
+
+  @Test
+  public void testEvictedMessages()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+
+    protocol.setMessageBudget(10, Long.MAX_VALUE);
+
+    // evicted messages are removed from the index, compacting the entries discards it
+    for(int n = 0; n < 100; n++)
+    {
+      protocol.info().forTag(n % 2 == 0 ? "even" : "odd").message("msg" + n);
+
+      assertEquals(Math.min(n + 1, 10), protocol.count(any()));
+      assertEquals(Math.min(n / 2 + 1, 5), protocol.count(hasTag("even")));
+    }
+
+    val messages = protocol.find(hasTag("odd"));
+
+    assertEquals(5, messages.size());
+    assertEquals("msg91", messages.get(0).getMessage());
+  }
+
+
+  @Test
+  public void testConcurrentCount() throws Exception
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+    val failure = new AtomicReference<Throwable>();
+
+    protocol.setMessageBudget(500, Long.MAX_VALUE);
+
+    // readers build and update the index while the writer appends and evicts messages
+    val readers = new Thread[4];
+    for(int r = 0; r < readers.length; r++)
+    {
+      readers[r] = new Thread(() -> {
+        try {
+          for(int n = 0; n < 500; n++)
+          {
+            val count = protocol.count(hasTag("x"));
+            if (count < 0 || count > 250)
+              throw new AssertionError("unexpected count " + count);
+          }
+        } catch(Throwable ex) {
+          failure.compareAndSet(null, ex);
+        }
+      });
+      readers[r].start();
+    }
+
+    for(int n = 0; n < 5000; n++)
+      protocol.info().forTag(n % 2 == 0 ? "x" : "y").message("msg" + n);
+
+    for(val reader: readers)
+      reader.join();
+
+    assertNull(failure.get());
+    assertEquals(250, protocol.count(hasTag("x")));
+    assertEquals(500, protocol.find(any()).size());
+  }
+}
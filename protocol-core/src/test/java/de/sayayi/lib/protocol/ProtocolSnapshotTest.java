@@ -0,0 +1,244 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol;
+
+import de.sayayi.lib.protocol.Protocol.GenericMessage;
+import de.sayayi.lib.protocol.ProtocolIterator.GroupStartEntry;
+import de.sayayi.lib.protocol.exception.ProtocolException;
+import de.sayayi.lib.protocol.factory.StringProtocolFactory;
+import de.sayayi.lib.protocol.formatter.TechnicalProtocolFormatter;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static de.sayayi.lib.protocol.Level.Shared.WARN;
+import static de.sayayi.lib.protocol.ProtocolGroup.Visibility.FLATTEN;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.any;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasTag;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.isError;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author Jeroen Gremmen
+ */
+public class ProtocolSnapshotTest
+{
+  @Test
+  public void testSnapshot()
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+    protocol.info().forTag("ui").message("start");
+    val group = protocol.createGroup("group");
+    group.setGroupMessage("group header");
+    group.error().message("failed");
+    group.createGroup("nested").warn().message("nested");
+
+    val snapshot = protocol.snapshot();
+    val formatted = snapshot.format(TechnicalProtocolFormatter.getInstance());
+    assertEquals(formatted, protocol.format(TechnicalProtocolFormatter.getInstance()));
+
+    // changes to the live protocol
+    protocol.info().forTag("ui").message("appended");
+    group.error().message("failed again");
+    group.setName("renamed").setVisibility(FLATTEN).setLevelLimit(WARN);
+    protocol.createGroup("new").info().message("new group");
+
+    assertEquals(formatted, snapshot.format(TechnicalProtocolFormatter.getInstance()));
+    assertNotEquals(formatted, protocol.format(TechnicalProtocolFormatter.getInstance()));
+
+    assertEquals(3, snapshot.count(any()));
+    assertEquals(1, snapshot.count(hasTag("ui")));
+    assertEquals(1, snapshot.count(isError()));
+    assertTrue(snapshot.getGroupByName("group").isPresent());
+    assertFalse(snapshot.getGroupByName("new").isPresent());
+    assertEquals(6, protocol.count(any()));
+
+    // snapshots are read-only
+    val snapshotGroup = snapshot.getGroupByName("group").orElseThrow();
+    assertThrows(ProtocolException.class, () -> snapshot.info().message("message"));
+    assertThrows(ProtocolException.class, snapshot::createGroup);
+    assertThrows(ProtocolException.class, () -> snapshot.set("p", 1));
+    assertThrows(ProtocolException.class, () -> snapshotGroup.warn().message("message"));
+    assertThrows(ProtocolException.class, () -> snapshotGroup.setName("other"));
+    assertThrows(ProtocolException.class, () -> snapshotGroup.setVisibility(FLATTEN));
+    assertThrows(ProtocolException.class, snapshotGroup::seal);
+    assertThrows(ProtocolException.class, () -> protocol.graft(snapshot));
+
+    // snapshot of a snapshot
+    assertEquals(formatted,
+        snapshot.snapshot().format(TechnicalProtocolFormatter.getInstance()));
+  }
+
+
+  @Test
+  public void testParameterIsolation()
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+    protocol.set("x", 1);
+    val parameterBuilder = protocol.info().message("message").with("m", 1);
+    val group = protocol.createGroup("group");
+    group.set("g", 1);
+    val groupMessageBuilder = group.setGroupMessage("group header").with("h", 1);
+    group.info().message("grouped");
+
+    val snapshot = protocol.snapshot();
+
+    // changes to the live protocol parameters
+    protocol.set("x", 2);
+    parameterBuilder.with("m", 2).with("n", 2);
+    group.set("g", 2);
+    groupMessageBuilder.with("h", 2);
+
+    val message = snapshot.find(any()).get(0);
+    assertEquals(1, message.getParameterValues().get("x"));
+    assertEquals(1, message.getParameterValues().get("m"));
+    assertFalse(message.getParameterValues().containsKey("n"));
+    assertNotSame(message, protocol.find(any()).get(0));
+
+    val groupMessage = getGroupMessage(snapshot);
+    assertEquals(1, groupMessage.getParameterValues().get("x"));
+    assertEquals(1, groupMessage.getParameterValues().get("g"));
+    assertEquals(1, groupMessage.getParameterValues().get("h"));
+    assertEquals(2, getGroupMessage(protocol).getParameterValues().get("h"));
+  }
+
+
+  @Test
+  public void testParameterVersions()
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+    val parameterBuilder = protocol.info().message("message").with("m", 1);
+
+    val snapshot1 = protocol.snapshot();
+    parameterBuilder.with("m", 2);
+    val snapshot2 = protocol.snapshot();
+    val snapshot3 = protocol.snapshot();
+    parameterBuilder.with("m", 3);
+
+    assertEquals(1, snapshot1.find(any()).get(0).getParameterValues().get("m"));
+    assertEquals(2, snapshot3.find(any()).get(0).getParameterValues().get("m"));
+    assertEquals(2, snapshot2.find(any()).get(0).getParameterValues().get("m"));
+    assertEquals(2, snapshot2.snapshot().find(any()).get(0).getParameterValues().get("m"));
+    assertEquals(3, protocol.find(any()).get(0).getParameterValues().get("m"));
+    assertEquals(3, protocol.snapshot().find(any()).get(0).getParameterValues().get("m"));
+  }
+
+
+  @Test
+  public void testSnapshotCost()
+  {
+    val small = createProtocol(1_000);
+    val large = createProtocol(256_000);
+
+    // the snapshot cost depends on the number of groups, not on the number of messages
+    assertTrue(minSnapshotNanos(large) < 10 * minSnapshotNanos(small) + 2_000_000);
+  }
+
+
+  @Test
+  public void testConcurrentAppend() throws InterruptedException
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+    val failed = new AtomicBoolean();
+
+    val writer = new Thread(() -> {
+      try {
+        for(int n = 0; n < 2000; n++)
+        {
+          val group = protocol.createGroup();
+          for(int m = 0; m < 50; m++)
+            group.info().message("message");
+
+          protocol.warn().message("group done");
+        }
+      } catch(RuntimeException ex) {
+        failed.set(true);
+      }
+    });
+
+    writer.start();
+
+    int previousCount = 0;
+
+    while(writer.isAlive())
+    {
+      val snapshot = protocol.snapshot();
+      val count = snapshot.count(any());
+
+      assertTrue(count >= previousCount);
+      assertEquals(count, snapshot.find(any()).size());
+      assertEquals(count + 2, snapshot.stream(any()).count());
+
+      previousCount = count;
+    }
+
+    writer.join();
+
+    assertFalse(failed.get());
+    assertEquals(102_000, protocol.snapshot().count(any()));
+  }
+
+
+  private static Protocol<String> createProtocol(int messages)
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+    val group = protocol.createGroup();
+
+    for(int n = 0; n < messages; n++)
+      group.info().message("message").with("n", n);
+
+    return protocol;
+  }
+
+
+  private static long minSnapshotNanos(Protocol<String> protocol)
+  {
+    long minNanos = Long.MAX_VALUE;
+
+    for(int n = 0; n < 20; n++)
+    {
+      val start = System.nanoTime();
+      protocol.snapshot();
+      minNanos = Math.min(minNanos, System.nanoTime() - start);
+    }
+
+    return minNanos;
+  }
+
+
+  private static GenericMessage<String> getGroupMessage(Protocol<String> protocol)
+  {
+    val iterator = protocol.iterator(any());
+
+    while(iterator.hasNext())
+    {
+      val entry = iterator.next();
+      if (entry instanceof GroupStartEntry)
+        return ((GroupStartEntry<String>)entry).getGroupMessage();
+    }
+
+    throw new AssertionError("no group message");
+  }
+}
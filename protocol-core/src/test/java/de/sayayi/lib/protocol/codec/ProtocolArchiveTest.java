@@ -0,0 +1,147 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.codec;
+
+import de.sayayi.lib.protocol.Protocol;
+import de.sayayi.lib.protocol.ProtocolGroup;
+import de.sayayi.lib.protocol.codec.ProtocolBinaryCodecTest.Recorder;
+import de.sayayi.lib.protocol.factory.StringProtocolFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lombok.val;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Function;
+
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryCodecTest.createProtocol;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author Jeroen Gremmen
+ */
+public class ProtocolArchiveTest
+{
+  @TempDir
+  Path tempDir;
+
+
+  @Test
+  public void testRoot() throws IOException
+  {
+    val protocol = createProtocol(5);
+    val archive = writeAndOpen(protocol);
+
+    assertEquals(11, archive.getGroupCount());
+
+    val root = archive.getRoot();
+    assertTrue(root.isRoot());
+    assertFalse(root.getParent().isPresent());
+    assertEquals(5, root.getGroups().size());
+
+    val expected = new Recorder();
+    protocol.accept(expected);
+
+    val actual = new Recorder();
+    root.accept(actual);
+
+    assertEquals(expected.records, actual.records);
+  }
+
+
+  @Test
+  public void testGroupByName() throws IOException
+  {
+    val protocol = createProtocol(50);
+    val archive = writeAndOpen(protocol);
+
+    for(int n = 0; n < 50; n++)
+    {
+      val group = protocol.getGroupByName("group" + n).orElseThrow();
+      val archivedGroup = archive.getGroupByName("group" + n).orElseThrow();
+
+      assertEquals("group" + n, archivedGroup.getName());
+      assertEquals(group.getVisibility(), archivedGroup.getVisibility());
+      assertEquals("group %{n}", archivedGroup.getGroupMessage().getMessage());
+      assertEquals(archive.getRoot(), archivedGroup.getParent().orElseThrow());
+      assertEquals(1, archivedGroup.getGroups().size());
+
+      val expected = new Recorder();
+      group.accept(expected);
+
+      val actual = new Recorder();
+      archivedGroup.accept(actual);
+
+      assertEquals(expected.records, actual.records);
+    }
+
+    assertFalse(archive.getGroupByName("group50").isPresent());
+  }
+
+
+  @Test
+  public void testToProtocol() throws IOException
+  {
+    val protocol = createProtocol(10);
+    val archive = writeAndOpen(protocol);
+    val factory = StringProtocolFactory.createPlainTextFactory();
+
+    val expected = new Recorder();
+    protocol.accept(expected);
+
+    val actual = new Recorder();
+    archive.getRoot().toProtocol(factory).accept(actual);
+
+    assertEquals(expected.records, actual.records);
+
+    val restored = archive.getGroupByName("group7").orElseThrow().toProtocol(factory);
+    val group = (ProtocolGroup<String>)restored.groupIterator().next();
+
+    assertEquals("group7", group.getName());
+    assertEquals(protocol.getGroupByName("group7").orElseThrow().toStringTree(),
+        group.toStringTree());
+  }
+
+
+  @Test
+  public void testMalformed() throws IOException
+  {
+    val file = tempDir.resolve("malformed.prta");
+    Files.write(file, new byte[] { 'P', 'R', 'T', 'A', 1 });
+
+    assertThrows(IOException.class, () -> ProtocolArchive.open(file, Function.identity()));
+
+    val archive = writeAndOpen(createProtocol(1));
+    assertThrows(IndexOutOfBoundsException.class, () -> archive.getGroup(archive.getGroupCount()));
+  }
+
+
+  private ProtocolArchive<String> writeAndOpen(Protocol<String> protocol)
+      throws IOException
+  {
+    val file = tempDir.resolve("protocol.prta");
+
+    ProtocolArchive.write(file, protocol, Function.identity());
+
+    return ProtocolArchive.open(file, Function.identity());
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.codec;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.Protocol;
+import de.sayayi.lib.protocol.Protocol.GenericMessage;
+import de.sayayi.lib.protocol.Protocol.Message;
+import de.sayayi.lib.protocol.ProtocolGroup.Visibility;
+import de.sayayi.lib.protocol.ProtocolVisitor;
+import de.sayayi.lib.protocol.factory.StringProtocolFactory;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import static de.sayayi.lib.protocol.ProtocolGroup.Visibility.FLATTEN;
+import static de.sayayi.lib.protocol.ProtocolGroup.Visibility.SHOW_HEADER_ONLY;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author Jeroen Gremmen
+ */
+public class ProtocolBinaryCodecTest
+{
+  @Test
+  public void testRoundTrip() throws IOException
+  {
+    val protocol = createProtocol(3);
+    val expected = new Recorder();
+    protocol.accept(expected);
+
+    val actual = new Recorder();
+    new ProtocolBinaryReader<String>(new ByteArrayInputStream(write(protocol)), Function.identity())
+        .read(actual);
+
+    assertEquals(expected.records, actual.records);
+  }
+
+
+  @Test
+  public void testReEncode() throws IOException
+  {
+    val bytes = write(createProtocol(20));
+    val out = new ByteArrayOutputStream();
+    val writer = new ProtocolBinaryWriter<String>(out, Function.identity());
+
+    new ProtocolBinaryReader<String>(new ByteArrayInputStream(bytes), Function.identity())
+        .read(writer);
+    writer.finish();
+
+    assertArrayEquals(bytes, out.toByteArray());
+  }
+
+
+  @Test
+  public void testSize() throws IOException
+  {
+    val protocol = createProtocol(1000);
+    val json = new JsonVisitor();
+    protocol.accept(json);
+
+    val jsonSize = json.s.toString().getBytes().length;
+    val binarySize = write(protocol).length;
+
+    assertTrue(binarySize * 2 < jsonSize, () -> "binary=" + binarySize + ", json=" + jsonSize);
+  }
+
+
+  @Test
+  public void testMalformed() throws IOException
+  {
+    val reader = new ProtocolBinaryReader<String>(
+        new ByteArrayInputStream(new byte[] { 'P', 'R', 'O', 'T' }), Function.identity());
+    assertThrows(IOException.class, () -> reader.read(new Recorder()));
+
+    val bytes = write(createProtocol(1));
+    val truncatedReader = new ProtocolBinaryReader<String>(
+        new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1)), Function.identity());
+    assertThrows(EOFException.class, () -> truncatedReader.read(new Recorder()));
+  }
+
+
+  private static byte[] write(@NotNull Protocol<String> protocol) throws IOException
+  {
+    val out = new ByteArrayOutputStream();
+    new ProtocolBinaryWriter<String>(out, Function.identity()).write(protocol);
+
+    return out.toByteArray();
+  }
+
+
+  static @NotNull Protocol<String> createProtocol(int count)
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol().set("user", "jeroen");
+
+    for(int n = 0; n < count; n++)
+    {
+      protocol.debug().forTags("ui", "db").message("loading item %{n}").with("n", n);
+      protocol.add(() -> 250).message("custom").with("ratio", 0.5 * n).with("ok", n % 2 == 0);
+
+      val group = protocol.createGroup("group" + n)
+          .setVisibility(n % 2 == 0 ? SHOW_HEADER_ONLY : FLATTEN);
+      group.setGroupMessage("group %{n}").with("n", (long)n);
+      group.error(new IllegalStateException("failed", new RuntimeException()))
+          .message("error in %{n}").with("n", n).with("f", 1.5f).with("x", null);
+      group.createGroup().setLevelLimit(Level.Shared.WARN).warn().message("nested");
+    }
+
+    return protocol;
+  }
+
+
+
+
+  static final class Recorder implements ProtocolVisitor<String>
+  {
+    final List<String> records = new ArrayList<>();
+
+
+    @Override
+    public void message(@NotNull Message<String> message)
+    {
+      val throwables = new ArrayList<String>();
+      for(Throwable t = message.getThrowable(); t != null; t = t.getCause())
+      {
+        throwables.add((t instanceof SerializedThrowable
+            ? ((SerializedThrowable)t).getClassName() : t.getClass().getName()) +
+            ':' + t.getMessage());
+      }
+
+      records.add("message:" + message.getLevel().severity() + ':' +
+          new TreeSet<>(message.getTagNames()) + ':' + throwables + ':' + describe(message));
+    }
+
+
+    @Override
+    public void groupStart(String name, @NotNull Visibility visibility, @NotNull Level levelLimit,
+                           GenericMessage<String> groupMessage)
+    {
+      records.add("group:" + name + ':' + visibility + ':' + levelLimit.severity() + ':' +
+          (groupMessage == null ? "-" : describe(groupMessage)));
+    }
+
+
+    @Override
+    public void groupEnd() {
+      records.add("end");
+    }
+
+
+    private static String describe(@NotNull GenericMessage<String> message)
+    {
+      return message.getMessageId() + ':' + message.getTimeMillis() + ':' +
+          message.getMessage() + ':' + new TreeMap<>(message.getParameterValues());
+    }
+  }
+
+
+
+
+  private static final class JsonVisitor implements ProtocolVisitor<String>
+  {
+    private final StringBuilder s = new StringBuilder("[");
+
+
+    @Override
+    public void message(@NotNull Message<String> message)
+    {
+      s.append("{\"type\":\"message\",\"level\":").append(message.getLevel().severity())
+       .append(",\"tags\":[");
+      message.getTagNames().forEach(tagName -> s.append('"').append(tagName).append("\","));
+      s.append("],");
+      appendMessage(message);
+
+      if (message.getThrowable() != null)
+      {
+        s.append(",\"throwable\":{\"class\":\"")
+         .append(message.getThrowable().getClass().getName()).append("\",\"message\":\"")
+         .append(message.getThrowable().getMessage()).append("\"}");
+      }
+
+      s.append("},");
+    }
+
+
+    @Override
+    public void groupStart(String name, @NotNull Visibility visibility, @NotNull Level levelLimit,
+                           GenericMessage<String> groupMessage)
+    {
+      s.append("{\"type\":\"group\",\"name\":\"").append(name).append("\",\"visibility\":\"")
+       .append(visibility).append("\",\"levelLimit\":").append(levelLimit.severity());
+
+      if (groupMessage != null)
+      {
+        s.append(",\"groupMessage\":{");
+        appendMessage(groupMessage);
+        s.append('}');
+      }
+
+      s.append(",\"entries\":[");
+    }
+
+
+    @Override
+    public void groupEnd() {
+      s.append("]},");
+    }
+
+
+    private void appendMessage(@NotNull GenericMessage<String> message)
+    {
+      s.append("\"id\":\"").append(message.getMessageId()).append("\",\"time\":")
+       .append(message.getTimeMillis()).append(",\"message\":\"").append(message.getMessage())
+       .append("\",\"parameters\":{");
+      message.getParameterValues().forEach((key, value) ->
+          s.append('"').append(key).append("\":\"").append(value).append("\","));
+      s.append('}');
+    }
+  }
+}
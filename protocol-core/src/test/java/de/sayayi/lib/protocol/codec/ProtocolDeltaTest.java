@@ -0,0 +1,200 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.codec;
+
+import de.sayayi.lib.protocol.Protocol;
+import de.sayayi.lib.protocol.ProtocolGroup;
+import de.sayayi.lib.protocol.codec.ProtocolBinaryCodecTest.Recorder;
+import de.sayayi.lib.protocol.factory.StringProtocolFactory;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.function.Function;
+
+import static de.sayayi.lib.protocol.ProtocolGroup.Visibility.FLATTEN;
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryCodecTest.createProtocol;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.any;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author Jeroen Gremmen
+ */
+public class ProtocolDeltaTest
+{
+  @Test
+  public void testIncrementalExport() throws IOException
+  {
+    val protocol = createProtocol(10);
+    val aggregator = new Aggregator();
+
+    aggregator.receive(export(protocol, 0));
+    assertEquals(records(protocol), records(aggregator.protocol));
+
+    // append messages and groups
+    val fullSize = export(protocol, 0).length;
+    protocol.info().message("appended").with("n", 1);
+    protocol.createGroup("group-new").warn().message("new group message");
+
+    val delta = export(protocol, aggregator.checkpoint);
+    assertTrue(delta.length * 20 < fullSize, () -> "delta=" + delta.length + ", full=" + fullSize);
+
+    aggregator.receive(delta);
+    assertEquals(records(protocol), records(aggregator.protocol));
+
+    // parameter and group header changes
+    protocol.set("user", "gremmen");
+    val group = protocol.getGroupByName("group3").orElseThrow();
+    group.setVisibility(FLATTEN).set("g", 3);
+    group.createGroup().info().message("nested %{g}");
+    ((ProtocolGroup<String>)protocol.getGroupByName("group4").orElseThrow()).removeGroupMessage();
+
+    aggregator.receive(export(protocol, aggregator.checkpoint));
+    assertEquals(records(protocol), records(aggregator.protocol));
+    assertEquals("gremmen",
+        aggregator.protocol.find(any()).get(0).getParameterValues().get("user"));
+
+    // no changes
+    val checkpoint = aggregator.checkpoint;
+    aggregator.receive(export(protocol, checkpoint));
+    assertEquals(checkpoint, aggregator.checkpoint);
+    assertEquals(records(protocol), records(aggregator.protocol));
+  }
+
+
+  @Test
+  public void testMessageParameterChanges() throws IOException
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+    val aggregator = new Aggregator();
+
+    val first = protocol.info().message("first");
+    aggregator.receive(export(protocol, 0));
+
+    // change of the last message
+    first.with("a", 1);
+    aggregator.receive(export(protocol, aggregator.checkpoint));
+    assertEquals(records(protocol), records(aggregator.protocol));
+
+    // change of an older message
+    protocol.info().message("second");
+    aggregator.receive(export(protocol, aggregator.checkpoint));
+    first.with("b", 2);
+    aggregator.receive(export(protocol, aggregator.checkpoint));
+
+    assertEquals(records(protocol), records(aggregator.protocol));
+    assertEquals(2, aggregator.protocol.find(any()).get(0).getParameterValues().size());
+  }
+
+
+  @Test
+  public void testOverlappingAndMissingFrames() throws IOException
+  {
+    val protocol = createProtocol(3);
+    val aggregator = new Aggregator();
+
+    val full = export(protocol, 0);
+    aggregator.receive(full);
+    val checkpoint = aggregator.checkpoint;
+
+    protocol.createGroup("late").error().message("late");
+    val delta = export(protocol, checkpoint);
+
+    // re-applying changes already received does not change the copy
+    aggregator.receive(full);
+    aggregator.receive(delta);
+    aggregator.receive(delta);
+    assertEquals(records(protocol), records(aggregator.protocol));
+
+    // a frame based on a checkpoint not yet received is rejected
+    protocol.info().message("missing");
+    val delta2 = export(protocol, ProtocolDeltaWriter.getSequence(protocol));
+    val emptyAggregator = new Aggregator();
+    assertThrows(IOException.class, () -> emptyAggregator.receive(delta));
+    assertThrows(IOException.class, () -> emptyAggregator.receive(delta2));
+
+    assertThrows(IllegalArgumentException.class,
+        () -> export(protocol, ProtocolDeltaWriter.getSequence(protocol) + 1));
+  }
+
+
+  @Test
+  public void testGraft() throws IOException
+  {
+    val protocol = createProtocol(2);
+    val aggregator = new Aggregator();
+    aggregator.receive(export(protocol, 0));
+
+    // the grafted protocol has advanced further than the target protocol
+    val grafted = protocol.getFactory().createProtocol().set("call", 1);
+    for(int n = 0; n < 50; n++)
+      grafted.info().message("call message " + n);
+    grafted.createGroup("call-group").warn().message("nested");
+
+    protocol.graft(grafted).setName("call");
+    aggregator.receive(export(protocol, aggregator.checkpoint));
+    assertEquals(records(protocol), records(aggregator.protocol));
+
+    // changes after grafting
+    protocol.getGroupByName("call-group").orElseThrow().info().message("after graft");
+    aggregator.receive(export(protocol, aggregator.checkpoint));
+    assertEquals(records(protocol), records(aggregator.protocol));
+  }
+
+
+  private static byte[] export(@NotNull Protocol<String> protocol, long checkpoint)
+      throws IOException
+  {
+    val out = new ByteArrayOutputStream();
+    new ProtocolDeltaWriter<String>(out, Function.identity()).exportSince(protocol, checkpoint);
+
+    return out.toByteArray();
+  }
+
+
+  private static Object records(@NotNull Protocol<String> protocol)
+  {
+    val recorder = new Recorder();
+    protocol.accept(recorder);
+
+    return recorder.records;
+  }
+
+
+
+
+  private static final class Aggregator
+  {
+    private final Protocol<String> protocol =
+        StringProtocolFactory.createPlainTextFactory().createProtocol();
+    private long checkpoint;
+
+
+    private void receive(byte[] frame) throws IOException
+    {
+      checkpoint = new ProtocolDeltaReader<String>(new ByteArrayInputStream(frame),
+          Function.identity()).applyTo(protocol, checkpoint);
+    }
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.codec;
+
+import de.sayayi.lib.protocol.Protocol;
+import de.sayayi.lib.protocol.codec.ProtocolBinaryCodecTest.Recorder;
+import de.sayayi.lib.protocol.codec.ProtocolJournal.SyncPolicy;
+import de.sayayi.lib.protocol.exception.ProtocolException;
+import de.sayayi.lib.protocol.factory.StringProtocolFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lombok.val;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Function;
+
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryCodecTest.createProtocol;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.any;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author Jeroen Gremmen
+ */
+public class ProtocolJournalTest
+{
+  @TempDir
+  Path tempDir;
+
+
+  @Test
+  public void testRecoverAfterClose() throws IOException
+  {
+    val file = tempDir.resolve("protocol.journal");
+    val protocol = createProtocol(5);
+
+    try(val journal = new ProtocolJournal<String>(protocol, file, Function.identity(), 4, 1000,
+        SyncPolicy.FLUSH)) {
+      for(int n = 0; n < 50; n++)
+        protocol.info().message("message " + n).with("n", n);
+
+      val group = protocol.createGroup("appended");
+      group.warn().message("in group");
+      group.set("g", 1);
+      protocol.set("user", "gremmen");
+
+      journal.flush();
+      assertEquals(records(protocol), records(recover(file)));
+    }
+
+    protocol.info().message("not journaled");
+
+    assertNotEquals(records(protocol), records(recover(file)));
+  }
+
+
+  @Test
+  public void testRecoverOpenJournal() throws IOException
+  {
+    val file = tempDir.resolve("open.journal");
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+
+    try(val journal = new ProtocolJournal<String>(protocol, file, Function.identity())) {
+      val first = protocol.info().message("first");
+      protocol.createGroup("group").error().message("error");
+      first.with("late", true);
+
+      journal.flush();
+      assertEquals(records(protocol), records(recover(file)));
+    }
+  }
+
+
+  @Test
+  public void testDelayedCommit() throws Exception
+  {
+    val file = tempDir.resolve("delayed.journal");
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+
+    try(val journal = new ProtocolJournal<String>(protocol, file, Function.identity(), 1000, 10,
+        SyncPolicy.NONE)) {
+      protocol.info().message("msg").with("late", true);
+
+      // neither a flush nor another event commits the last changes
+      for(long deadline = System.currentTimeMillis() + 5000;
+          !records(protocol).equals(records(recover(file))) &&
+              System.currentTimeMillis() < deadline;)
+        Thread.sleep(10);
+
+      assertFalse(journal.isClosed());
+      assertEquals(records(protocol), records(recover(file)));
+    }
+  }
+
+
+  @Test
+  public void testConcurrentAppend() throws Exception
+  {
+    val file = tempDir.resolve("concurrent.journal");
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+
+    try(val journal = new ProtocolJournal<String>(protocol, file, Function.identity(), 7, 1000,
+        SyncPolicy.NONE)) {
+      val writers = new Thread[4];
+
+      for(int n = 0; n < writers.length; n++)
+      {
+        val group = protocol.createGroup("writer " + n);
+
+        writers[n] = new Thread(() -> {
+          for(int m = 0; m < 500; m++)
+            group.info().message("message " + m).with("m", m);
+        });
+        writers[n].start();
+      }
+
+      for(int n = 0; n < 500; n++)
+      {
+        protocol.warn().message("root " + n);
+        if (n % 50 == 0)
+          journal.flush();
+      }
+
+      for(val writer: writers)
+        writer.join();
+
+      journal.flush();
+      assertEquals(records(protocol), records(recover(file)));
+    }
+  }
+
+
+  @Test
+  public void testMessageBudget() throws IOException
+  {
+    val file = tempDir.resolve("budget.journal");
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+
+    protocol.setMessageBudget(10, Long.MAX_VALUE);
+    assertThrows(IllegalStateException.class,
+        () -> new ProtocolJournal<String>(protocol, file, Function.identity()));
+    assertFalse(Files.exists(file));
+
+    val journaled = StringProtocolFactory.createPlainTextFactory().createProtocol();
+
+    try(val ignored = new ProtocolJournal<String>(journaled, file, Function.identity())) {
+      assertThrows(ProtocolException.class, () -> journaled.setMessageBudget(10, Long.MAX_VALUE));
+      journaled.info().message("message");
+    }
+
+    // budget can be set once the journal has been closed
+    journaled.setMessageBudget(10, Long.MAX_VALUE);
+  }
+
+
+  @Test
+  public void testTornTail() throws IOException
+  {
+    val file = tempDir.resolve("torn.journal");
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+
+    try(val journal = new ProtocolJournal<String>(protocol, file, Function.identity(), 1, 0,
+        SyncPolicy.NONE)) {
+      for(int n = 0; n < 10; n++)
+        protocol.info().message("message " + n);
+    }
+
+    val size = Files.size(file);
+    try(val channel = FileChannel.open(file, WRITE)) {
+      channel.truncate(size - 3);
+    }
+
+    assertEquals(9, recover(file).find(any()).size());
+  }
+
+
+  @Test
+  public void testInvalidJournal() throws IOException
+  {
+    val file = tempDir.resolve("invalid.journal");
+    Files.write(file, new byte[] { 'P', 'R', 'T', 'X', 1 });
+
+    assertThrows(IOException.class, () -> recover(file));
+    assertThrows(IllegalArgumentException.class,
+        () -> new ProtocolJournal<String>(createProtocol(1), file, Function.identity(), 0, 0,
+            SyncPolicy.NONE));
+  }
+
+
+  private static Protocol<String> recover(@NotNull Path file) throws IOException {
+    return ProtocolJournal.recover(file, StringProtocolFactory.createPlainTextFactory(),
+        Function.identity());
+  }
+
+
+  private static Object records(@NotNull Protocol<String> protocol)
+  {
+    val recorder = new Recorder();
+    protocol.accept(recorder);
+
+    return recorder.records;
+  }
+}
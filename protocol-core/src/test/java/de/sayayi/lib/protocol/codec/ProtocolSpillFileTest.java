@@ -0,0 +1,192 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.codec;
+
+import de.sayayi.lib.protocol.Protocol;
+import de.sayayi.lib.protocol.ProtocolGroup;
+import de.sayayi.lib.protocol.codec.ProtocolBinaryCodecTest.Recorder;
+import de.sayayi.lib.protocol.exception.ProtocolException;
+import de.sayayi.lib.protocol.factory.StringProtocolFactory;
+import de.sayayi.lib.protocol.formatter.TechnicalProtocolFormatter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lombok.val;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Function;
+
+import static de.sayayi.lib.protocol.codec.ProtocolBinaryCodecTest.createProtocol;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.any;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasThrowable;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.isError;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author Jeroen Gremmen
+ */
+public class ProtocolSpillFileTest
+{
+  @TempDir
+  Path tempDir;
+
+
+  @Test
+  public void testTransparentSpill() throws IOException
+  {
+    val protocol = createProtocol(20);
+    protocol.groupIterator().forEachRemaining(ProtocolGroup::seal);
+
+    val records = records(protocol);
+    val formatted = protocol.format(TechnicalProtocolFormatter.getInstance());
+    val throwables = protocol.count(hasThrowable());
+    val errors = protocol.find(isError()).size();
+    val visibleEntries = protocol.getVisibleEntryCount(any());
+
+    try(val spillFile = new ProtocolSpillFile<String>(protocol, tempDir, 0,
+        Function.identity(), Function.identity())) {
+      assertEquals(20, spillFile.getSpilledGroupCount());
+      assertTrue(spillFile.getSize() > 0);
+
+      assertEquals(records, records(protocol));
+      assertEquals(formatted, protocol.format(TechnicalProtocolFormatter.getInstance()));
+      assertEquals(formatted,
+          protocol.snapshot().format(TechnicalProtocolFormatter.getInstance()));
+      assertEquals(throwables, protocol.count(hasThrowable()));
+      assertEquals(errors, protocol.find(isError()).size());
+      assertEquals(visibleEntries, protocol.getVisibleEntryCount(any()));
+      assertTrue(protocol.getGroupByName("group7").isPresent());
+    }
+  }
+
+
+  @Test
+  public void testHeapBudget() throws IOException
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+
+    try(val spillFile = new ProtocolSpillFile<String>(protocol, tempDir, 100_000,
+        Function.identity(), Function.identity())) {
+      for(int g = 0; g < 50; g++)
+      {
+        val group = protocol.createGroup("group" + g);
+
+        for(int n = 0; n < 100; n++)
+          group.info().message("message %{n}").with("n", n);
+
+        group.seal();
+        assertTrue(spillFile.getEstimatedHeapSize() <= 100_000);
+      }
+
+      assertTrue(spillFile.getSpilledGroupCount() > 0);
+      assertEquals(5000, protocol.count(any()));
+
+      // messages in the root protocol are never spilled
+      for(int n = 0; n < 1000; n++)
+        protocol.info().message("root message");
+
+      assertTrue(spillFile.getEstimatedHeapSize() > 100_000);
+      assertEquals(6000, protocol.find(any()).size());
+    }
+
+    try(val files = Files.list(tempDir)) {
+      assertFalse(files.findAny().isPresent());
+    }
+  }
+
+
+  @Test
+  public void testConcurrentSiblings() throws Exception
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+
+    try(val spillFile = new ProtocolSpillFile<String>(protocol, tempDir, 50_000,
+        Function.identity(), Function.identity())) {
+      val writers = new Thread[4];
+
+      for(int w = 0; w < writers.length; w++)
+      {
+        val writer = w;
+
+        // sibling groups are filled, sealed and spilled by different threads
+        writers[w] = new Thread(() -> {
+          for(int g = 0; g < 25; g++)
+          {
+            val group = protocol.createGroup("group" + writer + '.' + g);
+
+            for(int n = 0; n < 100; n++)
+              group.info().message("message %{n}").with("n", n);
+
+            group.seal();
+          }
+        });
+        writers[w].start();
+      }
+
+      for(val writer: writers)
+        writer.join();
+
+      assertTrue(spillFile.getSpilledGroupCount() > 0);
+      assertTrue(spillFile.getEstimatedHeapSize() <= 50_000);
+      assertEquals(10_000, protocol.count(any()));
+      assertEquals(10_000, protocol.find(any()).size());
+    }
+  }
+
+
+  @Test
+  public void testSealedGroup() throws IOException
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+    val group = protocol.createGroup();
+    val message = group.info().message("message");
+
+    assertFalse(group.isSealed());
+    assertTrue(group.seal().isSealed());
+
+    assertThrows(ProtocolException.class, () -> group.info().message("another message"));
+    assertThrows(ProtocolException.class, group::createGroup);
+    assertThrows(ProtocolException.class, () -> message.with("p", 1));
+    assertTrue(group.find(any()).get(0).getParameterValues().isEmpty());
+
+    group.setName("sealed").set("p", 2).setGroupMessage("header");
+    assertEquals("sealed", group.getName());
+
+    try(val ignored = new ProtocolSpillFile<String>(protocol, tempDir, 0,
+        Function.identity(), Function.identity())) {
+      assertThrows(IllegalStateException.class, () -> new ProtocolSpillFile<String>(protocol,
+          tempDir, 0, Function.identity(), Function.identity()));
+      assertEquals(2, group.find(any()).get(0).getParameterValues().get("p"));
+    }
+  }
+
+
+  private static Object records(@NotNull Protocol<String> protocol)
+  {
+    val recorder = new Recorder();
+    protocol.accept(recorder);
+
+    return recorder.records;
+  }
+}
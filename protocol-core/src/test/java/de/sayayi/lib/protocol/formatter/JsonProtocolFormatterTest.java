@@ -0,0 +1,121 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.formatter;
+
+import de.sayayi.lib.protocol.Protocol;
+import de.sayayi.lib.protocol.factory.StringProtocolFactory;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+
+import static de.sayayi.lib.protocol.ProtocolGroup.Visibility.SHOW_HEADER_ONLY;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.any;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+/**
+ * @author Jeroen Gremmen
+ */
+public class JsonProtocolFormatterTest
+{
+  @Test
+  public void testFormat()
+  {
+    assertEquals("{\"entries\":[" +
+        "{\"type\":\"message\",\"level\":\"INFO\",\"severity\":200,\"tags\":[\"default\",\"ui\"]," +
+        "\"id\":ID,\"text\":\"hello\",\"timestamp\":TS," +
+        "\"params\":{\"f\":1.5,\"n\":1,\"nan\":\"NaN\",\"ok\":true,\"x\":null}}," +
+        "{\"type\":\"group\",\"name\":\"g1\",\"level\":\"WARN\",\"severity\":300," +
+        "\"id\":ID,\"text\":\"group\",\"timestamp\":TS,\"params\":{}," +
+        "\"messageCount\":2,\"entries\":[" +
+        "{\"type\":\"message\",\"level\":\"WARN\",\"severity\":300,\"tags\":[\"default\"]," +
+        "\"id\":ID,\"text\":\"warning\",\"timestamp\":TS,\"params\":{}," +
+        "\"throwable\":\"java.lang.IllegalStateException: failed\"}," +
+        "{\"type\":\"message\",\"severity\":250,\"tags\":[\"default\"]," +
+        "\"id\":ID,\"text\":\"custom\",\"timestamp\":TS,\"params\":{}}]}," +
+        "{\"type\":\"group\",\"name\":\"g2\",\"level\":\"INFO\",\"severity\":200," +
+        "\"id\":ID,\"text\":\"header\",\"timestamp\":TS,\"params\":{\"n\":2}}]}",
+        normalize(createProtocol().format(new JsonProtocolFormatter<>(), any())));
+  }
+
+
+  @Test
+  public void testEscape()
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+    protocol.info().forTag("a\"b").message("line 1\n\tline 2 \\ \u0001 \u2028 \u00e4")
+        .with("k\\", "</script>");
+
+    assertEquals("{\"entries\":[" +
+        "{\"type\":\"message\",\"level\":\"INFO\",\"severity\":200,\"tags\":[\"a\\\"b\",\"default\"]," +
+        "\"id\":ID,\"text\":\"line 1\\n\\tline 2 \\\\ \\u0001 \\u2028 \u00e4\",\"timestamp\":TS," +
+        "\"params\":{\"k\\\\\":\"</script>\"}}]}",
+        normalize(protocol.format(new JsonProtocolFormatter<>(), any())));
+  }
+
+
+  @Test
+  public void testStreaming()
+  {
+    val protocol = createProtocol();
+    for(int n = 0; n < 500; n++)
+      protocol.createGroup().info().message("message " + n).with("n", n);
+
+    val json = protocol.format(new JsonProtocolFormatter<>(), any());
+
+    val writer = new StringWriter();
+    assertEquals("", protocol.format(new JsonProtocolFormatter<>(writer), any()));
+    assertEquals(json, writer.toString());
+
+    val out = new ByteArrayOutputStream();
+    assertEquals("", protocol.format(new JsonProtocolFormatter<>(out), any()));
+    assertEquals(json, out.toString(UTF_8));
+  }
+
+
+  private static @NotNull Protocol<String> createProtocol()
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+
+    protocol.info().forTag("ui").message("hello")
+        .with("n", 1).with("f", 1.5).with("ok", true).with("x", null).with("nan", Double.NaN);
+
+    val g1 = protocol.createGroup().setName("g1");
+    g1.setGroupMessage("group");
+    g1.warn().withThrowable(new IllegalStateException("failed")).message("warning");
+    g1.createGroup().add(() -> 250).message("custom");
+
+    val g2 = protocol.createGroup().setName("g2").setVisibility(SHOW_HEADER_ONLY);
+    g2.setGroupMessage("header").with("n", 2);
+    g2.info().message("hidden");
+
+    return protocol;
+  }
+
+
+  private static @NotNull String normalize(@NotNull String json)
+  {
+    return json
+        .replaceAll("\"id\":\"[^\"]+\"", "\"id\":ID")
+        .replaceAll("\"timestamp\":\\d+", "\"timestamp\":TS");
+  }
+}
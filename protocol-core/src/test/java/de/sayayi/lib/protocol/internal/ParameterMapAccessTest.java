@@ -0,0 +1,51 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.internal;
+
+import de.sayayi.lib.protocol.util.ParameterMap;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+import java.util.ConcurrentModificationException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+/**
+ * @author Jeroen Gremmen
+ */
+public class ParameterMapAccessTest
+{
+  @Test
+  public void testSetParent()
+  {
+    val parent = new ParameterMap();
+    parent.put("p", 1);
+
+    val parameters = new ParameterMap();
+    parameters.put("q", 2);
+
+    val iterator = parameters.iterator();
+
+    ParameterMapAccess.get().setParent(parameters, parent);
+
+    assertEquals(Map.of("p", 1, "q", 2), parameters.unmodifyableMap());
+    assertThrows(ConcurrentModificationException.class, iterator::next);
+  }
+}
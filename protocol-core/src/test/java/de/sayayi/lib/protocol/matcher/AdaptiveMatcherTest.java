@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.ProtocolEntry.Message;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+import java.util.List;
+import java.util.Set;
+
+import static de.sayayi.lib.protocol.Level.Shared.DEBUG;
+import static de.sayayi.lib.protocol.Level.Shared.ERROR;
+import static de.sayayi.lib.protocol.Level.Shared.HIGHEST;
+import static de.sayayi.lib.protocol.Level.Shared.INFO;
+import static de.sayayi.lib.protocol.Level.Shared.WARN;
+import static de.sayayi.lib.protocol.ProtocolFactory.DEFAULT_TAG_NAME;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasTag;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.isError;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.isWarn;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Answers.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+/**
+ * @author Jeroen Gremmen
+ */
+public class AdaptiveMatcherTest
+{
+  @Test
+  public void testEquivalence()
+  {
+    val matcher = isWarn().and(hasTag("gui")).or(not(isError()).and(hasTag("ticket")));
+    val adaptiveMatcher = matcher.adaptive();
+
+    assertNotEquals(matcher, adaptiveMatcher);
+    assertEquals(matcher.toString(), adaptiveMatcher.toString());
+
+    val messages = List.of(
+        message(DEBUG, "gui"), message(WARN, "gui"), message(ERROR, "ticket"),
+        message(INFO, "ticket"), message(WARN, "audit"));
+
+    for(int n = 0; n < 10000; n++)
+      for(val message: messages)
+        assertEquals(matcher.matches(HIGHEST, message), adaptiveMatcher.matches(HIGHEST, message));
+  }
+
+
+  @Test
+  public void testNotInterned()
+  {
+    val matcher = not(isWarn().and(hasTag("gui")));
+    val adaptiveMatcher = not(isWarn().and(hasTag("gui"))).adaptive();
+
+    // adaptive matchers keep mutable statistics and must not be shared with plain matchers
+    assertNotSame(matcher, adaptiveMatcher);
+    assertNotEquals(matcher, adaptiveMatcher);
+    assertNotSame(adaptiveMatcher, not(isWarn().and(hasTag("gui"))).adaptive());
+    assertSame(matcher, not(isWarn().and(hasTag("gui"))));
+  }
+
+
+  @Test
+  public void testReorder()
+  {
+    val counter = new CountingMatcher();
+    val adaptiveMatcher = counter.asJunction().and(isError()).adaptive();
+    val message = message(DEBUG, "gui");
+
+    for(int n = 0; n < 10000; n++)
+      adaptiveMatcher.matches(HIGHEST, message);
+
+    // isError() always fails, so it must have been moved in front of the counting matcher
+    val count = counter.count;
+    for(int n = 0; n < 10000; n++)
+      adaptiveMatcher.matches(HIGHEST, message);
+
+    assertTrue(counter.count - count < 1000);
+  }
+
+
+  @SuppressWarnings("unchecked")
+  private static Message<Object> message(Level level, String tagName)
+  {
+    val message = (Message<Object>)mock(Message.class, CALLS_REAL_METHODS);
+    when(message.getLevel()).thenReturn(level);
+    when(message.getTagNames()).thenReturn(Set.of(DEFAULT_TAG_NAME, tagName));
+
+    return message;
+  }
+
+
+
+
+  private static final class CountingMatcher implements MessageMatcher
+  {
+    private int count;
+
+
+    @Override
+    public <M> boolean matches(@NotNull Level levelLimit, @NotNull Message<M> message)
+    {
+      count++;
+      return true;
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.ProtocolEntry.Message;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static de.sayayi.lib.protocol.Level.Shared.DEBUG;
+import static de.sayayi.lib.protocol.Level.Shared.ERROR;
+import static de.sayayi.lib.protocol.Level.Shared.HIGHEST;
+import static de.sayayi.lib.protocol.Level.Shared.INFO;
+import static de.sayayi.lib.protocol.Level.Shared.WARN;
+import static de.sayayi.lib.protocol.ProtocolFactory.DEFAULT_TAG_NAME;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.any;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.between;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasAnyOf;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasTag;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasThrowable;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.isError;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.isWarn;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Answers.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+/**
+ * @author Jeroen Gremmen
+ */
+public class CompiledMatcherTest
+{
+  private static final List<Level> LEVELS = List.of(DEBUG, INFO, WARN, ERROR);
+  private static final List<Set<String>> TAG_SETS = List.of(
+      tags(), tags("gui"), tags("ticket"), tags("gui", "ticket"), tags("audit", "ticket"));
+
+
+  @Test
+  public void testSingleTerm()
+  {
+    assertSame(any(), any().compile());
+    assertSame(isWarn(), isWarn().compile());
+  }
+
+
+  @Test
+  public void testEquivalence()
+  {
+    assertEquivalent(isWarn().and(hasTag("gui")));
+    assertEquivalent(isError().or(hasTag("gui").and(hasTag("ticket"))));
+    assertEquivalent(not(between(INFO, WARN)).and(hasAnyOf("audit", "gui")));
+    assertEquivalent(not(hasTag("gui").or(isError())).or(hasThrowable().and(between(DEBUG, INFO))));
+    assertEquivalent(hasTag("audit").or(not(isWarn().and(hasTag("ticket")).or(hasTag("gui")))));
+  }
+
+
+  @Test
+  public void testToString()
+  {
+    val matcher = isWarn().and(hasTag("gui").or(hasTag("ticket")));
+
+    assertEquals(matcher.toString(), matcher.compile().toString());
+  }
+
+
+  @SuppressWarnings("unchecked")
+  private static void assertEquivalent(MessageMatcher matcher)
+  {
+    val compiledMatcher = matcher.compile();
+
+    for(val level: LEVELS)
+      for(val tagNames: TAG_SETS)
+        for(val throwable: new Throwable[] { null, new IllegalStateException() })
+        {
+          val message = (Message<Object>)mock(Message.class, CALLS_REAL_METHODS);
+          when(message.getLevel()).thenReturn(level);
+          when(message.getTagNames()).thenReturn(tagNames);
+          when(message.getThrowable()).thenReturn(throwable);
+
+          for(val levelLimit: List.of(HIGHEST, INFO))
+          {
+            assertEquals(matcher.matches(levelLimit, message), compiledMatcher.matches(levelLimit, message),
+                () -> matcher + " for " + message.getLevel() + ' ' + message.getTagNames());
+          }
+        }
+  }
+
+
+  private static Set<String> tags(String... tagNames)
+  {
+    val tags = new TreeSet<>(List.of(tagNames));
+    tags.add(DEFAULT_TAG_NAME);
+
+    return tags;
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import static de.sayayi.lib.protocol.Level.Shared.DEBUG;
+import static de.sayayi.lib.protocol.Level.Shared.ERROR;
+import static de.sayayi.lib.protocol.Level.Shared.INFO;
+import static de.sayayi.lib.protocol.Level.Shared.WARN;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.any;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.between;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasAllOf;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasAnyOf;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasNoneOf;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasTag;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasThrowable;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.is;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.isError;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.isWarn;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.none;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+
+/**
+ * @author Jeroen Gremmen
+ */
+public class MatcherOptimizerTest
+{
+  @Test
+  public void testLevelRanges()
+  {
+    assertEquals(between(INFO, WARN), is(INFO).and(between(DEBUG, WARN)).optimize());
+    assertEquals(isWarn(), isWarn().or(isError()).optimize());
+    assertEquals(is(DEBUG), between(DEBUG, INFO).or(is(WARN)).or(between(INFO, WARN)).optimize());
+    assertSame(none(), isError().and(between(DEBUG, INFO)).optimize());
+  }
+
+
+  @Test
+  public void testDeMorgan()
+  {
+    assertEquals(not(hasTag("a")).or(not(hasThrowable())),
+        not(hasTag("a").and(hasThrowable())).optimize());
+    assertEquals(hasNoneOf("a", "b").and(not(hasThrowable())),
+        not(hasTag("a").or(hasThrowable()).or(hasTag("b"))).optimize());
+  }
+
+
+  @Test
+  public void testTags()
+  {
+    assertEquals(hasAllOf("a", "b", "c"), hasTag("a").and(hasAllOf("b", "c")).optimize());
+    assertEquals(hasAnyOf("a", "b", "c"), hasTag("a").or(hasAnyOf("b", "c")).optimize());
+    assertEquals(hasTag("a"), hasTag("a").and(hasAnyOf("a", "b")).optimize());
+    assertSame(none(), hasTag("a").and(hasNoneOf("a", "b")).optimize());
+    assertSame(any(), hasNoneOf("a", "b").or(hasAnyOf("a", "b", "c")).optimize());
+  }
+
+
+  @Test
+  public void testAbsorption()
+  {
+    assertEquals(hasThrowable(), hasThrowable().and(hasThrowable().or(isWarn())).optimize());
+    assertEquals(hasTag("a"), hasTag("a").or(hasAllOf("a", "b").and(hasThrowable())).optimize());
+    assertSame(none(), hasThrowable().and(not(hasThrowable())).optimize());
+    assertSame(any(), not(isWarn()).or(isWarn()).optimize());
+  }
+}
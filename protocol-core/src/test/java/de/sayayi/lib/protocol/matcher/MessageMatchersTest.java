@@ -36,7 +36,15 @@ import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasNoneOf;
 import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasParam;
 import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasParamValue;
 import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasTag;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasThrowable;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.inGroup;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.inGroupRegex;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Answers.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.mock;
@@ -116,6 +124,43 @@ public class MessageMatchersTest
   }
 
 
+  @Test
+  public void testTagSetSelector()
+  {
+    val tagNames = List.of("gui", "ticket");
+
+    assertTrue(hasAnyOf("support", "gui", "xyz").asTagSelector().match(tagNames));
+    assertFalse(hasAnyOf("support", "xyz").asTagSelector().match(tagNames));
+    assertTrue(hasAllOf("ticket", "gui").asTagSelector().match(tagNames));
+    assertFalse(hasAllOf("ticket", "gui", "support").asTagSelector().match(tagNames));
+    assertTrue(hasNoneOf("support", "xyz").asTagSelector().match(tagNames));
+    assertFalse(hasNoneOf("support", "gui").asTagSelector().match(tagNames));
+
+    assertEquals(hasNoneOf("gui", "support"), not(hasAnyOf("support", "gui")));
+    assertEquals("all-of(gui,ticket)", hasAllOf("ticket", "gui").toString());
+  }
+
+
+  @Test
+  public void testInterned()
+  {
+    assertSame(hasParam("id"), hasParam("id"));
+    assertSame(hasParamValue("id", 42), hasParamValue("id", 42));
+    assertSame(hasMessage("MSG-001"), hasMessage("MSG-001"));
+    assertSame(hasThrowable(IllegalStateException.class), hasThrowable(IllegalStateException.class));
+    assertSame(inGroupRegex("g.*"), inGroupRegex("g.*"));
+    assertSame(hasTag("gui").and(hasParam("id")), hasTag("gui").and(hasParam("id")));
+
+    // the order of the terms determines the evaluation order and the string representation
+    assertNotSame(hasTag("gui").and(hasParam("id")), hasParam("id").and(hasTag("gui")));
+    assertEquals("(tag(gui) or has-param(id))", hasTag("gui").or(hasParam("id")).toString());
+    assertEquals("(has-param(id) or tag(gui))", hasParam("id").or(hasTag("gui")).toString());
+
+    assertNotEquals(inGroup("g.*"), inGroupRegex("g.*"));
+    assertNotEquals(hasParam("id"), hasParamValue("id"));
+  }
+
+
   @Test
   public void testHasParam()
   {
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher;
+
+import de.sayayi.lib.protocol.factory.StringProtocolFactory;
+import de.sayayi.lib.protocol.matcher.internal.SubtreeSummary;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+import static de.sayayi.lib.protocol.Level.Shared.DEBUG;
+import static de.sayayi.lib.protocol.Level.Shared.HIGHEST;
+import static de.sayayi.lib.protocol.Level.Shared.INFO;
+import static de.sayayi.lib.protocol.Level.Shared.WARN;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.any;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.between;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasAllOf;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasAnyOf;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasTag;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasThrowable;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.isError;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.isWarn;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author Jeroen Gremmen
+ */
+public class SubtreeSummaryTest
+{
+  @Test
+  public void testEmpty()
+  {
+    val summary = new SubtreeSummary(null);
+
+    assertFalse(summary.mayMatch(HIGHEST, any()));
+    assertFalse(summary.mayMatch(HIGHEST, hasThrowable()));
+  }
+
+
+  @Test
+  public void testPruning()
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+
+    protocol.info().forTag("audit").message("msg1");
+    protocol.warn().forTags("audit", "ui").message("msg2");
+
+    val parent = new SubtreeSummary(null);
+    val summary = new SubtreeSummary(parent);
+
+    for(val message: protocol.find(any()))
+      summary.add(message);
+
+    for(val s: new SubtreeSummary[] { parent, summary })
+    {
+      assertTrue(s.mayMatch(HIGHEST, hasTag("audit").and(isWarn())));
+      assertFalse(s.mayMatch(HIGHEST, hasTag("audit").and(isError())));
+      assertFalse(s.mayMatch(INFO, isWarn()));
+      assertTrue(s.mayMatch(HIGHEST, hasAllOf("audit", "ui")));
+      assertTrue(s.mayMatch(HIGHEST, hasAnyOf("ui", "xyz")));
+      assertTrue(s.mayMatch(HIGHEST, hasTag("ui").or(isError())));
+      assertFalse(s.mayMatch(HIGHEST, isError().or(between(DEBUG, DEBUG))));
+      assertTrue(s.mayMatch(HIGHEST, hasThrowable()));
+    }
+
+    // a nested level limit may lower the effective level of a message
+    assertFalse(summary.mayMatch(HIGHEST, between(DEBUG, DEBUG)));
+    summary.markNestedLevelLimit();
+    assertTrue(parent.mayMatch(HIGHEST, between(DEBUG, DEBUG)));
+    assertTrue(summary.mayMatch(WARN, between(DEBUG, DEBUG)));
+  }
+
+
+  @Test
+  public void testConcurrentSiblings() throws InterruptedException
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+    val parent = new SubtreeSummary(null);
+    val writers = new Thread[4];
+
+    for(int n = 0; n < writers.length; n++)
+    {
+      val message = protocol.info().forTag("writer" + n).message("msg" + n)
+          .find(hasTag("writer" + n)).get(0);
+      val summary = new SubtreeSummary(parent);
+
+      // sibling summaries propagate their updates to the same parent
+      writers[n] = new Thread(() -> {
+        for(int m = 0; m < 100_000; m++)
+          summary.add(message);
+      });
+    }
+
+    for(val writer: writers)
+      writer.start();
+    for(val writer: writers)
+      writer.join();
+
+    assertEquals(writers.length * 100_000, parent.getChangeCount());
+
+    for(int n = 0; n < writers.length; n++)
+      assertTrue(parent.mayMatch(HIGHEST, hasTag("writer" + n)));
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.internal;
+
+import de.sayayi.lib.protocol.factory.StringProtocolFactory;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.hasTag;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.inGroup;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.inRoot;
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.isWarn;
+import static de.sayayi.lib.protocol.matcher.internal.BooleanMatcher.ANY;
+import static de.sayayi.lib.protocol.matcher.internal.BooleanMatcher.NONE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author Jeroen Gremmen
+ */
+public class ProtocolSpecializerTest
+{
+  @Test
+  public void testWithoutProtocolTerms()
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+    val matcher = isWarn().and(hasTag("a"));
+
+    assertSame(matcher, ProtocolSpecializer.specialize(matcher, protocol));
+  }
+
+
+  @Test
+  public void testSharedResidual()
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+    val group1 = protocol.createGroup();
+    val group2 = protocol.createGroup();
+    val matcher = inGroup().and(isWarn()).and(hasTag("a"));
+
+    val residual = ProtocolSpecializer.specialize(matcher, group1);
+
+    assertEquals(2, ((Conjunction)residual).getMatchers().size());
+    assertSame(residual, ProtocolSpecializer.specialize(matcher, group2));
+    assertSame(NONE, ProtocolSpecializer.specialize(matcher, protocol));
+  }
+
+
+  @Test
+  public void testCompiledResidual()
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+    val group = protocol.createGroup();
+    val matcher = inRoot().or(isWarn().and(hasTag("a"))).compile();
+
+    val residual = ProtocolSpecializer.specialize(matcher, group);
+
+    assertInstanceOf(CompiledMatcher.class, residual);
+    assertEquals(isWarn().and(hasTag("a")), ((CompiledMatcher)residual).getMatcher());
+    assertSame(residual, ProtocolSpecializer.specialize(matcher, protocol.createGroup()));
+    assertSame(ANY, ProtocolSpecializer.specialize(matcher, protocol));
+  }
+
+
+  @Test
+  public void testAdaptiveResidual()
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+    val group = protocol.createGroup();
+    val matcher = inGroup().and(isWarn()).and(hasTag("a")).adaptive();
+
+    val residual = ProtocolSpecializer.specialize(matcher, group);
+
+    assertInstanceOf(Conjunction.class, residual);
+    assertTrue(((Conjunction)residual).isAdaptive());
+    assertSame(residual, ProtocolSpecializer.specialize(matcher, protocol.createGroup()));
+  }
+
+
+  @Test
+  public void testCount()
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+
+    protocol.warn().message("root1").info().message("root2");
+    protocol.createGroup().warn().message("g1").info().message("g2");
+    protocol.createGroup().warn().forTag("a").message("g3");
+
+    assertEquals(2, protocol.count(inGroup().and(isWarn()).compile()));
+    assertEquals(2, protocol.count(inGroup().and(isWarn()).adaptive()));
+    assertEquals(3, protocol.count(inRoot().or(isWarn().and(hasTag("a"))).compile()));
+    assertEquals(3, protocol.count(inRoot().or(isWarn().and(hasTag("a"))).adaptive()));
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.util;
+
+import de.sayayi.lib.protocol.ProtocolEntry;
+import de.sayayi.lib.protocol.ProtocolGroup;
+import de.sayayi.lib.protocol.ProtocolListener;
+import de.sayayi.lib.protocol.factory.StringProtocolFactory;
+import de.sayayi.lib.protocol.util.AsyncProtocolListener.EventType;
+import de.sayayi.lib.protocol.util.AsyncProtocolListener.OverflowPolicy;
+import de.sayayi.lib.protocol.util.AsyncProtocolListener.WaitStrategy;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.any;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author Jeroen Gremmen
+ */
+public class AsyncProtocolListenerTest
+{
+  @Test
+  public void testListenerScope()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+    val factoryListener = new CountingListener();
+    val protocolListener = new CountingListener();
+    val groupListener = new CountingListener();
+
+    factory.addListener(factoryListener);
+    protocol.addListener(protocolListener);
+
+    protocol.info().message("msg1");
+    val group = protocol.createGroup().addListener(groupListener);
+    group.warn().message("msg2");
+    group.createGroup().error().message("msg3");
+
+    assertEquals(3, factoryListener.messages);
+    assertEquals(2, factoryListener.groups);
+    assertEquals(3, protocolListener.messages);
+    assertEquals(2, protocolListener.groups);
+    assertEquals(2, groupListener.messages);
+    assertEquals(1, groupListener.groups);
+
+    protocol.removeListener(protocolListener);
+    factory.removeListener(factoryListener);
+    group.info().message("msg4");
+
+    assertEquals(3, factoryListener.messages);
+    assertEquals(3, protocolListener.messages);
+    assertEquals(3, groupListener.messages);
+
+    // a listener added to a parent applies to groups which have already notified listeners
+    protocol.addListener(protocolListener);
+    group.info().message("msg5");
+
+    assertEquals(4, protocolListener.messages);
+    assertEquals(4, groupListener.messages);
+  }
+
+
+  @Test
+  public void testBatchedDelivery() throws InterruptedException
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+    val messages = new AtomicInteger();
+    val groups = new AtomicInteger();
+    val maxBatchSize = new AtomicInteger();
+
+    try(val listener = new AsyncProtocolListener<String>(16, 4, WaitStrategy.YIELD,
+        OverflowPolicy.BLOCK, events -> {
+          maxBatchSize.accumulateAndGet(events.size(), Math::max);
+
+          for(val event: events)
+            (event.getType() == EventType.MESSAGE_ADDED ? messages : groups).incrementAndGet();
+        })) {
+      protocol.addListener(listener);
+
+      val threads = new ArrayList<Thread>();
+      for(int t = 0; t < 4; t++)
+      {
+        val group = protocol.createGroup();
+        val thread = new Thread(() -> {
+          for(int n = 0; n < 1000; n++)
+            group.info().message("msg" + n);
+        });
+
+        threads.add(thread);
+        thread.start();
+      }
+
+      for(val thread: threads)
+        thread.join();
+    }
+
+    assertEquals(4000, messages.get());
+    assertEquals(4, groups.get());
+    assertTrue(maxBatchSize.get() <= 4);
+  }
+
+
+  @Test
+  public void testDrop() throws InterruptedException
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+    val blocked = new CountDownLatch(1);
+    val release = new CountDownLatch(1);
+    val delivered = new ArrayList<ProtocolEntry.Message<String>>();
+
+    val listener = new AsyncProtocolListener<String>(2, 1, WaitStrategy.PARK,
+        OverflowPolicy.DROP, events -> {
+          delivered.add(events.get(0).getMessage());
+          blocked.countDown();
+
+          try {
+            release.await();
+          } catch(InterruptedException ignored) {
+          }
+        });
+
+    protocol.addListener(listener);
+
+    // msg1 occupies its slot while being consumed, msg2 fills the buffer, msg3 is dropped
+    protocol.info().message("msg1");
+    blocked.await();
+    protocol.info().message("msg2");
+    protocol.info().message("msg3");
+
+    assertEquals(1, listener.getDroppedEventCount());
+
+    release.countDown();
+    listener.close();
+
+    assertEquals(2, delivered.size());
+    assertEquals("msg2", delivered.get(1).getMessage());
+
+    protocol.info().message("msg4");
+
+    assertTrue(listener.isClosed());
+    assertEquals(2, listener.getDroppedEventCount());
+    assertSame(protocol.find(any()).get(0), delivered.get(0));
+  }
+
+
+  @Test
+  public void testCloseWhilePublishing() throws InterruptedException
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+    val delivered = new AtomicInteger();
+    val listener = new AsyncProtocolListener<String>(8, 4, WaitStrategy.PARK,
+        OverflowPolicy.BLOCK, events -> delivered.addAndGet(events.size()));
+
+    protocol.addListener(listener);
+
+    val threads = new ArrayList<Thread>();
+    for(int t = 0; t < 4; t++)
+    {
+      val group = protocol.createGroup();
+      val thread = new Thread(() -> {
+        for(int n = 0; n < 2000; n++)
+          group.info().message("msg" + n);
+      });
+
+      threads.add(thread);
+      thread.start();
+    }
+
+    listener.close();
+
+    for(val thread: threads)
+      thread.join();
+
+    // every event is either delivered or dropped, none is lost
+    assertEquals(8004, delivered.get() + listener.getDroppedEventCount());
+  }
+
+
+  @Test
+  public void testConsumerAppends()
+  {
+    val protocol = StringProtocolFactory.createPlainTextFactory().createProtocol();
+    val delivered = new AtomicInteger();
+
+    try(val listener = new AsyncProtocolListener<String>(2, 1, WaitStrategy.PARK,
+        OverflowPolicy.BLOCK, events -> {
+          delivered.incrementAndGet();
+
+          // the consumer thread must not wait for itself if the buffer is full
+          if (events.get(0).getMessage().getMessage().startsWith("msg"))
+            for(int n = 0; n < 3; n++)
+              protocol.debug().message("echo");
+        })) {
+      protocol.addListener(listener);
+
+      for(int n = 0; n < 100; n++)
+        protocol.info().message("msg" + n);
+
+      listener.close();
+      protocol.removeListener(listener);
+
+      assertEquals(400, delivered.get() + listener.getDroppedEventCount());
+      assertTrue(listener.getDroppedEventCount() > 0);
+    }
+  }
+
+
+
+
+  private static final class CountingListener implements ProtocolListener<String>
+  {
+    private int messages;
+    private int groups;
+
+
+    @Override
+    public void messageAdded(@NotNull ProtocolEntry.Message<String> message) {
+      messages++;
+    }
+
+
+    @Override
+    public void groupCreated(@NotNull ProtocolGroup<String> group) {
+      groups++;
+    }
+  }
+}
@@ -19,8 +19,11 @@ import org.junit.jupiter.api.Test;
 
 import lombok.val;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -78,6 +81,37 @@ public class ParameterMapTest
   }
 
 
+  @Test
+  public void testPutAll()
+  {
+    val map = new ParameterMap();
+
+    map.put("c", "c1");
+    map.put("e", "e1");
+
+    val values = new HashMap<String,Object>();
+    values.put("a", "a2");
+    values.put("e", "e2");
+    values.put("", "empty");
+    values.put(null, "null");
+    values.put("d", "d2");
+
+    map.putAll(values);
+
+    assertEquals(4, map.size());
+    assertArrayEquals(new Object[] { "a", "c", "d", "e" }, map.unmodifyableMap().keySet().toArray());
+    assertEquals("a2", map.get("a"));
+    assertEquals("c1", map.get("c"));
+    assertEquals("e2", map.get("e"));
+
+    map.putAll(new TreeMap<>(Map.of("b", "b3", "f", "f3")));
+    map.put("g", "g4");
+
+    assertArrayEquals(new Object[] { "a", "b", "c", "d", "e", "f", "g" },
+        map.unmodifyableMap().keySet().toArray());
+  }
+
+
   @Test
   public void testHasNoParent()
   {
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.util;
+
+import de.sayayi.lib.protocol.ProtocolIterator.DepthEntry;
+import de.sayayi.lib.protocol.ProtocolIterator.GroupStartEntry;
+import de.sayayi.lib.protocol.ProtocolIterator.ProtocolEnd;
+import de.sayayi.lib.protocol.ProtocolIterator.ProtocolStart;
+import de.sayayi.lib.protocol.factory.StringProtocolFactory;
+import de.sayayi.lib.protocol.formatter.AbstractTreeProtocolFormatter;
+import org.junit.jupiter.api.Test;
+
+import lombok.val;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+
+import static de.sayayi.lib.protocol.matcher.MessageMatchers.any;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author Jeroen Gremmen
+ */
+public class ProtocolPublisherTest
+{
+  @Test
+  public void testDemand()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+
+    protocol.info().message("msg1")
+            .createGroup().setGroupMessage("group").warn().message("msg2");
+
+    val subscriber = new RecordingSubscriber<DepthEntry<String>>();
+    ProtocolPublisher.of(protocol, any()).subscribe(subscriber);
+
+    assertTrue(subscriber.elements.isEmpty());
+
+    subscriber.subscription.request(2);
+    assertEquals(2, subscriber.elements.size());
+    assertInstanceOf(ProtocolStart.class, subscriber.elements.get(0));
+    assertFalse(subscriber.completed);
+
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertEquals(6, subscriber.elements.size());
+    assertInstanceOf(GroupStartEntry.class, subscriber.elements.get(2));
+    assertInstanceOf(ProtocolEnd.class, subscriber.elements.get(5));
+    assertTrue(subscriber.completed);
+  }
+
+
+  @Test
+  public void testCompleteOnExactDemand()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+
+    protocol.info().message("msg1");
+
+    val subscriber = new RecordingSubscriber<DepthEntry<String>>();
+    ProtocolPublisher.of(protocol, any()).subscribe(subscriber);
+
+    // protocol start, message, protocol end
+    subscriber.subscription.request(3);
+    assertEquals(3, subscriber.elements.size());
+    assertTrue(subscriber.completed);
+  }
+
+
+  @Test
+  public void testCancel()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+
+    for(int n = 0; n < 10; n++)
+      protocol.info().message("msg" + n);
+
+    // cancel from within onNext after 3 elements
+    val subscriber = new RecordingSubscriber<DepthEntry<String>>() {
+      @Override
+      public void onNext(DepthEntry<String> item)
+      {
+        super.onNext(item);
+
+        if (elements.size() == 3)
+          subscription.cancel();
+      }
+    };
+
+    ProtocolPublisher.of(protocol, any()).subscribe(subscriber);
+    subscriber.subscription.request(Long.MAX_VALUE);
+
+    assertEquals(3, subscriber.elements.size());
+    assertFalse(subscriber.completed);
+
+    subscriber.subscription.request(1);
+    assertEquals(3, subscriber.elements.size());
+  }
+
+
+  @Test
+  public void testIllegalRequest()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val subscriber = new RecordingSubscriber<DepthEntry<String>>();
+
+    ProtocolPublisher.of(factory.createProtocol(), any()).subscribe(subscriber);
+    subscriber.subscription.request(0);
+
+    assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+    assertTrue(subscriber.elements.isEmpty());
+  }
+
+
+  @Test
+  public void testFormatted()
+  {
+    val factory = StringProtocolFactory.createPlainTextFactory();
+    val protocol = factory.createProtocol();
+
+    protocol.info().message("msg1")
+            .createGroup().setGroupMessage("group")
+                .warn().message("msg2")
+                .error().message("msg3");
+
+    val formatter = new AbstractTreeProtocolFormatter<String>() {};
+    val expected = protocol.format(formatter, any());
+
+    // request elements one by one from within onNext
+    val subscriber = new RecordingSubscriber<String>() {
+      @Override
+      public void onNext(String item)
+      {
+        super.onNext(item);
+        subscription.request(1);
+      }
+    };
+
+    ProtocolPublisher.formatted(protocol, formatter, any()).subscribe(subscriber);
+    subscriber.subscription.request(1);
+
+    assertTrue(subscriber.completed);
+    assertTrue(subscriber.elements.size() > 1);
+    assertEquals(expected, String.join("", subscriber.elements));
+  }
+
+
+
+
+  private static class RecordingSubscriber<T> implements Subscriber<T>
+  {
+    final List<T> elements = new ArrayList<>();
+    Subscription subscription;
+    boolean completed;
+    Throwable error;
+
+
+    @Override
+    public void onSubscribe(@NotNull Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+
+    @Override
+    public void onNext(T item) {
+      elements.add(item);
+    }
+
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+}
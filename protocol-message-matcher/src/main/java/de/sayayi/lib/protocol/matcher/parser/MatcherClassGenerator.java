@@ -0,0 +1,198 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.parser;
+
+import de.sayayi.lib.protocol.exception.MessageMatcherException;
+import de.sayayi.lib.protocol.matcher.internal.MatcherSourceWriter;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import javax.lang.model.SourceVersion;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+
+/**
+ * Generates a Java class with message matcher constants from matcher expressions at build time.
+ * <p>
+ * Each expression is parsed and validated by {@link MessageMatcherParser}; the resulting matcher
+ * is written as source code which constructs the same matcher using {@code MessageMatchers}. The
+ * generated class therefore depends on the protocol core library only, and neither the parser nor
+ * the ANTLR runtime are required at runtime. Invalid expressions fail the generation.
+ * <p>
+ * The generator can be run as a Gradle {@code JavaExec} task. It expects a properties file,
+ * mapping constant names to matcher expressions, the source output directory and the fully
+ * qualified name of the class to generate:
+ * <pre>
+ *   def matchersDir = layout.buildDirectory.dir('generated/sources/matchers')
+ *
+ *   tasks.register('generateMatchers', JavaExec) {
+ *     classpath = configurations.matcherGenerator
+ *     mainClass = 'de.sayayi.lib.protocol.matcher.parser.MatcherClassGenerator'
+ *     args 'src/main/matchers.properties', matchersDir.get().asFile, 'com.example.Matchers'
+ *     inputs.file 'src/main/matchers.properties'
+ *     outputs.dir matchersDir
+ *   }
+ *
+ *   sourceSets.main.java.srcDir(tasks.named('generateMatchers'))
+ * </pre>
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class MatcherClassGenerator
+{
+  private final MessageMatcherParser parser;
+
+
+  public MatcherClassGenerator(@NotNull MessageMatcherParser parser) {
+    this.parser = requireNonNull(parser, "parser must not be null");
+  }
+
+
+  /**
+   * Generates the source code for class {@code className} containing a constant for each
+   * matcher expression. Constants are emitted in iteration order of {@code expressions}.
+   *
+   * @param className    fully qualified class name, not {@code null}
+   * @param expressions  map with constant name as key and matcher expression as value,
+   *                     not {@code null}
+   *
+   * @return  java source code, never {@code null}
+   *
+   * @throws MessageMatcherException  if one or more expressions are invalid. The exception
+   *                                  message lists all invalid expressions
+   */
+  @Contract(pure = true)
+  public @NotNull String generate(@NotNull String className,
+                                  @NotNull Map<String,String> expressions)
+  {
+    final var lastDot = className.lastIndexOf('.');
+    final var simpleClassName = className.substring(lastDot + 1);
+
+    if (!SourceVersion.isName(className))
+      throw new MessageMatcherException("invalid class name '" + className + "'");
+
+    final var constants = new StringBuilder();
+    final var errors = new StringBuilder();
+
+    for(var entry: expressions.entrySet())
+    {
+      final var name = entry.getKey();
+      final var expression = entry.getValue();
+
+      if (!isIdentifier(name))
+      {
+        errors.append("invalid constant name '").append(name).append("'\n");
+        continue;
+      }
+
+      try {
+        final var source = MatcherSourceWriter.toSource(parser.parseMessageMatcher(expression));
+
+        constants
+            .append("  // ").append(expression.replace("\\", "\\\\").replaceAll("\\s+", " "))
+            .append("\n  public static final Junction ").append(name).append(" =\n      ")
+            .append(source).append(";\n\n\n");
+      } catch(MessageMatcherParserException ex) {
+        errors
+            .append(name).append(": ").append(ex.getErrorMessage()).append('\n')
+            .append(ex.getSyntaxError()).append('\n');
+      } catch(MessageMatcherException ex) {
+        errors.append(name).append(": ").append(ex.getMessage()).append('\n');
+      }
+    }
+
+    if (errors.length() > 0)
+      throw new MessageMatcherException("invalid matcher expressions:\n" + errors);
+
+    final var source = new StringBuilder("// generated from matcher expressions, do not edit\n");
+
+    if (lastDot > 0)
+      source.append("package ").append(className, 0, lastDot).append(";\n\n");
+
+    return source
+        .append("import de.sayayi.lib.protocol.Level;\n")
+        .append("import de.sayayi.lib.protocol.matcher.MessageMatcher.Junction;\n\n")
+        .append("import static de.sayayi.lib.protocol.matcher.MessageMatchers.*;\n\n\n")
+        .append("@SuppressWarnings(\"unused\")\n")
+        .append("public final class ").append(simpleClassName).append("\n{\n")
+        .append(constants)
+        .append("  private ").append(simpleClassName).append("() {\n  }\n}\n")
+        .toString();
+  }
+
+
+  @Contract(pure = true)
+  private static boolean isIdentifier(@NotNull String name) {
+    return SourceVersion.isIdentifier(name) && !SourceVersion.isKeyword(name);
+  }
+
+
+  /**
+   * Generates a matcher constants class.
+   *
+   * @param args  properties file with matcher expressions, source output directory and
+   *              fully qualified class name
+   *
+   * @throws IOException  if reading the properties or writing the source file fails
+   */
+  public static void main(String[] args) throws IOException
+  {
+    if (args.length != 3)
+    {
+      System.err.println("usage: MatcherClassGenerator <expressions.properties> <output dir> " +
+          "<class name>");
+      System.exit(2);
+    }
+
+    final var properties = new Properties();
+
+    try(Reader reader = Files.newBufferedReader(Path.of(args[0]), UTF_8)) {
+      properties.load(reader);
+    }
+
+    final var expressions = new TreeMap<String,String>();
+    for(var name: properties.stringPropertyNames())
+      expressions.put(name, properties.getProperty(name));
+
+    final var className = args[2];
+    final String source;
+
+    try {
+      source = new MatcherClassGenerator(new MessageMatcherParser(
+          MatcherClassGenerator.class.getClassLoader(), null)).generate(className, expressions);
+    } catch(MessageMatcherException ex) {
+      System.err.println(ex.getMessage());
+      System.exit(1);
+      return;
+    }
+
+    final var sourceFile = Path.of(args[1], className.replace('.', '/') + ".java");
+
+    Files.createDirectories(sourceFile.getParent());
+    Files.writeString(sourceFile, source, UTF_8);
+  }
+}
@@ -224,13 +224,13 @@ public final class MessageMatcherParser extends AbstractAntlr4Parser
 
     @Override
     public void exitParseMatcher(ParseMatcherContext ctx) {
-      ctx.matcher = ctx.compoundMatcher().matcher;
+      ctx.matcher = ctx.compoundMatcher().matcher.optimize();
     }
 
 
     @Override
     public void exitParseTagSelector(ParseTagSelectorContext ctx) {
-      ctx.selector = ctx.compoundTagSelector().selector.asTagSelector();
+      ctx.selector = ctx.compoundTagSelector().selector.optimize().asTagSelector();
     }
 
 
@@ -0,0 +1,888 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.parser;
+
+import de.sayayi.lib.protocol.Level;
+import de.sayayi.lib.protocol.ProtocolMessageMatcher;
+import de.sayayi.lib.protocol.TagSelector;
+import de.sayayi.lib.protocol.matcher.MessageMatcher;
+import de.sayayi.lib.protocol.matcher.MessageMatcher.Junction;
+import de.sayayi.lib.protocol.matcher.MessageMatchers;
+import de.sayayi.lib.protocol.matcher.internal.BooleanMatcher;
+import de.sayayi.lib.protocol.matcher.internal.Conjunction;
+import de.sayayi.lib.protocol.matcher.internal.Disjunction;
+import de.sayayi.lib.protocol.matcher.internal.LevelMatcher;
+import de.sayayi.lib.protocol.matcher.internal.Negation;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static de.sayayi.lib.protocol.matcher.parser.RecursiveDescentMatcherParser.TokenType.*;
+import static java.lang.Character.digit;
+
+
+/**
+ * Message matcher parser with a hand-written lexer and recursive-descent parser.
+ * <p>
+ * The parser accepts the same grammar as {@link MessageMatcherParser} and reports equivalent
+ * error messages, but does not depend on the ANTLR runtime. There is no grammar deserialization
+ * at startup and a parse only allocates a token list besides the resulting matcher.
+ * <p>
+ * Operator {@code and} takes precedence over {@code or}; {@code not} is only allowed in front of
+ * a parenthesized expression.
+ *
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+public final class RecursiveDescentMatcherParser
+{
+  public static final RecursiveDescentMatcherParser INSTANCE =
+      new RecursiveDescentMatcherParser(null, null);
+
+  private static final Map<String,TokenType> KEYWORDS = new HashMap<>();
+
+  private static final EnumSet<TokenType> MATCHER_START = EnumSet.of(
+      ANY, NONE, NOT, THROWABLE, TAG, ANY_OF, ALL_OF, NONE_OF, HAS_PARAM, HAS_PARAM_VALUE, DEBUG,
+      INFO, WARN, ERROR, LEVEL, BETWEEN, MESSAGE, IN_GROUP, IN_GROUP_REGEX, IN_ROOT, AND, OR,
+      L_PAREN, STRING, IDENTIFIER);
+  private static final EnumSet<TokenType> TAG_SELECTOR_START = EnumSet.of(
+      ANY, NONE, NOT, TAG, ANY_OF, ALL_OF, NONE_OF, AND, OR, L_PAREN, STRING, IDENTIFIER);
+  private static final EnumSet<TokenType> TAG_NAME = EnumSet.of(STRING, IDENTIFIER);
+  private static final EnumSet<TokenType> LEVEL_START =
+      EnumSet.of(DEBUG, INFO, WARN, ERROR, STRING, IDENTIFIER);
+
+  static
+  {
+    for(var tokenType: TokenType.values())
+      if (tokenType.keyword)
+        KEYWORDS.put(tokenType.displayName.substring(1, tokenType.displayName.length() - 1),
+            tokenType);
+  }
+
+  private final ClassLoader classLoader;
+  private final Function<String,Level> levelResolver;
+
+
+  public RecursiveDescentMatcherParser(ClassLoader classLoader,
+                                       Function<String,Level> levelResolver)
+  {
+    this.classLoader = classLoader;
+    this.levelResolver = levelResolver;
+  }
+
+
+  @Contract(pure = true)
+  public @NotNull MessageMatcher parseMessageMatcher(@NotNull String messageMatcherText)
+  {
+    final var parser = new Parser(messageMatcherText, false);
+    final var matcher = parser.parseCompound();
+
+    parser.expectEnd();
+
+    return matcher.optimize();
+  }
+
+
+  @Contract(pure = true)
+  public @NotNull TagSelector parseTagSelector(@NotNull String tagSelectorText)
+  {
+    final var parser = new Parser(tagSelectorText, true);
+    final var selector = parser.parseCompound();
+
+    parser.expectEnd();
+
+    return selector.optimize().asTagSelector();
+  }
+
+
+
+
+  enum TokenType
+  {
+    EOF("end of matcher", false),
+    ANY("'any'", true),
+    NONE("'none'", true),
+    NOT("'not'", true),
+    THROWABLE("'throwable'", true),
+    TAG("'tag'", true),
+    ANY_OF("'any-of'", true),
+    ALL_OF("'all-of'", true),
+    NONE_OF("'none-of'", true),
+    HAS_PARAM("'has-param'", true),
+    HAS_PARAM_VALUE("'has-param-value'", true),
+    DEBUG("'debug'", true),
+    INFO("'info'", true),
+    WARN("'warn'", true),
+    ERROR("'error'", true),
+    LEVEL("'level'", true),
+    BETWEEN("'between'", true),
+    MESSAGE("'message'", true),
+    IN_GROUP("'in-group'", true),
+    IN_GROUP_REGEX("'in-group-regex'", true),
+    IN_ROOT("'in-root'", true),
+    AND("'and'", true),
+    OR("'or'", true),
+    L_PAREN("'('", false),
+    R_PAREN("')'", false),
+    COMMA("','", false),
+    STRING("string", false),
+    QUALIFIED_CLASS_NAME("qualified class name", false),
+    IDENTIFIER("identifier", false);
+
+
+    private final String displayName;
+    private final boolean keyword;
+
+
+    TokenType(@NotNull String displayName, boolean keyword)
+    {
+      this.displayName = displayName;
+      this.keyword = keyword;
+    }
+  }
+
+
+
+
+  private static final class Token
+  {
+    private final @NotNull TokenType type;
+    private final int start;
+    private final int end;
+    private final String value;
+
+
+    private Token(@NotNull TokenType type, int start, int end, String value)
+    {
+      this.type = type;
+      this.start = start;
+      this.end = end;
+      this.value = value;
+    }
+  }
+
+
+
+
+  private final class Parser
+  {
+    private final @NotNull String text;
+    private final boolean tagSelector;
+    private final @NotNull List<Token> tokens;
+    private int index;
+
+
+    private Parser(@NotNull String text, boolean tagSelector)
+    {
+      this.text = text;
+      this.tagSelector = tagSelector;
+
+      tokens = tokenize();
+    }
+
+
+    //
+    // parser
+    //
+
+
+    private @NotNull Junction parseCompound()
+    {
+      final var matchers = new ArrayList<MessageMatcher>();
+
+      matchers.add(parseConjunction());
+      while(accept(OR))
+        matchers.add(parseConjunction());
+
+      return matchers.size() == 1
+          ? matchers.get(0).asJunction()
+          : Disjunction.of(matchers.toArray(MessageMatcher[]::new));
+    }
+
+
+    private @NotNull Junction parseConjunction()
+    {
+      final var matchers = new ArrayList<MessageMatcher>();
+
+      matchers.add(parsePrimary());
+      while(accept(AND))
+        matchers.add(parsePrimary());
+
+      return matchers.size() == 1
+          ? matchers.get(0).asJunction()
+          : Conjunction.of(matchers.toArray(MessageMatcher[]::new));
+    }
+
+
+    private @NotNull Junction parsePrimary()
+    {
+      switch(peek().type)
+      {
+        case AND:
+          index++;
+          return Conjunction.of(parseJunctionArguments());
+
+        case OR:
+          index++;
+          return Disjunction.of(parseJunctionArguments());
+
+        case NOT:
+          index++;
+          expect(L_PAREN);
+          return Negation.of(parseParenthesized());
+
+        case L_PAREN:
+          index++;
+          return parseParenthesized();
+      }
+
+      return (tagSelector ? parseTagSelectorAtom() : parseMatcherAtom()).asJunction();
+    }
+
+
+    private @NotNull MessageMatcher[] parseJunctionArguments()
+    {
+      final var matchers = new ArrayList<MessageMatcher>();
+
+      expect(L_PAREN);
+      matchers.add(parseCompound());
+
+      expectAfterExpression(COMMA);
+      do {
+        matchers.add(parseCompound());
+      } while(acceptAfterExpression(COMMA, R_PAREN));
+
+      return matchers.toArray(MessageMatcher[]::new);
+    }
+
+
+    private @NotNull Junction parseParenthesized()
+    {
+      final var matcher = parseCompound();
+
+      expectAfterExpression(R_PAREN);
+
+      return matcher;
+    }
+
+
+    private @NotNull MessageMatcher parseTagSelectorAtom()
+    {
+      final var token = peek();
+
+      switch(token.type)
+      {
+        case ANY:
+          index++;
+          return BooleanMatcher.ANY;
+
+        case NONE:
+          index++;
+          return BooleanMatcher.NONE;
+
+        case TAG:
+        case ANY_OF:
+        case ALL_OF:
+        case NONE_OF:
+        case STRING:
+        case IDENTIFIER:
+          return parseTagMatcherAtom();
+      }
+
+      throw mismatch(token, TAG_SELECTOR_START);
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private @NotNull MessageMatcher parseMatcherAtom()
+    {
+      final var token = peek();
+
+      switch(token.type)
+      {
+        case ANY:
+          index++;
+          return BooleanMatcher.ANY;
+
+        case NONE:
+          index++;
+          return BooleanMatcher.NONE;
+
+        case THROWABLE:
+          index++;
+          if (!accept(L_PAREN))
+            return MessageMatchers.hasThrowable();
+          else
+          {
+            final var qualifiedName = expect(QUALIFIED_CLASS_NAME);
+            expect(R_PAREN);
+
+            Class<?> clazz = null;
+
+            try {
+              clazz = classLoader == null
+                  ? Class.forName(qualifiedName.value)
+                  : Class.forName(qualifiedName.value, false, classLoader);
+            } catch(ClassNotFoundException ignored) {
+            }
+
+            if (clazz == null || !Throwable.class.isAssignableFrom(clazz))
+              throw syntaxError("class not found or not of type Throwable", qualifiedName);
+
+            return MessageMatchers.hasThrowable((Class<? extends Throwable>)clazz);
+          }
+
+        case TAG:
+        case ANY_OF:
+        case ALL_OF:
+        case NONE_OF:
+        case STRING:
+        case IDENTIFIER:
+          return parseTagMatcherAtom();
+
+        case HAS_PARAM:
+        case HAS_PARAM_VALUE: {
+          index++;
+          final var paramName = parseStringArgument();
+
+          return token.type == HAS_PARAM
+              ? MessageMatchers.hasParam(paramName)
+              : MessageMatchers.hasParamValue(paramName);
+        }
+
+        case DEBUG:
+        case INFO:
+        case WARN:
+        case ERROR:
+          index++;
+          return LevelMatcher.of(Level.Shared.valueOf(token.type.name()));
+
+        case LEVEL: {
+          index++;
+          expect(L_PAREN);
+          final var level = parseLevel();
+          expect(R_PAREN);
+
+          return LevelMatcher.of(level);
+        }
+
+        case BETWEEN: {
+          index++;
+          expect(L_PAREN);
+          final var levelLow = parseLevel();
+          expect(COMMA);
+          final var levelHigh = parseLevel();
+          expect(R_PAREN);
+
+          return MessageMatchers.between(levelLow, levelHigh);
+        }
+
+        case MESSAGE:
+          index++;
+          return MessageMatchers.hasMessage(parseStringArgument());
+
+        case IN_GROUP:
+          index++;
+          return peek().type == L_PAREN
+              ? MessageMatchers.inGroup(parseStringArgument())
+              : MessageMatchers.inGroup();
+
+        case IN_GROUP_REGEX:
+          index++;
+          return MessageMatchers.inGroupRegex(parseStringArgument());
+
+        case IN_ROOT:
+          index++;
+          return MessageMatchers.inRoot();
+      }
+
+      throw mismatch(token, MATCHER_START);
+    }
+
+
+    private @NotNull MessageMatcher parseTagMatcherAtom()
+    {
+      final var token = next();
+
+      switch(token.type)
+      {
+        case TAG: {
+          expect(L_PAREN);
+          final var tagName = parseTagName();
+          expect(R_PAREN);
+
+          return MessageMatchers.hasTag(tagName);
+        }
+
+        case ANY_OF:
+          return MessageMatchers.hasAnyOf(parseTagNameList());
+
+        case ALL_OF:
+          return MessageMatchers.hasAllOf(parseTagNameList());
+
+        case NONE_OF:
+          return MessageMatchers.hasNoneOf(parseTagNameList());
+
+        default:
+          // STRING or IDENTIFIER
+          return MessageMatchers.hasTag(token.value);
+      }
+    }
+
+
+    private @NotNull List<String> parseTagNameList()
+    {
+      final var tagNames = new ArrayList<String>();
+
+      expect(L_PAREN);
+      tagNames.add(parseTagName());
+
+      expect(COMMA);
+      do {
+        tagNames.add(parseTagName());
+      } while(accept(COMMA, R_PAREN));
+
+      return tagNames;
+    }
+
+
+    private @NotNull String parseTagName()
+    {
+      final var token = peek();
+
+      if (!TAG_NAME.contains(token.type))
+        throw mismatch(token, TAG_NAME);
+
+      index++;
+
+      return token.value;
+    }
+
+
+    private @NotNull String parseStringArgument()
+    {
+      expect(L_PAREN);
+      final var string = expect(STRING).value;
+      expect(R_PAREN);
+
+      return string;
+    }
+
+
+    private @NotNull Level parseLevel()
+    {
+      final var token = peek();
+
+      if (!LEVEL_START.contains(token.type))
+        throw mismatch(token, LEVEL_START);
+
+      index++;
+
+      switch(token.type)
+      {
+        case DEBUG:
+        case INFO:
+        case WARN:
+        case ERROR:
+          return Level.Shared.valueOf(token.type.name());
+      }
+
+      final var name = token.value;
+      Level level = null;
+
+      try {
+        level = levelResolver == null ? null : levelResolver.apply(name);
+      } catch(Exception ignored) {
+      }
+
+      if (level == null)
+      {
+        for(var sharedLevel: Level.Shared.values())
+          if (sharedLevel.name().equalsIgnoreCase(name))
+            return sharedLevel;
+
+        throw syntaxError("unknown level '" + name + "'", token);
+      }
+
+      return level;
+    }
+
+
+    private void expectEnd()
+    {
+      final var token = peek();
+
+      if (token.type != EOF)
+        throw mismatch(token, EnumSet.of(EOF, AND, OR));
+    }
+
+
+    @Contract(pure = true)
+    private @NotNull Token peek() {
+      return tokens.get(index);
+    }
+
+
+    private @NotNull Token next() {
+      return tokens.get(index++);
+    }
+
+
+    private boolean accept(@NotNull TokenType type)
+    {
+      if (peek().type == type)
+      {
+        index++;
+        return true;
+      }
+
+      return false;
+    }
+
+
+    /**
+     * Consumes a token of type {@code continueType} and returns {@code true} or consumes a token
+     * of type {@code endType} and returns {@code false}.
+     */
+    private boolean accept(@NotNull TokenType continueType, @NotNull TokenType endType)
+    {
+      final var token = next();
+
+      if (token.type == continueType)
+        return true;
+      if (token.type == endType)
+        return false;
+
+      throw mismatch(token, EnumSet.of(continueType, endType));
+    }
+
+
+    private boolean acceptAfterExpression(@NotNull TokenType continueType,
+                                          @NotNull TokenType endType)
+    {
+      final var token = next();
+
+      if (token.type == continueType)
+        return true;
+      if (token.type == endType)
+        return false;
+
+      throw mismatch(token, EnumSet.of(AND, OR, continueType, endType));
+    }
+
+
+    private @NotNull Token expect(@NotNull TokenType type)
+    {
+      final var token = next();
+
+      if (token.type != type)
+        throw mismatch(token, EnumSet.of(type));
+
+      return token;
+    }
+
+
+    private void expectAfterExpression(@NotNull TokenType type)
+    {
+      final var token = next();
+
+      if (token.type != type)
+        throw mismatch(token, EnumSet.of(AND, OR, type));
+    }
+
+
+    //
+    // error reporting
+    //
+
+
+    private @NotNull MessageMatcherParserException mismatch(@NotNull Token token,
+                                                            @NotNull EnumSet<TokenType> expected)
+    {
+      if (expected.equals(MATCHER_START))
+        return syntaxError("expecting message matcher", token);
+
+      if (expected.equals(TAG_NAME))
+        return syntaxError("expecting tag name", token);
+
+      final var message = new StringBuilder();
+
+      if (token.type == EOF)
+        message.append("incomplete matcher");
+      else
+        message.append("mismatched input ").append(quote(text.substring(token.start, token.end)));
+
+      // don't confuse user with a long list of tokens
+      if (expected.size() <= 4)
+      {
+        message.append("; expecting ");
+
+        int n = expected.size();
+        for(var type: expected)
+        {
+          message.append(type.displayName);
+          if (--n > 0)
+            message.append(n == 1 ? " or " : ", ");
+        }
+
+        if (token.type == EOF)
+          message.append(" at end");
+      }
+
+      return syntaxError(message.toString(), token);
+    }
+
+
+    private @NotNull MessageMatcherParserException syntaxError(@NotNull String errorMessage,
+                                                               @NotNull Token token) {
+      return syntaxError(errorMessage, token.start, token.end);
+    }
+
+
+    private @NotNull MessageMatcherParserException syntaxError(@NotNull String errorMessage,
+                                                               int start, int end)
+    {
+      final var syntaxError = new StringBuilder("> ").append(text).append("\n> ");
+
+      for(int n = 0; n < start; n++)
+        syntaxError.append(' ');
+      for(int n = Math.max(end - start, 1); n > 0; n--)
+        syntaxError.append('^');
+
+      return new MessageMatcherParserException(errorMessage, syntaxError.toString(), null);
+    }
+
+
+    @Contract(pure = true)
+    private @NotNull String quote(@NotNull String s)
+    {
+      return '\'' + s
+          .replace("\n", "\\n")
+          .replace("\r", "\\r")
+          .replace("\t", "\\t") + '\'';
+    }
+
+
+    //
+    // lexer
+    //
+
+
+    private @NotNull List<Token> tokenize()
+    {
+      final var tokenList = new ArrayList<Token>();
+      final var length = text.length();
+
+      for(int pos = 0; pos < length;)
+      {
+        final var c = text.charAt(pos);
+
+        switch(c)
+        {
+          case ' ':
+            pos++;
+            break;
+
+          case '(':
+            tokenList.add(new Token(L_PAREN, pos, ++pos, null));
+            break;
+
+          case ')':
+            tokenList.add(new Token(R_PAREN, pos, ++pos, null));
+            break;
+
+          case ',':
+            tokenList.add(new Token(COMMA, pos, ++pos, null));
+            break;
+
+          case '\'':
+          case '"':
+            pos = tokenizeString(tokenList, pos);
+            break;
+
+          default:
+            if (!isLetter(c))
+              throw lexerError(pos, pos + 1);
+
+            pos = tokenizeName(tokenList, pos);
+            break;
+        }
+      }
+
+      tokenList.add(new Token(EOF, length, length, null));
+
+      return tokenList;
+    }
+
+
+    private int tokenizeString(@NotNull List<Token> tokenList, int start)
+    {
+      final var length = text.length();
+      final var quote = text.charAt(start);
+      final var s = new StringBuilder();
+      char c;
+
+      for(int pos = start + 1; pos < length; pos++)
+      {
+        if ((c = text.charAt(pos)) == quote)
+        {
+          tokenList.add(new Token(STRING, start, pos + 1, s.toString()));
+          return pos + 1;
+        }
+
+        if (c == '\\')
+        {
+          if (++pos == length)
+            break;
+
+          switch(c = text.charAt(pos))
+          {
+            case '"':
+            case '\'':
+            case '\\':
+              break;
+
+            case 'x':
+              c = (char)parseHex(start, pos + 1, 2);
+              pos += 2;
+              break;
+
+            case 'u':
+              c = (char)parseHex(start, pos + 1, 4);
+              pos += 4;
+              break;
+
+            default:
+              throw lexerError(start, pos + 1);
+          }
+        }
+
+        s.append(c);
+      }
+
+      throw lexerError(start, length);
+    }
+
+
+    private int parseHex(int start, int pos, int digits)
+    {
+      int value = 0;
+
+      for(int n = 0; n < digits; n++, pos++)
+      {
+        final var digit = pos < text.length() ? digit(text.charAt(pos), 16) : -1;
+        if (digit < 0)
+          throw lexerError(start, Math.min(pos + 1, text.length()));
+
+        value = value * 16 + digit;
+      }
+
+      return value;
+    }
+
+
+    private int tokenizeName(@NotNull List<Token> tokenList, int start)
+    {
+      final var length = text.length();
+      char c;
+
+      // IDENTIFIER: Letter ('-' | LetterOrDigit+)*
+      int identifierEnd = start + 1;
+      while(identifierEnd < length &&
+            ((c = text.charAt(identifierEnd)) == '-' || isLetterOrDigit(c)))
+        identifierEnd++;
+
+      // QUALIFIED_CLASS_NAME: PackageOrClassName ('.' PackageOrClassName)+
+      int classNameEnd = start + 1;
+      boolean qualified = false;
+
+      for(;;)
+      {
+        while(classNameEnd < length && isLetterOrDigit(text.charAt(classNameEnd)))
+          classNameEnd++;
+
+        if (classNameEnd + 1 < length && text.charAt(classNameEnd) == '.' &&
+            isLetter(text.charAt(classNameEnd + 1)))
+        {
+          classNameEnd += 2;
+          qualified = true;
+        }
+        else
+          break;
+      }
+
+      if (qualified && classNameEnd > identifierEnd)
+      {
+        tokenList.add(new Token(QUALIFIED_CLASS_NAME, start, classNameEnd,
+            text.substring(start, classNameEnd)));
+
+        return classNameEnd;
+      }
+
+      final var name = text.substring(start, identifierEnd);
+      final var keyword = KEYWORDS.get(name);
+
+      tokenList.add(new Token(keyword == null ? IDENTIFIER : keyword, start, identifierEnd, name));
+
+      return identifierEnd;
+    }
+
+
+    private @NotNull MessageMatcherParserException lexerError(int start, int end)
+    {
+      return syntaxError("message matcher syntax error at " + quote(text.substring(start, end)),
+          start, end);
+    }
+  }
+
+
+  @Contract(pure = true)
+  private static boolean isLetter(char c)
+  {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '$' || c == '_' ||
+           (c > 0x7f && (c < 0xd800 || c > 0xdbff));
+  }
+
+
+  @Contract(pure = true)
+  private static boolean isLetterOrDigit(char c) {
+    return (c >= '0' && c <= '9') || isLetter(c);
+  }
+
+
+
+
+  public static final class Service implements ProtocolMessageMatcher
+  {
+    @Override
+    public @NotNull MessageMatcher parseMessageMatcher(@NotNull String messageMatcherExpression) {
+      return INSTANCE.parseMessageMatcher(messageMatcherExpression);
+    }
+
+
+    @Override
+    public @NotNull TagSelector parseTagSelector(@NotNull String tagSelectorExpression) {
+      return INSTANCE.parseTagSelector(tagSelectorExpression);
+    }
+  }
+}
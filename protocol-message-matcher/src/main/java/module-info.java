@@ -3,8 +3,11 @@ module de.sayayi.lib.protocol.message.matcher {
   requires de.sayayi.lib.antlr;
   requires de.sayayi.lib.protocol;
 
+  // MessageMatcherParser, the ANTLR based parser, remains available next to the hand-written
+  // RecursiveDescentMatcherParser and still requires the ANTLR runtime
   requires org.antlr.antlr4.runtime;
 
+  requires static java.compiler;
   requires static org.jetbrains.annotations;
 
   exports de.sayayi.lib.protocol.matcher.parser;
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.parser;
+
+import de.sayayi.lib.protocol.exception.MessageMatcherException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+@DisplayName("Matcher class generator")
+@TestMethodOrder(MethodOrderer.DisplayName.class)
+class MatcherClassGeneratorTest
+{
+  private static final MatcherClassGenerator GENERATOR =
+      new MatcherClassGenerator(MessageMatcherParser.INSTANCE);
+
+
+  @Test
+  @DisplayName("Generate constants")
+  void testGenerate()
+  {
+    var expressions = new LinkedHashMap<String,String>();
+    expressions.put("ERROR_A", "tag(a) and error");
+    expressions.put("GROUP", "in-group('g') or has-param-value('q')");
+    expressions.put("LEVELS", "between(debug, warn) and not(throwable)");
+
+    var source = GENERATOR.generate("com.example.Matchers", expressions);
+
+    assertTrue(source.contains("package com.example;"));
+    assertTrue(source.contains("public final class Matchers"));
+    assertTrue(source.contains("public static final Junction ERROR_A =\n" +
+        "      hasTag(\"a\").and(isError());"));
+    assertTrue(source.contains("inGroup(\"g\").or(hasParamValue(\"q\"))"));
+    assertTrue(source.contains("between(Level.Shared.DEBUG, Level.Shared.WARN)"));
+  }
+
+
+  @Test
+  @DisplayName("Invalid expressions")
+  void testInvalidExpressions()
+  {
+    var ex = assertThrowsExactly(MessageMatcherException.class,
+        () -> GENERATOR.generate("Matchers", Map.of("A", "tag(a) and")));
+    assertTrue(ex.getMessage().contains("A: expecting message matcher"));
+
+    ex = assertThrowsExactly(MessageMatcherException.class,
+        () -> GENERATOR.generate("Matchers", Map.of("9A", "any")));
+    assertTrue(ex.getMessage().contains("invalid constant name '9A'"));
+
+    ex = assertThrowsExactly(MessageMatcherException.class,
+        () -> GENERATOR.generate("Matchers", Map.of("class", "any")));
+    assertTrue(ex.getMessage().contains("invalid constant name 'class'"));
+
+    ex = assertThrowsExactly(MessageMatcherException.class,
+        () -> GENERATOR.generate("com.example.new.Matchers", Map.of("A", "any")));
+    assertTrue(ex.getMessage().contains("invalid class name 'com.example.new.Matchers'"));
+  }
+}
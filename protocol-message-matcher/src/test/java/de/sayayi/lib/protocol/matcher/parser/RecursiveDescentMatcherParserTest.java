@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 Jeroen Gremmen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.sayayi.lib.protocol.matcher.parser;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+
+/**
+ * @author Jeroen Gremmen
+ * @since 1.6.0
+ */
+@DisplayName("Recursive-descent parser")
+@TestMethodOrder(MethodOrderer.DisplayName.class)
+class RecursiveDescentMatcherParserTest
+{
+  private static final MessageMatcherParser ANTLR_PARSER = MessageMatcherParser.INSTANCE;
+  private static final RecursiveDescentMatcherParser PARSER =
+      RecursiveDescentMatcherParser.INSTANCE;
+
+
+  @Test
+  @DisplayName("Message matcher equivalence")
+  void testMessageMatcher()
+  {
+    for(var expression: new String[] {
+        "any", "none", "tag('default')", "tag(system)", "tag('')", "any-of('default', default)",
+        "any-of ( system, ticket ) ", "all-of(a,b,c)", "none-of(a, 'b')", "level(info)", "error",
+        "between(debug, 'WARN')", "throwable", "throwable(java.lang.Exception)",
+        "has-param('p') and has-param-value(\"q\")", "message('m\\x41\\u0042\\'')",
+        "in-group or in-group('g') or in-group-regex('g.*') or in-root",
+        "a and b or c and d", "and(a, b, c) or not(d)", "or(a, and(b, c))", "(info)",
+        "not(throwable) and x-y-z" })
+    {
+      assertEquals(ANTLR_PARSER.parseMessageMatcher(expression),
+          PARSER.parseMessageMatcher(expression), expression);
+    }
+  }
+
+
+  @Test
+  @DisplayName("Tag selector equivalence")
+  void testTagSelector()
+  {
+    for(var expression: new String[] {
+        "any", "none", "default", "a and b", "not(a or b)", "any-of(a,b) or c",
+        "and(tag(a), none-of(b, c))" })
+    {
+      assertEquals(ANTLR_PARSER.parseTagSelector(expression), PARSER.parseTagSelector(expression),
+          expression);
+    }
+  }
+
+
+  @Test
+  @DisplayName("Error message equivalence")
+  void testErrorMessage()
+  {
+    for(var expression: new String[] {
+        "", "all-of%(", "all-of(", "all-of(all-of)", "level(tracer)",
+        "throwable(java.lang.String)", "throwable(aa.bb.cc.dd.ee.Class)", "info or" })
+    {
+      var antlrException = assertThrowsExactly(MessageMatcherParserException.class,
+          () -> ANTLR_PARSER.parseMessageMatcher(expression));
+      var exception = assertThrowsExactly(MessageMatcherParserException.class,
+          () -> PARSER.parseMessageMatcher(expression));
+
+      assertEquals(antlrException.getErrorMessage(), exception.getErrorMessage(), expression);
+    }
+  }
+}